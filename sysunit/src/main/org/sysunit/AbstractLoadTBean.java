@@ -0,0 +1,302 @@
+package org.sysunit;
+
+import org.sysunit.metrics.Histogram;
+import org.sysunit.metrics.Counter;
+import org.sysunit.metrics.Metrics;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Abstract open-loop load-generating <code>TBean</code> base class.
+ *
+ * <p>
+ * Operations are started on a fixed schedule of <code>rate</code>
+ * operations per second for <code>duration</code> milliseconds, both
+ * settable as properties of the <code>&lt;tbean&gt;</code>, or until
+ * the <code>runDuration</code> of the test has passed.  The
+ * latency of each operation is measured from when the schedule meant
+ * it to start, not from when it actually started, so an operation
+ * delayed by a slow one before it counts the time it spent waiting,
+ * as a request queued behind it would have.
+ * </p>
+ *
+ * <p>
+ * Latencies, in nanoseconds, are recorded into a
+ * <code>Histogram</code> available once <code>run()</code> returns,
+ * and reported under the name given by the <code>metric</code>
+ * property, <code>latency</code> unless set, merged with those of
+ * every other TBean recording it.  Operations are counted, for the
+ * throughput over the run, under the same name with
+ * <code>.operations</code> appended.
+ * </p>
+ *
+ * <p>
+ * In a test with a warm-up, load is first generated for
+ * <code>warmUpDuration</code> milliseconds, the duration unless set,
+ * and what was recorded then dropped before measuring.
+ * </p>
+ *
+ * @see #operation
+ * @see #getLatencies
+ */
+public abstract class AbstractLoadTBean
+    extends AbstractSynchronizableTBean
+    implements InstrumentedTBean, MeasurableTBean
+{
+
+    // ----------------------------------------------------------------------
+    //     Instance members
+    // ----------------------------------------------------------------------
+
+    /** Operations started per second. */
+    private double rate;
+
+    /** Milliseconds to generate load for. */
+    private long duration;
+
+    /** Milliseconds to warm up for, or -1 for the duration. */
+    private long warmUpDuration;
+
+    /** Name the latencies are reported under. */
+    private String metric;
+
+    /** Latencies from intended start. */
+    private Histogram latencies;
+
+    /** Operations performed. */
+    private Counter operations;
+
+    // ----------------------------------------------------------------------
+    //     Constructors
+    // ----------------------------------------------------------------------
+
+    /**
+     * Construct.
+     */
+    public AbstractLoadTBean()
+    {
+        this.rate           = 1;
+        this.duration       = 1000;
+        this.warmUpDuration = -1;
+        this.metric         = "latency";
+        this.latencies      = new Histogram();
+        this.operations     = new Counter();
+    }
+
+    // ----------------------------------------------------------------------
+    //     Instance methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * Set the arrival rate.
+     *
+     * @param rate Operations started per second.
+     */
+    public void setRate(double rate)
+    {
+        this.rate = rate;
+    }
+
+    /**
+     * Retrieve the arrival rate.
+     *
+     * @return Operations started per second.
+     */
+    public double getRate()
+    {
+        return this.rate;
+    }
+
+    /**
+     * Set how long load is generated for.
+     *
+     * @param duration The duration, in milliseconds.
+     */
+    public void setDuration(long duration)
+    {
+        this.duration = duration;
+    }
+
+    /**
+     * Retrieve how long load is generated for.
+     *
+     * @return The duration, in milliseconds.
+     */
+    public long getDuration()
+    {
+        return this.duration;
+    }
+
+    /**
+     * Set how long load is generated for while warming up.
+     *
+     * @param warmUpDuration The duration, in milliseconds.
+     */
+    public void setWarmUpDuration(long warmUpDuration)
+    {
+        this.warmUpDuration = warmUpDuration;
+    }
+
+    /**
+     * Retrieve how long load is generated for while warming up.
+     *
+     * @return The duration, in milliseconds.
+     */
+    public long getWarmUpDuration()
+    {
+        return ( this.warmUpDuration < 0
+                 ? this.duration
+                 : this.warmUpDuration );
+    }
+
+    /**
+     * Set the name the latencies are reported under.
+     *
+     * @param metric The metric name.
+     */
+    public void setMetric(String metric)
+    {
+        this.metric = metric;
+    }
+
+    /**
+     * Retrieve the name the latencies are reported under.
+     *
+     * @return The metric name.
+     */
+    public String getMetric()
+    {
+        return this.metric;
+    }
+
+    /**
+     * @see InstrumentedTBean
+     */
+    public void setMetrics(Metrics metrics)
+    {
+        this.latencies  = metrics.createHistogram( getMetric() );
+        this.operations = metrics.createCounter( getMetric() + ".operations" );
+    }
+
+    /**
+     * Retrieve the latencies recorded.
+     *
+     * @return The latencies, in nanoseconds.
+     */
+    public Histogram getLatencies()
+    {
+        return this.latencies;
+    }
+
+    /**
+     * Perform one operation of load.
+     *
+     * @throws Throwable If the operation fails, ending the run.
+     */
+    protected abstract void operation()
+        throws Throwable;
+
+    /**
+     * Start operations on schedule until the duration has passed.
+     *
+     * @throws Throwable If an operation fails.
+     */
+    public void run()
+        throws Throwable
+    {
+        generate( this.duration );
+    }
+
+    /**
+     * Start operations on schedule until the warm-up duration has
+     * passed, then drop the latencies recorded.
+     *
+     * @throws Throwable If an operation fails.
+     */
+    public void warmUp()
+        throws Throwable
+    {
+        generate( getWarmUpDuration() );
+
+        this.latencies.reset();
+    }
+
+    /**
+     * Start operations on schedule until the duration has passed.
+     *
+     * @throws Throwable If an operation fails.
+     */
+    public void measure()
+        throws Throwable
+    {
+        generate( this.duration );
+    }
+
+    /**
+     * Start operations on schedule, recording their latencies.
+     *
+     * @param duration Milliseconds to generate load for.
+     *
+     * @throws Throwable If an operation fails.
+     */
+    void generate(long duration)
+        throws Throwable
+    {
+        if ( this.rate <= 0 )
+        {
+            throw new IllegalStateException( "rate must be positive: " + this.rate );
+        }
+
+        double interval = 1000000000d / this.rate;
+
+        long start = System.nanoTime();
+        long end   = start + ( duration * 1000000L );
+
+        for ( long i = 0 ; ; ++i )
+        {
+            long intended = start + (long) ( i * interval );
+
+            if ( intended >= end )
+            {
+                break;
+            }
+
+            waitUntil( intended );
+
+            if ( ! shouldContinue() )
+            {
+                break;
+            }
+
+            operation();
+
+            this.latencies.record( System.nanoTime() - intended );
+
+            this.operations.increment();
+        }
+    }
+
+    /**
+     * Park until a point in time, returning at once if it has passed
+     * because earlier operations ran late.
+     *
+     * @param time The time, as of <code>System.nanoTime()</code>.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    void waitUntil(long time)
+        throws InterruptedException
+    {
+        long remaining;
+
+        while ( ( remaining = time - System.nanoTime() ) > 0 )
+        {
+            LockSupport.parkNanos( remaining );
+
+            if ( Thread.interrupted() )
+            {
+                throw new InterruptedException();
+            }
+        }
+    }
+}
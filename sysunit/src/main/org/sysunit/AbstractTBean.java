@@ -4,9 +4,31 @@ import junit.framework.Assert;
 
 public abstract class AbstractTBean
     extends Assert
-    implements TBean
+    implements StoppableTBean
 {
-    
+    private StopSignal stopSignal;
+
+    /**
+     * @see org.sysunit.StoppableTBean
+     */
+    public void setStopSignal(StopSignal stopSignal)
+    {
+        this.stopSignal = stopSignal;
+    }
+
+    /**
+     * Determine whether a duration-bounded run should continue, always
+     * <code>true</code> for a run that is not bounded.
+     *
+     * @return <code>false</code> once the run's duration has passed.
+     */
+    protected boolean shouldContinue()
+    {
+        return ( this.stopSignal == null
+                 ||
+                 this.stopSignal.shouldContinue() );
+    }
+
     /**
      * @see org.sysunit.TBean
      */
@@ -12,11 +12,26 @@ import junit.framework.AssertionFailedError;
 public class DistributedTestCase
     implements Test {
 
+    public static final String IN_PROCESS_PROPERTY = "sysunit.inprocess";
+
     private ScenarioInfo scenarioInfo;
 
+    private boolean inProcess;
+
     public DistributedTestCase(ScenarioInfo scenarioInfo)
     {
         this.scenarioInfo   = scenarioInfo;
+        this.inProcess      = Boolean.getBoolean( IN_PROCESS_PROPERTY );
+    }
+
+    public void setInProcess(boolean inProcess)
+    {
+        this.inProcess = inProcess;
+    }
+
+    public boolean isInProcess()
+    {
+        return this.inProcess;
     }
 
     public int countTestCases()
@@ -42,27 +57,42 @@ public class DistributedTestCase
         {
             MasterNode master = new MasterNode( getScenarioInfo() );
 
+            master.setInProcess( isInProcess() );
+
             master.start();
 
             try
             {
-                Throwable[] throwables = master.runTest();
-                
-                for ( int i = 0 ; i < throwables.length ; ++i )
-                {
-                    testResult.addError( this,
-                                         throwables[ i ] );
-                }
+                runTest( master,
+                         testResult );
             }
             finally
             {
                 master.stop();
             }
         }
-        catch (InfeasibleTestPlanException e)
+        catch (Throwable t)
         {
-            testResult.addFailure( this,
-                                   new AssertionFailedError( e.getMessage() ) );
+            testResult.addError( this,
+                                 t );
+        }
+        finally
+        {
+            testResult.endTest( this );
+        }
+    }
+
+    // runs on a master shared with other tests, which may be running
+    // at the same time
+    public void run(TestResult testResult,
+                    MasterNode master)
+    {
+        testResult.startTest( this );
+
+        try
+        {
+            runTest( master,
+                     testResult );
         }
         catch (Throwable t)
         {
@@ -75,6 +105,27 @@ public class DistributedTestCase
         }
     }
 
+    void runTest(MasterNode master,
+                 TestResult testResult)
+        throws Exception
+    {
+        try
+        {
+            Throwable[] throwables = master.runTest( getScenarioInfo() );
+
+            for ( int i = 0 ; i < throwables.length ; ++i )
+            {
+                testResult.addError( this,
+                                     throwables[ i ] );
+            }
+        }
+        catch (InfeasibleTestPlanException e)
+        {
+            testResult.addFailure( this,
+                                   new AssertionFailedError( e.getMessage() ) );
+        }
+    }
+
     public String toString()
     {
         return getName();
@@ -0,0 +1,178 @@
+package org.sysunit;
+
+import org.sysunit.testmesh.master.MasterNode;
+
+import junit.framework.Test;
+import junit.framework.TestResult;
+
+import java.util.List;
+import java.util.ArrayList;
+
+public class DistributedTestSuite
+    implements Test {
+
+    public static final String CONCURRENCY_PROPERTY = "sysunit.concurrency";
+
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    private static final DistributedTestCase[] EMPTY_DISTRIBUTEDTESTCASE_ARRAY = new DistributedTestCase[0];
+
+    private String name;
+
+    private List tests;
+
+    private int concurrency;
+
+    private boolean inProcess;
+
+    private int next;
+
+    public DistributedTestSuite()
+    {
+        this( "sysunit" );
+    }
+
+    public DistributedTestSuite(String name)
+    {
+        this.name        = name;
+        this.tests       = new ArrayList();
+        this.concurrency = Integer.getInteger( CONCURRENCY_PROPERTY,
+                                               DEFAULT_CONCURRENCY ).intValue();
+        this.inProcess   = Boolean.getBoolean( DistributedTestCase.IN_PROCESS_PROPERTY );
+    }
+
+    public String getName()
+    {
+        return this.name;
+    }
+
+    public void addTest(DistributedTestCase test)
+    {
+        this.tests.add( test );
+    }
+
+    public DistributedTestCase[] getTests()
+    {
+        return (DistributedTestCase[]) this.tests.toArray( EMPTY_DISTRIBUTEDTESTCASE_ARRAY );
+    }
+
+    // how many tests may run at once; each still waits for the slave
+    // hosts to have room for it
+    public void setConcurrency(int concurrency)
+    {
+        this.concurrency = concurrency;
+    }
+
+    public int getConcurrency()
+    {
+        return this.concurrency;
+    }
+
+    public void setInProcess(boolean inProcess)
+    {
+        this.inProcess = inProcess;
+    }
+
+    public boolean isInProcess()
+    {
+        return this.inProcess;
+    }
+
+    public int countTestCases()
+    {
+        return this.tests.size();
+    }
+
+    // one master, and one classpath server, runs every test; up to
+    // concurrency of them run at a time
+    public void run(final TestResult testResult)
+    {
+        final MasterNode master = new MasterNode();
+
+        master.setInProcess( isInProcess() );
+
+        try
+        {
+            master.start();
+        }
+        catch (Throwable t)
+        {
+            DistributedTestCase[] tests = getTests();
+
+            for ( int i = 0 ; i < tests.length ; ++i )
+            {
+                testResult.startTest( tests[ i ] );
+                testResult.addError( tests[ i ],
+                                     t );
+                testResult.endTest( tests[ i ] );
+            }
+
+            return;
+        }
+
+        this.next = 0;
+
+        Thread[] runners = new Thread[ Math.max( 1,
+                                                 Math.min( getConcurrency(),
+                                                           this.tests.size() ) ) ];
+
+        try
+        {
+            for ( int i = 0 ; i < runners.length ; ++i )
+            {
+                runners[ i ] = new Thread( "DistributedTestSuite-" + i )
+                    {
+                        public void run()
+                        {
+                            DistributedTestCase test = null;
+
+                            while ( ( test = nextTest( testResult ) ) != null )
+                            {
+                                test.run( testResult,
+                                          master );
+                            }
+                        }
+                    };
+
+                runners[ i ].start();
+            }
+
+            for ( int i = 0 ; i < runners.length ; ++i )
+            {
+                runners[ i ].join();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            // swallow
+        }
+        finally
+        {
+            try
+            {
+                master.stop();
+            }
+            catch (InterruptedException e)
+            {
+                // swallow
+            }
+        }
+    }
+
+    synchronized DistributedTestCase nextTest(TestResult testResult)
+    {
+        if ( this.next == this.tests.size()
+             ||
+             testResult.shouldStop() )
+        {
+            return null;
+        }
+
+        return (DistributedTestCase) this.tests.get( this.next++ );
+    }
+
+    public String toString()
+    {
+        return getName();
+    }
+}
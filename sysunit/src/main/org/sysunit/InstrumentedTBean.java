@@ -0,0 +1,20 @@
+package org.sysunit;
+
+import org.sysunit.metrics.Metrics;
+
+/**
+ * A <code>TBean</code> recording named metrics, given the
+ * <code>Metrics</code> of its JVM before it is set up.
+ *
+ * <p>
+ * Histograms created from it are merged by name across every JVM of
+ * the test and reported with its results.
+ * </p>
+ *
+ * @see Metrics#createHistogram
+ */
+public interface InstrumentedTBean
+    extends TBean
+{
+    void setMetrics(Metrics metrics);
+}
@@ -2,6 +2,8 @@ package org.sysunit;
 
 import org.sysunit.testmesh.master.MasterMain;
 import org.sysunit.testmesh.slavehost.SlaveHostMain;
+import org.sysunit.testmesh.registry.RegistryMain;
+import org.sysunit.report.HistoryMain;
 
 public class Main
 {
@@ -29,6 +31,14 @@ public class Main
         {
             SlaveHostMain.main( subArgs );
         }
+        else if ( args[0].equals( "registry" ) )
+        {
+            RegistryMain.main( subArgs );
+        }
+        else if ( args[0].equals( "history" ) )
+        {
+            HistoryMain.main( subArgs );
+        }
         else
         {
             displayUsage();
@@ -38,7 +48,7 @@ public class Main
 
     public static void displayUsage()
     {
-        System.err.println( "usage: java -jar sysunit.jar [slavehost <args>|master <args>]" );
+        System.err.println( "usage: java -jar sysunit.jar [slavehost <args>|master <args>|registry <args>|history <args>]" );
         System.err.println( "" );
         System.err.println( "master <systest> ............ launch a master" );
         System.err.println( "    <systest> ............... specify systest" );
@@ -46,5 +56,18 @@ public class Main
         System.err.println( "slavehost [<config>] ........ launch a slavehost" );
         System.err.println( "    <config> ................ specify config" );
         System.err.println( "" );
+        System.err.println( "registry [<port>] ........... launch a registry that slave" );
+        System.err.println( "                              hosts register with" );
+        System.err.println( "    <port> .................. port, default 4243" );
+        System.err.println( "" );
+        System.err.println( "history [<systest.scenario>]  compare the last run with" );
+        System.err.println( "                              those before it" );
+        System.err.println( "    -dir <dir> .............. history directory" );
+        System.err.println( "    -revision <rev> ......... compare the last run at rev" );
+        System.err.println( "    -baseline <n> ........... passed runs to compare with" );
+        System.err.println( "    -slowdown <percent> ..... smallest slowdown to flag" );
+        System.err.println( "    -delta <ms> ............. smallest increase to flag" );
+        System.err.println( "    -list ................... list the runs instead" );
+        System.err.println( "" );
     }
 }
@@ -0,0 +1,28 @@
+package org.sysunit;
+
+/**
+ * A <code>TBean</code> whose run is split into a warm-up and a
+ * measurement.
+ *
+ * <p>
+ * In a distributed test declaring <code>warmUp="true"</code>, every
+ * JVM's TBeans warm up, JIT-compiling and loading classes, before any
+ * measures, and only the measurement is timed as the run.  TBeans that
+ * are not measurable run in the measurement.  A test without a warm-up
+ * runs the TBean as any other.
+ * </p>
+ *
+ * <p>
+ * Not every TBean warms up, so <code>warmUp()</code> should not
+ * <code>sync()</code>.
+ * </p>
+ */
+public interface MeasurableTBean
+    extends TBean
+{
+    void warmUp()
+        throws Throwable;
+
+    void measure()
+        throws Throwable;
+}
@@ -0,0 +1,36 @@
+package org.sysunit;
+
+/**
+ * Signal that a duration-bounded run should stop.
+ *
+ * <p>
+ * Raised once, when the <code>runDuration</code> of a distributed
+ * test has passed, and read by TBeans between units of work, so that
+ * checking it costs no more than reading a volatile field.
+ * </p>
+ *
+ * @see StoppableTBean
+ */
+public class StopSignal
+{
+    /** Whether raised. */
+    private volatile boolean stopped;
+
+    /**
+     * Raise the signal.
+     */
+    public void stop()
+    {
+        this.stopped = true;
+    }
+
+    /**
+     * Determine whether the run should continue.
+     *
+     * @return <code>true</code> until the signal is raised.
+     */
+    public boolean shouldContinue()
+    {
+        return ! this.stopped;
+    }
+}
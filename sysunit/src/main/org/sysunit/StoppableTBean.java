@@ -0,0 +1,14 @@
+package org.sysunit;
+
+/**
+ * A <code>TBean</code> given the <code>StopSignal</code> of its JVM
+ * before it is set up, which it observes to end a duration-bounded
+ * run.
+ *
+ * @see StopSignal
+ */
+public interface StoppableTBean
+    extends TBean
+{
+    void setStopSignal(StopSignal stopSignal);
+}
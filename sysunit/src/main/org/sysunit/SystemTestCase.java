@@ -8,6 +8,11 @@ import org.sysunit.util.TBeanThread;
 import org.sysunit.util.TBeanThreadCallback;
 import org.sysunit.sync.Synchronizer;
 import org.sysunit.sync.SynchronizerCallback;
+import org.sysunit.report.TestReport;
+import org.sysunit.report.JvmResult;
+import org.sysunit.report.ReportedFailure;
+import org.sysunit.report.TBeanTimings;
+import org.sysunit.metrics.Metrics;
 
 import junit.framework.Assert;
 import junit.framework.Test;
@@ -18,6 +23,9 @@ import junit.framework.TestListener;
 
 import java.io.InputStreamReader;
 import java.io.BufferedReader;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Iterator;
 
 public class SystemTestCase
     extends Assert
@@ -25,6 +33,7 @@ public class SystemTestCase
 {
 
     private static final Object[] EMPTY_OBJECT_ARRAY = new Object[0];
+    private static final ReportedFailure[] EMPTY_REPORTEDFAILURE_ARRAY = new ReportedFailure[0];
 
     private Thread testThread;
     private TestResult testResult;
@@ -32,10 +41,14 @@ public class SystemTestCase
     private boolean testPassed;
 
     private Synchronizer synchronizer;
+    private Metrics metrics;
 
     private TBeanThread[] threads;
 
     private boolean runComplete;
+
+    private TestReport report;
+    private List failures;
     
     public SystemTestCase()
     {
@@ -85,11 +98,13 @@ public class SystemTestCase
 	    public void addFailure(Test test, AssertionFailedError t) {
 	      if ( SystemTestCase.this == test ) {
 		SystemTestCase.this.testPassed = false;
+		addReportedFailure( null, null, t );
 	      }
 	    }
 	    public void addError(Test test, Throwable t) {
 	      if ( SystemTestCase.this == test ) {
 		SystemTestCase.this.testPassed = false;
+		addReportedFailure( null, null, t );
 	      }
 	    }
 	  };
@@ -98,6 +113,12 @@ public class SystemTestCase
 
         this.testResult.startTest( this );
 
+        this.report   = new TestReport( getClass().getName(),
+                                        null );
+        this.failures = new ArrayList();
+
+        this.report.start();
+
         try
         {
             SystemTestInfo testInfo = SystemTestInfoBuilder.build( this );
@@ -195,6 +216,7 @@ public class SystemTestCase
                     }
                 }
             }
+            writeReport();
             this.testResult.endTest( this );
 	    this.testResult.removeListener( listener );
             this.testResult = null;
@@ -242,6 +264,18 @@ public class SystemTestCase
             }
         }
 
+        this.metrics = new Metrics();
+
+        for ( int i = 0 ; i < threads.length ; ++i )
+        {
+            TBean tbean = threads[ i ].getTBean();
+
+            if ( tbean instanceof InstrumentedTBean )
+            {
+                ((InstrumentedTBean)tbean).setMetrics( this.metrics );
+            }
+        }
+
         return threads;
 
     }
@@ -346,6 +380,8 @@ public class SystemTestCase
     boolean performSetUp(TBeanThread[] threads)
         throws InterruptedException
     {
+        long start = System.currentTimeMillis();
+
         this.completed = 0;
 
         for ( int i = 0 ; i < threads.length ; ++i )
@@ -355,12 +391,17 @@ public class SystemTestCase
 
         waitFor( threads );
 
+        this.report.setPhaseTime( TBeanTimings.SET_UP,
+                                  System.currentTimeMillis() - start );
+
         return ( this.testPassed );
     }
 
     boolean performRun(TBeanThread[] threads)
         throws InterruptedException
     {
+        long start = System.currentTimeMillis();
+
         this.completed = 0;
 
         for ( int i = 0 ; i < threads.length ; ++i )
@@ -370,12 +411,17 @@ public class SystemTestCase
 
         waitFor( threads );
 
+        this.report.setPhaseTime( TBeanTimings.RUN,
+                                  System.currentTimeMillis() - start );
+
         return ( this.testPassed );
     }
 
     boolean performAssertValid(TBeanThread[] threads)
         throws InterruptedException
     {
+        long start = System.currentTimeMillis();
+
         this.completed = 0;
 
         for ( int i = 0 ; i < threads.length ; ++i )
@@ -385,12 +431,17 @@ public class SystemTestCase
 
         waitFor( threads );
 
+        this.report.setPhaseTime( TBeanTimings.ASSERT_VALID,
+                                  System.currentTimeMillis() - start );
+
         return ( this.testPassed );
     }
 
     boolean performTearDown(TBeanThread[] threads)
         throws InterruptedException
     {
+        long start = System.currentTimeMillis();
+
         this.completed = 0;
 
         for ( int i = 0 ; i < threads.length ; ++i )
@@ -400,12 +451,22 @@ public class SystemTestCase
 
         waitFor( threads );
 
+        this.report.setPhaseTime( TBeanTimings.TEAR_DOWN,
+                                  System.currentTimeMillis() - start );
+
         return ( this.testPassed );
     }
 
     public void notifySetUp(TBeanThread thread)
     {
-        notifyStepComplete( thread );
+        notifyStepComplete( thread,
+                            TBeanTimings.SET_UP );
+    }
+
+    public void notifyWarmUp(TBeanThread thread)
+    {
+        notifyStepComplete( thread,
+                            TBeanTimings.WARM_UP );
     }
 
     public void notifyRun(TBeanThread thread)
@@ -415,18 +476,21 @@ public class SystemTestCase
             this.runComplete = true;
             notifyAll();
         }
-        notifyStepComplete( thread );
+        notifyStepComplete( thread,
+                            TBeanTimings.RUN );
         this.synchronizer.reduceNumThreads();
     }
 
     public void notifyAssertValid(TBeanThread thread)
     {
-        notifyStepComplete( thread );
+        notifyStepComplete( thread,
+                            TBeanTimings.ASSERT_VALID );
     }
 
     public void notifyTearDown(TBeanThread thread)
     {
-        notifyStepComplete( thread );
+        notifyStepComplete( thread,
+                            TBeanTimings.TEAR_DOWN );
     }
 
     public void notifyFullyBlocked(Synchronizer synchronizer)
@@ -455,12 +519,17 @@ public class SystemTestCase
                                   new InconsistentSyncException( null, null ) );
     }
 
-    synchronized void notifyStepComplete(TBeanThread thread)
+    synchronized void notifyStepComplete(TBeanThread thread,
+                                         String phase)
     {
         Throwable thrown = thread.getThrown();
 
         if ( thrown != null )
         {
+            addReportedFailure( thread.getName(),
+                                phase,
+                                thrown );
+
             if ( thrown instanceof AssertionFailedError )
             {
                 this.testResult.addFailure( this,
@@ -478,6 +547,86 @@ public class SystemTestCase
         notifyAll();
     }
 
+    // a TBean's failure is recorded with its phase before it reaches
+    // the test result, so is not recorded again from there.  Called
+    // holding the test result's lock, so takes only the failures' own
+    void addReportedFailure(String tbeanId,
+                            String phase,
+                            Throwable thrown)
+    {
+        synchronized ( this.failures )
+        {
+            for ( Iterator failureIter = this.failures.iterator();
+                  failureIter.hasNext() ; )
+            {
+                if ( ((ReportedFailure)failureIter.next()).getThrown() == thrown )
+                {
+                    return;
+                }
+            }
+
+            this.failures.add( new ReportedFailure( tbeanId,
+                                                    phase,
+                                                    thrown ) );
+        }
+    }
+
+    // the whole test ran in this JVM, so reports as a single JVM
+    synchronized void writeReport()
+    {
+        List tbeanFailures = new ArrayList();
+        List failures      = null;
+
+        synchronized ( this.failures )
+        {
+            failures = new ArrayList( this.failures );
+        }
+
+        for ( Iterator failureIter = failures.iterator();
+              failureIter.hasNext() ; )
+        {
+            ReportedFailure failure = (ReportedFailure) failureIter.next();
+
+            if ( failure.getTBeanId() == null )
+            {
+                this.report.addFailure( failure );
+            }
+            else
+            {
+                tbeanFailures.add( failure );
+            }
+        }
+
+        int barriers = 0;
+
+        if ( this.threads != null )
+        {
+            TBeanTimings[] timings = new TBeanTimings[ this.threads.length ];
+
+            for ( int i = 0 ; i < timings.length ; ++i )
+            {
+                timings[ i ] = this.threads[ i ].getTimings();
+            }
+
+            JvmResult jvm = new JvmResult( 0,
+                                           "local",
+                                           timings );
+
+            jvm.setSyncStatistics( this.synchronizer.getSyncs(),
+                                   this.synchronizer.getWaitTime() );
+
+            jvm.setHistograms( this.metrics.getHistograms() );
+
+            jvm.setFailures( (ReportedFailure[]) tbeanFailures.toArray( EMPTY_REPORTEDFAILURE_ARRAY ) );
+
+            this.report.addJvm( jvm );
+
+            barriers = this.synchronizer.getBarriers();
+        }
+
+        this.report.finish( barriers );
+    }
+
     synchronized void waitFor(TBeanThread[] threads)
         throws InterruptedException
     {
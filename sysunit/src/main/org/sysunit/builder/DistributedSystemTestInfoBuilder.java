@@ -2,6 +2,8 @@ package org.sysunit.builder;
 
 import org.sysunit.model.DistributedSystemTestInfo;
 import org.sysunit.model.JvmInfo;
+import org.sysunit.model.AffinityInfo;
+import org.sysunit.model.RampInfo;
 import org.sysunit.model.TBeanInfo;
 import org.sysunit.model.ThreadInfo;
 
@@ -63,6 +65,24 @@ public class DistributedSystemTestInfoBuilder
         {
             startTBean( attrs );
         }
+        else if ( localName.equals( "jvmArg" ) )
+        {
+            startJvmArg( attrs );
+        }
+        else if ( localName.equals( "affinity" ) )
+        {
+            startAffinity( attrs,
+                           false );
+        }
+        else if ( localName.equals( "antiAffinity" ) )
+        {
+            startAffinity( attrs,
+                           true );
+        }
+        else if ( localName.equals( "ramp" ) )
+        {
+            startRamp( attrs );
+        }
         else
         {
             throw new ParseException( "unknown element: " + localName,
@@ -87,6 +107,18 @@ public class DistributedSystemTestInfoBuilder
         {
             endTBean();
         }
+        else if ( localName.equals( "jvmArg" ) )
+        {
+            endJvmArg();
+        }
+        else if ( localName.equals( "affinity" )
+                  ||
+                  localName.equals( "antiAffinity" )
+                  ||
+                  localName.equals( "ramp" ) )
+        {
+            // nothing to do
+        }
         else
         {
             throw new ParseException( "unknown element: " + localName,
@@ -109,10 +141,38 @@ public class DistributedSystemTestInfoBuilder
 
         this.testInfo.setTimeout( timeout );
 
+        this.testInfo.setRunDuration( optionalDuration( "runDuration",
+                                                        attrs,
+                                                        0L ) );
+
+        this.testInfo.setWarmUp( optionalAttribute( "warmUp",
+                                                    attrs,
+                                                    false ) );
+
+        this.testInfo.setGcAfterWarmUp( optionalAttribute( "gcAfterWarmUp",
+                                                           attrs,
+                                                           false ) );
     }
 
+    // affinities may name JVMs declared after their own
     public void endSystemTest()
+        throws SAXException
     {
+        JvmInfo[] jvms = this.testInfo.getJvms();
+
+        for ( int i = 0 ; i < jvms.length ; ++i )
+        {
+            AffinityInfo[] affinities = jvms[ i ].getAffinities();
+
+            for ( int j = 0 ; j < affinities.length ; ++j )
+            {
+                if ( this.testInfo.getJvm( affinities[ j ].getJvm() ) == null )
+                {
+                    throw new ParseException( "no such jvm for " + affinities[ j ] + " of " + jvms[ i ].getName(),
+                                              this.locator );
+                }
+            }
+        }
     }
 
     public void startJvm(Attributes attrs)
@@ -128,6 +188,50 @@ public class DistributedSystemTestInfoBuilder
 
         this.jvmInfo = new JvmInfo( name,
                                     count );
+
+        String heap = optionalAttribute( "heap",
+                                         attrs );
+
+        if ( heap != null )
+        {
+            if ( ! heap.matches( "[0-9]+[kKmMgG]?" ) )
+            {
+                throw new ParseException( "invalid heap size: " + heap,
+                                          this.locator );
+            }
+
+            this.jvmInfo.setHeap( heap );
+        }
+
+        String gc = optionalAttribute( "gc",
+                                       attrs );
+
+        if ( gc != null )
+        {
+            if ( ! gc.matches( "[A-Za-z0-9]+" ) )
+            {
+                throw new ParseException( "invalid gc: " + gc,
+                                          this.locator );
+            }
+
+            this.jvmInfo.setGc( gc );
+        }
+
+        int weight = optionalAttribute( "weight",
+                                        attrs,
+                                        1 );
+
+        if ( weight < 1 )
+        {
+            throw new ParseException( "invalid weight: " + weight,
+                                      this.locator );
+        }
+
+        this.jvmInfo.setWeight( weight );
+
+        this.jvmInfo.setVirtualThreads( optionalAttribute( "virtualThreads",
+                                                           attrs,
+                                                           false ) );
     }
 
     public void endJvm()
@@ -144,7 +248,7 @@ public class DistributedSystemTestInfoBuilder
                                               attrs );
 
         Properties properties = getProperties( attrs,
-                                               new String[] { "class", "className", "count" } );
+                                               new String[] { "class", "className", "count", "virtualThreads" } );
 
         int count = optionalAttribute( "count",
                                        attrs,
@@ -153,6 +257,10 @@ public class DistributedSystemTestInfoBuilder
         this.tbeanInfo = new TBeanInfo( className,
                                         properties,
                                         count );
+
+        this.tbeanInfo.setVirtualThreads( optionalAttribute( "virtualThreads",
+                                                             attrs,
+                                                             this.jvmInfo.isVirtualThreads() ) );
     }
 
     public void endTBean()
@@ -161,6 +269,101 @@ public class DistributedSystemTestInfoBuilder
         this.tbeanInfo = null;
     }
 
+    public void startJvmArg(Attributes attrs)
+        throws SAXException
+    {
+        if ( this.jvmInfo == null )
+        {
+            throw new ParseException( "<jvmArg> only allowed within <jvm>",
+                                      this.locator );
+        }
+
+        String value = requiredAttribute( "jvmArg",
+                                          "value",
+                                          attrs );
+
+        this.jvmInfo.addJvmArg( value );
+    }
+
+    public void endJvmArg()
+    {
+    }
+
+    public void startAffinity(Attributes attrs,
+                              boolean anti)
+        throws SAXException
+    {
+        String element = ( anti
+                           ? "antiAffinity"
+                           : "affinity" );
+
+        if ( this.jvmInfo == null )
+        {
+            throw new ParseException( "<" + element + "> only allowed within <jvm>",
+                                      this.locator );
+        }
+
+        String jvm = requiredAttribute( element,
+                                        "jvm",
+                                        attrs );
+
+        String level = optionalAttribute( "level",
+                                          attrs,
+                                          AffinityInfo.HOST );
+
+        this.jvmInfo.addAffinity( new AffinityInfo( jvm,
+                                                    level,
+                                                    anti ) );
+    }
+
+    public void startRamp(Attributes attrs)
+        throws SAXException
+    {
+        if ( this.testInfo == null
+             ||
+             this.jvmInfo != null )
+        {
+            throw new ParseException( "<ramp> only allowed within <systemTest>",
+                                      this.locator );
+        }
+
+        String profile = optionalAttribute( "profile",
+                                            attrs,
+                                            RampInfo.LINEAR );
+
+        if ( ! profile.equals( RampInfo.LINEAR )
+             &&
+             ! profile.equals( RampInfo.STEPPED ) )
+        {
+            throw new ParseException( "invalid ramp profile: " + profile,
+                                      this.locator );
+        }
+
+        long duration = optionalDuration( "duration",
+                                          attrs,
+                                          -1L );
+
+        if ( duration <= 0 )
+        {
+            throw new ParseException( "attribute 'duration' required on <ramp>",
+                                      this.locator );
+        }
+
+        int steps = optionalAttribute( "steps",
+                                       attrs,
+                                       1 );
+
+        if ( steps < 1 )
+        {
+            throw new ParseException( "invalid steps: " + steps,
+                                      this.locator );
+        }
+
+        this.testInfo.setRamp( new RampInfo( profile,
+                                             duration,
+                                             steps ) );
+    }
+
     // ----------------------------------------------------------------------
     // ----------------------------------------------------------------------
 
@@ -332,6 +535,87 @@ public class DistributedSystemTestInfoBuilder
         }
     }
     
+    // millis, or with a unit of ms, s, m or h, such as 300s
+    protected long optionalDuration(String name,
+                                    Attributes attrs,
+                                    long defaultValue)
+        throws SAXException
+    {
+        String durationStr = optionalAttribute( name,
+                                                attrs );
+
+        if ( durationStr == null )
+        {
+            return defaultValue;
+        }
+
+        if ( ! durationStr.matches( "[0-9]+(ms|s|m|h)?" ) )
+        {
+            throw new ParseException( "invalid duration: " + durationStr,
+                                      this.locator );
+        }
+
+        long multiplier = 1;
+
+        if ( durationStr.endsWith( "ms" ) )
+        {
+            durationStr = durationStr.substring( 0, durationStr.length() - 2 );
+        }
+        else if ( durationStr.endsWith( "s" ) )
+        {
+            multiplier  = 1000;
+            durationStr = durationStr.substring( 0, durationStr.length() - 1 );
+        }
+        else if ( durationStr.endsWith( "m" ) )
+        {
+            multiplier  = 60 * 1000;
+            durationStr = durationStr.substring( 0, durationStr.length() - 1 );
+        }
+        else if ( durationStr.endsWith( "h" ) )
+        {
+            multiplier  = 60 * 60 * 1000;
+            durationStr = durationStr.substring( 0, durationStr.length() - 1 );
+        }
+
+        try
+        {
+            return Long.parseLong( durationStr ) * multiplier;
+        }
+        catch (NumberFormatException e)
+        {
+            throw new ParseException( "error parsing duration attribute",
+                                      this.locator,
+                                      e );
+        }
+    }
+
+    protected boolean optionalAttribute(String name,
+                                        Attributes attrs,
+                                        boolean defaultValue)
+        throws SAXException
+    {
+        String booleanStr = optionalAttribute( name,
+                                               attrs );
+
+        if ( booleanStr == null )
+        {
+            return defaultValue;
+        }
+
+        if ( booleanStr.equals( "true" ) )
+        {
+            return true;
+        }
+
+        if ( booleanStr.equals( "false" ) )
+        {
+            return false;
+        }
+
+        throw new ParseException( "error parsing boolean attribute",
+                                  this.locator );
+    }
+
     // ----------------------------------------------------------------------
     // ----------------------------------------------------------------------
 
@@ -3,12 +3,14 @@ package org.sysunit.builder;
 import org.sysunit.model.ScenarioInfo;
 import org.sysunit.model.DistributedSystemTestInfo;
 import org.sysunit.model.JvmInfo;
+import org.sysunit.testmesh.TagExpression;
 
 import java.io.File;
 import java.io.InputStream;
 import java.io.FileInputStream;
 import java.lang.reflect.Method;
 import java.util.Properties;
+import java.util.StringTokenizer;
 
 public class ScenarioInfoBuilder
 {
@@ -55,15 +57,35 @@ public class ScenarioInfoBuilder
         ScenarioInfo scenarioInfo = new ScenarioInfo( scenarioName,
                                                       testInfo );
 
+        String placement = props.getProperty( "placement" );
+
+        if ( placement != null )
+        {
+            placement = placement.trim();
+
+            if ( ! placement.equals( ScenarioInfo.ROUND_ROBIN )
+                 &&
+                 ! placement.equals( ScenarioInfo.BIN_PACKING ) )
+            {
+                throw new IllegalArgumentException( "unknown placement: " + placement );
+            }
+
+            scenarioInfo.setPlacement( placement );
+        }
+
         JvmInfo[] jvms = testInfo.getJvms();
 
         String defaultTag = props.getProperty( "jvm.*.tag" );
         String defaultJdk = props.getProperty( "jvm.*.jdk" );
+        String defaultOpts = props.getProperty( "jvm.*.opts" );
+        String defaultSpread = props.getProperty( "jvm.*.spread" );
                 
         for ( int i = 0 ; i < jvms.length ; ++i )
         {
             String tag = props.getProperty( "jvm." + jvms[i].getName() + ".tag" );
             String jdk = props.getProperty( "jvm." + jvms[i].getName() + ".jdk" );
+            String opts = props.getProperty( "jvm." + jvms[i].getName() + ".opts" );
+            String spread = props.getProperty( "jvm." + jvms[i].getName() + ".spread" );
 
             if ( tag == null )
             {
@@ -73,6 +95,10 @@ public class ScenarioInfoBuilder
             if ( tag != null )
             {
                 tag = tag.trim();
+
+                // throws IllegalArgumentException if invalid
+                TagExpression.parse( tag );
+
                 scenarioInfo.setTag( jvms[ i ],
                                      tag );
             }
@@ -88,8 +114,44 @@ public class ScenarioInfoBuilder
                 scenarioInfo.setJdk( jvms[ i ],
                                      jdk );
             }
+
+            if ( opts == null )
+            {
+                opts = defaultOpts;
+            }
+
+            if ( opts != null )
+            {
+                scenarioInfo.setJvmOptions( jvms[ i ],
+                                            split( opts ) );
+            }
+
+            if ( spread == null )
+            {
+                spread = defaultSpread;
+            }
+
+            if ( spread != null )
+            {
+                scenarioInfo.setSpread( jvms[ i ],
+                                        Boolean.valueOf( spread.trim() ).booleanValue() );
+            }
         }
 
         return scenarioInfo;
     }
+
+    static String[] split(String opts)
+    {
+        StringTokenizer tokens = new StringTokenizer( opts );
+
+        String[] split = new String[ tokens.countTokens() ];
+
+        for ( int i = 0 ; i < split.length ; ++i )
+        {
+            split[ i ] = tokens.nextToken();
+        }
+
+        return split;
+    }
 }
@@ -1,6 +1,5 @@
 package org.sysunit.mesh;
 
-import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -8,9 +7,9 @@ public class CommandGroup
 {
     private List uids;
 
-    private Map inFlightCommands;
+    private InFlightCommands inFlightCommands;
 
-    CommandGroup(Map inFlightCommands)
+    CommandGroup(InFlightCommands inFlightCommands)
     {
         this.inFlightCommands = inFlightCommands;
         this.uids             = new ArrayList();
@@ -24,22 +23,6 @@ public class CommandGroup
     public void waitFor()
         throws InterruptedException
     {
-        synchronized ( this.inFlightCommands )
-        {
-          WAIT:
-            while ( true )
-            {
-                List notInFlight = new ArrayList( this.uids );
-
-                notInFlight.removeAll( this.inFlightCommands.keySet() );
-
-                if ( notInFlight.size() == this.uids.size() )
-                {
-                    break WAIT;
-                }
-
-                this.inFlightCommands.wait();
-            }
-        }
+        this.inFlightCommands.waitForAll( this.uids );
     }
 }
@@ -0,0 +1,155 @@
+package org.sysunit.mesh;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.Condition;
+
+// the commands a node has sent and not yet heard back about.  Waiting
+// is done on a Lock rather than a monitor, so a virtual TBean thread
+// reporting to the master does not pin its carrier for the round trip
+class InFlightCommands
+{
+    private Map commands;
+
+    private Lock lock;
+    private Condition changed;
+
+    InFlightCommands()
+    {
+        this.commands = new HashMap();
+        this.lock     = new ReentrantLock();
+        this.changed  = this.lock.newCondition();
+    }
+
+    void add(Command command)
+    {
+        this.lock.lock();
+
+        try
+        {
+            this.commands.put( command.getUid() + "",
+                               command );
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    void remove(int uid)
+    {
+        this.lock.lock();
+
+        try
+        {
+            this.commands.remove( uid + "" );
+            this.changed.signalAll();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    Command get(int uid)
+    {
+        this.lock.lock();
+
+        try
+        {
+            return (Command) this.commands.get( uid + "" );
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    void waitFor(int uid)
+        throws InterruptedException
+    {
+        this.lock.lock();
+
+        try
+        {
+            while ( this.commands.containsKey( uid + "" ) )
+            {
+                this.changed.await();
+            }
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    // false if the command is still in flight after timeout millis
+    boolean waitFor(int uid,
+                    long timeout)
+        throws InterruptedException
+    {
+        long stop = System.currentTimeMillis() + timeout;
+
+        this.lock.lock();
+
+        try
+        {
+            while ( this.commands.containsKey( uid + "" ) )
+            {
+                long left = stop - System.currentTimeMillis();
+
+                if ( left <= 0 )
+                {
+                    return false;
+                }
+
+                this.changed.await( left,
+                                    TimeUnit.MILLISECONDS );
+            }
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+
+        return true;
+    }
+
+    // uids are the string keys CommandGroup collects
+    void waitForAll(List uids)
+        throws InterruptedException
+    {
+        this.lock.lock();
+
+        try
+        {
+            while ( isAnyInFlight( uids ) )
+            {
+                this.changed.await();
+            }
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    boolean isAnyInFlight(List uids)
+    {
+        for ( Iterator uidIter = uids.iterator();
+              uidIter.hasNext() ; )
+        {
+            if ( this.commands.containsKey( uidIter.next() ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -16,18 +16,30 @@ public class NetworkedNode
     private Server server;
 
     public NetworkedNode(String name)
+    {
+        this( name,
+              0 );
+    }
+
+    public NetworkedNode(String name,
+                         int port)
     {
         super( name );
 
         this.server = new Server( 1,
-                                  this );
+                                  this,
+                                  port );
     }
 
     public void start()
         throws Exception
     {
         super.start();
-        this.server.start();
+
+        if ( isListening() )
+        {
+            this.server.start();
+        }
     }
 
     public void stop()
@@ -35,10 +47,19 @@ public class NetworkedNode
     {
         //System.err.println( "NetworkedNode::stop()" );
         super.stop();
-        this.server.stop();
+
+        if ( isListening() )
+        {
+            this.server.stop();
+        }
         //System.err.println( "NetworkedNode::complete()" );
     }
 
+    protected boolean isListening()
+    {
+        return true;
+    }
+
     protected Server getServer()
     {
         return this.server;
@@ -46,6 +67,11 @@ public class NetworkedNode
 
     public int getPort()
     {
+        if ( ! isListening() )
+        {
+            return super.getPort();
+        }
+
         return getServer().getPort();
     }
     
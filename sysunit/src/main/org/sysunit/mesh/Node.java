@@ -15,10 +15,9 @@ import java.net.InetAddress;
 import java.net.Socket;
 import java.net.ServerSocket;
 import java.net.SocketTimeoutException;
-import java.util.Map;
-import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Node
 {
@@ -27,11 +26,12 @@ public class Node
     private String name;
     private LocalNodeInfo localNodeInfo;
 
-    private int uidCounter;
+    // commands are sent from many threads at once on a shared master
+    private AtomicInteger uidCounter;
 
     private ThreadPool pool;
 
-    private Map inFlightCommands;
+    private InFlightCommands inFlightCommands;
 
     private List fundamentalErrors;
 
@@ -40,11 +40,11 @@ public class Node
         this.name          = name;
         this.localNodeInfo = new LocalNodeInfo( this,
                                                 this );
-        this.uidCounter    = 0;
+        this.uidCounter    = new AtomicInteger();
 
         this.pool = new ThreadPool( 4 );
 
-        this.inFlightCommands = new HashMap();
+        this.inFlightCommands = new InFlightCommands();
 
         this.fundamentalErrors = new ArrayList();
     }
@@ -126,23 +126,35 @@ public class Node
 
     public Throwable[] getFundamentalErrors()
     {
-        return (Throwable[]) this.fundamentalErrors.toArray( EMPTY_THROWABLE_ARRAY );
+        synchronized ( this.fundamentalErrors )
+        {
+            return (Throwable[]) this.fundamentalErrors.toArray( EMPTY_THROWABLE_ARRAY );
+        }
     }
 
     protected void addFundamentalError(Throwable error)
     {
-        this.fundamentalErrors.add( error );
+        synchronized ( this.fundamentalErrors )
+        {
+            this.fundamentalErrors.add( error );
+        }
     }
     
     void reportError(int uid,
                      Throwable thrown)
     {
-        Command command = getInFlightCommand( uid );
-
-        this.fundamentalErrors.add( thrown );
+        commandFailed( uid,
+                       thrown );
         removeInFlightCommand( uid );
     }
 
+    // a command this node sent threw where it was executed
+    protected void commandFailed(int uid,
+                                 Throwable thrown)
+    {
+        addFundamentalError( thrown );
+    }
+
     void reportCompletion(int uid)
     {
         removeInFlightCommand( uid );
@@ -150,45 +162,37 @@ public class Node
 
     void addInFlightCommand(Command command)
     {
-        synchronized ( this.inFlightCommands )
-        {
-            this.inFlightCommands.put( command.getUid() + "",
-                                       command );
-        }
+        this.inFlightCommands.add( command );
     }
 
     void removeInFlightCommand(int uid)
     {
-        synchronized ( this.inFlightCommands )
-        {
-            this.inFlightCommands.remove( uid + "" );
-            this.inFlightCommands.notifyAll();
-        }
+        this.inFlightCommands.remove( uid );
     }
 
     Command getInFlightCommand(int uid)
     {
-        synchronized ( this.inFlightCommands )
-        {
-            return (Command) this.inFlightCommands.get( uid + "" );
-        }
+        return this.inFlightCommands.get( uid );
     }
 
     protected void waitFor(int uid)
         throws InterruptedException
     {
-        synchronized ( this.inFlightCommands )
-        {
-            while ( this.inFlightCommands.containsKey( uid + "" ) )
-            {
-                this.inFlightCommands.wait();
-            }
-        }
+        this.inFlightCommands.waitFor( uid );
+    }
+
+    // false if the command is still in flight after timeout millis
+    protected boolean waitFor(int uid,
+                              long timeout)
+        throws InterruptedException
+    {
+        return this.inFlightCommands.waitFor( uid,
+                                              timeout );
     }
 
     int getNextUid()
     {
-        return ++this.uidCounter;
+        return this.uidCounter.incrementAndGet();
     }
 
     Command duplicate(Command command)
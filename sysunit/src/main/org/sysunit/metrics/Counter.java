@@ -0,0 +1,74 @@
+package org.sysunit.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// a count shared by every thread of a JVM, such as of requests sent.
+// Each thread adds into one of several cells, chosen by its id and a
+// cache line apart, so that threads counting at once seldom contend
+// for the same line; adding allocates nothing and takes no lock, and
+// the count is the sum of the cells
+public class Counter
+{
+    // longs to a cache line
+    private static final int PAD = 8;
+
+    private static final int STRIPES = stripes( Runtime.getRuntime().availableProcessors() );
+
+    private AtomicLongArray cells;
+
+    public Counter()
+    {
+        this.cells = new AtomicLongArray( STRIPES * PAD );
+    }
+
+    public void increment()
+    {
+        add( 1 );
+    }
+
+    public void add(long n)
+    {
+        this.cells.addAndGet( ( (int) Thread.currentThread().getId() & ( STRIPES - 1 ) ) * PAD,
+                              n );
+    }
+
+    // exact once every thread has stopped adding
+    public long get()
+    {
+        long sum = 0;
+
+        for ( int i = 0 ; i < STRIPES ; ++i )
+        {
+            sum += this.cells.get( i * PAD );
+        }
+
+        return sum;
+    }
+
+    public void reset()
+    {
+        for ( int i = 0 ; i < STRIPES ; ++i )
+        {
+            this.cells.set( i * PAD,
+                            0 );
+        }
+    }
+
+    public String toString()
+    {
+        return "[Counter: " + get() + "]";
+    }
+
+    // the power of 2 at least twice the processors
+    static int stripes(int processors)
+    {
+        int stripes = 1;
+
+        while ( stripes < processors * 2 )
+        {
+            stripes <<= 1;
+        }
+
+        return stripes;
+    }
+}
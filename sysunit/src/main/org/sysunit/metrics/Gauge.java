@@ -0,0 +1,36 @@
+package org.sysunit.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// a level shared by every thread of a JVM, such as of connections
+// open, set outright or moved up and down; sampled for its value at
+// the time rather than what was added since
+public class Gauge
+{
+    private AtomicLong value;
+
+    public Gauge()
+    {
+        this.value = new AtomicLong();
+    }
+
+    public void set(long value)
+    {
+        this.value.set( value );
+    }
+
+    public void add(long n)
+    {
+        this.value.addAndGet( n );
+    }
+
+    public long get()
+    {
+        return this.value.get();
+    }
+
+    public String toString()
+    {
+        return "[Gauge: " + get() + "]";
+    }
+}
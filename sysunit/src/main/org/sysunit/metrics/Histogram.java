@@ -0,0 +1,194 @@
+package org.sysunit.metrics;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+// counts of non-negative values, such as latencies in nanos, in
+// buckets of fixed memory: values below 128 each have their own, and
+// each doubling above is split into 64, so a value is kept to within
+// 1 part in 64 however large.  Recording allocates nothing and takes
+// no lock, so a histogram belongs to one thread at a time; those of
+// several threads, or JVMs, are merged into one afterwards, which is
+// as exact as recording every value into it
+public class Histogram
+    implements Serializable
+{
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS     = 1 << SUB_BUCKET_BITS;
+
+    // enough for every positive long
+    private static final int BUCKETS = ( 64 - SUB_BUCKET_BITS ) * SUB_BUCKETS;
+
+    private long[] counts;
+    private long count;
+    private long total;
+    private long min;
+    private long max;
+
+    public Histogram()
+    {
+        this.counts = new long[ BUCKETS ];
+        this.min    = Long.MAX_VALUE;
+        this.max    = 0;
+    }
+
+    // negative values count as 0
+    public void record(long value)
+    {
+        if ( value < 0 )
+        {
+            value = 0;
+        }
+
+        ++this.counts[ indexOf( value ) ];
+        ++this.count;
+
+        this.total += value;
+
+        if ( value < this.min )
+        {
+            this.min = value;
+        }
+
+        if ( value > this.max )
+        {
+            this.max = value;
+        }
+    }
+
+    public long getCount()
+    {
+        return this.count;
+    }
+
+    // 0 if nothing is recorded
+    public long getMin()
+    {
+        return ( ( this.count == 0 )
+                 ? 0
+                 : this.min );
+    }
+
+    public long getMax()
+    {
+        return this.max;
+    }
+
+    public double getMean()
+    {
+        return ( ( this.count == 0 )
+                 ? 0
+                 : (double) this.total / this.count );
+    }
+
+    // the value the given percent of recorded values are at or below,
+    // as the highest value of its bucket, but never above the max
+    public long getValueAtPercentile(double percentile)
+    {
+        if ( this.count == 0 )
+        {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil( Math.min( 100,
+                                                Math.max( 0,
+                                                          percentile ) ) / 100 * this.count );
+
+        if ( rank < 1 )
+        {
+            rank = 1;
+        }
+
+        long seen = 0;
+
+        for ( int i = 0 ; i < this.counts.length ; ++i )
+        {
+            seen += this.counts[ i ];
+
+            if ( seen >= rank )
+            {
+                return Math.min( highestValueOf( i ),
+                                 this.max );
+            }
+        }
+
+        return this.max;
+    }
+
+    // adds the other's values to this one's
+    public void merge(Histogram other)
+    {
+        for ( int i = 0 ; i < this.counts.length ; ++i )
+        {
+            this.counts[ i ] += other.counts[ i ];
+        }
+
+        this.count += other.count;
+        this.total += other.total;
+
+        if ( other.count > 0 )
+        {
+            this.min = Math.min( this.min,
+                                 other.min );
+            this.max = Math.max( this.max,
+                                 other.max );
+        }
+    }
+
+    public void reset()
+    {
+        Arrays.fill( this.counts,
+                               0 );
+
+        this.count = 0;
+        this.total = 0;
+        this.min   = Long.MAX_VALUE;
+        this.max   = 0;
+    }
+
+    public String toString()
+    {
+        return "[Histogram: count=" + getCount()
+            + "; p50=" + getValueAtPercentile( 50 )
+            + "; p99=" + getValueAtPercentile( 99 )
+            + "; p99.9=" + getValueAtPercentile( 99.9 )
+            + "; max=" + getMax() + "]";
+    }
+
+    // values below twice SUB_BUCKETS index themselves; above, the
+    // doubling a value falls in picks SUB_BUCKETS buckets and its next
+    // SUB_BUCKET_BITS bits pick one of them
+    static int indexOf(long value)
+    {
+        if ( value < 2 * SUB_BUCKETS )
+        {
+            return (int) value;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros( value ) - SUB_BUCKET_BITS;
+
+        return ( shift * SUB_BUCKETS ) + (int) ( value >>> shift );
+    }
+
+    static long lowestValueOf(int index)
+    {
+        if ( index < 2 * SUB_BUCKETS )
+        {
+            return index;
+        }
+
+        int shift = ( index / SUB_BUCKETS ) - 1;
+
+        return (long) ( index - ( shift * SUB_BUCKETS ) ) << shift;
+    }
+
+    static long highestValueOf(int index)
+    {
+        if ( index == BUCKETS - 1 )
+        {
+            return Long.MAX_VALUE;
+        }
+
+        return lowestValueOf( index + 1 ) - 1;
+    }
+}
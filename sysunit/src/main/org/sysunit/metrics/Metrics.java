@@ -0,0 +1,165 @@
+package org.sysunit.metrics;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Iterator;
+
+// the named metrics of the TBeans of one JVM.  Each TBean, or each of
+// its threads, records into histograms of its own, and those sharing a
+// name are merged when the JVM reports them.  Counters and gauges are
+// shared by name across the JVM's threads, and sampled while it runs
+public class Metrics
+{
+    private Map histograms;
+
+    private Map counters;
+    private Map gauges;
+
+    // counter name to its count at the last sample, as a Long
+    private Map sampled;
+
+    public Metrics()
+    {
+        this.histograms = new TreeMap();
+        this.counters   = new TreeMap();
+        this.gauges     = new TreeMap();
+        this.sampled    = new TreeMap();
+    }
+
+    // a new histogram to record into under the name, for one thread
+    public synchronized Histogram createHistogram(String name)
+    {
+        List named = (List) this.histograms.get( name );
+
+        if ( named == null )
+        {
+            named = new ArrayList();
+            this.histograms.put( name,
+                                 named );
+        }
+
+        Histogram histogram = new Histogram();
+
+        named.add( histogram );
+
+        return histogram;
+    }
+
+    // the counter of the name, for every thread
+    public synchronized Counter createCounter(String name)
+    {
+        Counter counter = (Counter) this.counters.get( name );
+
+        if ( counter == null )
+        {
+            counter = new Counter();
+            this.counters.put( name,
+                               counter );
+        }
+
+        return counter;
+    }
+
+    // the gauge of the name, for every thread
+    public synchronized Gauge createGauge(String name)
+    {
+        Gauge gauge = (Gauge) this.gauges.get( name );
+
+        if ( gauge == null )
+        {
+            gauge = new Gauge();
+            this.gauges.put( name,
+                             gauge );
+        }
+
+        return gauge;
+    }
+
+    // what each counter counted since the last sample, or since it
+    // was created or reset, and what each gauge reads now
+    public synchronized Sample sample()
+    {
+        Sample sample = new Sample();
+
+        for ( Iterator nameIter = this.counters.keySet().iterator();
+              nameIter.hasNext() ; )
+        {
+            String name = (String) nameIter.next();
+
+            long count = ((Counter) this.counters.get( name )).get();
+
+            Long last = (Long) this.sampled.get( name );
+
+            sample.setCounter( name,
+                               count - ( ( last == null )
+                                         ? 0
+                                         : last.longValue() ) );
+
+            this.sampled.put( name,
+                              new Long( count ) );
+        }
+
+        for ( Iterator nameIter = this.gauges.keySet().iterator();
+              nameIter.hasNext() ; )
+        {
+            String name = (String) nameIter.next();
+
+            sample.setGauge( name,
+                             ((Gauge) this.gauges.get( name )).get() );
+        }
+
+        return sample;
+    }
+
+    // forgets what has been recorded and counted so far, as after a
+    // warm-up; gauges are levels, and keep theirs
+    public synchronized void reset()
+    {
+        for ( Iterator counterIter = this.counters.values().iterator();
+              counterIter.hasNext() ; )
+        {
+            ((Counter) counterIter.next()).reset();
+        }
+
+        this.sampled.clear();
+
+        for ( Iterator namedIter = this.histograms.values().iterator();
+              namedIter.hasNext() ; )
+        {
+            List named = (List) namedIter.next();
+
+            for ( int i = 0 ; i < named.size() ; ++i )
+            {
+                ((Histogram) named.get( i )).reset();
+            }
+        }
+    }
+
+    // name to the merge of every histogram created under it
+    public synchronized Map getHistograms()
+    {
+        Map merged = new TreeMap();
+
+        for ( Iterator nameIter = this.histograms.keySet().iterator();
+              nameIter.hasNext() ; )
+        {
+            String name = (String) nameIter.next();
+
+            Histogram histogram = new Histogram();
+
+            List named = (List) this.histograms.get( name );
+
+            for ( int i = 0 ; i < named.size() ; ++i )
+            {
+                histogram.merge( (Histogram) named.get( i ) );
+            }
+
+            merged.put( name,
+                        histogram );
+        }
+
+        return merged;
+    }
+}
@@ -0,0 +1,59 @@
+package org.sysunit.metrics;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Collections;
+
+// the counters and gauges of one JVM at one time: how much each
+// counter counted since the last sample, and the value of each gauge
+public class Sample
+    implements Serializable
+{
+    private Map counters;
+    private Map gauges;
+
+    public Sample()
+    {
+        this.counters = new TreeMap();
+        this.gauges   = new TreeMap();
+    }
+
+    void setCounter(String name,
+                    long delta)
+    {
+        this.counters.put( name,
+                           new Long( delta ) );
+    }
+
+    void setGauge(String name,
+                  long value)
+    {
+        this.gauges.put( name,
+                         new Long( value ) );
+    }
+
+    // name to Long delta
+    public Map getCounters()
+    {
+        return Collections.unmodifiableMap( this.counters );
+    }
+
+    // name to Long value
+    public Map getGauges()
+    {
+        return Collections.unmodifiableMap( this.gauges );
+    }
+
+    public boolean isEmpty()
+    {
+        return this.counters.isEmpty()
+            &&
+            this.gauges.isEmpty();
+    }
+
+    public String toString()
+    {
+        return "[Sample: counters=" + this.counters + "; gauges=" + this.gauges + "]";
+    }
+}
@@ -0,0 +1,46 @@
+package org.sysunit.model;
+
+import java.io.Serializable;
+
+// a JVM's instances kept in the same place as another JVM's, or kept
+// apart from them, at a level of the network: host, or a locality label
+// such as rack that slave hosts are configured with
+public class AffinityInfo
+    implements Serializable
+{
+    public static final String HOST = "host";
+
+    private String jvm;
+    private String level;
+    private boolean anti;
+
+    public AffinityInfo(String jvm,
+                        String level,
+                        boolean anti)
+    {
+        this.jvm   = jvm;
+        this.level = level;
+        this.anti  = anti;
+    }
+
+    // name of the other JVM
+    public String getJvm()
+    {
+        return this.jvm;
+    }
+
+    public String getLevel()
+    {
+        return this.level;
+    }
+
+    public boolean isAnti()
+    {
+        return this.anti;
+    }
+
+    public String toString()
+    {
+        return ( this.anti ? "antiAffinity" : "affinity" ) + "(" + this.jvm + ", " + this.level + ")";
+    }
+}
@@ -9,6 +9,12 @@ public class DistributedSystemTestInfo
 
     private String name;
     private long timeout;
+    private long runDuration;
+
+    private RampInfo ramp;
+
+    private boolean warmUp;
+    private boolean gcAfterWarmUp;
 
     private Set jvms;
 
@@ -33,6 +39,51 @@ public class DistributedSystemTestInfo
         return this.timeout;
     }
 
+    // millis after which TBeans are told to stop running, unlike the
+    // timeout not a failure; 0 leaves them to stop on their own
+    public void setRunDuration(long runDuration)
+    {
+        this.runDuration = runDuration;
+    }
+
+    public long getRunDuration()
+    {
+        return this.runDuration;
+    }
+
+    // how TBeans are released into the run, or null for all at once
+    public void setRamp(RampInfo ramp)
+    {
+        this.ramp = ramp;
+    }
+
+    public RampInfo getRamp()
+    {
+        return this.ramp;
+    }
+
+    // whether TBeans warm up, cluster-wide, before they are measured
+    public void setWarmUp(boolean warmUp)
+    {
+        this.warmUp = warmUp;
+    }
+
+    public boolean isWarmUp()
+    {
+        return this.warmUp;
+    }
+
+    // whether each JVM collects garbage between warm-up and measurement
+    public void setGcAfterWarmUp(boolean gcAfterWarmUp)
+    {
+        this.gcAfterWarmUp = gcAfterWarmUp;
+    }
+
+    public boolean isGcAfterWarmUp()
+    {
+        return this.gcAfterWarmUp;
+    }
+
     public void addJvm(JvmInfo jvmInfo)
     {
         this.jvms.add( jvmInfo );
@@ -3,14 +3,27 @@ package org.sysunit.model;
 import java.io.Serializable;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.List;
+import java.util.ArrayList;
 
 public class JvmInfo
     implements Serializable
 {
     private static final TBeanInfo[] EMPTY_TBEANINFO_ARRAY = new TBeanInfo[0];
+    private static final String[] EMPTY_STRING_ARRAY = new String[0];
+    private static final AffinityInfo[] EMPTY_AFFINITYINFO_ARRAY = new AffinityInfo[0];
 
     private String name;
     private int count;
+    private int weight;
+
+    private String heap;
+    private String gc;
+    private List jvmArgs;
+
+    private List affinities;
+
+    private boolean virtualThreads;
 
     private Set threads;
     private Set tbeans;
@@ -21,9 +34,12 @@ public class JvmInfo
     {
         this.name           = name;
         this.count          = count;
+        this.weight         = 1;
         this.threads        = new HashSet();
         this.tbeans         = new HashSet();
         this.tbeanFactories = new HashSet();
+        this.jvmArgs        = new ArrayList();
+        this.affinities     = new ArrayList();
     }
 
     public String getName()
@@ -36,6 +52,147 @@ public class JvmInfo
         return this.count;
     }
 
+    // cores a JVM is expected to keep busy, for placement
+    public void setWeight(int weight)
+    {
+        this.weight = weight;
+    }
+
+    public int getWeight()
+    {
+        return this.weight;
+    }
+
+    public void setHeap(String heap)
+    {
+        this.heap = heap;
+    }
+
+    public String getHeap()
+    {
+        return this.heap;
+    }
+
+    // bytes of heap, -1 if not given
+    public long getMemory()
+    {
+        if ( this.heap == null )
+        {
+            return -1;
+        }
+
+        long multiplier = 1;
+
+        String size = this.heap;
+
+        switch ( Character.toLowerCase( size.charAt( size.length() - 1 ) ) )
+        {
+            case 'k':
+                multiplier = 1024;
+                break;
+            case 'm':
+                multiplier = 1024 * 1024;
+                break;
+            case 'g':
+                multiplier = 1024 * 1024 * 1024;
+                break;
+        }
+
+        if ( multiplier > 1 )
+        {
+            size = size.substring( 0,
+                                   size.length() - 1 );
+        }
+
+        try
+        {
+            return Long.parseLong( size ) * multiplier;
+        }
+        catch (NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+
+    public void setGc(String gc)
+    {
+        this.gc = gc;
+    }
+
+    public String getGc()
+    {
+        return this.gc;
+    }
+
+    // the default for the TBeans in this JVM
+    public void setVirtualThreads(boolean virtualThreads)
+    {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public boolean isVirtualThreads()
+    {
+        return this.virtualThreads;
+    }
+
+    // the gc as named in -XX:+Use<collector>GC, so that "G1", "G1GC"
+    // and "ZGC" each name their own collector
+    String getCollector()
+    {
+        if ( this.gc.length() > 2
+             &&
+             this.gc.endsWith( "GC" ) )
+        {
+            return this.gc.substring( 0,
+                                      this.gc.length() - 2 );
+        }
+
+        return this.gc;
+    }
+
+    public void addJvmArg(String jvmArg)
+    {
+        this.jvmArgs.add( jvmArg );
+    }
+
+    public String[] getJvmArgs()
+    {
+        return (String[]) this.jvmArgs.toArray( EMPTY_STRING_ARRAY );
+    }
+
+    public String[] getJvmOptions()
+    {
+        // explicit jvmArgs go last so they win over heap/gc
+        List options = new ArrayList();
+
+        if ( this.heap != null )
+        {
+            options.add( "-Xms" + this.heap );
+            options.add( "-Xmx" + this.heap );
+        }
+
+        if ( this.gc != null )
+        {
+            options.add( "-XX:+Use" + getCollector() + "GC" );
+        }
+
+        options.addAll( this.jvmArgs );
+
+        return (String[]) options.toArray( EMPTY_STRING_ARRAY );
+    }
+
+    public void addAffinity(AffinityInfo affinity)
+    {
+        this.affinities.add( affinity );
+    }
+
+    // as declared by this JVM; those other JVMs declare towards it
+    // hold too
+    public AffinityInfo[] getAffinities()
+    {
+        return (AffinityInfo[]) this.affinities.toArray( EMPTY_AFFINITYINFO_ARRAY );
+    }
+
     public void addTBean(TBeanInfo tbeanInfo)
     {
         this.tbeans.add( tbeanInfo );
@@ -2,6 +2,8 @@ package org.sysunit.model;
 
 import java.io.File;
 import java.io.Serializable;
+import java.util.Map;
+import java.util.HashMap;
 
 public class PhysicalMachineInfo
     implements Serializable
@@ -9,6 +11,14 @@ public class PhysicalMachineInfo
     private String[] tags;
     private String[] jdks;
 
+    private int cores;
+    private long memory;
+    private double load;
+    private int maxJvms;
+    private int runningJvms;
+
+    private Map locality;
+
     public PhysicalMachineInfo()
     {
         this( new String[0],
@@ -18,8 +28,31 @@ public class PhysicalMachineInfo
     public PhysicalMachineInfo(String[] tags,
                                String[] jdks)
     {
-        this.tags = tags;
-        this.jdks = jdks;
+        this( tags,
+              jdks,
+              -1,
+              -1,
+              -1,
+              -1,
+              0 );
+    }
+
+    public PhysicalMachineInfo(String[] tags,
+                               String[] jdks,
+                               int cores,
+                               long memory,
+                               double load,
+                               int maxJvms,
+                               int runningJvms)
+    {
+        this.tags        = tags;
+        this.jdks        = jdks;
+        this.cores       = cores;
+        this.memory      = memory;
+        this.load        = load;
+        this.maxJvms     = maxJvms;
+        this.runningJvms = runningJvms;
+        this.locality    = new HashMap();
     }
 
     public String[] getTags()
@@ -31,4 +64,59 @@ public class PhysicalMachineInfo
     {
         return this.jdks;
     }
+
+    // -1 if unknown
+    public int getCores()
+    {
+        return this.cores;
+    }
+
+    // bytes of physical memory, -1 if unknown
+    public long getMemory()
+    {
+        return this.memory;
+    }
+
+    // one-minute load average, -1 if unknown
+    public double getLoad()
+    {
+        return this.load;
+    }
+
+    // -1 if unlimited
+    public int getMaxJvms()
+    {
+        return this.maxJvms;
+    }
+
+    public int getRunningJvms()
+    {
+        return this.runningJvms;
+    }
+
+    // -1 if unlimited
+    public int getFreeJvms()
+    {
+        if ( this.maxJvms < 0 )
+        {
+            return -1;
+        }
+
+        return Math.max( 0,
+                         this.maxJvms - this.runningJvms );
+    }
+
+    // the host's label at a level of the network, such as its rack
+    public void setLocality(String level,
+                            String label)
+    {
+        this.locality.put( level,
+                           label );
+    }
+
+    // null if the host has no label at the level
+    public String getLocality(String level)
+    {
+        return (String) this.locality.get( level );
+    }
 }
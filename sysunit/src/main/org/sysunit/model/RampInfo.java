@@ -0,0 +1,76 @@
+package org.sysunit.model;
+
+import java.io.Serializable;
+
+// how TBeans are released into the run over its first duration millis,
+// in waves at even intervals, each JVM releasing its share of its own
+// TBeans at each: a stepped ramp in the number of steps given, and a
+// linear one a wave a second
+public class RampInfo
+    implements Serializable
+{
+    public static final String LINEAR  = "linear";
+    public static final String STEPPED = "stepped";
+
+    static final long LINEAR_INTERVAL = 1000;
+
+    private String profile;
+    private long duration;
+    private int steps;
+
+    public RampInfo(String profile,
+                    long duration,
+                    int steps)
+    {
+        this.profile  = profile;
+        this.duration = duration;
+        this.steps    = steps;
+    }
+
+    public String getProfile()
+    {
+        return this.profile;
+    }
+
+    public long getDuration()
+    {
+        return this.duration;
+    }
+
+    public int getSteps()
+    {
+        return this.steps;
+    }
+
+    public int getWaves()
+    {
+        if ( this.profile.equals( STEPPED ) )
+        {
+            return this.steps;
+        }
+
+        return (int) Math.max( 1,
+                               this.duration / LINEAR_INTERVAL );
+    }
+
+    // millis into the run at which a wave is released, the first at once
+    public long getWaveTime(int wave)
+    {
+        return this.duration * wave / getWaves();
+    }
+
+    // how many of a JVM's TBeans are released once the wave is: a share
+    // of them rounded up, so that every wave releases at least one
+    // while any are left, and the last releases the rest
+    public static int getReleased(int tbeans,
+                                  int wave,
+                                  int waves)
+    {
+        return (int) ( ( (long) tbeans * ( wave + 1 ) + waves - 1 ) / waves );
+    }
+
+    public String toString()
+    {
+        return "ramp(" + this.profile + ", " + this.duration + ", " + getWaves() + ")";
+    }
+}
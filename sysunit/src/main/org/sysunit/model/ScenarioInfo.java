@@ -5,10 +5,16 @@ import java.util.HashMap;
 
 public class ScenarioInfo
 {
+    public static final String ROUND_ROBIN = "roundrobin";
+    public static final String BIN_PACKING = "binpacking";
+
     private String name;
     private DistributedSystemTestInfo testInfo;
     private Map tags;
     private Map jdks;
+    private Map jvmOptions;
+    private Map spread;
+    private String placement;
 
     public ScenarioInfo(String name,
                         DistributedSystemTestInfo testInfo)
@@ -17,6 +23,9 @@ public class ScenarioInfo
         this.testInfo = testInfo;
         this.tags = new HashMap();
         this.jdks = new HashMap();
+        this.jvmOptions = new HashMap();
+        this.spread = new HashMap();
+        this.placement = ROUND_ROBIN;
     }
 
     public DistributedSystemTestInfo getSystemTestInfo()
@@ -29,6 +38,30 @@ public class ScenarioInfo
         return this.name;
     }
 
+    // how JVMs are placed on slave hosts: ROUND_ROBIN or BIN_PACKING
+    public void setPlacement(String placement)
+    {
+        this.placement = placement;
+    }
+
+    public String getPlacement()
+    {
+        return this.placement;
+    }
+
+    // whether each of the JVM's count must go to a different slave host
+    public void setSpread(JvmInfo jvm,
+                          boolean spread)
+    {
+        this.spread.put( jvm,
+                         Boolean.valueOf( spread ) );
+    }
+
+    public boolean isSpread(JvmInfo jvm)
+    {
+        return Boolean.TRUE.equals( this.spread.get( jvm ) );
+    }
+
     public void setTag(JvmInfo jvm,
                        String tag)
     {
@@ -62,4 +95,38 @@ public class ScenarioInfo
 
         return "*";
     }
+
+    public void setJvmOptions(JvmInfo jvm,
+                              String[] jvmOptions)
+    {
+        this.jvmOptions.put( jvm,
+                             jvmOptions );
+    }
+
+    public String[] getJvmOptions(JvmInfo jvm)
+    {
+        String[] systestOptions  = jvm.getJvmOptions();
+        String[] scenarioOptions = (String[]) this.jvmOptions.get( jvm );
+
+        if ( scenarioOptions == null )
+        {
+            return systestOptions;
+        }
+
+        String[] options = new String[ systestOptions.length + scenarioOptions.length ];
+
+        System.arraycopy( systestOptions,
+                          0,
+                          options,
+                          0,
+                          systestOptions.length );
+
+        System.arraycopy( scenarioOptions,
+                          0,
+                          options,
+                          systestOptions.length,
+                          scenarioOptions.length );
+
+        return options;
+    }
 }
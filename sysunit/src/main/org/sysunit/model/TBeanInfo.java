@@ -9,6 +9,7 @@ public class TBeanInfo
     private String className;
     private Properties properties;
     private int count;
+    private boolean virtualThreads;
 
     public TBeanInfo(String className,
                      Properties properties,
@@ -33,4 +34,16 @@ public class TBeanInfo
     {
         return this.count;
     }
+
+    // each instance runs on a virtual thread where the slave JVM has
+    // them
+    public void setVirtualThreads(boolean virtualThreads)
+    {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public boolean isVirtualThreads()
+    {
+        return this.virtualThreads;
+    }
 }
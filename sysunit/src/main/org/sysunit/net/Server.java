@@ -22,10 +22,23 @@ public class Server
 
     private ServerSocket serverSocket;
 
+    private int port;
+
     public Server(int numThreads,
                   ServerLoop serverLoop)
+    {
+        this( numThreads,
+              serverLoop,
+              0 );
+    }
+
+    // listens on port, or on any free port if it is 0
+    public Server(int numThreads,
+                  ServerLoop serverLoop,
+                  int port)
     {
         this.serverLoop = serverLoop;
+        this.port = port;
         this.threads = new Thread[ numThreads ];
 
         this.startBarrier = new Barrier( numThreads + 1 );
@@ -43,7 +56,7 @@ public class Server
     public synchronized void start()
         throws Exception
     {
-        this.serverSocket = new ServerSocket( 0 );
+        this.serverSocket = new ServerSocket( this.port );
         this.serverSocket.setSoTimeout( SO_TIMEOUT );
         this.serverSocket.setReuseAddress( true );
 
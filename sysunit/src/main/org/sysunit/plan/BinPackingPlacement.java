@@ -0,0 +1,97 @@
+package org.sysunit.plan;
+
+import org.sysunit.model.JvmInfo;
+import org.sysunit.model.PhysicalMachineInfo;
+import org.sysunit.mesh.NodeInfo;
+
+// weighs each host's cores and memory against the JVMs already on it
+// and placed there by the plan, and puts each JVM where it leaves the
+// host least loaded, so bigger hosts take more; a host without the
+// memory left for a JVM's heap cannot take it
+public class BinPackingPlacement
+    implements PlacementStrategy
+{
+    public NodeInfo place(JvmInfo jvm,
+                          NodeInfo[] candidates,
+                          Placement placement)
+    {
+        NodeInfo slaveHost = null;
+        double   bestLoad  = 0;
+
+        for ( int i = 0 ; i < candidates.length ; ++i )
+        {
+            if ( ! placement.canPlace( candidates[ i ],
+                                       jvm ) )
+            {
+                continue;
+            }
+
+            double load = getLoad( candidates[ i ],
+                                   jvm,
+                                   placement );
+
+            if ( load < 0 )
+            {
+                continue;
+            }
+
+            // ties go to the host with fewer JVMs, then the first
+            if ( slaveHost == null
+                 ||
+                 load < bestLoad
+                 ||
+                 ( load == bestLoad
+                   &&
+                   placement.getJvms( candidates[ i ] ) < placement.getJvms( slaveHost ) ) )
+            {
+                slaveHost = candidates[ i ];
+                bestLoad  = load;
+            }
+        }
+
+        return slaveHost;
+    }
+
+    // the larger of the host's core and memory use with the JVM added,
+    // as fractions of what it has, or -1 if its heap will not fit; a
+    // host that has not said how many cores it has counts as one, and
+    // JVMs it is already running as weighing one each; JVMs other
+    // tests have reserved on it count at their weight
+    double getLoad(NodeInfo slaveHost,
+                   JvmInfo jvm,
+                   Placement placement)
+    {
+        PhysicalMachineInfo physicalMachineInfo = placement.getPhysicalMachineInfo( slaveHost );
+
+        int  cores       = 1;
+        long memory      = -1;
+        int  runningJvms = 0;
+
+        if ( physicalMachineInfo != null )
+        {
+            cores       = Math.max( 1,
+                                    physicalMachineInfo.getCores() );
+            memory      = physicalMachineInfo.getMemory();
+            runningJvms = physicalMachineInfo.getRunningJvms();
+        }
+
+        double load = (double) ( runningJvms + placement.getReservedWeight( slaveHost ) + placement.getWeight( slaveHost ) + jvm.getWeight() ) / cores;
+
+        if ( memory > 0
+             &&
+             jvm.getMemory() > 0 )
+        {
+            long used = placement.getMemory( slaveHost ) + jvm.getMemory();
+
+            if ( used > memory )
+            {
+                return -1;
+            }
+
+            load = Math.max( load,
+                             (double) used / memory );
+        }
+
+        return load;
+    }
+}
@@ -0,0 +1,24 @@
+package org.sysunit.plan;
+
+import org.sysunit.model.JvmInfo;
+import org.sysunit.model.PhysicalMachineInfo;
+import org.sysunit.testmesh.HostPredicate;
+
+// a JVM cannot go on a host with less memory than its heap
+class HeapPredicate
+    implements HostPredicate
+{
+    private JvmInfo jvm;
+
+    HeapPredicate(JvmInfo jvm)
+    {
+        this.jvm = jvm;
+    }
+
+    public boolean accept(PhysicalMachineInfo physicalMachineInfo)
+    {
+        return ( physicalMachineInfo.getMemory() <= 0
+                 ||
+                 this.jvm.getMemory() <= physicalMachineInfo.getMemory() );
+    }
+}
@@ -0,0 +1,35 @@
+package org.sysunit.plan;
+
+import org.sysunit.model.JvmInfo;
+
+// an AffinityInfo as seen from one of the two JVMs it binds
+class JvmAffinity
+{
+    private JvmInfo peer;
+    private String level;
+    private boolean anti;
+
+    JvmAffinity(JvmInfo peer,
+                String level,
+                boolean anti)
+    {
+        this.peer  = peer;
+        this.level = level;
+        this.anti  = anti;
+    }
+
+    JvmInfo getPeer()
+    {
+        return this.peer;
+    }
+
+    String getLevel()
+    {
+        return this.level;
+    }
+
+    boolean isAnti()
+    {
+        return this.anti;
+    }
+}
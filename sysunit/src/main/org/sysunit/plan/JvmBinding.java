@@ -5,17 +5,32 @@ import org.sysunit.mesh.NodeInfo;
 
 public class JvmBinding
 {
+    private static final String[] EMPTY_STRING_ARRAY = new String[0];
+
     private int jvmId;
     private JvmInfo jvmInfo;
     private NodeInfo nodeInfo;
+    private String[] jvmOptions;
 
     public JvmBinding(int jvmId,
                       JvmInfo jvmInfo,
                       NodeInfo nodeInfo)
     {
-        this.jvmId    = jvmId;
-        this.jvmInfo  = jvmInfo;
-        this.nodeInfo = nodeInfo;
+        this( jvmId,
+              jvmInfo,
+              nodeInfo,
+              EMPTY_STRING_ARRAY );
+    }
+
+    public JvmBinding(int jvmId,
+                      JvmInfo jvmInfo,
+                      NodeInfo nodeInfo,
+                      String[] jvmOptions)
+    {
+        this.jvmId      = jvmId;
+        this.jvmInfo    = jvmInfo;
+        this.nodeInfo   = nodeInfo;
+        this.jvmOptions = jvmOptions;
     }
 
     public int getJvmId()
@@ -32,4 +47,9 @@ public class JvmBinding
     {
         return this.nodeInfo;
     }
+
+    public String[] getJvmOptions()
+    {
+        return this.jvmOptions;
+    }
 }
@@ -0,0 +1,301 @@
+package org.sysunit.plan;
+
+import org.sysunit.model.ScenarioInfo;
+import org.sysunit.model.JvmInfo;
+import org.sysunit.model.PhysicalMachineInfo;
+import org.sysunit.model.AffinityInfo;
+import org.sysunit.mesh.NodeInfo;
+import org.sysunit.testmesh.TestMeshManager;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+// what a test plan has placed on each slave host so far
+public class Placement
+{
+    private ScenarioInfo scenarioInfo;
+    private TestMeshManager testMeshManager;
+
+    private Map jvms;
+    private Map weights;
+    private Map memory;
+    private Map replicas;
+    private Map affinities;
+
+    public Placement(ScenarioInfo scenarioInfo,
+                     TestMeshManager testMeshManager)
+    {
+        this.scenarioInfo    = scenarioInfo;
+        this.testMeshManager = testMeshManager;
+        this.jvms            = new HashMap();
+        this.weights         = new HashMap();
+        this.memory          = new HashMap();
+        this.replicas        = new HashMap();
+        this.affinities      = new HashMap();
+
+        JvmInfo[] jvms = scenarioInfo.getSystemTestInfo().getJvms();
+
+        for ( int i = 0 ; i < jvms.length ; ++i )
+        {
+            AffinityInfo[] declared = jvms[ i ].getAffinities();
+
+            for ( int j = 0 ; j < declared.length ; ++j )
+            {
+                JvmInfo peer = scenarioInfo.getSystemTestInfo().getJvm( declared[ j ].getJvm() );
+
+                if ( peer == null )
+                {
+                    continue;
+                }
+
+                addAffinity( jvms[ i ],
+                             new JvmAffinity( peer,
+                                              declared[ j ].getLevel(),
+                                              declared[ j ].isAnti() ) );
+
+                addAffinity( peer,
+                             new JvmAffinity( jvms[ i ],
+                                              declared[ j ].getLevel(),
+                                              declared[ j ].isAnti() ) );
+
+                // JVMs are not placed in the order they are declared,
+                // so the instances of JVMs kept near each other are
+                // kept near their own kind too, whichever comes first
+                if ( ! declared[ j ].isAnti() )
+                {
+                    addAffinity( jvms[ i ],
+                                 new JvmAffinity( jvms[ i ],
+                                                  declared[ j ].getLevel(),
+                                                  false ) );
+
+                    addAffinity( peer,
+                                 new JvmAffinity( peer,
+                                                  declared[ j ].getLevel(),
+                                                  false ) );
+                }
+            }
+        }
+    }
+
+    void addAffinity(JvmInfo jvm,
+                     JvmAffinity affinity)
+    {
+        List affinities = (List) this.affinities.get( jvm );
+
+        if ( affinities == null )
+        {
+            affinities = new ArrayList();
+            this.affinities.put( jvm,
+                                 affinities );
+        }
+
+        affinities.add( affinity );
+    }
+
+    // null if the host has not advertised one
+    public PhysicalMachineInfo getPhysicalMachineInfo(NodeInfo slaveHost)
+    {
+        return this.testMeshManager.getPhysicalMachineInfo( slaveHost );
+    }
+
+    public int getJvms(NodeInfo slaveHost)
+    {
+        return (int) get( this.jvms,
+                          slaveHost );
+    }
+
+    // summed weight of the JVMs placed on the host
+    public int getWeight(NodeInfo slaveHost)
+    {
+        return (int) get( this.weights,
+                          slaveHost );
+    }
+
+    // summed heap of the JVMs placed on the host that give one
+    public long getMemory(NodeInfo slaveHost)
+    {
+        return get( this.memory,
+                    slaveHost );
+    }
+
+    // summed weight of the JVMs other tests have reserved on the host
+    // since it last advertised its capacity
+    public int getReservedWeight(NodeInfo slaveHost)
+    {
+        return this.testMeshManager.getReservedWeight( slaveHost );
+    }
+
+    public int getReplicas(NodeInfo slaveHost,
+                           JvmInfo jvm)
+    {
+        Map replicas = (Map) this.replicas.get( jvm );
+
+        if ( replicas == null )
+        {
+            return 0;
+        }
+
+        return (int) get( replicas,
+                          slaveHost );
+    }
+
+    // the host has an advertised jvm free for it, after those other
+    // tests have reserved, if the JVM is spread holds none of its
+    // replicas yet, and keeps the JVM near and apart from those its
+    // affinities say
+    public boolean canPlace(NodeInfo slaveHost,
+                            JvmInfo jvm)
+    {
+        if ( this.scenarioInfo.isSpread( jvm )
+             &&
+             getReplicas( slaveHost,
+                          jvm ) > 0 )
+        {
+            return false;
+        }
+
+        if ( ! isAffine( slaveHost,
+                         jvm ) )
+        {
+            return false;
+        }
+
+        PhysicalMachineInfo physicalMachineInfo = getPhysicalMachineInfo( slaveHost );
+
+        if ( physicalMachineInfo == null
+             ||
+             physicalMachineInfo.getFreeJvms() < 0 )
+        {
+            return true;
+        }
+
+        return ( getJvms( slaveHost ) + this.testMeshManager.getReservedJvms( slaveHost ) ) < physicalMachineInfo.getFreeJvms();
+    }
+
+    // every placed instance of a JVM this one must be near is in the
+    // same place as the host at the affinity's level, and none it must
+    // be apart from is; JVMs are placed in turn, so the first of a
+    // group placed decides where the rest go, with no going back
+    boolean isAffine(NodeInfo slaveHost,
+                     JvmInfo jvm)
+    {
+        List affinities = (List) this.affinities.get( jvm );
+
+        if ( affinities == null )
+        {
+            return true;
+        }
+
+        for ( Iterator affinityIter = affinities.iterator();
+              affinityIter.hasNext() ; )
+        {
+            JvmAffinity affinity = (JvmAffinity) affinityIter.next();
+
+            Map replicas = (Map) this.replicas.get( affinity.getPeer() );
+
+            if ( replicas == null )
+            {
+                continue;
+            }
+
+            for ( Iterator hostIter = replicas.keySet().iterator();
+                  hostIter.hasNext() ; )
+            {
+                boolean near = isSamePlace( slaveHost,
+                                            (NodeInfo) hostIter.next(),
+                                            affinity.getLevel() );
+
+                if ( near == affinity.isAnti() )
+                {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    // hosts without a label at the level are each their own place
+    boolean isSamePlace(NodeInfo slaveHost,
+                        NodeInfo otherHost,
+                        String level)
+    {
+        if ( slaveHost.equals( otherHost ) )
+        {
+            return true;
+        }
+
+        if ( level.equals( AffinityInfo.HOST ) )
+        {
+            return false;
+        }
+
+        PhysicalMachineInfo info      = getPhysicalMachineInfo( slaveHost );
+        PhysicalMachineInfo otherInfo = getPhysicalMachineInfo( otherHost );
+
+        if ( info == null
+             ||
+             otherInfo == null
+             ||
+             info.getLocality( level ) == null )
+        {
+            return false;
+        }
+
+        return info.getLocality( level ).equals( otherInfo.getLocality( level ) );
+    }
+
+    public void add(NodeInfo slaveHost,
+                    JvmInfo jvm)
+    {
+        add( this.jvms,
+             slaveHost,
+             1 );
+
+        add( this.weights,
+             slaveHost,
+             jvm.getWeight() );
+
+        if ( jvm.getMemory() > 0 )
+        {
+            add( this.memory,
+                 slaveHost,
+                 jvm.getMemory() );
+        }
+
+        Map replicas = (Map) this.replicas.get( jvm );
+
+        if ( replicas == null )
+        {
+            replicas = new HashMap();
+            this.replicas.put( jvm,
+                               replicas );
+        }
+
+        add( replicas,
+             slaveHost,
+             1 );
+    }
+
+    long get(Map totals,
+             NodeInfo slaveHost)
+    {
+        Long total = (Long) totals.get( slaveHost );
+
+        return ( ( total == null )
+                 ? 0
+                 : total.longValue() );
+    }
+
+    void add(Map totals,
+             NodeInfo slaveHost,
+             long value)
+    {
+        totals.put( slaveHost,
+                    new Long( get( totals,
+                                   slaveHost ) + value ) );
+    }
+}
@@ -0,0 +1,14 @@
+package org.sysunit.plan;
+
+import org.sysunit.model.JvmInfo;
+import org.sysunit.mesh.NodeInfo;
+
+// chooses the slave host for each JVM of a test plan, one at a time
+public interface PlacementStrategy
+{
+    // one of candidates, or null if none of them can take the JVM;
+    // only hosts the placement says can take it may be chosen
+    NodeInfo place(JvmInfo jvm,
+                   NodeInfo[] candidates,
+                   Placement placement);
+}
@@ -0,0 +1,54 @@
+package org.sysunit.plan;
+
+import org.sysunit.model.JvmInfo;
+import org.sysunit.mesh.NodeInfo;
+
+import java.util.Map;
+import java.util.HashMap;
+
+// each JVM's count goes round its candidates in turn, passing over
+// hosts that cannot take it
+public class RoundRobinPlacement
+    implements PlacementStrategy
+{
+    private Map cursors;
+
+    public RoundRobinPlacement()
+    {
+        this.cursors = new HashMap();
+    }
+
+    public NodeInfo place(JvmInfo jvm,
+                          NodeInfo[] candidates,
+                          Placement placement)
+    {
+        Integer cursor = (Integer) this.cursors.get( jvm );
+
+        int c = ( ( cursor == null )
+                  ? 0
+                  : cursor.intValue() );
+
+        NodeInfo slaveHost = null;
+
+        for ( int k = 0 ; k < candidates.length && slaveHost == null ; ++k )
+        {
+            NodeInfo candidate = candidates[ c ];
+
+            if ( ++c == candidates.length )
+            {
+                c = 0;
+            }
+
+            if ( placement.canPlace( candidate,
+                                     jvm ) )
+            {
+                slaveHost = candidate;
+            }
+        }
+
+        this.cursors.put( jvm,
+                          new Integer( c ) );
+
+        return slaveHost;
+    }
+}
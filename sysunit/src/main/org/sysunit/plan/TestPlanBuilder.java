@@ -5,6 +5,7 @@ import org.sysunit.model.ScenarioInfo;
 import org.sysunit.model.JvmInfo;
 import org.sysunit.mesh.NodeInfo;
 import org.sysunit.testmesh.TestMeshManager;
+import org.sysunit.testmesh.HostIndex;
 
 import java.util.List;
 import java.util.ArrayList;
@@ -18,6 +19,8 @@ public class TestPlanBuilder
     private ScenarioInfo scenarioInfo;
     private TestMeshManager testMeshManager;
 
+    private int lastJvmId;
+
     public TestPlanBuilder(DistributedSystemTestInfo systemTestInfo,
                            ScenarioInfo scenarioInfo,
                            TestMeshManager testMeshManager)
@@ -25,6 +28,18 @@ public class TestPlanBuilder
         this.systemTestInfo  = systemTestInfo;
         this.scenarioInfo    = scenarioInfo;
         this.testMeshManager = testMeshManager;
+        this.lastJvmId       = 1000;
+    }
+
+    // the plan's JVMs are numbered on from lastJvmId
+    public void setLastJvmId(int lastJvmId)
+    {
+        this.lastJvmId = lastJvmId;
+    }
+
+    public int getLastJvmId()
+    {
+        return this.lastJvmId;
     }
 
     public DistributedSystemTestInfo getSystemTest()
@@ -48,34 +63,14 @@ public class TestPlanBuilder
         JvmInfo[]    jvms       = getSystemTest().getJvms();
         NodeInfo[][] candidates = new NodeInfo[ jvms.length ][];
 
+        // every JVM is matched against the same view of the hosts
+        HostIndex index = getTestMeshManager().getIndex();
+
         for ( int i = 0 ; i < jvms.length ; ++i )
         {
-            String tag = getScenario().getTag( jvms[ i ] );
-            String jdk = getScenario().getJdk( jvms[ i ] );
-
-            NodeInfo[] matching = null;
-
-            if ( tag == null
-                 &&
-                 jdk == null )
-            {
-                matching = getTestMeshManager().getSlaveHosts();
-            }
-            else if ( tag == null )
-            {
-                matching = getTestMeshManager().getSlaveHostsByJdk( jdk );
-            }
-            else if ( jdk == null )
-            {
-                matching = getTestMeshManager().getSlaveHostsByTag( tag );
-            }
-            else
-            {
-                matching = getTestMeshManager().getSlaveHostsByTagAndJdk( tag,
-                                                                          jdk );
-            }
-
-            candidates[ i ] = matching;
+            candidates[ i ] = index.select( getScenario().getTag( jvms[ i ] ),
+                                            getScenario().getJdk( jvms[ i ] ),
+                                            new HeapPredicate( jvms[ i ] ) );
         }
 
         List unsatisfiedJvms = new ArrayList();
@@ -96,27 +91,96 @@ public class TestPlanBuilder
 
         TestPlan testPlan = new TestPlan( getSystemTest() );
 
-        int jvmId = 1000;
+        PlacementStrategy strategy = getPlacementStrategy();
 
-        for ( int i = 0 ; i < jvms.length ; ++i )
+        Placement placement = new Placement( getScenario(),
+                                             getTestMeshManager() );
+
+        int jvmId = getLastJvmId();
+
+        int[] order = getPlacementOrder( jvms );
+
+        for ( int k = 0 ; k < order.length ; ++k )
         {
-            int c = 0;
+            int i = order[ k ];
 
+          COUNT:
             for ( int j = 0 ; j < jvms[ i ].getCount() ; ++j )
             {
-                JvmBinding binding = new JvmBinding( ++jvmId,
-                                                     jvms[ i ],
-                                                     candidates[ i ][ c ] );
+                NodeInfo slaveHost = strategy.place( jvms[ i ],
+                                                     candidates[ i ],
+                                                     placement );
 
-                if ( ++c == candidates[ i ].length )
+                if ( slaveHost == null )
                 {
-                    c = 0;
+                    unsatisfiedJvms.add( jvms[ i ] );
+                    break COUNT;
                 }
 
+                placement.add( slaveHost,
+                               jvms[ i ] );
+
+                JvmBinding binding = new JvmBinding( ++jvmId,
+                                                     jvms[ i ],
+                                                     slaveHost,
+                                                     getScenario().getJvmOptions( jvms[ i ] ) );
+
                 testPlan.addJvmBinding( binding );
             }
         }
 
+        if ( ! unsatisfiedJvms.isEmpty() )
+        {
+            throw new InfeasibleTestPlanException( getSystemTest(),
+                                                   (JvmInfo[]) unsatisfiedJvms.toArray( EMPTY_JVMINFO_ARRAY ) );
+        }
+
         return testPlan;
     }
+
+    // the indices of jvms in the order they are placed; bin-packing
+    // places the heaviest first, so lighter JVMs fill in around them
+    int[] getPlacementOrder(JvmInfo[] jvms)
+    {
+        int[] order = new int[ jvms.length ];
+
+        for ( int i = 0 ; i < order.length ; ++i )
+        {
+            order[ i ] = i;
+        }
+
+        if ( ! ScenarioInfo.BIN_PACKING.equals( getScenario().getPlacement() ) )
+        {
+            return order;
+        }
+
+        // insertion sort keeps declaration order between equal weights
+        for ( int i = 1 ; i < order.length ; ++i )
+        {
+            int cur = order[ i ];
+            int j   = i;
+
+            while ( j > 0
+                    &&
+                    jvms[ order[ j - 1 ] ].getWeight() < jvms[ cur ].getWeight() )
+            {
+                order[ j ] = order[ j - 1 ];
+                --j;
+            }
+
+            order[ j ] = cur;
+        }
+
+        return order;
+    }
+
+    PlacementStrategy getPlacementStrategy()
+    {
+        if ( ScenarioInfo.BIN_PACKING.equals( getScenario().getPlacement() ) )
+        {
+            return new BinPackingPlacement();
+        }
+
+        return new RoundRobinPlacement();
+    }
 }
@@ -0,0 +1,119 @@
+package org.sysunit.report;
+
+import org.sysunit.metrics.Sample;
+
+import java.io.PrintWriter;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Iterator;
+
+// a row for each counter and gauge of every sample as it arrives, so
+// a long run can be followed, or plotted, while it is still going
+class CsvSeriesWriter
+    implements ReportWriter
+{
+    private TestReport report;
+
+    private PrintWriter out;
+
+    CsvSeriesWriter(TestReport report)
+    {
+        this.report = report;
+    }
+
+    public void start()
+        throws IOException
+    {
+        this.out = new PrintWriter( new OutputStreamWriter( new FileOutputStream( this.report.getSeriesFile() ),
+                                                            "UTF-8" ) );
+
+        this.out.println( "time,jvm,metric,kind,value" );
+
+        flush();
+    }
+
+    public void addJvm(JvmResult jvm)
+    {
+    }
+
+    public void addSample(int jvmId,
+                          long time,
+                          Sample sample)
+        throws IOException
+    {
+        writeValues( jvmId,
+                     time,
+                     "counter",
+                     sample.getCounters() );
+
+        writeValues( jvmId,
+                     time,
+                     "gauge",
+                     sample.getGauges() );
+
+        flush();
+    }
+
+    public void finish()
+        throws IOException
+    {
+        flush();
+
+        this.out.close();
+    }
+
+    void writeValues(int jvmId,
+                     long time,
+                     String kind,
+                     Map values)
+    {
+        for ( Iterator nameIter = values.keySet().iterator();
+              nameIter.hasNext() ; )
+        {
+            String name = (String) nameIter.next();
+
+            this.out.println( time + "," + jvmId + "," + quote( name ) + "," + kind + "," + values.get( name ) );
+        }
+    }
+
+    void flush()
+        throws IOException
+    {
+        this.out.flush();
+
+        if ( this.out.checkError() )
+        {
+            throw new IOException( "unable to write " + this.report.getSeriesFile() );
+        }
+    }
+
+    static String quote(String text)
+    {
+        if ( text.indexOf( ',' ) < 0
+             &&
+             text.indexOf( '"' ) < 0 )
+        {
+            return text;
+        }
+
+        StringBuffer quoted = new StringBuffer( "\"" );
+
+        for ( int i = 0 ; i < text.length() ; ++i )
+        {
+            char c = text.charAt( i );
+
+            if ( c == '"' )
+            {
+                quoted.append( '"' );
+            }
+
+            quoted.append( c );
+        }
+
+        quoted.append( "\"" );
+
+        return quoted.toString();
+    }
+}
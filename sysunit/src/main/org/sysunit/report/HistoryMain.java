@@ -0,0 +1,163 @@
+package org.sysunit.report;
+
+import java.io.File;
+import java.util.Date;
+
+public class HistoryMain
+{
+    public static void main(String[] args)
+        throws Exception
+    {
+        String dir         = System.getProperty( RunHistory.DIR_PROPERTY );
+        String key         = null;
+        String revision    = null;
+        boolean list       = false;
+        int baseline       = RegressionDetector.DEFAULT_BASELINE;
+        double minSlowdown = RegressionDetector.DEFAULT_MIN_SLOWDOWN;
+        double minDelta    = RegressionDetector.DEFAULT_MIN_DELTA;
+
+        try
+        {
+            for ( int i = 0 ; i < args.length ; ++i )
+            {
+                if ( args[ i ].equals( "-dir" ) )
+                {
+                    dir = args[ ++i ];
+                }
+                else if ( args[ i ].equals( "-revision" ) )
+                {
+                    revision = args[ ++i ];
+                }
+                else if ( args[ i ].equals( "-baseline" ) )
+                {
+                    baseline = Integer.parseInt( args[ ++i ] );
+                }
+                else if ( args[ i ].equals( "-slowdown" ) )
+                {
+                    minSlowdown = Double.parseDouble( args[ ++i ] ) / 100;
+                }
+                else if ( args[ i ].equals( "-delta" ) )
+                {
+                    minDelta = Double.parseDouble( args[ ++i ] );
+                }
+                else if ( args[ i ].equals( "-list" ) )
+                {
+                    list = true;
+                }
+                else if ( key == null
+                          &&
+                          ! args[ i ].startsWith( "-" ) )
+                {
+                    key = args[ i ];
+                }
+                else
+                {
+                    throw new IllegalArgumentException( args[ i ] );
+                }
+            }
+        }
+        catch (RuntimeException e)
+        {
+            System.err.println( "invalid arguments: " + e.getMessage() );
+            System.exit( 2 );
+        }
+
+        if ( dir == null )
+        {
+            System.err.println( "-dir or -D" + RunHistory.DIR_PROPERTY + " required" );
+            System.exit( 2 );
+        }
+
+        RunHistory history = new RunHistory( new File( dir ) );
+
+        if ( key == null )
+        {
+            String[] keys = history.getKeys();
+
+            for ( int i = 0 ; i < keys.length ; ++i )
+            {
+                System.out.println( keys[ i ] );
+            }
+
+            return;
+        }
+
+        RunRecord[] records = history.getRecords( key );
+
+        if ( list )
+        {
+            for ( int i = 0 ; i < records.length ; ++i )
+            {
+                System.out.println( describe( records[ i ] ) );
+            }
+
+            return;
+        }
+
+        int index = getLatest( records,
+                               revision );
+
+        if ( index < 0 )
+        {
+            System.err.println( "no runs of " + key + ( ( revision == null )
+                                                        ? ""
+                                                        : " at " + revision ) );
+            System.exit( 2 );
+        }
+
+        RegressionDetector detector = new RegressionDetector( baseline,
+                                                              minSlowdown,
+                                                              minDelta );
+
+        int baselineSize = detector.getBaseline( records,
+                                                 index ).length;
+
+        System.out.println( key + ": " + describe( records[ index ] ) + " against " + baselineSize + " passed runs before it" );
+
+        if ( baselineSize < RegressionDetector.MIN_BASELINE )
+        {
+            System.out.println( "  too few runs to compare with" );
+            return;
+        }
+
+        Regression[] regressions = detector.compare( records,
+                                                     index );
+
+        for ( int i = 0 ; i < regressions.length ; ++i )
+        {
+            System.out.println( "  regressed " + regressions[ i ] );
+        }
+
+        if ( regressions.length == 0 )
+        {
+            System.out.println( "  no regressions" );
+            return;
+        }
+
+        System.exit( 1 );
+    }
+
+    // the last run, or the last run at a revision
+    static int getLatest(RunRecord[] records,
+                         String revision)
+    {
+        for ( int i = records.length - 1 ; i >= 0 ; --i )
+        {
+            if ( revision == null
+                 ||
+                 revision.equals( records[ i ].getRevision() ) )
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    static String describe(RunRecord record)
+    {
+        return new Date( record.getTime() ) + " " + record.getRevision() + " " + ( record.isPassed()
+                                                                                     ? "passed"
+                                                                                     : "failed" );
+    }
+}
@@ -0,0 +1,314 @@
+package org.sysunit.report;
+
+import org.sysunit.metrics.Sample;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.FileOutputStream;
+import java.io.FileInputStream;
+import java.io.OutputStreamWriter;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.IOException;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// one testcase per TBean, plus one for failures not raised by a
+// TBean; testcases go to a part file as JVMs report, and the suite
+// element with its counts is put round them at the end
+class JUnitReportWriter
+    implements ReportWriter
+{
+    private TestReport report;
+
+    private PrintWriter part;
+
+    private int tests;
+    private int failures;
+    private int errors;
+
+    JUnitReportWriter(TestReport report)
+    {
+        this.report = report;
+    }
+
+    File getPartFile()
+    {
+        return new File( this.report.getXmlFile().getPath() + ".part" );
+    }
+
+    public void start()
+        throws IOException
+    {
+        this.part = new PrintWriter( new OutputStreamWriter( new FileOutputStream( getPartFile() ),
+                                                             "UTF-8" ) );
+    }
+
+    public void addJvm(JvmResult jvm)
+        throws IOException
+    {
+        TBeanTimings[] tbeans = jvm.getTBeans();
+
+        List unmatched = new ArrayList( Arrays.asList( jvm.getFailures() ) );
+
+        for ( int i = 0 ; i < tbeans.length ; ++i )
+        {
+            writeTestCase( jvm.getLabel() + "/" + tbeans[ i ].getTBeanId(),
+                           tbeans[ i ].getTotalTime(),
+                           takeFailures( unmatched,
+                                         tbeans,
+                                         i ) );
+        }
+
+        // failures from TBeans that never reported, or a JVM that
+        // reported nothing at all
+        if ( ! unmatched.isEmpty()
+             ||
+             tbeans.length == 0 )
+        {
+            writeTestCase( jvm.getLabel(),
+                           0,
+                           unmatched );
+        }
+
+        flush();
+    }
+
+    public void addSample(int jvmId,
+                          long time,
+                          Sample sample)
+    {
+    }
+
+    // removes the failures raised by a TBean; several TBeans of the
+    // same class share them out one each, the last taking the rest
+    List takeFailures(List unmatched,
+                      TBeanTimings[] tbeans,
+                      int index)
+    {
+        String tbeanId = tbeans[ index ].getTBeanId();
+
+        boolean last = true;
+
+        for ( int i = index + 1 ; i < tbeans.length ; ++i )
+        {
+            if ( tbeans[ i ].getTBeanId().equals( tbeanId ) )
+            {
+                last = false;
+            }
+        }
+
+        List taken = new ArrayList();
+
+        for ( int i = 0 ; i < unmatched.size() ; )
+        {
+            ReportedFailure failure = (ReportedFailure) unmatched.get( i );
+
+            if ( ! tbeanId.equals( failure.getTBeanId() ) )
+            {
+                ++i;
+                continue;
+            }
+
+            taken.add( unmatched.remove( i ) );
+
+            if ( ! last )
+            {
+                break;
+            }
+        }
+
+        return taken;
+    }
+
+    void writeTestCase(String name,
+                       long time,
+                       List failures)
+    {
+        ++this.tests;
+
+        this.part.print( "  <testcase classname=\"" + escape( this.report.getBaseName() )
+                         + "\" name=\"" + escape( name )
+                         + "\" time=\"" + seconds( time ) + "\"" );
+
+        if ( failures.isEmpty() )
+        {
+            this.part.println( "/>" );
+            return;
+        }
+
+        this.part.println( ">" );
+
+        for ( int i = 0 ; i < failures.size() ; ++i )
+        {
+            ReportedFailure failure = (ReportedFailure) failures.get( i );
+
+            String element = null;
+
+            if ( failure.isAssertion() )
+            {
+                element = "failure";
+                ++this.failures;
+            }
+            else
+            {
+                element = "error";
+                ++this.errors;
+            }
+
+            this.part.print( "    <" + element
+                             + " type=\"" + escape( failure.getType() ) + "\"" );
+
+            if ( failure.getMessage() != null )
+            {
+                this.part.print( " message=\"" + escape( failure.getMessage() ) + "\"" );
+            }
+
+            this.part.println( ">" + escape( ( failure.getPhase() == null )
+                                             ? failure.getStackTrace()
+                                             : failure.getPhase() + ": " + failure.getStackTrace() )
+                               + "</" + element + ">" );
+        }
+
+        this.part.println( "  </testcase>" );
+    }
+
+    public void finish()
+        throws IOException
+    {
+        ReportedFailure[] failures = this.report.getFailures();
+
+        if ( failures.length > 0 )
+        {
+            writeTestCase( "master",
+                           0,
+                           Arrays.asList( failures ) );
+        }
+
+        flush();
+
+        this.part.close();
+
+        PrintWriter out = new PrintWriter( new OutputStreamWriter( new FileOutputStream( this.report.getXmlFile() ),
+                                                                   "UTF-8" ) );
+
+        try
+        {
+            out.println( "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" );
+            out.println( "<testsuite name=\"" + escape( this.report.getBaseName() )
+                         + "\" tests=\"" + this.tests
+                         + "\" failures=\"" + this.failures
+                         + "\" errors=\"" + this.errors
+                         + "\" time=\"" + seconds( this.report.getDuration() ) + "\">" );
+
+            out.println( "  <properties>" );
+
+            String[] phases = this.report.getPhases();
+
+            for ( int i = 0 ; i < phases.length ; ++i )
+            {
+                out.println( "    <property name=\"sysunit.phase." + escape( phases[ i ] )
+                             + "\" value=\"" + this.report.getPhaseTime( phases[ i ] ) + "\"/>" );
+            }
+
+            out.println( "    <property name=\"sysunit.barriers\" value=\"" + this.report.getBarriers() + "\"/>" );
+            out.println( "  </properties>" );
+
+            Reader in = new InputStreamReader( new FileInputStream( getPartFile() ),
+                                               "UTF-8" );
+
+            try
+            {
+                char[] buf = new char[ 8192 ];
+                int read = 0;
+
+                while ( ( read = in.read( buf ) ) >= 0 )
+                {
+                    out.write( buf,
+                               0,
+                               read );
+                }
+            }
+            finally
+            {
+                in.close();
+            }
+
+            out.println( "</testsuite>" );
+        }
+        finally
+        {
+            out.close();
+        }
+
+        if ( out.checkError() )
+        {
+            throw new IOException( "unable to write " + this.report.getXmlFile() );
+        }
+
+        getPartFile().delete();
+    }
+
+    void flush()
+        throws IOException
+    {
+        this.part.flush();
+
+        if ( this.part.checkError() )
+        {
+            throw new IOException( "unable to write " + getPartFile() );
+        }
+    }
+
+    static String seconds(long millis)
+    {
+        String fraction = "00" + ( millis % 1000 );
+
+        return ( millis / 1000 ) + "." + fraction.substring( fraction.length() - 3 );
+    }
+
+    static String escape(String text)
+    {
+        StringBuffer escaped = new StringBuffer();
+
+        for ( int i = 0 ; i < text.length() ; ++i )
+        {
+            char c = text.charAt( i );
+
+            switch ( c )
+            {
+                case '<':
+                    escaped.append( "&lt;" );
+                    break;
+                case '>':
+                    escaped.append( "&gt;" );
+                    break;
+                case '&':
+                    escaped.append( "&amp;" );
+                    break;
+                case '"':
+                    escaped.append( "&quot;" );
+                    break;
+                default:
+                    if ( c < 0x20
+                         &&
+                         c != '\n'
+                         &&
+                         c != '\r'
+                         &&
+                         c != '\t' )
+                    {
+                        // not allowed in XML 1.0
+                        escaped.append( '?' );
+                    }
+                    else
+                    {
+                        escaped.append( c );
+                    }
+            }
+        }
+
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,309 @@
+package org.sysunit.report;
+
+import org.sysunit.metrics.Histogram;
+import org.sysunit.metrics.Sample;
+
+import java.io.PrintWriter;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Iterator;
+
+// writes the header when the run starts, each JVM as it reports and
+// the summary at the end
+class JsonReportWriter
+    implements ReportWriter
+{
+    private TestReport report;
+
+    private PrintWriter out;
+
+    private int numJvms;
+
+    JsonReportWriter(TestReport report)
+    {
+        this.report = report;
+    }
+
+    public void start()
+        throws IOException
+    {
+        this.out = new PrintWriter( new OutputStreamWriter( new FileOutputStream( this.report.getJsonFile() ),
+                                                            "UTF-8" ) );
+
+        this.out.println( "{" );
+        this.out.println( "  \"suite\": " + quote( this.report.getSuite() ) + "," );
+        this.out.println( "  \"name\": " + quote( this.report.getName() ) + "," );
+        this.out.println( "  \"started\": " + this.report.getStarted() + "," );
+        this.out.print( "  \"jvms\": [" );
+
+        flush();
+    }
+
+    public void addJvm(JvmResult jvm)
+        throws IOException
+    {
+        if ( this.numJvms > 0 )
+        {
+            this.out.print( "," );
+        }
+
+        ++this.numJvms;
+
+        this.out.println();
+        this.out.println( "    {" );
+        this.out.println( "      \"id\": " + jvm.getJvmId() + "," );
+        this.out.println( "      \"name\": " + quote( jvm.getName() ) + "," );
+
+        // a pooled or recycled JVM was not started for this run
+        if ( jvm.getStartupTime() >= 0 )
+        {
+            this.out.println( "      \"startup\": " + jvm.getStartupTime() + "," );
+        }
+
+        this.out.println( "      \"classDataSharing\": " + jvm.isClassDataSharing() + "," );
+        this.out.println( "      \"resourceBinding\": " + quote( jvm.getResourceBinding() ) + "," );
+        this.out.println( "      \"syncs\": " + jvm.getSyncs() + "," );
+        this.out.println( "      \"syncWait\": " + jvm.getSyncWaitTime() + "," );
+        this.out.print( "      \"tbeans\": [" );
+
+        TBeanTimings[] tbeans = jvm.getTBeans();
+
+        for ( int i = 0 ; i < tbeans.length ; ++i )
+        {
+            this.out.println( ( i > 0 )
+                              ? ","
+                              : "" );
+            this.out.print( "        { \"id\": " + quote( tbeans[ i ].getTBeanId() ) );
+
+            for ( int j = 0 ; j < TBeanTimings.PHASES.length ; ++j )
+            {
+                this.out.print( ", " + quote( TBeanTimings.PHASES[ j ] ) + ": " + tbeans[ i ].getTime( TBeanTimings.PHASES[ j ] ) );
+            }
+
+            this.out.print( " }" );
+        }
+
+        this.out.println( ( tbeans.length > 0 )
+                          ? "\n      ],"
+                          : "]," );
+
+        writeFailures( "      ",
+                       jvm.getFailures() );
+
+        this.out.println( "," );
+
+        writeHistograms( "      ",
+                         jvm.getHistograms() );
+
+        this.out.println();
+        this.out.print( "    }" );
+
+        flush();
+    }
+
+    // the series are written at the end, and to the CSV as they arrive
+    public void addSample(int jvmId,
+                          long time,
+                          Sample sample)
+    {
+    }
+
+    public void finish()
+        throws IOException
+    {
+        this.out.println( ( this.numJvms > 0 )
+                          ? "\n  ],"
+                          : "]," );
+
+        writeFailures( "  ",
+                       this.report.getFailures() );
+
+        this.out.println( "," );
+
+        writeHistograms( "  ",
+                         this.report.getHistograms() );
+
+        this.out.println( "," );
+
+        writeSeries( "  ",
+                     this.report.getSeries() );
+
+        this.out.println( "," );
+        this.out.print( "  \"phases\": {" );
+
+        String[] phases = this.report.getPhases();
+
+        for ( int i = 0 ; i < phases.length ; ++i )
+        {
+            this.out.print( ( ( i > 0 )
+                              ? ", "
+                              : " " ) + quote( phases[ i ] ) + ": " + this.report.getPhaseTime( phases[ i ] ) );
+        }
+
+        this.out.println( ( phases.length > 0 )
+                          ? " },"
+                          : "}," );
+
+        this.out.println( "  \"barriers\": " + this.report.getBarriers() + "," );
+        this.out.println( "  \"duration\": " + this.report.getDuration() + "," );
+        this.out.println( "  \"passed\": " + this.report.isPassed() );
+        this.out.println( "}" );
+
+        flush();
+
+        this.out.close();
+    }
+
+    void writeFailures(String indent,
+                       ReportedFailure[] failures)
+    {
+        this.out.print( indent + "\"failures\": [" );
+
+        for ( int i = 0 ; i < failures.length ; ++i )
+        {
+            this.out.println( ( i > 0 )
+                              ? ","
+                              : "" );
+            this.out.print( indent + "  { \"tbean\": " + quote( failures[ i ].getTBeanId() )
+                            + ", \"phase\": " + quote( failures[ i ].getPhase() )
+                            + ", \"type\": " + quote( failures[ i ].getType() )
+                            + ", \"message\": " + quote( failures[ i ].getMessage() )
+                            + ", \"trace\": " + quote( failures[ i ].getStackTrace() ) + " }" );
+        }
+
+        this.out.print( ( failures.length > 0 )
+                        ? "\n" + indent + "]"
+                        : "]" );
+    }
+
+    // each as its count, mean, max and percentiles
+    void writeHistograms(String indent,
+                         Map histograms)
+    {
+        this.out.print( indent + "\"metrics\": {" );
+
+        int i = 0;
+
+        for ( Iterator nameIter = histograms.keySet().iterator();
+              nameIter.hasNext() ; ++i )
+        {
+            String    name      = (String) nameIter.next();
+            Histogram histogram = (Histogram) histograms.get( name );
+
+            this.out.println( ( i > 0 )
+                              ? ","
+                              : "" );
+            this.out.print( indent + "  " + quote( name ) + ": { \"count\": " + histogram.getCount()
+                            + ", \"mean\": " + histogram.getMean()
+                            + ", \"p50\": " + histogram.getValueAtPercentile( 50 )
+                            + ", \"p99\": " + histogram.getValueAtPercentile( 99 )
+                            + ", \"p99.9\": " + histogram.getValueAtPercentile( 99.9 )
+                            + ", \"max\": " + histogram.getMax() + " }" );
+        }
+
+        this.out.print( ( i > 0 )
+                        ? "\n" + indent + "}"
+                        : "}" );
+    }
+
+    // each as its kind and [second, value] pairs
+    void writeSeries(String indent,
+                     Map series)
+    {
+        this.out.print( indent + "\"series\": {" );
+
+        int i = 0;
+
+        for ( Iterator nameIter = series.keySet().iterator();
+              nameIter.hasNext() ; ++i )
+        {
+            String     name       = (String) nameIter.next();
+            TimeSeries timeSeries = (TimeSeries) series.get( name );
+
+            this.out.println( ( i > 0 )
+                              ? ","
+                              : "" );
+            this.out.print( indent + "  " + quote( name ) + ": { \"kind\": " + quote( timeSeries.isGauge()
+                                                                                  ? "gauge"
+                                                                                  : "counter" )
+                            + ", \"values\": [" );
+
+            long[] seconds = timeSeries.getSeconds();
+
+            for ( int j = 0 ; j < seconds.length ; ++j )
+            {
+                this.out.print( ( ( j > 0 )
+                                  ? ", "
+                                  : "" ) + "[" + seconds[ j ] + ", " + timeSeries.getValue( seconds[ j ] ) + "]" );
+            }
+
+            this.out.print( "] }" );
+        }
+
+        this.out.print( ( i > 0 )
+                        ? "\n" + indent + "}"
+                        : "}" );
+    }
+
+    void flush()
+        throws IOException
+    {
+        this.out.flush();
+
+        if ( this.out.checkError() )
+        {
+            throw new IOException( "unable to write " + this.report.getJsonFile() );
+        }
+    }
+
+    static String quote(String text)
+    {
+        if ( text == null )
+        {
+            return "null";
+        }
+
+        StringBuffer quoted = new StringBuffer( "\"" );
+
+        for ( int i = 0 ; i < text.length() ; ++i )
+        {
+            char c = text.charAt( i );
+
+            switch ( c )
+            {
+                case '"':
+                    quoted.append( "\\\"" );
+                    break;
+                case '\\':
+                    quoted.append( "\\\\" );
+                    break;
+                case '\n':
+                    quoted.append( "\\n" );
+                    break;
+                case '\r':
+                    quoted.append( "\\r" );
+                    break;
+                case '\t':
+                    quoted.append( "\\t" );
+                    break;
+                default:
+                    if ( c < 0x20 )
+                    {
+                        String hex = Integer.toHexString( c );
+
+                        quoted.append( "\\u0000".substring( 0, 6 - hex.length() ) + hex );
+                    }
+                    else
+                    {
+                        quoted.append( c );
+                    }
+            }
+        }
+
+        quoted.append( "\"" );
+
+        return quoted.toString();
+    }
+}
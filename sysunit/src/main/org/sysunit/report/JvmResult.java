@@ -0,0 +1,126 @@
+package org.sysunit.report;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+public class JvmResult
+{
+    private static final ReportedFailure[] EMPTY_REPORTEDFAILURE_ARRAY = new ReportedFailure[0];
+
+    private int jvmId;
+    private String name;
+
+    private long startupTime;
+    private boolean classDataSharing;
+    private String resourceBinding;
+
+    private int syncs;
+    private long syncWaitTime;
+
+    private TBeanTimings[] tbeans;
+    private ReportedFailure[] failures;
+
+    private Map histograms;
+
+    public JvmResult(int jvmId,
+                     String name,
+                     TBeanTimings[] tbeans)
+    {
+        this.jvmId       = jvmId;
+        this.name        = name;
+        this.tbeans      = tbeans;
+        this.startupTime = -1;
+        this.failures    = EMPTY_REPORTEDFAILURE_ARRAY;
+        this.histograms  = new TreeMap();
+    }
+
+    public int getJvmId()
+    {
+        return this.jvmId;
+    }
+
+    public String getName()
+    {
+        return this.name;
+    }
+
+    // name-jvmId, or just the name for a JVM without an id
+    public String getLabel()
+    {
+        return ( ( this.jvmId > 0 )
+                 ? this.name + "-" + this.jvmId
+                 : this.name );
+    }
+
+    public void setStartup(long startupTime,
+                           boolean classDataSharing)
+    {
+        this.startupTime      = startupTime;
+        this.classDataSharing = classDataSharing;
+    }
+
+    // -1 if not measured
+    public long getStartupTime()
+    {
+        return this.startupTime;
+    }
+
+    public boolean isClassDataSharing()
+    {
+        return this.classDataSharing;
+    }
+
+    public void setResourceBinding(String resourceBinding)
+    {
+        this.resourceBinding = resourceBinding;
+    }
+
+    public String getResourceBinding()
+    {
+        return this.resourceBinding;
+    }
+
+    public void setSyncStatistics(int syncs,
+                                  long syncWaitTime)
+    {
+        this.syncs        = syncs;
+        this.syncWaitTime = syncWaitTime;
+    }
+
+    public int getSyncs()
+    {
+        return this.syncs;
+    }
+
+    // millis TBean threads spent waiting at sync-points, summed
+    public long getSyncWaitTime()
+    {
+        return this.syncWaitTime;
+    }
+
+    public TBeanTimings[] getTBeans()
+    {
+        return this.tbeans;
+    }
+
+    public void setFailures(ReportedFailure[] failures)
+    {
+        this.failures = failures;
+    }
+
+    public ReportedFailure[] getFailures()
+    {
+        return this.failures;
+    }
+
+    // name to the Histogram its TBeans recorded under it
+    public void setHistograms(Map histograms)
+    {
+        this.histograms = new TreeMap( histograms );
+    }
+
+    public Map getHistograms()
+    {
+        return this.histograms;
+    }
+}
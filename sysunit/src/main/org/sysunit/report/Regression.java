@@ -0,0 +1,69 @@
+package org.sysunit.report;
+
+public class Regression
+{
+    private String metric;
+    private double value;
+    private double mean;
+    private double stddev;
+    private int baselineSize;
+
+    public Regression(String metric,
+                      double value,
+                      double mean,
+                      double stddev,
+                      int baselineSize)
+    {
+        this.metric       = metric;
+        this.value        = value;
+        this.mean         = mean;
+        this.stddev       = stddev;
+        this.baselineSize = baselineSize;
+    }
+
+    public String getMetric()
+    {
+        return this.metric;
+    }
+
+    public double getValue()
+    {
+        return this.value;
+    }
+
+    public double getMean()
+    {
+        return this.mean;
+    }
+
+    public double getStandardDeviation()
+    {
+        return this.stddev;
+    }
+
+    public int getBaselineSize()
+    {
+        return this.baselineSize;
+    }
+
+    // fraction slower than the baseline mean
+    public double getSlowdown()
+    {
+        return ( this.value - this.mean ) / this.mean;
+    }
+
+    public String toString()
+    {
+        return this.metric + ": " + format( this.value )
+            + " against " + format( this.mean ) + " +/- " + format( this.stddev )
+            + " over " + this.baselineSize + " runs"
+            + ( ( this.mean > 0 )
+                ? " (+" + Math.round( getSlowdown() * 100 ) + "%)"
+                : "" );
+    }
+
+    static String format(double value)
+    {
+        return ( Math.round( value * 10 ) / 10.0 ) + "ms";
+    }
+}
@@ -0,0 +1,178 @@
+package org.sysunit.report;
+
+import java.util.List;
+import java.util.ArrayList;
+
+// compares a run with a rolling baseline of the passed runs before
+// it; a metric has regressed when it is slower than the baseline by
+// more than both thresholds, and by more than the baseline's own
+// spread explains: a one-sided t-test at 95% that the run belongs
+// to the baseline's distribution
+public class RegressionDetector
+{
+    public static final int    DEFAULT_BASELINE     = 10;
+    public static final double DEFAULT_MIN_SLOWDOWN = 0.10;
+    public static final double DEFAULT_MIN_DELTA    = 5;
+
+    // fewer runs say nothing about the spread
+    public static final int MIN_BASELINE = 3;
+
+    private static final Regression[] EMPTY_REGRESSION_ARRAY = new Regression[0];
+    private static final RunRecord[] EMPTY_RUNRECORD_ARRAY = new RunRecord[0];
+
+    // one-sided 95% critical values of Student's t, by degrees of
+    // freedom from 1; the normal value beyond
+    private static final double[] T_95 = new double[] { 6.314, 2.920, 2.353, 2.132, 2.015,
+                                                        1.943, 1.895, 1.860, 1.833, 1.812,
+                                                        1.796, 1.782, 1.771, 1.761, 1.753,
+                                                        1.746, 1.740, 1.734, 1.729, 1.725,
+                                                        1.721, 1.717, 1.714, 1.711, 1.708,
+                                                        1.706, 1.703, 1.701, 1.699, 1.697 };
+
+    private int baseline;
+    private double minSlowdown;
+    private double minDelta;
+
+    public RegressionDetector()
+    {
+        this( DEFAULT_BASELINE,
+              DEFAULT_MIN_SLOWDOWN,
+              DEFAULT_MIN_DELTA );
+    }
+
+    public RegressionDetector(int baseline,
+                              double minSlowdown,
+                              double minDelta)
+    {
+        this.baseline    = baseline;
+        this.minSlowdown = minSlowdown;
+        this.minDelta    = minDelta;
+    }
+
+    public int getBaseline()
+    {
+        return this.baseline;
+    }
+
+    // the passed runs before index, at most getBaseline() of them
+    public RunRecord[] getBaseline(RunRecord[] records,
+                                   int index)
+    {
+        List baseline = new ArrayList();
+
+        for ( int i = index - 1 ; i >= 0 && baseline.size() < this.baseline ; --i )
+        {
+            if ( records[ i ].isPassed() )
+            {
+                baseline.add( 0,
+                              records[ i ] );
+            }
+        }
+
+        return (RunRecord[]) baseline.toArray( EMPTY_RUNRECORD_ARRAY );
+    }
+
+    public Regression[] compare(RunRecord[] records,
+                                int index)
+    {
+        RunRecord   run      = records[ index ];
+        RunRecord[] baseline = getBaseline( records,
+                                            index );
+
+        List regressions = new ArrayList();
+
+        String[] metrics = run.getMetricNames();
+
+        for ( int i = 0 ; i < metrics.length ; ++i )
+        {
+            Regression regression = compare( metrics[ i ],
+                                             run.getMetric( metrics[ i ] ),
+                                             baseline );
+
+            if ( regression != null )
+            {
+                regressions.add( regression );
+            }
+        }
+
+        return (Regression[]) regressions.toArray( EMPTY_REGRESSION_ARRAY );
+    }
+
+    Regression compare(String metric,
+                       double value,
+                       RunRecord[] baseline)
+    {
+        List values = new ArrayList();
+
+        for ( int i = 0 ; i < baseline.length ; ++i )
+        {
+            double baselineValue = baseline[ i ].getMetric( metric );
+
+            if ( ! Double.isNaN( baselineValue ) )
+            {
+                values.add( new Double( baselineValue ) );
+            }
+        }
+
+        int n = values.size();
+
+        if ( n < MIN_BASELINE )
+        {
+            return null;
+        }
+
+        double sum = 0;
+
+        for ( int i = 0 ; i < n ; ++i )
+        {
+            sum += ((Double)values.get( i )).doubleValue();
+        }
+
+        double mean = sum / n;
+
+        double squares = 0;
+
+        for ( int i = 0 ; i < n ; ++i )
+        {
+            double diff = ((Double)values.get( i )).doubleValue() - mean;
+
+            squares += diff * diff;
+        }
+
+        double stddev = Math.sqrt( squares / ( n - 1 ) );
+
+        double delta = value - mean;
+
+        if ( delta < this.minDelta
+             ||
+             delta < mean * this.minSlowdown )
+        {
+            return null;
+        }
+
+        // a new run's spread about the mean is its own plus the
+        // uncertainty in the mean
+        if ( stddev > 0
+             &&
+             delta / ( stddev * Math.sqrt( 1 + 1.0 / n ) ) <= getCriticalValue( n - 1 ) )
+        {
+            return null;
+        }
+
+        return new Regression( metric,
+                               value,
+                               mean,
+                               stddev,
+                               n );
+    }
+
+    static double getCriticalValue(int degreesOfFreedom)
+    {
+        if ( degreesOfFreedom <= T_95.length )
+        {
+            return T_95[ degreesOfFreedom - 1 ];
+        }
+
+        return 1.645;
+    }
+}
@@ -0,0 +1,23 @@
+package org.sysunit.report;
+
+import org.sysunit.metrics.Sample;
+
+import java.io.IOException;
+
+interface ReportWriter
+{
+    void start()
+        throws IOException;
+
+    void addJvm(JvmResult jvm)
+        throws IOException;
+
+    // time in millis since the run started
+    void addSample(int jvmId,
+                   long time,
+                   Sample sample)
+        throws IOException;
+
+    void finish()
+        throws IOException;
+}
@@ -0,0 +1,61 @@
+package org.sysunit.report;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+public class ReportedFailure
+{
+    private String tbeanId;
+    private String phase;
+    private Throwable thrown;
+
+    public ReportedFailure(String tbeanId,
+                           String phase,
+                           Throwable thrown)
+    {
+        this.tbeanId = tbeanId;
+        this.phase   = phase;
+        this.thrown  = thrown;
+    }
+
+    // null for failures not raised by a TBean
+    public String getTBeanId()
+    {
+        return this.tbeanId;
+    }
+
+    // null if not known
+    public String getPhase()
+    {
+        return this.phase;
+    }
+
+    public Throwable getThrown()
+    {
+        return this.thrown;
+    }
+
+    public boolean isAssertion()
+    {
+        return ( this.thrown instanceof junit.framework.AssertionFailedError );
+    }
+
+    public String getType()
+    {
+        return this.thrown.getClass().getName();
+    }
+
+    public String getMessage()
+    {
+        return this.thrown.getMessage();
+    }
+
+    public String getStackTrace()
+    {
+        StringWriter trace = new StringWriter();
+
+        this.thrown.printStackTrace( new PrintWriter( trace ) );
+
+        return trace.toString();
+    }
+}
@@ -0,0 +1,244 @@
+package org.sysunit.report;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.IOException;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.StringTokenizer;
+
+// an append-only file of run records per system test and scenario;
+// runs are only ever added, so a file can be copied or trimmed by
+// hand between runs
+public class RunHistory
+{
+    public static final String DIR_PROPERTY      = "sysunit.history.dir";
+    public static final String REVISION_PROPERTY = "sysunit.revision";
+
+    private static final RunRecord[] EMPTY_RUNRECORD_ARRAY = new RunRecord[0];
+    private static final String[] EMPTY_STRING_ARRAY = new String[0];
+
+    private File dir;
+
+    public RunHistory(File dir)
+    {
+        this.dir = dir;
+    }
+
+    // null unless -Dsysunit.history.dir is given
+    public static RunHistory getDefault()
+    {
+        String dir = System.getProperty( DIR_PROPERTY );
+
+        if ( dir == null
+             ||
+             dir.length() == 0 )
+        {
+            return null;
+        }
+
+        return new RunHistory( new File( dir ) );
+    }
+
+    public File getDir()
+    {
+        return this.dir;
+    }
+
+    public File getFile(String key)
+    {
+        return new File( getDir(),
+                         key + ".history" );
+    }
+
+    // the record goes out in a single write, so a run killed part way
+    // through leaves at worst a line without its newline; that line is
+    // ignored when read back, and ended before the next record
+    public synchronized void append(String key,
+                                   RunRecord record)
+        throws IOException
+    {
+        getDir().mkdirs();
+
+        File file = getFile( key );
+
+        String line = record.toLine() + "\n";
+
+        if ( ! endsLine( file ) )
+        {
+            line = "\n" + line;
+        }
+
+        OutputStream out = new FileOutputStream( file.getPath(),
+                                                 true );
+
+        try
+        {
+            out.write( line.getBytes( "UTF-8" ) );
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    // whether the file is missing, empty, or ends with a newline
+    boolean endsLine(File file)
+        throws IOException
+    {
+        if ( file.length() == 0 )
+        {
+            return true;
+        }
+
+        RandomAccessFile in = new RandomAccessFile( file,
+                                                    "r" );
+
+        try
+        {
+            in.seek( in.length() - 1 );
+
+            return ( in.read() == '\n' );
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    // oldest first
+    public synchronized RunRecord[] getRecords(String key)
+        throws IOException
+    {
+        File file = getFile( key );
+
+        if ( ! file.exists() )
+        {
+            return EMPTY_RUNRECORD_ARRAY;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        InputStream in = new FileInputStream( file );
+
+        try
+        {
+            byte[] buf = new byte[ 8192 ];
+            int read = 0;
+
+            while ( ( read = in.read( buf ) ) >= 0 )
+            {
+                bytes.write( buf,
+                             0,
+                             read );
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+
+        String text = bytes.toString( "UTF-8" );
+
+        List records = new ArrayList();
+
+        int start = 0;
+        int end   = 0;
+
+        while ( ( end = text.indexOf( '\n',
+                                      start ) ) >= 0 )
+        {
+            RunRecord record = RunRecord.parse( text.substring( start,
+                                                                end ) );
+
+            if ( record != null )
+            {
+                records.add( record );
+            }
+
+            start = end + 1;
+        }
+
+        return (RunRecord[]) records.toArray( EMPTY_RUNRECORD_ARRAY );
+    }
+
+    // the names of the system tests and scenarios with a history
+    public String[] getKeys()
+    {
+        File[] files = getDir().listFiles();
+
+        if ( files == null )
+        {
+            return EMPTY_STRING_ARRAY;
+        }
+
+        List keys = new ArrayList();
+
+        for ( int i = 0 ; i < files.length ; ++i )
+        {
+            String name = files[ i ].getName();
+
+            if ( name.endsWith( ".history" ) )
+            {
+                keys.add( name.substring( 0,
+                                          name.length() - ".history".length() ) );
+            }
+        }
+
+        return (String[]) keys.toArray( EMPTY_STRING_ARRAY );
+    }
+
+    // -Dsysunit.revision if given, else the git revision of the
+    // working directory, else "unknown"
+    public static String getRevision()
+    {
+        String revision = System.getProperty( REVISION_PROPERTY );
+
+        if ( revision != null
+             &&
+             revision.length() > 0 )
+        {
+            return revision;
+        }
+
+        try
+        {
+            Process git = Runtime.getRuntime().exec( new String[] { "git",
+                                                                    "rev-parse",
+                                                                    "--short",
+                                                                    "HEAD" } );
+
+            BufferedReader in = new BufferedReader( new InputStreamReader( git.getInputStream() ) );
+
+            String line = in.readLine();
+
+            in.close();
+            git.getErrorStream().close();
+
+            if ( git.waitFor() == 0
+                 &&
+                 line != null )
+            {
+                StringTokenizer tokens = new StringTokenizer( line );
+
+                if ( tokens.hasMoreTokens() )
+                {
+                    return tokens.nextToken();
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            // no git, or not a git working directory
+        }
+
+        return "unknown";
+    }
+}
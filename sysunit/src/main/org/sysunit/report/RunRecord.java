@@ -0,0 +1,204 @@
+package org.sysunit.report;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.TreeMap;
+import java.util.Iterator;
+import java.util.StringTokenizer;
+
+// the timings of one run, as kept in the run history: the master's
+// phases, the slowest of each TBean's phases for each JVM name, and
+// the mean wait per sync() for each JVM name
+public class RunRecord
+{
+    private static final String[] EMPTY_STRING_ARRAY = new String[0];
+
+    private long time;
+    private String revision;
+    private boolean passed;
+
+    private Map metrics;
+
+    private Map syncs;
+    private Map syncWaits;
+
+    public RunRecord(long time,
+                     String revision,
+                     boolean passed)
+    {
+        this.time      = time;
+        this.revision  = revision;
+        this.passed    = passed;
+        this.metrics   = new TreeMap();
+        this.syncs     = new HashMap();
+        this.syncWaits = new HashMap();
+    }
+
+    public long getTime()
+    {
+        return this.time;
+    }
+
+    public String getRevision()
+    {
+        return this.revision;
+    }
+
+    public void setPassed(boolean passed)
+    {
+        this.passed = passed;
+    }
+
+    public boolean isPassed()
+    {
+        return this.passed;
+    }
+
+    public void setMetric(String name,
+                          double value)
+    {
+        this.metrics.put( name,
+                          new Double( value ) );
+    }
+
+    // NaN if not recorded for this run
+    public double getMetric(String name)
+    {
+        Double value = (Double) this.metrics.get( name );
+
+        return ( ( value == null )
+                 ? Double.NaN
+                 : value.doubleValue() );
+    }
+
+    public String[] getMetricNames()
+    {
+        return (String[]) this.metrics.keySet().toArray( EMPTY_STRING_ARRAY );
+    }
+
+    public void addJvm(JvmResult jvm)
+    {
+        TBeanTimings[] tbeans = jvm.getTBeans();
+
+        for ( int i = 0 ; i < tbeans.length ; ++i )
+        {
+            for ( int j = 0 ; j < TBeanTimings.PHASES.length ; ++j )
+            {
+                long time = tbeans[ i ].getTime( TBeanTimings.PHASES[ j ] );
+
+                if ( time < 0 )
+                {
+                    continue;
+                }
+
+                String name = "tbean." + jvm.getName() + "." + tbeans[ i ].getTBeanId() + "." + TBeanTimings.PHASES[ j ];
+
+                if ( ! ( getMetric( name ) >= time ) )
+                {
+                    setMetric( name,
+                               time );
+                }
+            }
+        }
+
+        if ( jvm.getSyncs() > 0 )
+        {
+            String name = "sync." + jvm.getName() + ".wait";
+
+            long syncs     = add( this.syncs,
+                                  name,
+                                  jvm.getSyncs() );
+            long syncWaits = add( this.syncWaits,
+                                  name,
+                                  jvm.getSyncWaitTime() );
+
+            setMetric( name,
+                       (double) syncWaits / syncs );
+        }
+    }
+
+    long add(Map totals,
+             String name,
+             long value)
+    {
+        Long total = (Long) totals.get( name );
+
+        if ( total != null )
+        {
+            value += total.longValue();
+        }
+
+        totals.put( name,
+                    new Long( value ) );
+
+        return value;
+    }
+
+    // time, revision, passed, then name=value for each metric, tab
+    // separated
+    public String toLine()
+    {
+        StringBuffer line = new StringBuffer();
+
+        line.append( this.time );
+        line.append( '\t' );
+        line.append( this.revision );
+        line.append( '\t' );
+        line.append( this.passed );
+
+        for ( Iterator nameIter = this.metrics.keySet().iterator();
+              nameIter.hasNext() ; )
+        {
+            String name = (String) nameIter.next();
+
+            line.append( '\t' );
+            line.append( name );
+            line.append( '=' );
+            line.append( this.metrics.get( name ) );
+        }
+
+        return line.toString();
+    }
+
+    // null if the line is not a record, such as one cut short when
+    // a run was killed while appending it
+    public static RunRecord parse(String line)
+    {
+        StringTokenizer tokens = new StringTokenizer( line,
+                                                      "\t" );
+
+        if ( tokens.countTokens() < 3 )
+        {
+            return null;
+        }
+
+        try
+        {
+            RunRecord record = new RunRecord( Long.parseLong( tokens.nextToken() ),
+                                              tokens.nextToken(),
+                                              Boolean.valueOf( tokens.nextToken() ).booleanValue() );
+
+            while ( tokens.hasMoreTokens() )
+            {
+                String metric = tokens.nextToken();
+
+                int eq = metric.lastIndexOf( '=' );
+
+                if ( eq <= 0 )
+                {
+                    return null;
+                }
+
+                record.setMetric( metric.substring( 0,
+                                                    eq ),
+                                  Double.parseDouble( metric.substring( eq + 1 ) ) );
+            }
+
+            return record;
+        }
+        catch (NumberFormatException e)
+        {
+            return null;
+        }
+    }
+}
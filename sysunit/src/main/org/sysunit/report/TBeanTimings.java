@@ -0,0 +1,76 @@
+package org.sysunit.report;
+
+import java.io.Serializable;
+
+// how long each phase of one TBean took, in millis, -1 if the
+// phase did not run
+public class TBeanTimings
+    implements Serializable
+{
+    public static final String SET_UP       = "setUp";
+    public static final String RUN          = "run";
+    public static final String ASSERT_VALID = "assertValid";
+    public static final String TEAR_DOWN    = "tearDown";
+
+    // not timed: a measurable TBean's measurement is timed as its run
+    public static final String WARM_UP      = "warmUp";
+
+    public static final String[] PHASES = new String[] { SET_UP,
+                                                         RUN,
+                                                         ASSERT_VALID,
+                                                         TEAR_DOWN };
+
+    private String tbeanId;
+    private long[] times;
+
+    public TBeanTimings(String tbeanId)
+    {
+        this.tbeanId = tbeanId;
+        this.times   = new long[] { -1, -1, -1, -1 };
+    }
+
+    public String getTBeanId()
+    {
+        return this.tbeanId;
+    }
+
+    public void setTime(String phase,
+                        long time)
+    {
+        this.times[ indexOf( phase ) ] = time;
+    }
+
+    public long getTime(String phase)
+    {
+        return this.times[ indexOf( phase ) ];
+    }
+
+    // total of the phases that ran
+    public long getTotalTime()
+    {
+        long total = 0;
+
+        for ( int i = 0 ; i < this.times.length ; ++i )
+        {
+            if ( this.times[ i ] > 0 )
+            {
+                total += this.times[ i ];
+            }
+        }
+
+        return total;
+    }
+
+    static int indexOf(String phase)
+    {
+        for ( int i = 0 ; i < PHASES.length ; ++i )
+        {
+            if ( PHASES[ i ].equals( phase ) )
+            {
+                return i;
+            }
+        }
+
+        throw new IllegalArgumentException( phase );
+    }
+}
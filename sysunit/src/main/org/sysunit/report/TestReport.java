@@ -0,0 +1,396 @@
+package org.sysunit.report;
+
+import org.sysunit.metrics.Histogram;
+import org.sysunit.metrics.Sample;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.TreeMap;
+import java.util.Iterator;
+
+// machine-readable results of one test run, a JSON document, a
+// JUnit XML file and a CSV of the counters and gauges sampled, written
+// as results arrive so that a run which never finishes still leaves
+// the JVMs reported so far; the run's timings are added to the run
+// history too, if one is kept.  The histograms of every JVM are merged
+// by name into the run's own, and the samples into a time series each
+public class TestReport
+{
+    public static final String DIR_PROPERTY = "sysunit.report.dir";
+
+    private static final ReportWriter[] EMPTY_REPORTWRITER_ARRAY = new ReportWriter[0];
+    private static final ReportedFailure[] EMPTY_REPORTEDFAILURE_ARRAY = new ReportedFailure[0];
+    private static final String[] EMPTY_STRING_ARRAY = new String[0];
+
+    private File dir;
+    private String suite;
+    private String name;
+
+    private ReportWriter[] writers;
+
+    private long started;
+    private long duration;
+
+    private List phases;
+    private Map phaseTimes;
+
+    private List failures;
+
+    private Map histograms;
+
+    private Map series;
+
+    private int barriers;
+
+    private boolean passed;
+
+    private RunHistory history;
+    private RunRecord record;
+
+    public TestReport(String suite,
+                      String name)
+    {
+        this( new File( System.getProperty( DIR_PROPERTY,
+                                            "target/sysunit-reports" ) ),
+              suite,
+              name );
+    }
+
+    public TestReport(File dir,
+                      String suite,
+                      String name)
+    {
+        this.dir        = dir;
+        this.suite      = suite;
+        this.name       = name;
+        this.phases     = new ArrayList();
+        this.phaseTimes = new HashMap();
+        this.failures   = new ArrayList();
+        this.histograms = new TreeMap();
+        this.series     = new TreeMap();
+        this.passed     = true;
+        this.history    = RunHistory.getDefault();
+
+        this.writers    = new ReportWriter[] { new JsonReportWriter( this ),
+                                               new JUnitReportWriter( this ),
+                                               new CsvSeriesWriter( this ) };
+    }
+
+    public File getDir()
+    {
+        return this.dir;
+    }
+
+    public String getSuite()
+    {
+        return this.suite;
+    }
+
+    public String getName()
+    {
+        return this.name;
+    }
+
+    // suite.name, naming the report files
+    public String getBaseName()
+    {
+        return ( ( this.name == null )
+                 ? this.suite
+                 : this.suite + "." + this.name );
+    }
+
+    public File getJsonFile()
+    {
+        return new File( getDir(),
+                         getBaseName() + ".json" );
+    }
+
+    public File getXmlFile()
+    {
+        return new File( getDir(),
+                         "TEST-" + getBaseName() + ".xml" );
+    }
+
+    public File getSeriesFile()
+    {
+        return new File( getDir(),
+                         getBaseName() + ".series.csv" );
+    }
+
+    public synchronized void setHistory(RunHistory history)
+    {
+        this.history = history;
+    }
+
+    public synchronized RunHistory getHistory()
+    {
+        return this.history;
+    }
+
+    public synchronized long getStarted()
+    {
+        return this.started;
+    }
+
+    public synchronized long getDuration()
+    {
+        return this.duration;
+    }
+
+    public synchronized void start()
+    {
+        String revision = null;
+
+        if ( this.history != null )
+        {
+            revision = RunHistory.getRevision();
+        }
+
+        this.started = System.currentTimeMillis();
+
+        if ( this.history != null )
+        {
+            this.record = new RunRecord( this.started,
+                                         revision,
+                                         true );
+        }
+
+        getDir().mkdirs();
+
+        for ( int i = 0 ; i < this.writers.length ; ++i )
+        {
+            try
+            {
+                this.writers[ i ].start();
+            }
+            catch (IOException e)
+            {
+                writeFailed( e );
+            }
+        }
+    }
+
+    public synchronized void setPhaseTime(String phase,
+                                          long time)
+    {
+        if ( ! this.phases.contains( phase ) )
+        {
+            this.phases.add( phase );
+        }
+
+        this.phaseTimes.put( phase,
+                             new Long( time ) );
+    }
+
+    public synchronized String[] getPhases()
+    {
+        return (String[]) this.phases.toArray( EMPTY_STRING_ARRAY );
+    }
+
+    public synchronized long getPhaseTime(String phase)
+    {
+        Long time = (Long) this.phaseTimes.get( phase );
+
+        return ( ( time == null )
+                 ? -1
+                 : time.longValue() );
+    }
+
+    public synchronized void addJvm(JvmResult jvm)
+    {
+        if ( jvm.getFailures().length > 0 )
+        {
+            this.passed = false;
+        }
+
+        if ( this.record != null )
+        {
+            this.record.addJvm( jvm );
+        }
+
+        for ( Iterator nameIter = jvm.getHistograms().keySet().iterator();
+              nameIter.hasNext() ; )
+        {
+            String name = (String) nameIter.next();
+
+            Histogram histogram = (Histogram) this.histograms.get( name );
+
+            if ( histogram == null )
+            {
+                histogram = new Histogram();
+                this.histograms.put( name,
+                                     histogram );
+            }
+
+            histogram.merge( (Histogram) jvm.getHistograms().get( name ) );
+        }
+
+        for ( int i = 0 ; i < this.writers.length ; ++i )
+        {
+            try
+            {
+                this.writers[ i ].addJvm( jvm );
+            }
+            catch (IOException e)
+            {
+                writeFailed( e );
+            }
+        }
+    }
+
+    // counted by the second of the run it arrives in, rather than when
+    // it was taken, since slave hosts' clocks may disagree
+    public synchronized void addSample(int jvmId,
+                                       Sample sample)
+    {
+        long time = System.currentTimeMillis() - this.started;
+
+        addSeries( jvmId,
+                   time / 1000,
+                   sample.getCounters(),
+                   false );
+
+        addSeries( jvmId,
+                   time / 1000,
+                   sample.getGauges(),
+                   true );
+
+        for ( int i = 0 ; i < this.writers.length ; ++i )
+        {
+            try
+            {
+                this.writers[ i ].addSample( jvmId,
+                                             time,
+                                             sample );
+            }
+            catch (IOException e)
+            {
+                writeFailed( e );
+            }
+        }
+    }
+
+    void addSeries(int jvmId,
+                   long second,
+                   Map values,
+                   boolean gauge)
+    {
+        for ( Iterator nameIter = values.keySet().iterator();
+              nameIter.hasNext() ; )
+        {
+            String name = (String) nameIter.next();
+
+            TimeSeries timeSeries = (TimeSeries) this.series.get( name );
+
+            if ( timeSeries == null )
+            {
+                timeSeries = new TimeSeries( name,
+                                             gauge );
+                this.series.put( name,
+                                 timeSeries );
+            }
+
+            timeSeries.add( jvmId,
+                            second,
+                            ((Long) values.get( name )).longValue() );
+        }
+    }
+
+    // a failure not raised in any one JVM
+    public synchronized void addFailure(ReportedFailure failure)
+    {
+        this.failures.add( failure );
+        this.passed = false;
+    }
+
+    public synchronized ReportedFailure[] getFailures()
+    {
+        return (ReportedFailure[]) this.failures.toArray( EMPTY_REPORTEDFAILURE_ARRAY );
+    }
+
+    // name to the merge of every JVM's Histogram of that name
+    public synchronized Map getHistograms()
+    {
+        return new TreeMap( this.histograms );
+    }
+
+    // name to the TimeSeries of every JVM's samples of that name
+    public synchronized Map getSeries()
+    {
+        return new TreeMap( this.series );
+    }
+
+    public synchronized int getBarriers()
+    {
+        return this.barriers;
+    }
+
+    public synchronized boolean isPassed()
+    {
+        return this.passed;
+    }
+
+    public synchronized void finish(int barriers)
+    {
+        this.barriers = barriers;
+        this.duration = System.currentTimeMillis() - this.started;
+
+        for ( int i = 0 ; i < this.writers.length ; ++i )
+        {
+            try
+            {
+                this.writers[ i ].finish();
+            }
+            catch (IOException e)
+            {
+                writeFailed( e );
+            }
+        }
+
+        this.writers = EMPTY_REPORTWRITER_ARRAY;
+
+        if ( this.record != null )
+        {
+            recordRun();
+        }
+    }
+
+    void recordRun()
+    {
+        for ( int i = 0 ; i < this.phases.size() ; ++i )
+        {
+            String phase = (String) this.phases.get( i );
+
+            this.record.setMetric( "phase." + phase,
+                                   getPhaseTime( phase ) );
+        }
+
+        this.record.setMetric( "duration",
+                               this.duration );
+
+        this.record.setPassed( this.passed );
+
+        try
+        {
+            this.history.append( getBaseName(),
+                                 this.record );
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+
+        this.record = null;
+    }
+
+    // a report that cannot be written does not fail the test
+    void writeFailed(IOException e)
+    {
+        e.printStackTrace();
+        this.writers = EMPTY_REPORTWRITER_ARRAY;
+    }
+}
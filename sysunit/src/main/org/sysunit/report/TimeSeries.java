@@ -0,0 +1,120 @@
+package org.sysunit.report;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Iterator;
+
+// one counter or gauge over a run, by whole seconds since it started,
+// summed over every JVM: what a counter counted within each second,
+// and a gauge's latest value from each JVM in it
+public class TimeSeries
+{
+    private String name;
+    private boolean gauge;
+
+    // Long second to a map of Integer jvmId to Long value
+    private Map seconds;
+
+    public TimeSeries(String name,
+                      boolean gauge)
+    {
+        this.name    = name;
+        this.gauge   = gauge;
+        this.seconds = new TreeMap();
+    }
+
+    public String getName()
+    {
+        return this.name;
+    }
+
+    public boolean isGauge()
+    {
+        return this.gauge;
+    }
+
+    public synchronized void add(int jvmId,
+                                 long second,
+                                 long value)
+    {
+        Long key = new Long( second );
+
+        Map jvms = (Map) this.seconds.get( key );
+
+        if ( jvms == null )
+        {
+            jvms = new TreeMap();
+            this.seconds.put( key,
+                              jvms );
+        }
+
+        Integer jvm = new Integer( jvmId );
+
+        Long previous = (Long) jvms.get( jvm );
+
+        if ( previous != null
+             &&
+             ! this.gauge )
+        {
+            value += previous.longValue();
+        }
+
+        jvms.put( jvm,
+                  new Long( value ) );
+    }
+
+    // the seconds with a value, in order
+    public synchronized long[] getSeconds()
+    {
+        long[] seconds = new long[ this.seconds.size() ];
+
+        int i = 0;
+
+        for ( Iterator secondIter = this.seconds.keySet().iterator();
+              secondIter.hasNext() ; ++i )
+        {
+            seconds[ i ] = ((Long) secondIter.next()).longValue();
+        }
+
+        return seconds;
+    }
+
+    public synchronized long getValue(long second)
+    {
+        Map jvms = (Map) this.seconds.get( new Long( second ) );
+
+        if ( jvms == null )
+        {
+            return 0;
+        }
+
+        long value = 0;
+
+        for ( Iterator valueIter = jvms.values().iterator();
+              valueIter.hasNext() ; )
+        {
+            value += ((Long) valueIter.next()).longValue();
+        }
+
+        return value;
+    }
+
+    // everything a counter counted over the run
+    public synchronized long getTotal()
+    {
+        long total = 0;
+
+        for ( Iterator secondIter = this.seconds.keySet().iterator();
+              secondIter.hasNext() ; )
+        {
+            total += getValue( ((Long) secondIter.next()).longValue() );
+        }
+
+        return total;
+    }
+
+    public String toString()
+    {
+        return "[TimeSeries: " + this.name + "]";
+    }
+}
@@ -4,6 +4,12 @@ import org.sysunit.TBeanSynchronizer;
 import org.sysunit.ThreadMethodTBean;
 import org.sysunit.InconsistentSyncException;
 
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.Condition;
+
+// guarded by a Lock rather than the monitor, so TBeans blocked in
+// sync() on virtual threads leave their carriers free
 public class Synchronizer
 {
     private static ThreadLocal synchronizer = new ThreadLocal();
@@ -19,6 +25,12 @@ public class Synchronizer
 
     private boolean error;
 
+    private int syncs;
+    private long waitTime;
+
+    private Lock lock;
+    private Condition changed;
+
     public Synchronizer(int numThreads,
                         SynchronizerCallback callback)
     {
@@ -27,6 +39,9 @@ public class Synchronizer
         this.inconsistentSyncer = null;
 
         this.callback           = callback;
+
+        this.lock               = new ReentrantLock();
+        this.changed            = this.lock.newCondition();
     }
 
     public SynchronizerCallback getCallback()
@@ -34,8 +49,25 @@ public class Synchronizer
         return this.callback;
     }
 
-    public synchronized void sync(String syncPoint,
-                                  String syncer)
+    public void sync(String syncPoint,
+                     String syncer)
+        throws InterruptedException, InconsistentSyncException
+    {
+        this.lock.lock();
+
+        try
+        {
+            doSync( syncPoint,
+                    syncer );
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    void doSync(String syncPoint,
+                String syncer)
         throws InterruptedException, InconsistentSyncException
     {
         checkConsistency( syncPoint,
@@ -44,17 +76,27 @@ public class Synchronizer
         int localSequence = this.sequence;
 
         ++this.waitingThreads;
+        ++this.syncs;
 
-        checkBlockage();
+        long start = System.currentTimeMillis();
 
-        while ( localSequence == this.sequence )
+        try
         {
-            if ( this.error )
+            checkBlockage();
+
+            while ( localSequence == this.sequence )
             {
-                throw new SecondaryFailureError();
-            }
+                if ( this.error )
+                {
+                    throw new SecondaryFailureError();
+                }
 
-            wait();
+                this.changed.await();
+            }
+        }
+        finally
+        {
+            this.waitTime += System.currentTimeMillis() - start;
         }
 
         if ( this.error )
@@ -68,26 +110,107 @@ public class Synchronizer
         }
     }
 
-    public synchronized int getNumWaitingThreads()
+    public int getNumWaitingThreads()
     {
-        return this.waitingThreads;
+        this.lock.lock();
+
+        try
+        {
+            return this.waitingThreads;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
     }
 
-    public synchronized int getNumThreads()
+    public int getNumThreads()
     {
-        return this.numThreads;
+        this.lock.lock();
+
+        try
+        {
+            return this.numThreads;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
     }
 
-    public synchronized void reduceNumThreads()
+    // calls to sync() so far, by all threads
+    public int getSyncs()
     {
-        --this.numThreads;
-        checkBlockage();
+        this.lock.lock();
+
+        try
+        {
+            return this.syncs;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
     }
 
-    public synchronized void setError()
+    // millis threads have spent blocked in sync(), summed
+    public long getWaitTime()
     {
-        this.error = true;
-        notifyAll();
+        this.lock.lock();
+
+        try
+        {
+            return this.waitTime;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    // sync-points passed so far
+    public int getBarriers()
+    {
+        this.lock.lock();
+
+        try
+        {
+            return this.sequence;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    public void reduceNumThreads()
+    {
+        this.lock.lock();
+
+        try
+        {
+            --this.numThreads;
+            checkBlockage();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    public void setError()
+    {
+        this.lock.lock();
+
+        try
+        {
+            this.error = true;
+            this.changed.signalAll();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
     }
 
     void checkBlockage()
@@ -101,12 +224,21 @@ public class Synchronizer
         }
     }
 
-    public synchronized void unblock()
+    public void unblock()
     {
-        this.currentSyncPoint = null;
-        ++this.sequence;
-        this.waitingThreads = 0;
-        notifyAll();
+        this.lock.lock();
+
+        try
+        {
+            this.currentSyncPoint = null;
+            ++this.sequence;
+            this.waitingThreads = 0;
+            this.changed.signalAll();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
     }
 
     void checkConsistency(String syncPoint,
@@ -0,0 +1,338 @@
+package org.sysunit.testmesh;
+
+import org.sysunit.mesh.NodeInfo;
+import org.sysunit.model.PhysicalMachineInfo;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.HashMap;
+
+// the slave hosts known at one moment, each under a dense id, with a
+// bit set of the ids carrying each tag and each jdk.  An index is never
+// changed once built: each change builds a new one, sharing whatever
+// the change leaves alone, so an index can be queried without a lock
+public class HostIndex
+{
+    private static final NodeInfo[] EMPTY_NODEINFO_ARRAY = new NodeInfo[0];
+    private static final PhysicalMachineInfo[] EMPTY_PHYSICALMACHINEINFO_ARRAY = new PhysicalMachineInfo[0];
+
+    private NodeInfo[] hosts;
+    private PhysicalMachineInfo[] infos;
+    private Map ids;
+    private BitSet live;
+    private Map tags;
+    private Map jdks;
+
+    HostIndex()
+    {
+        this.hosts = EMPTY_NODEINFO_ARRAY;
+        this.infos = EMPTY_PHYSICALMACHINEINFO_ARRAY;
+        this.ids   = new HashMap();
+        this.live  = new BitSet();
+        this.tags  = new HashMap();
+        this.jdks  = new HashMap();
+    }
+
+    HostIndex(HostIndex index)
+    {
+        this.hosts = index.hosts;
+        this.infos = index.infos;
+        this.ids   = index.ids;
+        this.live  = index.live;
+        this.tags  = index.tags;
+        this.jdks  = index.jdks;
+    }
+
+    public int size()
+    {
+        return this.ids.size();
+    }
+
+    public PhysicalMachineInfo getPhysicalMachineInfo(NodeInfo slaveHost)
+    {
+        Integer id = (Integer) this.ids.get( slaveHost );
+
+        if ( id == null )
+        {
+            return null;
+        }
+
+        return this.infos[ id.intValue() ];
+    }
+
+    public NodeInfo[] getSlaveHosts()
+    {
+        return getSlaveHosts( this.live );
+    }
+
+    // the hosts matching the tag expression and the jdk, either of
+    // which may be null or * for any, that the predicate, if any,
+    // accepts; hosts tagged, or with a jdk, of * match any
+    public NodeInfo[] select(String tag,
+                             String jdk,
+                             HostPredicate predicate)
+    {
+        BitSet matching = (BitSet) this.live.clone();
+
+        if ( tag != null
+             &&
+             ! tag.equals( "*" ) )
+        {
+            matching.and( match( TagExpression.parse( tag ) ) );
+        }
+
+        if ( jdk != null
+             &&
+             ! jdk.equals( "*" ) )
+        {
+            BitSet jdkBits = (BitSet) getBits( this.jdks,
+                                               jdk ).clone();
+
+            jdkBits.or( getBits( this.jdks,
+                                 "*" ) );
+
+            matching.and( jdkBits );
+        }
+
+        if ( predicate != null )
+        {
+            for ( int id = matching.nextSetBit( 0 ) ; id >= 0 ; id = matching.nextSetBit( id + 1 ) )
+            {
+                if ( ! predicate.accept( this.infos[ id ] ) )
+                {
+                    matching.clear( id );
+                }
+            }
+        }
+
+        return getSlaveHosts( matching );
+    }
+
+    BitSet match(TagExpression expression)
+    {
+        BitSet matching = expression.evaluate( this );
+
+        matching.or( getBits( this.tags,
+                              "*" ) );
+
+        return matching;
+    }
+
+    // shared, so not to be changed
+    BitSet getTagged(String tag)
+    {
+        return getBits( this.tags,
+                        tag );
+    }
+
+    BitSet getLive()
+    {
+        return this.live;
+    }
+
+    NodeInfo[] getSlaveHosts(BitSet ids)
+    {
+        NodeInfo[] slaveHosts = new NodeInfo[ ids.cardinality() ];
+
+        int i = 0;
+
+        for ( int id = ids.nextSetBit( 0 ) ; id >= 0 ; id = ids.nextSetBit( id + 1 ) )
+        {
+            slaveHosts[ i++ ] = this.hosts[ id ];
+        }
+
+        return slaveHosts;
+    }
+
+    BitSet getBits(Map index,
+                   String key)
+    {
+        BitSet bits = (BitSet) index.get( key );
+
+        return ( ( bits == null )
+                 ? new BitSet()
+                 : bits );
+    }
+
+    // a host already indexed keeps its id, and, if its tags and jdks
+    // are unchanged, as for a heartbeat, only its info is replaced
+    HostIndex with(NodeInfo slaveHost,
+                   PhysicalMachineInfo physicalMachineInfo)
+    {
+        HostIndex index = new HostIndex( this );
+
+        Integer id = (Integer) this.ids.get( slaveHost );
+
+        if ( id == null )
+        {
+            id = new Integer( this.live.nextClearBit( 0 ) );
+
+            index.ids = new HashMap( this.ids );
+            index.ids.put( slaveHost,
+                           id );
+
+            index.live = (BitSet) this.live.clone();
+            index.live.set( id.intValue() );
+
+            index.hosts = copy( this.hosts,
+                                id.intValue() + 1 );
+            index.hosts[ id.intValue() ] = slaveHost;
+        }
+        else
+        {
+            PhysicalMachineInfo indexed = this.infos[ id.intValue() ];
+
+            if ( Arrays.equals( indexed.getTags(),
+                                physicalMachineInfo.getTags() )
+                 &&
+                 Arrays.equals( indexed.getJdks(),
+                                physicalMachineInfo.getJdks() ) )
+            {
+                index.infos = copy( this.infos,
+                                    this.infos.length );
+                index.infos[ id.intValue() ] = physicalMachineInfo;
+
+                return index;
+            }
+
+            index.tags = clear( this.tags,
+                                indexed.getTags(),
+                                id.intValue() );
+
+            index.jdks = clear( this.jdks,
+                                indexed.getJdks(),
+                                id.intValue() );
+        }
+
+        index.infos = copy( this.infos,
+                            index.hosts.length );
+        index.infos[ id.intValue() ] = physicalMachineInfo;
+
+        index.tags = set( index.tags,
+                          physicalMachineInfo.getTags(),
+                          id.intValue() );
+
+        index.jdks = set( index.jdks,
+                          physicalMachineInfo.getJdks(),
+                          id.intValue() );
+
+        return index;
+    }
+
+    // the host's id is free for the next host added
+    HostIndex without(NodeInfo slaveHost)
+    {
+        Integer id = (Integer) this.ids.get( slaveHost );
+
+        if ( id == null )
+        {
+            return this;
+        }
+
+        HostIndex index = new HostIndex( this );
+
+        PhysicalMachineInfo indexed = this.infos[ id.intValue() ];
+
+        index.ids = new HashMap( this.ids );
+        index.ids.remove( slaveHost );
+
+        index.live = (BitSet) this.live.clone();
+        index.live.clear( id.intValue() );
+
+        index.hosts = copy( this.hosts,
+                            this.hosts.length );
+        index.hosts[ id.intValue() ] = null;
+
+        index.infos = copy( this.infos,
+                            this.infos.length );
+        index.infos[ id.intValue() ] = null;
+
+        index.tags = clear( this.tags,
+                            indexed.getTags(),
+                            id.intValue() );
+
+        index.jdks = clear( this.jdks,
+                            indexed.getJdks(),
+                            id.intValue() );
+
+        return index;
+    }
+
+    Map set(Map index,
+            String[] keys,
+            int id)
+    {
+        Map copy = new HashMap( index );
+
+        for ( int i = 0 ; i < keys.length ; ++i )
+        {
+            BitSet bits = (BitSet) getBits( copy,
+                                            keys[ i ] ).clone();
+
+            bits.set( id );
+
+            copy.put( keys[ i ],
+                      bits );
+        }
+
+        return copy;
+    }
+
+    Map clear(Map index,
+              String[] keys,
+              int id)
+    {
+        Map copy = new HashMap( index );
+
+        for ( int i = 0 ; i < keys.length ; ++i )
+        {
+            BitSet bits = (BitSet) getBits( copy,
+                                            keys[ i ] ).clone();
+
+            bits.clear( id );
+
+            if ( bits.isEmpty() )
+            {
+                copy.remove( keys[ i ] );
+            }
+            else
+            {
+                copy.put( keys[ i ],
+                          bits );
+            }
+        }
+
+        return copy;
+    }
+
+    NodeInfo[] copy(NodeInfo[] hosts,
+                    int length)
+    {
+        NodeInfo[] copy = new NodeInfo[ Math.max( length,
+                                                  hosts.length ) ];
+
+        System.arraycopy( hosts,
+                          0,
+                          copy,
+                          0,
+                          hosts.length );
+
+        return copy;
+    }
+
+    PhysicalMachineInfo[] copy(PhysicalMachineInfo[] infos,
+                               int length)
+    {
+        PhysicalMachineInfo[] copy = new PhysicalMachineInfo[ Math.max( length,
+                                                                        infos.length ) ];
+
+        System.arraycopy( infos,
+                          0,
+                          copy,
+                          0,
+                          infos.length );
+
+        return copy;
+    }
+}
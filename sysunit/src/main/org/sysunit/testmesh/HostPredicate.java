@@ -0,0 +1,9 @@
+package org.sysunit.testmesh;
+
+import org.sysunit.model.PhysicalMachineInfo;
+
+// a test of the resources a slave host advertises
+public interface HostPredicate
+{
+    boolean accept(PhysicalMachineInfo physicalMachineInfo);
+}
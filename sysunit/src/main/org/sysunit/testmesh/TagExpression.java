@@ -0,0 +1,211 @@
+package org.sysunit.testmesh;
+
+import java.util.BitSet;
+
+// a constraint on slave host tags: tags joined by & (and) and | (or),
+// negated by ! and grouped by parentheses, & binding tighter than |,
+// such as "linux & !slow | solaris"; a single tag is the simplest
+public class TagExpression
+{
+    private static final int TAG = 0;
+    private static final int AND = 1;
+    private static final int OR  = 2;
+    private static final int NOT = 3;
+
+    private int op;
+    private String tag;
+    private TagExpression left;
+    private TagExpression right;
+
+    TagExpression(String tag)
+    {
+        this.op  = TAG;
+        this.tag = tag;
+    }
+
+    TagExpression(int op,
+                  TagExpression left,
+                  TagExpression right)
+    {
+        this.op    = op;
+        this.left  = left;
+        this.right = right;
+    }
+
+    public static TagExpression parse(String expression)
+    {
+        Parser parser = new Parser( expression );
+
+        TagExpression parsed = parser.parseOr();
+
+        if ( ! parser.atEnd() )
+        {
+            throw parser.error();
+        }
+
+        return parsed;
+    }
+
+    // the ids of the hosts whose own tags satisfy the expression; * as
+    // a tag matches every host
+    BitSet evaluate(HostIndex index)
+    {
+        BitSet bits = null;
+
+        switch ( this.op )
+        {
+            case TAG:
+                if ( this.tag.equals( "*" ) )
+                {
+                    return (BitSet) index.getLive().clone();
+                }
+
+                return (BitSet) index.getTagged( this.tag ).clone();
+            case AND:
+                bits = this.left.evaluate( index );
+                bits.and( this.right.evaluate( index ) );
+                return bits;
+            case OR:
+                bits = this.left.evaluate( index );
+                bits.or( this.right.evaluate( index ) );
+                return bits;
+            default:
+                bits = (BitSet) index.getLive().clone();
+                bits.andNot( this.left.evaluate( index ) );
+                return bits;
+        }
+    }
+
+    public String toString()
+    {
+        switch ( this.op )
+        {
+            case TAG:
+                return this.tag;
+            case AND:
+                return "(" + this.left + " & " + this.right + ")";
+            case OR:
+                return "(" + this.left + " | " + this.right + ")";
+            default:
+                return "!" + this.left;
+        }
+    }
+
+    static class Parser
+    {
+        private String expression;
+        private int pos;
+
+        Parser(String expression)
+        {
+            this.expression = expression;
+            this.pos        = 0;
+        }
+
+        TagExpression parseOr()
+        {
+            TagExpression parsed = parseAnd();
+
+            while ( accept( '|' ) )
+            {
+                parsed = new TagExpression( OR,
+                                            parsed,
+                                            parseAnd() );
+            }
+
+            return parsed;
+        }
+
+        TagExpression parseAnd()
+        {
+            TagExpression parsed = parseNot();
+
+            while ( accept( '&' ) )
+            {
+                parsed = new TagExpression( AND,
+                                            parsed,
+                                            parseNot() );
+            }
+
+            return parsed;
+        }
+
+        TagExpression parseNot()
+        {
+            if ( accept( '!' ) )
+            {
+                return new TagExpression( NOT,
+                                          parseNot(),
+                                          null );
+            }
+
+            if ( accept( '(' ) )
+            {
+                TagExpression parsed = parseOr();
+
+                if ( ! accept( ')' ) )
+                {
+                    throw error();
+                }
+
+                return parsed;
+            }
+
+            skipWhitespace();
+
+            int start = this.pos;
+
+            while ( this.pos < this.expression.length()
+                    &&
+                    "&|!() \t".indexOf( this.expression.charAt( this.pos ) ) < 0 )
+            {
+                ++this.pos;
+            }
+
+            if ( this.pos == start )
+            {
+                throw error();
+            }
+
+            return new TagExpression( this.expression.substring( start,
+                                                                 this.pos ) );
+        }
+
+        boolean accept(char c)
+        {
+            skipWhitespace();
+
+            if ( this.pos < this.expression.length()
+                 &&
+                 this.expression.charAt( this.pos ) == c )
+            {
+                ++this.pos;
+                return true;
+            }
+
+            return false;
+        }
+
+        boolean atEnd()
+        {
+            skipWhitespace();
+
+            return this.pos == this.expression.length();
+        }
+
+        void skipWhitespace()
+        {
+            while ( this.pos < this.expression.length()
+                    &&
+                    Character.isWhitespace( this.expression.charAt( this.pos ) ) )
+            {
+                ++this.pos;
+            }
+        }
+
+        IllegalArgumentException error()
+        {
+            return new IllegalArgumentException( "invalid tag expression at " + this.pos + ": " + this.expression );
+        }
+    }
+}
@@ -7,155 +7,228 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
-import java.util.Arrays;
+import java.util.Iterator;
 
+// the slave hosts are kept in a HostIndex replaced on each change, so
+// planning queries read the latest one without taking the lock
 public class TestMeshManager
 {
+    // heartbeats a slave host may miss in a row before it is evicted
+    public static final int MISSED_HEARTBEATS = 3;
+
     private static NodeInfo[] EMPTY_NODEINFO_ARRAY = new NodeInfo[0];
 
-    private List slaveHosts;
-    private Map slaveHostsByTag;
-    private Map slaveHostsByJdk;
+    private volatile HostIndex index;
+
+    private Map reservedJvms;
+    private Map reservedWeights;
+    private Map adverts;
+
+    private Map expiries;
 
     public TestMeshManager()
     {
-        this.slaveHosts = new ArrayList();
-        this.slaveHostsByTag = new HashMap();
-        this.slaveHostsByJdk = new HashMap();
+        this.index = new HostIndex();
+        this.reservedJvms = new HashMap();
+        this.reservedWeights = new HashMap();
+        this.adverts = new HashMap();
+        this.expiries = new HashMap();
     }
+
     public synchronized void addSlaveHost(NodeInfo slaveHost,
                                           PhysicalMachineInfo physicalMachineInfo)
     {
-        this.slaveHosts.add( slaveHost );
-
-        String[] tags = physicalMachineInfo.getTags();
+        addSlaveHost( slaveHost,
+                      physicalMachineInfo,
+                      0 );
+    }
 
-        for ( int i = 0 ; i < tags.length ; ++i )
+    // a slave host already known has its tags, jdks and capacity
+    // replaced; the JVMs it is now running include any reserved on it
+    // before, so those reservations are dropped.  A host that does not
+    // advertise again within timeout millis is evicted, or never if
+    // timeout is 0
+    public synchronized void addSlaveHost(NodeInfo slaveHost,
+                                          PhysicalMachineInfo physicalMachineInfo,
+                                          long timeout)
+    {
+        if ( timeout > 0 )
         {
-            List hosts = (List) this.slaveHostsByTag.get( tags[ i ] );
+            this.expiries.put( slaveHost,
+                               new Long( System.currentTimeMillis() + timeout ) );
+        }
+        else
+        {
+            this.expiries.remove( slaveHost );
+        }
 
-            if ( hosts == null )
-            {
-                hosts = new ArrayList();
-                this.slaveHostsByTag.put( tags[ i ],
-                                          hosts );
-            }
+        forget( slaveHost );
 
-            hosts.add( slaveHost );
-        }
+        this.index = this.index.with( slaveHost,
+                                      physicalMachineInfo );
+    }
+
+    public synchronized void removeSlaveHost(NodeInfo slaveHost)
+    {
+        this.expiries.remove( slaveHost );
 
-        String[] jdks = physicalMachineInfo.getJdks();
+        forget( slaveHost );
 
-        for ( int i = 0 ; i < jdks.length ; ++i )
+        this.index = this.index.without( slaveHost );
+    }
+
+    // removes the slave hosts that have not advertised in time as of
+    // now, returning them
+    public synchronized NodeInfo[] evictExpired(long now)
+    {
+        List evicted = new ArrayList();
+
+        for ( Iterator hostIter = this.expiries.keySet().iterator();
+              hostIter.hasNext() ; )
         {
-            List hosts = (List) this.slaveHostsByJdk.get( jdks[ i ] );
+            NodeInfo slaveHost = (NodeInfo) hostIter.next();
 
-            if ( hosts == null )
+            Long expiry = (Long) this.expiries.get( slaveHost );
+
+            if ( expiry.longValue() <= now )
             {
-                hosts = new ArrayList();
-                this.slaveHostsByJdk.put( jdks[ i ],
-                                          hosts );
+                evicted.add( slaveHost );
             }
+        }
 
-            hosts.add( slaveHost );
+        for ( Iterator hostIter = evicted.iterator();
+              hostIter.hasNext() ; )
+        {
+            removeSlaveHost( (NodeInfo) hostIter.next() );
         }
+
+        return (NodeInfo[]) evicted.toArray( EMPTY_NODEINFO_ARRAY );
     }
 
-    public synchronized NodeInfo[] getSlaveHosts()
+    // drops the host's reservations, and moves on its advert so JVMs
+    // reserved against the old one are released as running
+    void forget(NodeInfo slaveHost)
     {
-        return (NodeInfo[]) this.slaveHosts.toArray( EMPTY_NODEINFO_ARRAY );
+        this.adverts.put( slaveHost,
+                          new Integer( getAdvert( slaveHost ) + 1 ) );
+
+        this.reservedJvms.remove( slaveHost );
+        this.reservedWeights.remove( slaveHost );
     }
 
-    public synchronized NodeInfo[] getSlaveHostsByTag(String tag)
+    // counts a JVM placed on a slave host against the capacity it last
+    // advertised, until it advertises again; returns the advert the
+    // reservation is against, to hand back on release
+    public synchronized int reserve(NodeInfo slaveHost,
+                                    int weight)
     {
-        if ( tag.equals( "*" ) )
-        {
-            return getSlaveHosts();
-        }
+        add( this.reservedJvms,
+             slaveHost,
+             1 );
 
-        List matchingHosts = new ArrayList();
+        add( this.reservedWeights,
+             slaveHost,
+             weight );
 
-        List hosts = (List) this.slaveHostsByTag.get( tag );
+        return getAdvert( slaveHost );
+    }
 
-        if ( hosts != null )
+    // a reservation against an earlier advert was dropped with it, but
+    // that advert counted the JVM as running, one weight, until the
+    // host advertises again
+    public synchronized void release(NodeInfo slaveHost,
+                                     int weight,
+                                     int advert)
+    {
+        if ( advert != getAdvert( slaveHost ) )
         {
-            matchingHosts.addAll( hosts );
+            weight = 1;
         }
 
-        hosts = (List) this.slaveHostsByTag.get( "*" );
-
-        if ( hosts != null )
-        {
-            matchingHosts.addAll( hosts );
-        }
+        add( this.reservedJvms,
+             slaveHost,
+             -1 );
 
-        return (NodeInfo[]) matchingHosts.toArray( EMPTY_NODEINFO_ARRAY );
+        add( this.reservedWeights,
+             slaveHost,
+             -weight );
     }
 
-    public synchronized NodeInfo[] getSlaveHostsByJdk(String jdk)
+    // JVMs reserved on the host since it last advertised its capacity,
+    // less those released that it advertised as running
+    public synchronized int getReservedJvms(NodeInfo slaveHost)
     {
-        if ( jdk.equals( "*" ) )
-        {
-            return getSlaveHosts();
-        }
-
-        List matchingHosts = new ArrayList();
-        
-        List hosts = (List) this.slaveHostsByJdk.get( jdk );
+        return get( this.reservedJvms,
+                    slaveHost );
+    }
 
-        if ( hosts != null )
-        {
-            matchingHosts.addAll( hosts );
-        }
+    public synchronized int getReservedWeight(NodeInfo slaveHost)
+    {
+        return get( this.reservedWeights,
+                    slaveHost );
+    }
 
-        hosts = (List) this.slaveHostsByJdk.get( "*" );
+    int getAdvert(NodeInfo slaveHost)
+    {
+        return get( this.adverts,
+                    slaveHost );
+    }
 
-        if ( hosts != null )
-        {
-            matchingHosts.addAll( hosts );
-        }
+    int get(Map counts,
+            NodeInfo slaveHost)
+    {
+        Integer count = (Integer) counts.get( slaveHost );
 
-        return (NodeInfo[]) matchingHosts.toArray( EMPTY_NODEINFO_ARRAY );
+        return ( ( count == null )
+                 ? 0
+                 : count.intValue() );
     }
 
-    public synchronized NodeInfo[] getSlaveHostsByTagAndJdk(String tag,
-                                                            String jdk)
+    void add(Map counts,
+             NodeInfo slaveHost,
+             int value)
     {
-        if ( tag.equals( "*" )
-             &&
-             jdk.equals( "*" ) )
-        {
-            return getSlaveHosts();
-        }
+        counts.put( slaveHost,
+                    new Integer( get( counts,
+                                      slaveHost ) + value ) );
+    }
 
-        NodeInfo[] tags = getSlaveHostsByTag( tag );
-        NodeInfo[] jdks = getSlaveHostsByJdk( jdk );
+    // the slave hosts as of the last change, to query as one view
+    public HostIndex getIndex()
+    {
+        return this.index;
+    }
 
-        if ( tags.length == 0
-             ||
-             jdks.length == 0 )
-        {
-            return EMPTY_NODEINFO_ARRAY;
-        }
+    public PhysicalMachineInfo getPhysicalMachineInfo(NodeInfo slaveHost)
+    {
+        return getIndex().getPhysicalMachineInfo( slaveHost );
+    }
 
-        List hosts = new ArrayList();
+    public NodeInfo[] getSlaveHosts()
+    {
+        return getIndex().getSlaveHosts();
+    }
 
-      OUTER:
-        for ( int t = 0 ; t < tags.length ; ++t )
-        {
-            NodeInfo node = tags[ t ];
+    // tag may be a TagExpression
+    public NodeInfo[] getSlaveHostsByTag(String tag)
+    {
+        return getIndex().select( tag,
+                                  null,
+                                  null );
+    }
 
-          INNER:
-            for ( int j = 0 ; j < jdks.length ; ++j )
-            {
-                if ( node.equals( jdks[ j ] ) )
-                {
-                    hosts.add( node );
-                    break INNER;
-                }
-            }
-        }
+    public NodeInfo[] getSlaveHostsByJdk(String jdk)
+    {
+        return getIndex().select( null,
+                                  jdk,
+                                  null );
+    }
 
-        return (NodeInfo[]) hosts.toArray( EMPTY_NODEINFO_ARRAY );
+    public NodeInfo[] getSlaveHostsByTagAndJdk(String tag,
+                                               String jdk)
+    {
+        return getIndex().select( tag,
+                                  jdk,
+                                  null );
     }
 }
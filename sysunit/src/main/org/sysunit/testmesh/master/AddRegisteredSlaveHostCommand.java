@@ -0,0 +1,66 @@
+package org.sysunit.testmesh.master;
+
+import org.sysunit.mesh.RemoteNodeInfo;
+import org.sysunit.model.PhysicalMachineInfo;
+
+import java.net.InetAddress;
+
+// sent on by the registry for each slave host heartbeat
+public class AddRegisteredSlaveHostCommand
+    extends MasterCommand
+{
+    private String name;
+    private InetAddress address;
+    private int port;
+    private PhysicalMachineInfo physicalMachineInfo;
+    private long timeout;
+
+    public AddRegisteredSlaveHostCommand(String name,
+                                         InetAddress address,
+                                         int port,
+                                         PhysicalMachineInfo physicalMachineInfo,
+                                         long timeout)
+    {
+        this.name                = name;
+        this.address             = address;
+        this.port                = port;
+        this.physicalMachineInfo = physicalMachineInfo;
+        this.timeout             = timeout;
+    }
+
+    public String getName()
+    {
+        return this.name;
+    }
+
+    public InetAddress getAddress()
+    {
+        return this.address;
+    }
+
+    public int getPort()
+    {
+        return this.port;
+    }
+
+    public PhysicalMachineInfo getPhysicalMachineInfo()
+    {
+        return this.physicalMachineInfo;
+    }
+
+    public long getTimeout()
+    {
+        return this.timeout;
+    }
+
+    public void execute(MasterNode master)
+        throws Exception
+    {
+        master.addSlaveHost( new RemoteNodeInfo( master,
+                                                 getName(),
+                                                 getAddress(),
+                                                 getPort() ),
+                             getPhysicalMachineInfo(),
+                             getTimeout() );
+    }
+}
@@ -4,10 +4,27 @@ public class AddSlaveCommand
     extends MasterCommand
 {
     private int jvmId;
+    private long startupTime;
+    private boolean classDataSharing;
+    private String resourceBinding;
 
     public AddSlaveCommand(int jvmId)
     {
-        this.jvmId = jvmId;
+        this( jvmId,
+              -1,
+              false,
+              null );
+    }
+
+    public AddSlaveCommand(int jvmId,
+                           long startupTime,
+                           boolean classDataSharing,
+                           String resourceBinding)
+    {
+        this.jvmId            = jvmId;
+        this.startupTime      = startupTime;
+        this.classDataSharing = classDataSharing;
+        this.resourceBinding  = resourceBinding;
     }
 
     public int getJvmId()
@@ -15,10 +32,28 @@ public class AddSlaveCommand
         return this.jvmId;
     }
 
+    public long getStartupTime()
+    {
+        return this.startupTime;
+    }
+
+    public boolean isClassDataSharing()
+    {
+        return this.classDataSharing;
+    }
+
+    public String getResourceBinding()
+    {
+        return this.resourceBinding;
+    }
+
     public void execute(MasterNode node)
         throws Exception
     {
         node.addSlave( getOrigin(),
-                       getJvmId() );
+                       getJvmId(),
+                       getStartupTime(),
+                       isClassDataSharing(),
+                       getResourceBinding() );
     }
 }
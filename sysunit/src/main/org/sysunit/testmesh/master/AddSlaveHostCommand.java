@@ -1,15 +1,27 @@
 package org.sysunit.testmesh.master;
 
 import org.sysunit.model.PhysicalMachineInfo;
+import org.sysunit.testmesh.TestMeshManager;
 
 public class AddSlaveHostCommand
     extends MasterCommand
 {
     private PhysicalMachineInfo physicalMachineInfo;
+    private long heartbeatInterval;
 
     public AddSlaveHostCommand(PhysicalMachineInfo physicalMachineInfo)
+    {
+        this( physicalMachineInfo,
+              0 );
+    }
+
+    // a slave host that says how often it will advertise again is
+    // evicted once it misses enough of them
+    public AddSlaveHostCommand(PhysicalMachineInfo physicalMachineInfo,
+                               long heartbeatInterval)
     {
         this.physicalMachineInfo = physicalMachineInfo;
+        this.heartbeatInterval   = heartbeatInterval;
     }
 
     public PhysicalMachineInfo getPhysicalMachineInfo()
@@ -17,12 +29,17 @@ public class AddSlaveHostCommand
         return this.physicalMachineInfo;
     }
 
+    public long getHeartbeatInterval()
+    {
+        return this.heartbeatInterval;
+    }
+
     public void execute(MasterNode master)
         throws Exception
     {
         master.addSlaveHost( getOrigin(),
-                             getPhysicalMachineInfo() );
+                             getPhysicalMachineInfo(),
+                             TestMeshManager.MISSED_HEARTBEATS * getHeartbeatInterval() );
     }
 }
 
-    
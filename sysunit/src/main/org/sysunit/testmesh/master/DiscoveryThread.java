@@ -0,0 +1,42 @@
+package org.sysunit.testmesh.master;
+
+// falls back from multicast to broadcast if no slave host has answered
+// the master's ping within the listen time
+class DiscoveryThread
+    extends Thread
+{
+    private MasterNode masterNode;
+
+    DiscoveryThread(MasterNode masterNode)
+    {
+        super( "DiscoveryThread" );
+        this.masterNode = masterNode;
+        setDaemon( true );
+    }
+
+    public void run()
+    {
+        try
+        {
+            Thread.sleep( this.masterNode.getListenTime() );
+        }
+        catch (InterruptedException e)
+        {
+            return;
+        }
+
+        if ( this.masterNode.getSlaveHosts().length == 0 )
+        {
+            this.masterNode.disableMulticast();
+
+            try
+            {
+                this.masterNode.sendPing();
+            }
+            catch (Exception e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -3,14 +3,22 @@ package org.sysunit.testmesh.master;
 public class JvmErrorCommand
     extends MasterCommand
 {
-    public JvmErrorCommand()
+    private int jvmId;
+
+    public JvmErrorCommand(int jvmId)
+    {
+        this.jvmId = jvmId;
+    }
+
+    public int getJvmId()
     {
+        return this.jvmId;
     }
 
     public void execute(MasterNode node)
         throws Exception
     {
-        node.jvmError();
+        node.jvmError( getJvmId() );
     }
       
 }
@@ -1,46 +1,30 @@
 package org.sysunit.testmesh.master;
 
-import org.sysunit.WatchdogError;
 import org.sysunit.mesh.NodeInfo;
 import org.sysunit.mesh.CommandGroup;
-import org.sysunit.mesh.StopCommand;
+import org.sysunit.mesh.RemoteNodeInfo;
 import org.sysunit.model.PhysicalMachineInfo;
 import org.sysunit.model.DistributedSystemTestInfo;
 import org.sysunit.model.ScenarioInfo;
-import org.sysunit.model.JvmInfo;
 import org.sysunit.plan.TestPlan;
 import org.sysunit.plan.TestPlanBuilder;
 import org.sysunit.plan.JvmBinding;
 import org.sysunit.plan.InfeasibleTestPlanException;
+import org.sysunit.report.TBeanTimings;
+import org.sysunit.metrics.Sample;
 import org.sysunit.testmesh.PingPongNode;
 import org.sysunit.testmesh.TestMeshManager;
-import org.sysunit.testmesh.slavehost.StartSlaveCommand;
-import org.sysunit.testmesh.slavehost.CollectOutputsCommand;
-import org.sysunit.testmesh.slave.InitializeJvmCommand;
-import org.sysunit.testmesh.slave.PerformCommand;
-import org.sysunit.testmesh.slave.PerformSetUpCommand;
-import org.sysunit.testmesh.slave.PerformRunCommand;
-import org.sysunit.testmesh.slave.PerformAssertValidCommand;
-import org.sysunit.testmesh.slave.PerformTearDownCommand;
-import org.sysunit.testmesh.slave.PerformStopCommand;
-import org.sysunit.testmesh.slave.UnblockSynchronizerCommand;
-import org.sysunit.testmesh.slave.AbortTestCommand;
-import org.sysunit.testmesh.slave.DestroyJvmCommand;
+import org.sysunit.testmesh.registry.RegistryNode;
+import org.sysunit.testmesh.registry.SubscribeCommand;
 import org.sysunit.util.ClasspathServer;
-import org.sysunit.util.Output;
-
-import junit.framework.AssertionFailedError;
 
 import java.io.IOException;
-import java.io.InterruptedIOException;
 import java.net.DatagramSocket;
 import java.net.MulticastSocket;
 import java.net.DatagramPacket;
 import java.net.InetAddress;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Set;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -48,28 +32,31 @@ import java.util.Iterator;
 public class MasterNode
     extends PingPongNode
 {
-    private static NodeInfo[] EMPTY_NODEINFO_ARRAY = new NodeInfo[0];
+    public static final String OUTPUT_DIR_PROPERTY = "sysunit.output.dir";
+    public static final String REGISTRY_PROPERTY = "sysunit.registry";
+
     private static SlaveInfo[] EMPTY_SLAVEINFO_ARRAY = new SlaveInfo[0];
+    private static TestRun[] EMPTY_TESTRUN_ARRAY = new TestRun[0];
 
     private TestMeshManager testMeshManager;
     private List slaves;
-    private Set slaveHosts;
-
-    private Map jvms;
 
     private ScenarioInfo scenarioInfo;
 
     private ClasspathServer classpathServer;
 
-    private List thrown;
+    private Map runs;
+    private Map jvmRuns;
 
-    private int numBlocked;
+    private int lastTestId;
+    private int lastJvmId;
 
-    private int blockSequence;
+    private Thread discoveryThread;
+    private long discoveryDeadline;
 
-    private boolean jvmError;
+    private NodeInfo registry;
 
-    private boolean isCompleted;
+    private boolean inProcess;
 
     public MasterNode()
     {
@@ -89,14 +76,51 @@ public class MasterNode
 
         this.testMeshManager = new TestMeshManager();
         this.slaves          = new ArrayList();
-        this.slaveHosts      = new HashSet();
-        this.jvms            = new HashMap();
 
         this.scenarioInfo    = scenarioInfo;
 
         this.classpathServer = new ClasspathServer( 2 );
 
-        this.thrown          = new ArrayList();
+        this.runs            = new HashMap();
+        this.jvmRuns         = new HashMap();
+
+        this.lastJvmId       = 1000;
+    }
+
+    public void setInProcess(boolean inProcess)
+    {
+        this.inProcess = inProcess;
+    }
+
+    public boolean isInProcess()
+    {
+        return this.inProcess;
+    }
+
+    // slave hosts are found through the registry instead of by ping;
+    // otherwise through the registry named by the sysunit.registry
+    // property, if any
+    public void setRegistry(InetAddress address,
+                            int port)
+    {
+        this.registry = new RemoteNodeInfo( this,
+                                            "registry",
+                                            address,
+                                            port );
+    }
+
+    public NodeInfo getRegistry()
+        throws IOException
+    {
+        if ( this.registry == null
+             &&
+             System.getProperty( REGISTRY_PROPERTY ) != null )
+        {
+            this.registry = RegistryNode.locate( this,
+                                                 System.getProperty( REGISTRY_PROPERTY ) );
+        }
+
+        return this.registry;
     }
 
     public long getListenTime()
@@ -109,18 +133,66 @@ public class MasterNode
     {
         super.start();
 
+        if ( isInProcess() )
+        {
+            addSlaveHost( getLocalNodeInfo(),
+                          new PhysicalMachineInfo( new String[] { "*" },
+                                                   new String[] { "*" } ) );
+            return;
+        }
+
         getClasspathServer().start();
 
+        // slave hosts answer in the background; tests wait only until
+        // enough have for their plans
+        this.discoveryDeadline = System.currentTimeMillis() + getDiscoveryTime();
+
+        // the registry sends the slave hosts registered with it, and
+        // keeps them live
+        if ( getRegistry() != null )
+        {
+            executeOn( getRegistry(),
+                       new SubscribeCommand() );
+            return;
+        }
+
         sendPing();
 
-        Thread.sleep( getListenTime() );
+        this.discoveryThread = new DiscoveryThread( this );
+        this.discoveryThread.start();
+    }
+
+    // how long after start a test that cannot be planned yet waits for
+    // more slave hosts to answer
+    public long getDiscoveryTime()
+    {
+        return 2 * getListenTime();
+    }
+
+    // true once at least count slave hosts have answered, false if
+    // timeout millis pass first
+    public boolean waitForSlaveHosts(int count,
+                                     long timeout)
+        throws InterruptedException
+    {
+        long stop = System.currentTimeMillis() + timeout;
 
-        if ( getSlaveHosts().length == 0 )
+        synchronized ( this.runs )
         {
-            disableMulticast();
-            sendPing();
-            Thread.sleep( getListenTime() );
+            while ( getSlaveHosts().length < count )
+            {
+                long left = stop - System.currentTimeMillis();
+
+                if ( left <= 0 )
+                {
+                    return false;
+                }
+
+                this.runs.wait( left );
+            }
         }
+
+        return true;
     }
 
     public ClasspathServer getClasspathServer()
@@ -177,19 +249,60 @@ public class MasterNode
     public void stop()
         throws InterruptedException
     {
+        if ( this.discoveryThread != null )
+        {
+            this.discoveryThread.interrupt();
+        }
+
+        TestRun[] runs = getRuns();
+
+        for ( int i = 0 ; i < runs.length ; ++i )
+        {
+            runs[ i ].stopLocalSlaves();
+        }
+
         super.stop();
-        getClasspathServer().stop();
+
+        if ( ! isInProcess() )
+        {
+            getClasspathServer().stop();
+        }
     }
 
     public void addSlaveHost(NodeInfo slaveHost,
                              PhysicalMachineInfo physicalMachineInfo)
+    {
+        addSlaveHost( slaveHost,
+                      physicalMachineInfo,
+                      0 );
+    }
+
+    // a slave host not heard from again within timeout millis is
+    // evicted, or never if timeout is 0
+    public void addSlaveHost(NodeInfo slaveHost,
+                             PhysicalMachineInfo physicalMachineInfo,
+                             long timeout)
     {
         getTestMeshManager().addSlaveHost( slaveHost,
-                                           physicalMachineInfo );
+                                           physicalMachineInfo,
+                                           timeout );
+
+        // tests waiting for slave hosts or capacity may fit now
+        synchronized ( this.runs )
+        {
+            this.runs.notifyAll();
+        }
+    }
+
+    public void removeSlaveHost(NodeInfo slaveHost)
+    {
+        getTestMeshManager().removeSlaveHost( slaveHost );
     }
 
     public NodeInfo[] getSlaveHosts()
     {
+        getTestMeshManager().evictExpired( System.currentTimeMillis() );
+
         return getTestMeshManager().getSlaveHosts();
     }
 
@@ -201,21 +314,64 @@ public class MasterNode
     public void addSlave(NodeInfo slave,
                          int jvmId)
     {
+        addSlave( slave,
+                  jvmId,
+                  -1,
+                  false,
+                  null );
+    }
+
+    public void addSlave(NodeInfo slave,
+                         int jvmId,
+                         long startupTime,
+                         boolean classDataSharing,
+                         String resourceBinding)
+    {
+        TestRun run = getRun( jvmId );
+
+        if ( run != null )
+        {
+            run.addSlave( slave,
+                          jvmId,
+                          startupTime,
+                          classDataSharing,
+                          resourceBinding );
+            return;
+        }
+
         synchronized ( this.slaves )
         {
             this.slaves.add( new SlaveInfo( slave,
-                                            jvmId ) );
-            
-            if ( this.slaves.size() == getSystemTestInfo().getTotalJvms() )
-            {
-                this.slaves.notifyAll();
-            }
+                                            jvmId,
+                                            startupTime,
+                                            classDataSharing,
+                                            resourceBinding ) );
         }
     }
 
-    public synchronized SlaveInfo[] getSlaves()
+    // the slaves of every test running, and any started outside one
+    public SlaveInfo[] getSlaves()
     {
-        return (SlaveInfo[]) this.slaves.toArray( EMPTY_SLAVEINFO_ARRAY );
+        List slaves = new ArrayList();
+
+        synchronized ( this.slaves )
+        {
+            slaves.addAll( this.slaves );
+        }
+
+        TestRun[] runs = getRuns();
+
+        for ( int i = 0 ; i < runs.length ; ++i )
+        {
+            SlaveInfo[] runSlaves = runs[ i ].getSlaves();
+
+            for ( int j = 0 ; j < runSlaves.length ; ++j )
+            {
+                slaves.add( runSlaves[ j ] );
+            }
+        }
+
+        return (SlaveInfo[]) slaves.toArray( EMPTY_SLAVEINFO_ARRAY );
     }
     
     public DistributedSystemTestInfo getSystemTestInfo()
@@ -231,404 +387,329 @@ public class MasterNode
     public Throwable[] runTest()
         throws Exception
     {
-        TestPlanBuilder builder = new TestPlanBuilder( getSystemTestInfo(),
-                                                       getScenarioInfo(),
-                                                       getTestMeshManager() );
+        return runTest( getScenarioInfo() );
+    }
 
-        final TestPlan plan = builder.buildTestPlan();
+    // runs the test alongside any others already running, once the
+    // slave hosts have room for it; may be called from several threads
+    public Throwable[] runTest(ScenarioInfo scenarioInfo)
+        throws Exception
+    {
+        TestRun run = admit( scenarioInfo );
 
-        JvmBinding[] jvmBindings = plan.getJvmBindings();
+        try
+        {
+            return run.run();
+        }
+        finally
+        {
+            finish( run );
+        }
+    }
 
-        for ( int i = 0 ; i < jvmBindings.length ; ++i )
+    // plans the test against the slave hosts that have answered so
+    // far and the capacity left by tests already running; a test that
+    // will not fit yet waits for more hosts to answer, or for running
+    // tests to finish, and one that will not fit with discovery over
+    // and nothing else running never will
+    TestRun admit(ScenarioInfo scenarioInfo)
+        throws Exception
+    {
+        synchronized ( this.runs )
         {
-            this.jvms.put( jvmBindings[ i ].getJvmId() + "",
-                           jvmBindings[ i ].getJvmInfo() );
+            while ( true )
+            {
+                getTestMeshManager().evictExpired( System.currentTimeMillis() );
 
-            executeOn( jvmBindings[ i ].getNodeInfo(),
-                       new StartSlaveCommand( getScenarioInfo().getJdk( jvmBindings[ i ].getJvmInfo() ),
-                                              jvmBindings[ i ].getJvmId() ) );
+                TestPlanBuilder builder = new TestPlanBuilder( scenarioInfo.getSystemTestInfo(),
+                                                               scenarioInfo,
+                                                               getTestMeshManager() );
 
-            this.slaveHosts.add( jvmBindings[ i ].getNodeInfo() );
-        }
+                builder.setLastJvmId( this.lastJvmId );
+
+                try
+                {
+                    TestPlan plan = builder.buildTestPlan();
 
-        waitForSlaves();
+                    int testId = ++this.lastTestId;
 
-        Thread thr = null;
-                        
-        if ( ! MasterNode.this.jvmError )
-        {
-            initializeJvms( plan );
-                            
-            if ( getFundamentalErrors().length == 0 )
-            {
-                thr = new Thread()
+                    TestRun run = new TestRun( this,
+                                               testId,
+                                               scenarioInfo,
+                                               getRunName( scenarioInfo,
+                                                           testId ),
+                                               plan );
+
+                    JvmBinding[] jvmBindings = plan.getJvmBindings();
+
+                    for ( int i = 0 ; i < jvmBindings.length ; ++i )
                     {
-                        public void run()
-                        {
-                            try
-                            {
-                                performSetUp();
-                                
-                                if ( ! hasThrown() )
-                                {
-                                    performRun();
-                                    
-                                    if ( ! hasThrown() )
-                                    {
-                                        performAssertValid();
-                                    }
-                                }
-                                
-                                performTearDown();
-                            }
-                            catch (InterruptedException e)
-                            {
-                                // swallow
-                            }
-                            catch (Exception e)
-                            {
-                                addFundamentalError( e );
-                            }
-                            finally
-                            {
-                                isCompleted( true );
-                            }
-                        }
-                    };
-
-                thr.start();
-                
-                long timeout = getSystemTestInfo().getTimeout();
-                
-                if ( timeout > 0 )
+                        this.jvmRuns.put( jvmBindings[ i ].getJvmId() + "",
+                                          run );
+                    }
+
+                    this.lastJvmId += jvmBindings.length;
+
+                    this.runs.put( run.getTestId() + "",
+                                   run );
+
+                    run.reserve();
+
+                    return run;
+                }
+                catch (InfeasibleTestPlanException e)
                 {
-                    long start = System.currentTimeMillis();
-                    long stop  = start + timeout;
-                    
-                    synchronized ( this )
+                    long left = this.discoveryDeadline - System.currentTimeMillis();
+
+                    if ( ! this.runs.isEmpty() )
+                    {
+                        this.runs.wait();
+                    }
+                    else if ( left > 0 )
                     {
-                        while ( System.currentTimeMillis() < stop
-                                &&
-                                ! isCompleted() )
-                        {
-                            long now = System.currentTimeMillis();
-                            
-                            long left = stop - now;
-                            
-                            wait( left );
-                        }
+                        this.runs.wait( left );
                     }
-                    
-                    if ( ! isCompleted() )
+                    else
                     {
-                        abortTest();
-                        addFundamentalError( new WatchdogError() );
-                        thr.interrupt();
+                        throw e;
                     }
                 }
             }
         }
-                
-        if ( thr != null )
+    }
+
+    // copies of a scenario running at once keep their output and
+    // reports apart
+    String getRunName(ScenarioInfo scenarioInfo,
+                      int testId)
+    {
+        for ( Iterator runIter = this.runs.values().iterator();
+              runIter.hasNext() ; )
         {
-            thr.join();
-            collectOutputs();
-            performStop();
-            destroyJvms();
-        }
+            ScenarioInfo running = ((TestRun)runIter.next()).getScenarioInfo();
 
+            if ( running.getName().equals( scenarioInfo.getName() )
+                 &&
+                 running.getSystemTestInfo().getName().equals( scenarioInfo.getSystemTestInfo().getName() ) )
+            {
+                return scenarioInfo.getName() + "-" + testId;
+            }
+        }
 
-        Throwable[] fundamentalErrors = getFundamentalErrors();
-            
-        Throwable[] thrown = new Throwable[ this.thrown.size() + fundamentalErrors.length ];
+        return scenarioInfo.getName();
+    }
 
-        for ( int i = 0 ; i < this.thrown.size() ; ++i )
+    void finish(TestRun run)
+    {
+        synchronized ( this.runs )
         {
-            ThrowEntry entry = (ThrowEntry) this.thrown.get( i );
+            run.release();
 
-            thrown[ i ] = entry.getThrown();
+            this.runs.remove( run.getTestId() + "" );
 
-            if ( thrown[ i ] instanceof AssertionFailedError )
-            {
-                thrown[ i ] = new SlaveAssertionFailedError( entry.getJvmInfo(),
-                                                             entry.getTBeanId(),
-                                                             (AssertionFailedError) thrown[ i ] );
-            }
-            else
+            for ( Iterator runIter = this.jvmRuns.values().iterator();
+                  runIter.hasNext() ; )
             {
-                thrown[ i ] = new SlaveThrowable( entry.getJvmInfo(),
-                                                  entry.getTBeanId(),
-                                                  thrown[ i ] );
+                if ( runIter.next() == run )
+                {
+                    runIter.remove();
+                }
             }
-        }
 
-        for ( int i = 0; i < fundamentalErrors.length ; ++i )
-        {
-            thrown[ i + this.thrown.size() ] = fundamentalErrors[ i ];
+            this.runs.notifyAll();
         }
-
-        return thrown;
     }
 
-    void initializeJvms(TestPlan plan)
-        throws Exception
+    TestRun[] getRuns()
     {
-        SlaveInfo[] slaves = getSlaves();
-        
-        CommandGroup commandGroup = newCommandGroup();
-        
-        for ( int i = 0 ; i < slaves.length ; ++i )
+        synchronized ( this.runs )
         {
-            JvmBinding binding = plan.getJvmBinding( slaves[ i ].getJvmId() );
-            
-            commandGroup.add( executeOn( slaves[ i ].getNodeInfo(),
-                                         new InitializeJvmCommand( getClasspathServer().getPort(),
-                                                                   getClasspathServer().getRelativeUrls(),
-                                                                   binding.getJvmInfo() ) ) );
+            return (TestRun[]) this.runs.values().toArray( EMPTY_TESTRUN_ARRAY );
         }
-        
-        commandGroup.waitFor();
     }
 
-    void perform(PerformCommand command)
-        throws Exception
+    // the test a slave JVM belongs to, or null once it has finished
+    TestRun getRun(int jvmId)
     {
-        SlaveInfo[] slaves = getSlaves();
-        
-        CommandGroup commandGroup = newCommandGroup();
-        
-        for ( int i = 0 ; i < slaves.length ; ++i )
+        synchronized ( this.runs )
         {
-            commandGroup.add( executeOn( slaves[ i ].getNodeInfo(),
-                                         command ) );
+            return (TestRun) this.jvmRuns.get( jvmId + "" );
         }
-        
-        commandGroup.waitFor();
     }
 
-    void performSetUp()
-        throws Exception
+    // visible to the tests being run
+    protected CommandGroup newCommandGroup()
     {
-        perform( new PerformSetUpCommand() );
+        return super.newCommandGroup();
     }
 
-    synchronized void setUpThrew(int jvmId,
-                                 String tbeanId,
+    protected void commandFailed(int uid,
                                  Throwable thrown)
     {
-        this.thrown.add( new ThrowEntry( (JvmInfo) this.jvms.get( jvmId + "" ),
-                                         tbeanId,
-                                         thrown ) );
-    }
+        TestRun[] runs = getRuns();
 
-    void performRun()
-        throws Exception
-    {
-        perform( new PerformRunCommand() );
-    }
+        for ( int i = 0 ; i < runs.length ; ++i )
+        {
+            if ( runs[ i ].isCommand( uid ) )
+            {
+                runs[ i ].addFundamentalError( thrown );
+                return;
+            }
+        }
 
-    synchronized void runThrew(int jvmId,
-                               String tbeanId,
-                               Throwable thrown)
-        throws Exception
-    {
-        this.thrown.add( new ThrowEntry( (JvmInfo) this.jvms.get( jvmId + "" ),
-                                         tbeanId,
-                                         thrown ) );
-        abortTest();
+        super.commandFailed( uid,
+                             thrown );
     }
 
-    void performAssertValid()
-        throws Exception
+    void setUpThrew(int jvmId,
+                    String tbeanId,
+                    Throwable thrown)
     {
-        perform( new PerformAssertValidCommand() );
-    }
+        TestRun run = getRun( jvmId );
 
-    synchronized void assertValidThrew(int jvmId,
-                                       String tbeanId,
-                                       Throwable thrown)
-    {
-        this.thrown.add( new ThrowEntry( (JvmInfo) this.jvms.get( jvmId + "" ),
-                                         tbeanId,
-                                         thrown ) );
+        if ( run != null )
+        {
+            run.setUpThrew( jvmId,
+                            tbeanId,
+                            thrown );
+        }
     }
 
-    void performTearDown()
+    void warmUpThrew(int jvmId,
+                     String tbeanId,
+                     Throwable thrown)
         throws Exception
     {
-        perform( new PerformTearDownCommand() );
-    }
+        TestRun run = getRun( jvmId );
 
-    synchronized void tearDownThrew(int jvmId,
-                                    String tbeanId,
-                                    Throwable thrown)
-        throws Exception
-    {
-        this.thrown.add( new ThrowEntry( (JvmInfo) this.jvms.get( jvmId + "" ),
-                                         tbeanId,
-                                         thrown ) );
+        if ( run != null )
+        {
+            run.warmUpThrew( jvmId,
+                             tbeanId,
+                             thrown );
+        }
     }
 
-    void performStop()
+    void runThrew(int jvmId,
+                  String tbeanId,
+                  Throwable thrown)
         throws Exception
     {
-        perform( new PerformStopCommand() );
-
-        SlaveInfo[] slaves = getSlaves();
-        
-        CommandGroup commandGroup = newCommandGroup();
+        TestRun run = getRun( jvmId );
 
-        /*
-        StopCommand command = new StopCommand();
-        
-        for ( int i = 0 ; i < slaves.length ; ++i )
+        if ( run != null )
         {
-            commandGroup.add( executeOn( slaves[ i ].getNodeInfo(),
-                                         command ) );
+            run.runThrew( jvmId,
+                          tbeanId,
+                          thrown );
         }
-        
-        commandGroup.waitFor();
-        */
     }
 
-    boolean hasThrown()
+    void assertValidThrew(int jvmId,
+                          String tbeanId,
+                          Throwable thrown)
     {
-        return ( ! this.thrown.isEmpty() );
-    }
-    
-    void waitForSlaves()
-        throws InterruptedException
-    {
-        synchronized ( this.slaves )
+        TestRun run = getRun( jvmId );
+
+        if ( run != null )
         {
-            while ( this.slaves.size() != getSystemTestInfo().getTotalJvms()
-                    &&
-                    ! this.jvmError )
-            {
-                this.slaves.wait();
-            }
+            run.assertValidThrew( jvmId,
+                                  tbeanId,
+                                  thrown );
         }
     }
 
-    void abortTest()
+    void tearDownThrew(int jvmId,
+                       String tbeanId,
+                       Throwable thrown)
         throws Exception
     {
-        SlaveInfo[] slaves = getSlaves();
-
-        CommandGroup commandGroup = newCommandGroup();
+        TestRun run = getRun( jvmId );
 
-        AbortTestCommand command = new AbortTestCommand();
-        
-        for ( int i = 0 ; i < slaves.length ; ++i )
+        if ( run != null )
         {
-            commandGroup.add( executeOn( slaves[ i ].getNodeInfo(),
-                                         command ) );
+            run.tearDownThrew( jvmId,
+                               tbeanId,
+                               thrown );
         }
-        
-        commandGroup.waitFor();
     }
 
-    synchronized void notifyFullyBlocked(int jvmId)
+    void notifyFullyBlocked(int jvmId)
     {
-        ++this.numBlocked;
+        TestRun run = getRun( jvmId );
 
-        if ( this.numBlocked == this.slaves.size() )
+        if ( run != null )
         {
-            this.numBlocked = 0;
-
-            UnblockSynchronizerCommand unblockCommand = new UnblockSynchronizerCommand( this.blockSequence );
-
-            ++this.blockSequence;
-
-            SlaveInfo[] slaves = getSlaves();
-
-            for ( int i = 0 ; i < slaves.length ; ++i )
-            {
-                try
-                {
-                    executeOn( slaves[ i ].getNodeInfo(),
-                               unblockCommand );
-                }
-                catch (Exception e)
-                {
-                    e.printStackTrace();
-                }
-            }
+            run.notifyFullyBlocked( jvmId );
         }
     }
 
-    synchronized void jvmError()
+    void jvmError(int jvmId)
     {
-        this.jvmError = true;
-        notifyAll();
-    }
+        TestRun run = getRun( jvmId );
 
-    void destroyJvms()
-        throws Exception
-    {
-        SlaveInfo[] slaves = getSlaves();
-        
-        DestroyJvmCommand command = new DestroyJvmCommand();
-        
-        for ( int i = 0 ; i < slaves.length ; ++i )
+        if ( run != null )
         {
-            executeOn( slaves[ i ].getNodeInfo(),
-                       command  );
+            run.jvmError();
         }
     }
 
-    void collectOutputs()
-        throws Exception
+    void slaveRejected(int jvmId,
+                       String reason)
     {
-        NodeInfo[] slaveHosts = (NodeInfo[]) this.slaveHosts.toArray( EMPTY_NODEINFO_ARRAY );
-        
-        CollectOutputsCommand command = new CollectOutputsCommand();
+        TestRun run = getRun( jvmId );
 
-        CommandGroup commandGroup = newCommandGroup();
-
-        for ( int i = 0 ; i < slaveHosts.length ; ++i )
+        if ( run != null )
         {
-            commandGroup.add( executeOn( slaveHosts[ i ],
-                                         command  ) );
+            run.slaveRejected( jvmId,
+                               reason );
         }
-
-        commandGroup.waitFor();
     }
 
-    void reportOutputs(Output[] outputs)
+    void reportTimings(int jvmId,
+                       TBeanTimings[] timings,
+                       int syncs,
+                       long syncWaitTime,
+                       Map histograms)
     {
-        synchronized ( System.out )
-        {
-            for ( int i = 0 ; i < outputs.length ; ++i )
-            {
-                System.out.println( "----------------------------------------------" );
-                System.out.println( "JVM: " + ((JvmInfo)this.jvms.get( outputs[ i ].getJvmId() + "" )).getName() + "(" + outputs[ i ].getJvmId() + ")" );
-                System.out.println( "----------------------------------------------" );
-                System.out.println( outputs[ i ].getStdout() );
-            }
-            System.out.println( "----------------------------------------------" );
-        }
-        synchronized ( System.err )
+        TestRun run = getRun( jvmId );
+
+        if ( run != null )
         {
-            for ( int i = 0 ; i < outputs.length ; ++i )
-            {
-                System.err.println( "----------------------------------------------" );
-                System.err.println( "JVM: " + ((JvmInfo)this.jvms.get( outputs[ i ].getJvmId() + "" )).getName() + "(" + outputs[ i ].getJvmId() + ")" );
-                System.err.println( "----------------------------------------------" );
-                System.err.println( outputs[ i ].getStderr() );
-            }
-            System.err.println( "----------------------------------------------" );
+            run.reportTimings( jvmId,
+                               timings,
+                               syncs,
+                               syncWaitTime,
+                               histograms );
         }
     }
 
-    synchronized void isCompleted(boolean isCompleted)
+    void reportSample(int jvmId,
+                      Sample sample)
     {
-        this.isCompleted = isCompleted;
-        notifyAll();
+        TestRun run = getRun( jvmId );
+
+        if ( run != null )
+        {
+            run.reportSample( jvmId,
+                              sample );
+        }
     }
 
-    synchronized boolean isCompleted()
+    void outputChunk(int jvmId,
+                     int stream,
+                     long sequence,
+                     byte[] data)
+        throws IOException
     {
-        return this.isCompleted;
+        TestRun run = getRun( jvmId );
+
+        if ( run != null )
+        {
+            run.outputChunk( jvmId,
+                             stream,
+                             sequence,
+                             data );
+        }
     }
 }
@@ -0,0 +1,50 @@
+package org.sysunit.testmesh.master;
+
+public class OutputChunkCommand
+    extends MasterCommand
+{
+    private int jvmId;
+    private int stream;
+    private long sequence;
+    private byte[] data;
+
+    public OutputChunkCommand(int jvmId,
+                              int stream,
+                              long sequence,
+                              byte[] data)
+    {
+        this.jvmId    = jvmId;
+        this.stream   = stream;
+        this.sequence = sequence;
+        this.data     = data;
+    }
+
+    public int getJvmId()
+    {
+        return this.jvmId;
+    }
+
+    public int getStream()
+    {
+        return this.stream;
+    }
+
+    public long getSequence()
+    {
+        return this.sequence;
+    }
+
+    public byte[] getData()
+    {
+        return this.data;
+    }
+
+    public void execute(MasterNode node)
+        throws Exception
+    {
+        node.outputChunk( getJvmId(),
+                          getStream(),
+                          getSequence(),
+                          getData() );
+    }
+}
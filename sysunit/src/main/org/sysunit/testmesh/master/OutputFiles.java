@@ -0,0 +1,206 @@
+package org.sysunit.testmesh.master;
+
+import org.sysunit.util.OutputListener;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Iterator;
+
+// per-JVM files that streamed slave output is written to, in
+// sequence order whatever order the chunks arrive in
+class OutputFiles
+{
+    private File dir;
+
+    private Map outs;
+    private Map nextSequences;
+    private Map held;
+
+    OutputFiles(File dir)
+    {
+        this.dir           = dir;
+        this.outs          = new HashMap();
+        this.nextSequences = new HashMap();
+        this.held          = new HashMap();
+    }
+
+    File getDir()
+    {
+        return this.dir;
+    }
+
+    File getFile(String label,
+                 int stream)
+    {
+        return new File( getDir(),
+                         label + ( ( stream == OutputListener.STDOUT )
+                                   ? ".stdout"
+                                   : ".stderr" ) );
+    }
+
+    // removes files left by an earlier run of the same test
+    synchronized void clear()
+    {
+        File[] files = getDir().listFiles();
+
+        if ( files == null )
+        {
+            return;
+        }
+
+        for ( int i = 0 ; i < files.length ; ++i )
+        {
+            if ( files[ i ].isFile() )
+            {
+                files[ i ].delete();
+            }
+        }
+    }
+
+    synchronized void write(String label,
+                            int stream,
+                            long sequence,
+                            byte[] data)
+        throws IOException
+    {
+        String key = label + "." + stream;
+
+        Long nextSequence = (Long) this.nextSequences.get( key );
+
+        long next = ( ( nextSequence == null )
+                      ? 0
+                      : nextSequence.longValue() );
+
+        if ( sequence < next )
+        {
+            return;
+        }
+
+        Map held = (Map) this.held.get( key );
+
+        if ( held == null )
+        {
+            held = new HashMap();
+            this.held.put( key,
+                           held );
+        }
+
+        if ( sequence > next )
+        {
+            held.put( sequence + "",
+                      data );
+            return;
+        }
+
+        OutputStream out = getOutputStream( key,
+                                            getFile( label,
+                                                     stream ) );
+
+        while ( data != null )
+        {
+            out.write( data );
+            ++next;
+
+            data = (byte[]) held.remove( next + "" );
+        }
+
+        out.flush();
+
+        this.nextSequences.put( key,
+                                new Long( next ) );
+    }
+
+    synchronized int getHeldCount(String label,
+                                  int stream)
+    {
+        Map held = (Map) this.held.get( label + "." + stream );
+
+        return ( ( held == null )
+                 ? 0
+                 : held.size() );
+    }
+
+    OutputStream getOutputStream(String key,
+                                 File file)
+        throws IOException
+    {
+        OutputStream out = (OutputStream) this.outs.get( key );
+
+        if ( out == null )
+        {
+            getDir().mkdirs();
+
+            out = new FileOutputStream( file.getPath(),
+                                        true );
+
+            this.outs.put( key,
+                           out );
+        }
+
+        return out;
+    }
+
+    synchronized void copy(String label,
+                           int stream,
+                           PrintStream out)
+    {
+        File file = getFile( label,
+                             stream );
+
+        if ( ! file.exists() )
+        {
+            return;
+        }
+
+        try
+        {
+            InputStream in = new FileInputStream( file );
+
+            try
+            {
+                byte[] buf = new byte[ 8192 ];
+                int read = 0;
+
+                while ( ( read = in.read( buf ) ) >= 0 )
+                {
+                    out.write( buf,
+                               0,
+                               read );
+                }
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    synchronized void close()
+    {
+        for ( Iterator outIter = this.outs.values().iterator();
+              outIter.hasNext() ; )
+        {
+            try
+            {
+                ((OutputStream)outIter.next()).close();
+            }
+            catch (IOException e)
+            {
+                // swallow
+            }
+        }
+
+        this.outs.clear();
+    }
+}
@@ -0,0 +1,38 @@
+package org.sysunit.testmesh.master;
+
+import org.sysunit.mesh.RemoteNodeInfo;
+
+import java.net.InetAddress;
+
+public class RemoveSlaveHostCommand
+    extends MasterCommand
+{
+    private InetAddress address;
+    private int port;
+
+    public RemoveSlaveHostCommand(InetAddress address,
+                                  int port)
+    {
+        this.address = address;
+        this.port    = port;
+    }
+
+    public InetAddress getAddress()
+    {
+        return this.address;
+    }
+
+    public int getPort()
+    {
+        return this.port;
+    }
+
+    public void execute(MasterNode master)
+        throws Exception
+    {
+        master.removeSlaveHost( new RemoteNodeInfo( master,
+                                                    "slave-host",
+                                                    getAddress(),
+                                                    getPort() ) );
+    }
+}
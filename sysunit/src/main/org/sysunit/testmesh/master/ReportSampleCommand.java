@@ -0,0 +1,33 @@
+package org.sysunit.testmesh.master;
+
+import org.sysunit.metrics.Sample;
+
+public class ReportSampleCommand
+    extends MasterCommand
+{
+    private int jvmId;
+    private Sample sample;
+
+    public ReportSampleCommand(int jvmId,
+                               Sample sample)
+    {
+        this.jvmId  = jvmId;
+        this.sample = sample;
+    }
+
+    public int getJvmId()
+    {
+        return this.jvmId;
+    }
+
+    public Sample getSample()
+    {
+        return this.sample;
+    }
+
+    public void execute(MasterNode node)
+    {
+        node.reportSample( this.jvmId,
+                           this.sample );
+    }
+}
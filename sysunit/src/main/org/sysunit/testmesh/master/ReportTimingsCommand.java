@@ -0,0 +1,63 @@
+package org.sysunit.testmesh.master;
+
+import org.sysunit.report.TBeanTimings;
+
+import java.util.Map;
+
+public class ReportTimingsCommand
+    extends MasterCommand
+{
+    private int jvmId;
+    private TBeanTimings[] timings;
+    private int syncs;
+    private long syncWaitTime;
+    private Map histograms;
+
+    public ReportTimingsCommand(int jvmId,
+                                TBeanTimings[] timings,
+                                int syncs,
+                                long syncWaitTime,
+                                Map histograms)
+    {
+        this.jvmId        = jvmId;
+        this.timings      = timings;
+        this.syncs        = syncs;
+        this.syncWaitTime = syncWaitTime;
+        this.histograms   = histograms;
+    }
+
+    public int getJvmId()
+    {
+        return this.jvmId;
+    }
+
+    public TBeanTimings[] getTimings()
+    {
+        return this.timings;
+    }
+
+    public int getSyncs()
+    {
+        return this.syncs;
+    }
+
+    public long getSyncWaitTime()
+    {
+        return this.syncWaitTime;
+    }
+
+    // name to Histogram
+    public Map getHistograms()
+    {
+        return this.histograms;
+    }
+
+    public void execute(MasterNode node)
+    {
+        node.reportTimings( this.jvmId,
+                            this.timings,
+                            this.syncs,
+                            this.syncWaitTime,
+                            this.histograms );
+    }
+}
@@ -6,12 +6,31 @@ public class SlaveInfo
 {
     private NodeInfo nodeInfo;
     private int jvmId;
+    private long startupTime;
+    private boolean classDataSharing;
+    private String resourceBinding;
 
     public SlaveInfo(NodeInfo nodeInfo,
                      int jvmId)
     {
-        this.nodeInfo = nodeInfo;
-        this.jvmId    = jvmId;
+        this( nodeInfo,
+              jvmId,
+              -1,
+              false,
+              null );
+    }
+
+    public SlaveInfo(NodeInfo nodeInfo,
+                     int jvmId,
+                     long startupTime,
+                     boolean classDataSharing,
+                     String resourceBinding)
+    {
+        this.nodeInfo         = nodeInfo;
+        this.jvmId            = jvmId;
+        this.startupTime      = startupTime;
+        this.classDataSharing = classDataSharing;
+        this.resourceBinding  = resourceBinding;
     }
 
     public NodeInfo getNodeInfo()
@@ -23,4 +42,21 @@ public class SlaveInfo
     {
         return this.jvmId;
     }
+
+    // milliseconds from launch to registration, -1 if unknown
+    public long getStartupTime()
+    {
+        return this.startupTime;
+    }
+
+    public boolean isClassDataSharing()
+    {
+        return this.classDataSharing;
+    }
+
+    // the cpus and memory the slave host bound the JVM to, null if unbound
+    public String getResourceBinding()
+    {
+        return this.resourceBinding;
+    }
 }
@@ -0,0 +1,23 @@
+package org.sysunit.testmesh.master;
+
+public class SlaveRejectedCommand
+    extends MasterCommand
+{
+    private int jvmId;
+    private String reason;
+
+    public SlaveRejectedCommand(int jvmId,
+                                String reason)
+    {
+        this.jvmId  = jvmId;
+        this.reason = reason;
+    }
+
+    public void execute(MasterNode node)
+        throws Exception
+    {
+        node.slaveRejected( this.jvmId,
+                            this.reason );
+    }
+
+}
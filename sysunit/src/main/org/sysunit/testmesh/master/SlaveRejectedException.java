@@ -0,0 +1,12 @@
+package org.sysunit.testmesh.master;
+
+import org.sysunit.SysUnitException;
+
+public class SlaveRejectedException
+    extends SysUnitException
+{
+    public SlaveRejectedException(String message)
+    {
+        super( message );
+    }
+}
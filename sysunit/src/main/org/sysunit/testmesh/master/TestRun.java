@@ -0,0 +1,1321 @@
+package org.sysunit.testmesh.master;
+
+import org.sysunit.WatchdogError;
+import org.sysunit.mesh.NodeInfo;
+import org.sysunit.mesh.RemoteNodeInfo;
+import org.sysunit.mesh.Command;
+import org.sysunit.mesh.CommandGroup;
+import org.sysunit.model.DistributedSystemTestInfo;
+import org.sysunit.model.ScenarioInfo;
+import org.sysunit.model.JvmInfo;
+import org.sysunit.model.RampInfo;
+import org.sysunit.plan.TestPlan;
+import org.sysunit.plan.JvmBinding;
+import org.sysunit.report.TestReport;
+import org.sysunit.report.JvmResult;
+import org.sysunit.report.ReportedFailure;
+import org.sysunit.report.TBeanTimings;
+import org.sysunit.metrics.Sample;
+import org.sysunit.testmesh.TestMeshManager;
+import org.sysunit.testmesh.slavehost.StartSlaveCommand;
+import org.sysunit.testmesh.slavehost.CollectOutputsCommand;
+import org.sysunit.testmesh.slavehost.ReleaseJvmsCommand;
+import org.sysunit.testmesh.slave.InitializeJvmCommand;
+import org.sysunit.testmesh.slave.PerformCommand;
+import org.sysunit.testmesh.slave.PerformSetUpCommand;
+import org.sysunit.testmesh.slave.PerformRunCommand;
+import org.sysunit.testmesh.slave.PerformWarmUpCommand;
+import org.sysunit.testmesh.slave.PerformMeasureCommand;
+import org.sysunit.testmesh.slave.PerformAssertValidCommand;
+import org.sysunit.testmesh.slave.PerformTearDownCommand;
+import org.sysunit.testmesh.slave.PerformStopCommand;
+import org.sysunit.testmesh.slave.StopRunCommand;
+import org.sysunit.testmesh.slave.ReleaseTBeansCommand;
+import org.sysunit.testmesh.slave.UnblockSynchronizerCommand;
+import org.sysunit.testmesh.slave.AbortTestCommand;
+import org.sysunit.testmesh.slave.SlaveNode;
+import org.sysunit.util.OutputListener;
+
+import junit.framework.AssertionFailedError;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Arrays;
+
+// one test run by the master, with its own slaves, sync state, output
+// and report; the master may have several running at once
+class TestRun
+{
+    private static NodeInfo[] EMPTY_NODEINFO_ARRAY = new NodeInfo[0];
+    private static SlaveInfo[] EMPTY_SLAVEINFO_ARRAY = new SlaveInfo[0];
+    private static SlaveNode[] EMPTY_SLAVENODE_ARRAY = new SlaveNode[0];
+    private static String[] EMPTY_STRING_ARRAY = new String[0];
+    private static Throwable[] EMPTY_THROWABLE_ARRAY = new Throwable[0];
+    private static TBeanTimings[] EMPTY_TBEANTIMINGS_ARRAY = new TBeanTimings[0];
+    private static ReportedFailure[] EMPTY_REPORTEDFAILURE_ARRAY = new ReportedFailure[0];
+
+    private MasterNode master;
+
+    private int testId;
+
+    private ScenarioInfo scenarioInfo;
+
+    private String name;
+
+    private TestPlan plan;
+
+    private List slaves;
+    private Set slaveHosts;
+
+    private Map jvms;
+    private Map jvmHosts;
+
+    private int[] adverts;
+
+    private Set commands;
+
+    private OutputFiles outputFiles;
+
+    private TestReport report;
+    private Set reportedJvms;
+
+    private List thrown;
+
+    private List fundamentalErrors;
+
+    private int masterErrors;
+
+    private int numBlocked;
+
+    private int blockSequence;
+
+    private boolean jvmError;
+
+    private boolean isCompleted;
+
+    private List localSlaves;
+
+    TestRun(MasterNode master,
+            int testId,
+            ScenarioInfo scenarioInfo,
+            String name,
+            TestPlan plan)
+    {
+        this.master            = master;
+        this.testId            = testId;
+        this.scenarioInfo      = scenarioInfo;
+        this.name              = name;
+        this.plan              = plan;
+        this.slaves            = new ArrayList();
+        this.slaveHosts        = new HashSet();
+        this.jvms              = new HashMap();
+        this.jvmHosts          = new HashMap();
+        this.commands          = new HashSet();
+
+        this.outputFiles       = new OutputFiles( new File( new File( System.getProperty( MasterNode.OUTPUT_DIR_PROPERTY,
+                                                                                          "target/sysunit-output" ),
+                                                                      getSystemTestInfo().getName() ),
+                                                            name ) );
+
+        this.reportedJvms      = new HashSet();
+
+        this.thrown            = new ArrayList();
+
+        this.fundamentalErrors = new ArrayList();
+
+        this.localSlaves       = new ArrayList();
+
+        JvmBinding[] jvmBindings = plan.getJvmBindings();
+
+        for ( int i = 0 ; i < jvmBindings.length ; ++i )
+        {
+            this.jvms.put( jvmBindings[ i ].getJvmId() + "",
+                           jvmBindings[ i ].getJvmInfo() );
+        }
+    }
+
+    int getTestId()
+    {
+        return this.testId;
+    }
+
+    ScenarioInfo getScenarioInfo()
+    {
+        return this.scenarioInfo;
+    }
+
+    // the scenario's name, unless the same scenario is already
+    // running, naming the run's output and report
+    String getName()
+    {
+        return this.name;
+    }
+
+    DistributedSystemTestInfo getSystemTestInfo()
+    {
+        return getScenarioInfo().getSystemTestInfo();
+    }
+
+    TestPlan getPlan()
+    {
+        return this.plan;
+    }
+
+    boolean isInProcess()
+    {
+        return this.master.isInProcess();
+    }
+
+    // counts the plan's JVMs against their slave hosts' capacity, so
+    // tests admitted alongside it are placed around them
+    void reserve()
+    {
+        if ( isInProcess() )
+        {
+            return;
+        }
+
+        TestMeshManager testMeshManager = this.master.getTestMeshManager();
+
+        JvmBinding[] jvmBindings = getPlan().getJvmBindings();
+
+        this.adverts = new int[ jvmBindings.length ];
+
+        for ( int i = 0 ; i < jvmBindings.length ; ++i )
+        {
+            this.adverts[ i ] = testMeshManager.reserve( jvmBindings[ i ].getNodeInfo(),
+                                                         jvmBindings[ i ].getJvmInfo().getWeight() );
+        }
+    }
+
+    void release()
+    {
+        if ( this.adverts == null )
+        {
+            return;
+        }
+
+        TestMeshManager testMeshManager = this.master.getTestMeshManager();
+
+        JvmBinding[] jvmBindings = getPlan().getJvmBindings();
+
+        for ( int i = 0 ; i < jvmBindings.length ; ++i )
+        {
+            testMeshManager.release( jvmBindings[ i ].getNodeInfo(),
+                                     jvmBindings[ i ].getJvmInfo().getWeight(),
+                                     this.adverts[ i ] );
+        }
+
+        this.adverts = null;
+    }
+
+    // commands this run sends are remembered, so one that fails is
+    // put down to this run rather than to every test on the master
+    int executeOn(NodeInfo destination,
+                  Command command)
+        throws Exception
+    {
+        int uid = this.master.executeOn( destination,
+                                         command );
+
+        synchronized ( this.commands )
+        {
+            this.commands.add( uid + "" );
+        }
+
+        return uid;
+    }
+
+    boolean isCommand(int uid)
+    {
+        synchronized ( this.commands )
+        {
+            return this.commands.contains( uid + "" );
+        }
+    }
+
+    Throwable[] run()
+        throws Exception
+    {
+        this.masterErrors = this.master.getFundamentalErrors().length;
+
+        this.outputFiles.clear();
+
+        this.report = new TestReport( getSystemTestInfo().getName(),
+                                      getName() );
+
+        this.report.start();
+
+        long startupStart = System.currentTimeMillis();
+
+        JvmBinding[] jvmBindings = getPlan().getJvmBindings();
+
+        for ( int i = 0 ; i < jvmBindings.length ; ++i )
+        {
+            if ( isInProcess() )
+            {
+                startLocalSlave( jvmBindings[ i ].getJvmId() );
+                continue;
+            }
+
+            executeOn( jvmBindings[ i ].getNodeInfo(),
+                       new StartSlaveCommand( getScenarioInfo().getJdk( jvmBindings[ i ].getJvmInfo() ),
+                                              jvmBindings[ i ].getJvmId(),
+                                              jvmBindings[ i ].getJvmOptions() ) );
+
+            this.slaveHosts.add( jvmBindings[ i ].getNodeInfo() );
+
+            this.jvmHosts.put( jvmBindings[ i ].getJvmId() + "",
+                               jvmBindings[ i ].getNodeInfo() );
+        }
+
+        waitForSlaves();
+
+        this.report.setPhaseTime( "startup",
+                                  System.currentTimeMillis() - startupStart );
+
+        reportStartupTimes();
+
+        reportResourceBindings();
+
+        Thread thr = null;
+
+        if ( ! this.jvmError )
+        {
+            long initializeStart = System.currentTimeMillis();
+
+            initializeJvms();
+
+            this.report.setPhaseTime( "initialize",
+                                      System.currentTimeMillis() - initializeStart );
+
+            if ( getFundamentalErrors().length == 0 )
+            {
+                thr = new Thread()
+                    {
+                        public void run()
+                        {
+                            try
+                            {
+                                performSetUp();
+
+                                if ( ! hasThrown()
+                                     &&
+                                     getSystemTestInfo().isWarmUp() )
+                                {
+                                    performWarmUp();
+                                }
+
+                                if ( ! hasThrown() )
+                                {
+                                    if ( getSystemTestInfo().isWarmUp() )
+                                    {
+                                        performMeasure();
+                                    }
+                                    else
+                                    {
+                                        performRun();
+                                    }
+
+                                    if ( ! hasThrown() )
+                                    {
+                                        performAssertValid();
+                                    }
+                                }
+
+                                performTearDown();
+                            }
+                            catch (InterruptedException e)
+                            {
+                                // swallow
+                            }
+                            catch (Exception e)
+                            {
+                                addFundamentalError( e );
+                            }
+                            finally
+                            {
+                                isCompleted( true );
+                            }
+                        }
+                    };
+
+                thr.start();
+
+                long timeout = getSystemTestInfo().getTimeout();
+
+                if ( timeout > 0 )
+                {
+                    long start = System.currentTimeMillis();
+                    long stop  = start + timeout;
+
+                    synchronized ( this )
+                    {
+                        while ( System.currentTimeMillis() < stop
+                                &&
+                                ! isCompleted() )
+                        {
+                            long now = System.currentTimeMillis();
+
+                            long left = stop - now;
+
+                            wait( left );
+                        }
+                    }
+
+                    if ( ! isCompleted() )
+                    {
+                        abortTest();
+                        addFundamentalError( new WatchdogError() );
+                        thr.interrupt();
+                    }
+                }
+            }
+        }
+
+        if ( thr != null )
+        {
+            thr.join();
+            collectOutputs();
+            performStop();
+            releaseJvms();
+        }
+        else if ( this.jvmError )
+        {
+            releaseJvms();
+        }
+
+        this.outputFiles.close();
+
+        reportResults();
+
+        Throwable[] fundamentalErrors = getFundamentalErrors();
+
+        Throwable[] thrown = new Throwable[ this.thrown.size() + fundamentalErrors.length ];
+
+        for ( int i = 0 ; i < this.thrown.size() ; ++i )
+        {
+            ThrowEntry entry = (ThrowEntry) this.thrown.get( i );
+
+            thrown[ i ] = entry.getThrown();
+
+            if ( thrown[ i ] instanceof AssertionFailedError )
+            {
+                thrown[ i ] = new SlaveAssertionFailedError( entry.getJvmInfo(),
+                                                             entry.getTBeanId(),
+                                                             (AssertionFailedError) thrown[ i ] );
+            }
+            else
+            {
+                thrown[ i ] = new SlaveThrowable( entry.getJvmInfo(),
+                                                  entry.getTBeanId(),
+                                                  thrown[ i ] );
+            }
+        }
+
+        for ( int i = 0; i < fundamentalErrors.length ; ++i )
+        {
+            thrown[ i + this.thrown.size() ] = fundamentalErrors[ i ];
+        }
+
+        return thrown;
+    }
+
+    // this run's own errors, and any the master could not put down to
+    // a single test while it ran
+    Throwable[] getFundamentalErrors()
+    {
+        List errors = new ArrayList();
+
+        synchronized ( this.fundamentalErrors )
+        {
+            errors.addAll( this.fundamentalErrors );
+        }
+
+        Throwable[] masterErrors = this.master.getFundamentalErrors();
+
+        for ( int i = this.masterErrors ; i < masterErrors.length ; ++i )
+        {
+            errors.add( masterErrors[ i ] );
+        }
+
+        return (Throwable[]) errors.toArray( EMPTY_THROWABLE_ARRAY );
+    }
+
+    void addFundamentalError(Throwable error)
+    {
+        synchronized ( this.fundamentalErrors )
+        {
+            this.fundamentalErrors.add( error );
+        }
+    }
+
+    void addSlave(NodeInfo slave,
+                  int jvmId,
+                  long startupTime,
+                  boolean classDataSharing,
+                  String resourceBinding)
+    {
+        synchronized ( this.slaves )
+        {
+            this.slaves.add( new SlaveInfo( slave,
+                                            jvmId,
+                                            startupTime,
+                                            classDataSharing,
+                                            resourceBinding ) );
+
+            if ( this.slaves.size() == getSystemTestInfo().getTotalJvms() )
+            {
+                this.slaves.notifyAll();
+            }
+        }
+    }
+
+    SlaveInfo[] getSlaves()
+    {
+        synchronized ( this.slaves )
+        {
+            return (SlaveInfo[]) this.slaves.toArray( EMPTY_SLAVEINFO_ARRAY );
+        }
+    }
+
+    void initializeJvms()
+        throws Exception
+    {
+        SlaveInfo[] slaves = getSlaves();
+
+        CommandGroup commandGroup = newCommandGroup();
+
+        // in-process slaves load from the local classpath
+        int      classpathServerPort = -1;
+        String[] relativeUrls        = EMPTY_STRING_ARRAY;
+
+        if ( ! isInProcess() )
+        {
+            classpathServerPort = this.master.getClasspathServer().getPort();
+            relativeUrls        = this.master.getClasspathServer().getRelativeUrls();
+        }
+
+        for ( int i = 0 ; i < slaves.length ; ++i )
+        {
+            JvmBinding binding = getPlan().getJvmBinding( slaves[ i ].getJvmId() );
+
+            commandGroup.add( executeOn( slaves[ i ].getNodeInfo(),
+                                         new InitializeJvmCommand( classpathServerPort,
+                                                                   relativeUrls,
+                                                                   binding.getJvmInfo() ) ) );
+        }
+
+        commandGroup.waitFor();
+    }
+
+    CommandGroup newCommandGroup()
+    {
+        return this.master.newCommandGroup();
+    }
+
+    void perform(String phase,
+                 PerformCommand command)
+        throws Exception
+    {
+        long start = System.currentTimeMillis();
+
+        perform( command );
+
+        this.report.setPhaseTime( phase,
+                                  System.currentTimeMillis() - start );
+    }
+
+    void perform(PerformCommand command)
+        throws Exception
+    {
+        SlaveInfo[] slaves = getSlaves();
+
+        CommandGroup commandGroup = newCommandGroup();
+
+        for ( int i = 0 ; i < slaves.length ; ++i )
+        {
+            commandGroup.add( executeOn( slaves[ i ].getNodeInfo(),
+                                         command ) );
+        }
+
+        commandGroup.waitFor();
+    }
+
+    void performSetUp()
+        throws Exception
+    {
+        perform( TBeanTimings.SET_UP,
+                 new PerformSetUpCommand() );
+    }
+
+    synchronized void setUpThrew(int jvmId,
+                                 String tbeanId,
+                                 Throwable thrown)
+    {
+        addThrown( jvmId,
+                   tbeanId,
+                   TBeanTimings.SET_UP,
+                   thrown );
+    }
+
+    // every JVM has warmed up before any measures, and the warm-up
+    // is not timed
+    void performWarmUp()
+        throws Exception
+    {
+        perform( new PerformWarmUpCommand( getSystemTestInfo().isGcAfterWarmUp() ) );
+    }
+
+    synchronized void warmUpThrew(int jvmId,
+                                  String tbeanId,
+                                  Throwable thrown)
+        throws Exception
+    {
+        addThrown( jvmId,
+                   tbeanId,
+                   TBeanTimings.WARM_UP,
+                   thrown );
+        abortTest();
+    }
+
+    void performMeasure()
+        throws Exception
+    {
+        RampInfo ramp = getSystemTestInfo().getRamp();
+
+        performBounded( ( ramp == null )
+                        ? new PerformMeasureCommand()
+                        : new PerformMeasureCommand( 0,
+                                                     ramp.getWaves() ) );
+    }
+
+    void performRun()
+        throws Exception
+    {
+        RampInfo ramp = getSystemTestInfo().getRamp();
+
+        performBounded( ( ramp == null )
+                        ? new PerformRunCommand()
+                        : new PerformRunCommand( 0,
+                                                 ramp.getWaves() ) );
+    }
+
+    // a run with a runDuration is told to stop when it has passed, and
+    // ends as its TBeans notice; unlike the timeout, that is no failure.
+    // A ramp releases the rest of the TBeans after the first wave
+    void performBounded(PerformCommand command)
+        throws Exception
+    {
+        final long runDuration = getSystemTestInfo().getRunDuration();
+
+        final RampInfo ramp = getSystemTestInfo().getRamp();
+
+        if ( runDuration <= 0
+             &&
+             ramp == null )
+        {
+            perform( TBeanTimings.RUN,
+                     command );
+            return;
+        }
+
+        final long start = System.currentTimeMillis();
+
+        Thread ramper = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        for ( int wave = 1 ; ramp != null && wave < ramp.getWaves() ; ++wave )
+                        {
+                            sleepUntil( start + ramp.getWaveTime( wave ) );
+
+                            releaseTBeans( wave,
+                                           ramp.getWaves() );
+                        }
+                    }
+                    catch (InterruptedException e)
+                    {
+                        // ended before the ramp
+                    }
+                    catch (Exception e)
+                    {
+                        addFundamentalError( e );
+                    }
+                }
+            };
+
+        Thread deadline = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        if ( runDuration <= 0 )
+                        {
+                            return;
+                        }
+
+                        sleepUntil( start + runDuration );
+
+                        stopRun();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        // ended before the deadline
+                    }
+                    catch (Exception e)
+                    {
+                        addFundamentalError( e );
+                    }
+                }
+            };
+
+        ramper.setDaemon( true );
+        ramper.start();
+
+        deadline.setDaemon( true );
+        deadline.start();
+
+        try
+        {
+            perform( TBeanTimings.RUN,
+                     command );
+        }
+        finally
+        {
+            ramper.interrupt();
+            ramper.join();
+
+            deadline.interrupt();
+            deadline.join();
+        }
+    }
+
+    static void sleepUntil(long time)
+        throws InterruptedException
+    {
+        long left = time - System.currentTimeMillis();
+
+        if ( left > 0 )
+        {
+            Thread.sleep( left );
+        }
+    }
+
+    void releaseTBeans(int wave,
+                       int waves)
+        throws Exception
+    {
+        SlaveInfo[] slaves = getSlaves();
+
+        CommandGroup commandGroup = newCommandGroup();
+
+        ReleaseTBeansCommand command = new ReleaseTBeansCommand( wave,
+                                                                 waves );
+
+        for ( int i = 0 ; i < slaves.length ; ++i )
+        {
+            commandGroup.add( executeOn( slaves[ i ].getNodeInfo(),
+                                         command ) );
+        }
+
+        commandGroup.waitFor();
+    }
+
+    void stopRun()
+        throws Exception
+    {
+        SlaveInfo[] slaves = getSlaves();
+
+        CommandGroup commandGroup = newCommandGroup();
+
+        StopRunCommand command = new StopRunCommand();
+
+        for ( int i = 0 ; i < slaves.length ; ++i )
+        {
+            commandGroup.add( executeOn( slaves[ i ].getNodeInfo(),
+                                         command ) );
+        }
+
+        commandGroup.waitFor();
+    }
+
+    synchronized void runThrew(int jvmId,
+                               String tbeanId,
+                               Throwable thrown)
+        throws Exception
+    {
+        addThrown( jvmId,
+                   tbeanId,
+                   TBeanTimings.RUN,
+                   thrown );
+        abortTest();
+    }
+
+    void performAssertValid()
+        throws Exception
+    {
+        perform( TBeanTimings.ASSERT_VALID,
+                 new PerformAssertValidCommand() );
+    }
+
+    synchronized void assertValidThrew(int jvmId,
+                                       String tbeanId,
+                                       Throwable thrown)
+    {
+        addThrown( jvmId,
+                   tbeanId,
+                   TBeanTimings.ASSERT_VALID,
+                   thrown );
+    }
+
+    void performTearDown()
+        throws Exception
+    {
+        perform( TBeanTimings.TEAR_DOWN,
+                 new PerformTearDownCommand() );
+    }
+
+    synchronized void tearDownThrew(int jvmId,
+                                    String tbeanId,
+                                    Throwable thrown)
+        throws Exception
+    {
+        addThrown( jvmId,
+                   tbeanId,
+                   TBeanTimings.TEAR_DOWN,
+                   thrown );
+    }
+
+    void addThrown(int jvmId,
+                   String tbeanId,
+                   String phase,
+                   Throwable thrown)
+    {
+        this.thrown.add( new ThrowEntry( jvmId,
+                                         (JvmInfo) this.jvms.get( jvmId + "" ),
+                                         tbeanId,
+                                         phase,
+                                         thrown ) );
+    }
+
+    void performStop()
+        throws Exception
+    {
+        perform( new PerformStopCommand() );
+    }
+
+    boolean hasThrown()
+    {
+        return ( ! this.thrown.isEmpty() );
+    }
+
+    void waitForSlaves()
+        throws InterruptedException
+    {
+        synchronized ( this.slaves )
+        {
+            while ( this.slaves.size() != getSystemTestInfo().getTotalJvms()
+                    &&
+                    ! this.jvmError )
+            {
+                this.slaves.wait();
+            }
+        }
+    }
+
+    void abortTest()
+        throws Exception
+    {
+        SlaveInfo[] slaves = getSlaves();
+
+        CommandGroup commandGroup = newCommandGroup();
+
+        AbortTestCommand command = new AbortTestCommand();
+
+        for ( int i = 0 ; i < slaves.length ; ++i )
+        {
+            commandGroup.add( executeOn( slaves[ i ].getNodeInfo(),
+                                         command ) );
+        }
+
+        commandGroup.waitFor();
+    }
+
+    // every slave of this run is blocked at the same barrier; slaves
+    // of other runs keep their own count
+    synchronized void notifyFullyBlocked(int jvmId)
+    {
+        ++this.numBlocked;
+
+        if ( this.numBlocked == getSlaves().length )
+        {
+            this.numBlocked = 0;
+
+            UnblockSynchronizerCommand unblockCommand = new UnblockSynchronizerCommand( this.blockSequence );
+
+            ++this.blockSequence;
+
+            SlaveInfo[] slaves = getSlaves();
+
+            for ( int i = 0 ; i < slaves.length ; ++i )
+            {
+                try
+                {
+                    executeOn( slaves[ i ].getNodeInfo(),
+                               unblockCommand );
+                }
+                catch (Exception e)
+                {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    synchronized void jvmError()
+    {
+        this.jvmError = true;
+        notifyAll();
+
+        synchronized ( this.slaves )
+        {
+            this.slaves.notifyAll();
+        }
+    }
+
+    void slaveRejected(int jvmId,
+                       String reason)
+    {
+        JvmInfo jvmInfo = (JvmInfo) this.jvms.get( jvmId + "" );
+
+        addFundamentalError( new SlaveRejectedException( jvmInfo.getName() + "(" + jvmId + "): " + reason ) );
+
+        jvmError();
+    }
+
+    void startLocalSlave(int jvmId)
+        throws Exception
+    {
+        SlaveNode slave = new SlaveNode( jvmId,
+                                         this.master.getLocalNodeInfo() );
+
+        synchronized ( this.localSlaves )
+        {
+            this.localSlaves.add( slave );
+        }
+
+        slave.start();
+
+        slave.executeOn( slave.getMasterNodeInfo(),
+                         new AddSlaveCommand( jvmId ) );
+    }
+
+    void stopLocalSlaves()
+        throws InterruptedException
+    {
+        SlaveNode[] slaves = null;
+
+        synchronized ( this.localSlaves )
+        {
+            slaves = (SlaveNode[]) this.localSlaves.toArray( EMPTY_SLAVENODE_ARRAY );
+            this.localSlaves.clear();
+        }
+
+        for ( int i = 0 ; i < slaves.length ; ++i )
+        {
+            slaves[ i ].stop();
+        }
+    }
+
+    // hands each slave JVM back to the slave host that started it,
+    // which either recycles it for a later test or destroys it
+    void releaseJvms()
+        throws Exception
+    {
+        if ( isInProcess() )
+        {
+            stopLocalSlaves();
+            return;
+        }
+
+        SlaveInfo[] slaves = getSlaves();
+
+        Map released = new HashMap();
+
+        for ( int i = 0 ; i < slaves.length ; ++i )
+        {
+            NodeInfo slaveHost = (NodeInfo) this.jvmHosts.get( slaves[ i ].getJvmId() + "" );
+
+            List hostSlaves = (List) released.get( slaveHost );
+
+            if ( hostSlaves == null )
+            {
+                hostSlaves = new ArrayList();
+                released.put( slaveHost,
+                              hostSlaves );
+            }
+
+            hostSlaves.add( slaves[ i ] );
+        }
+
+        for ( Iterator hostIter = released.keySet().iterator();
+              hostIter.hasNext() ; )
+        {
+            NodeInfo slaveHost  = (NodeInfo) hostIter.next();
+            List     hostSlaves = (List) released.get( slaveHost );
+
+            int[]         jvmIds    = new int[ hostSlaves.size() ];
+            InetAddress[] addresses = new InetAddress[ hostSlaves.size() ];
+            int[]         ports     = new int[ hostSlaves.size() ];
+
+            for ( int i = 0 ; i < jvmIds.length ; ++i )
+            {
+                SlaveInfo      slave    = (SlaveInfo) hostSlaves.get( i );
+                RemoteNodeInfo nodeInfo = (RemoteNodeInfo) slave.getNodeInfo();
+
+                jvmIds[ i ]    = slave.getJvmId();
+                addresses[ i ] = nodeInfo.getAddress();
+                ports[ i ]     = nodeInfo.getPort();
+            }
+
+            executeOn( slaveHost,
+                       new ReleaseJvmsCommand( jvmIds,
+                                               addresses,
+                                               ports ) );
+        }
+    }
+
+    void reportStartupTimes()
+    {
+        SlaveInfo[] slaves = getSlaves();
+
+        int  withCount    = 0;
+        long withTotal    = 0;
+        int  withoutCount = 0;
+        long withoutTotal = 0;
+
+        for ( int i = 0 ; i < slaves.length ; ++i )
+        {
+            if ( slaves[ i ].getStartupTime() < 0 )
+            {
+                continue;
+            }
+
+            if ( slaves[ i ].isClassDataSharing() )
+            {
+                ++withCount;
+                withTotal += slaves[ i ].getStartupTime();
+            }
+            else
+            {
+                ++withoutCount;
+                withoutTotal += slaves[ i ].getStartupTime();
+            }
+        }
+
+        if ( withCount + withoutCount == 0 )
+        {
+            return;
+        }
+
+        StringBuffer report = new StringBuffer( "JVM startup:" );
+
+        if ( withCount > 0 )
+        {
+            report.append( " " + withCount + " with class-data sharing, avg " + ( withTotal / withCount ) + "ms;" );
+        }
+
+        if ( withoutCount > 0 )
+        {
+            report.append( " " + withoutCount + " without, avg " + ( withoutTotal / withoutCount ) + "ms;" );
+        }
+
+        System.out.println( report.toString() );
+    }
+
+    void reportResourceBindings()
+    {
+        SlaveInfo[] slaves = getSlaves();
+
+        for ( int i = 0 ; i < slaves.length ; ++i )
+        {
+            if ( slaves[ i ].getResourceBinding() != null )
+            {
+                System.out.println( "JVM " + getJvmLabel( slaves[ i ].getJvmId() ) );
+            }
+        }
+    }
+
+    // name(jvmId), with the resources the JVM was bound to, if any
+    String getJvmLabel(int jvmId)
+    {
+        String label = ((JvmInfo)this.jvms.get( jvmId + "" )).getName() + "(" + jvmId + ")";
+
+        SlaveInfo[] slaves = getSlaves();
+
+        for ( int i = 0 ; i < slaves.length ; ++i )
+        {
+            if ( slaves[ i ].getJvmId() == jvmId
+                 &&
+                 slaves[ i ].getResourceBinding() != null )
+            {
+                label = label + " " + slaves[ i ].getResourceBinding();
+            }
+        }
+
+        return label;
+    }
+
+    void collectOutputs()
+        throws Exception
+    {
+        NodeInfo[] slaveHosts = (NodeInfo[]) this.slaveHosts.toArray( EMPTY_NODEINFO_ARRAY );
+
+        CollectOutputsCommand command = new CollectOutputsCommand();
+
+        CommandGroup commandGroup = newCommandGroup();
+
+        for ( int i = 0 ; i < slaveHosts.length ; ++i )
+        {
+            commandGroup.add( executeOn( slaveHosts[ i ],
+                                         command  ) );
+        }
+
+        commandGroup.waitFor();
+
+        reportOutputs();
+    }
+
+    TestReport getReport()
+    {
+        return this.report;
+    }
+
+    // a slave's TBeans have torn down; everything it threw has been
+    // reported by now, so its part of the report is written at once
+    synchronized void reportTimings(int jvmId,
+                                    TBeanTimings[] timings,
+                                    int syncs,
+                                    long syncWaitTime,
+                                    Map histograms)
+    {
+        if ( this.report == null
+             ||
+             ! this.reportedJvms.add( jvmId + "" ) )
+        {
+            return;
+        }
+
+        JvmResult jvm = newJvmResult( jvmId,
+                                      timings );
+
+        jvm.setSyncStatistics( syncs,
+                               syncWaitTime );
+
+        jvm.setHistograms( histograms );
+
+        this.report.addJvm( jvm );
+    }
+
+    // a slave's counters and gauges while it runs, until it reports
+    // its timings
+    synchronized void reportSample(int jvmId,
+                                   Sample sample)
+    {
+        if ( this.report == null
+             ||
+             this.reportedJvms.contains( jvmId + "" ) )
+        {
+            return;
+        }
+
+        this.report.addSample( jvmId,
+                               sample );
+    }
+
+    JvmResult newJvmResult(int jvmId,
+                           TBeanTimings[] timings)
+    {
+        JvmResult jvm = new JvmResult( jvmId,
+                                       ((JvmInfo)this.jvms.get( jvmId + "" )).getName(),
+                                       timings );
+
+        SlaveInfo[] slaves = getSlaves();
+
+        for ( int i = 0 ; i < slaves.length ; ++i )
+        {
+            if ( slaves[ i ].getJvmId() == jvmId )
+            {
+                jvm.setStartup( slaves[ i ].getStartupTime(),
+                                slaves[ i ].isClassDataSharing() );
+                jvm.setResourceBinding( slaves[ i ].getResourceBinding() );
+            }
+        }
+
+        List failures = new ArrayList();
+
+        for ( Iterator entryIter = this.thrown.iterator();
+              entryIter.hasNext() ; )
+        {
+            ThrowEntry entry = (ThrowEntry) entryIter.next();
+
+            if ( entry.getJvmId() == jvmId )
+            {
+                failures.add( new ReportedFailure( entry.getTBeanId(),
+                                                   entry.getPhase(),
+                                                   entry.getThrown() ) );
+            }
+        }
+
+        jvm.setFailures( (ReportedFailure[]) failures.toArray( EMPTY_REPORTEDFAILURE_ARRAY ) );
+
+        return jvm;
+    }
+
+    // JVMs that never got as far as reporting, and failures of the
+    // test as a whole, finish the report
+    synchronized void reportResults()
+    {
+        String[] keys = (String[]) this.jvms.keySet().toArray( EMPTY_STRING_ARRAY );
+
+        int[] jvmIds = new int[ keys.length ];
+
+        for ( int i = 0 ; i < keys.length ; ++i )
+        {
+            jvmIds[ i ] = Integer.parseInt( keys[ i ] );
+        }
+
+        Arrays.sort( jvmIds );
+
+        for ( int i = 0 ; i < jvmIds.length ; ++i )
+        {
+            if ( ! this.reportedJvms.contains( jvmIds[ i ] + "" ) )
+            {
+                this.report.addJvm( newJvmResult( jvmIds[ i ],
+                                                  EMPTY_TBEANTIMINGS_ARRAY ) );
+            }
+        }
+
+        Throwable[] fundamentalErrors = getFundamentalErrors();
+
+        for ( int i = 0 ; i < fundamentalErrors.length ; ++i )
+        {
+            this.report.addFailure( new ReportedFailure( null,
+                                                         null,
+                                                         fundamentalErrors[ i ] ) );
+        }
+
+        this.report.finish( this.blockSequence );
+    }
+
+    OutputFiles getOutputFiles()
+    {
+        return this.outputFiles;
+    }
+
+    // name-jvmId, naming the JVM's output files
+    String getOutputLabel(int jvmId)
+    {
+        JvmInfo jvmInfo = (JvmInfo) this.jvms.get( jvmId + "" );
+
+        return ( ( jvmInfo == null )
+                 ? "jvm"
+                 : jvmInfo.getName() ) + "-" + jvmId;
+    }
+
+    void outputChunk(int jvmId,
+                     int stream,
+                     long sequence,
+                     byte[] data)
+        throws IOException
+    {
+        this.outputFiles.write( getOutputLabel( jvmId ),
+                                stream,
+                                sequence,
+                                data );
+    }
+
+    void reportOutputs()
+    {
+        int[] jvmIds = getRemoteJvmIds();
+
+        if ( jvmIds.length == 0 )
+        {
+            return;
+        }
+
+        synchronized ( System.out )
+        {
+            for ( int i = 0 ; i < jvmIds.length ; ++i )
+            {
+                System.out.println( "----------------------------------------------" );
+                System.out.println( "JVM: " + getJvmLabel( jvmIds[ i ] ) );
+                System.out.println( "----------------------------------------------" );
+                this.outputFiles.copy( getOutputLabel( jvmIds[ i ] ),
+                                       OutputListener.STDOUT,
+                                       System.out );
+                System.out.println();
+            }
+            System.out.println( "----------------------------------------------" );
+        }
+        synchronized ( System.err )
+        {
+            for ( int i = 0 ; i < jvmIds.length ; ++i )
+            {
+                System.err.println( "----------------------------------------------" );
+                System.err.println( "JVM: " + getJvmLabel( jvmIds[ i ] ) );
+                System.err.println( "----------------------------------------------" );
+                this.outputFiles.copy( getOutputLabel( jvmIds[ i ] ),
+                                       OutputListener.STDERR,
+                                       System.err );
+                System.err.println();
+            }
+            System.err.println( "----------------------------------------------" );
+        }
+    }
+
+    // ids of the JVMs started on slave hosts, in order
+    int[] getRemoteJvmIds()
+    {
+        String[] keys = (String[]) this.jvmHosts.keySet().toArray( EMPTY_STRING_ARRAY );
+
+        int[] jvmIds = new int[ keys.length ];
+
+        for ( int i = 0 ; i < keys.length ; ++i )
+        {
+            jvmIds[ i ] = Integer.parseInt( keys[ i ] );
+        }
+
+        Arrays.sort( jvmIds );
+
+        return jvmIds;
+    }
+
+    synchronized void isCompleted(boolean isCompleted)
+    {
+        this.isCompleted = isCompleted;
+        notifyAll();
+    }
+
+    synchronized boolean isCompleted()
+    {
+        return this.isCompleted;
+    }
+
+    public String toString()
+    {
+        return "[TestRun: testId=" + this.testId + "; test=" + getSystemTestInfo().getName() + "; scenario=" + getName() + "]";
+    }
+}
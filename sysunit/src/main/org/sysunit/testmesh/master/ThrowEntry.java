@@ -4,19 +4,41 @@ import org.sysunit.model.JvmInfo;
 
 public class ThrowEntry
 {
+    private int jvmId;
     private JvmInfo jvmInfo;
     private String tbeanId;
+    private String phase;
     private Throwable thrown;
 
     public ThrowEntry(JvmInfo jvmInfo,
                       String tbeanId,
                       Throwable thrown)
     {
+        this( -1,
+              jvmInfo,
+              tbeanId,
+              null,
+              thrown );
+    }
+
+    public ThrowEntry(int jvmId,
+                      JvmInfo jvmInfo,
+                      String tbeanId,
+                      String phase,
+                      Throwable thrown)
+    {
+        this.jvmId   = jvmId;
         this.jvmInfo = jvmInfo;
         this.tbeanId = tbeanId;
+        this.phase   = phase;
         this.thrown  = thrown;
     }
 
+    public int getJvmId()
+    {
+        return this.jvmId;
+    }
+
     public JvmInfo getJvmInfo()
     {
         return this.jvmInfo;
@@ -27,6 +49,12 @@ public class ThrowEntry
         return this.tbeanId;
     }
 
+    // the TBean phase that threw, null if not known
+    public String getPhase()
+    {
+        return this.phase;
+    }
+
     public Throwable getThrown()
     {
         return this.thrown;
@@ -0,0 +1,22 @@
+package org.sysunit.testmesh.master;
+
+public class WarmUpThrewCommand
+    extends TestThrewCommand
+{
+    public WarmUpThrewCommand(int jvmId,
+                              String tbeanId,
+                              Throwable thrown)
+    {
+        super( jvmId,
+               tbeanId,
+               thrown );
+    }
+
+    public void execute(MasterNode node)
+        throws Exception
+    {
+        node.warmUpThrew( getJvmId(),
+                          getTBeanId(),
+                          getThrown() );
+    }
+}
@@ -0,0 +1,35 @@
+package org.sysunit.testmesh.registry;
+
+import org.sysunit.model.PhysicalMachineInfo;
+
+public class RegisterSlaveHostCommand
+    extends RegistryCommand
+{
+    private PhysicalMachineInfo physicalMachineInfo;
+    private long heartbeatInterval;
+
+    public RegisterSlaveHostCommand(PhysicalMachineInfo physicalMachineInfo,
+                                    long heartbeatInterval)
+    {
+        this.physicalMachineInfo = physicalMachineInfo;
+        this.heartbeatInterval   = heartbeatInterval;
+    }
+
+    public PhysicalMachineInfo getPhysicalMachineInfo()
+    {
+        return this.physicalMachineInfo;
+    }
+
+    public long getHeartbeatInterval()
+    {
+        return this.heartbeatInterval;
+    }
+
+    public void execute(RegistryNode node)
+        throws Exception
+    {
+        node.registerSlaveHost( getOrigin(),
+                                getPhysicalMachineInfo(),
+                                getHeartbeatInterval() );
+    }
+}
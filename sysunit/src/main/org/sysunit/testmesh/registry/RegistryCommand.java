@@ -0,0 +1,17 @@
+package org.sysunit.testmesh.registry;
+
+import org.sysunit.mesh.Command;
+import org.sysunit.mesh.Node;
+
+public abstract class RegistryCommand
+    extends Command
+{
+    public void execute(Node node)
+        throws Exception
+    {
+        execute( (RegistryNode) node );
+    }
+
+    public abstract void execute(RegistryNode node)
+        throws Exception;
+}
@@ -0,0 +1,48 @@
+package org.sysunit.testmesh.registry;
+
+public class RegistryMain
+{
+    public static void main(String[] args)
+        throws Exception
+    {
+        if ( args.length > 1 )
+        {
+            System.err.println( "only optional <port> is allowed" );
+            System.exit( 1 );
+        }
+
+        int port = RegistryNode.DEFAULT_PORT;
+
+        if ( args.length == 1 )
+        {
+            try
+            {
+                port = Integer.parseInt( args[ 0 ] );
+            }
+            catch (NumberFormatException e)
+            {
+                System.err.println( "invalid port: " + args[ 0 ] );
+                System.exit( 1 );
+            }
+        }
+
+        final RegistryNode registry = new RegistryNode( port );
+
+        Runtime.getRuntime().addShutdownHook( new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        registry.stop();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        // ignore
+                    }
+                }
+            } );
+
+        registry.start();
+    }
+}
@@ -0,0 +1,209 @@
+package org.sysunit.testmesh.registry;
+
+import org.sysunit.mesh.Command;
+import org.sysunit.mesh.NetworkedNode;
+import org.sysunit.mesh.NodeInfo;
+import org.sysunit.mesh.RemoteNodeInfo;
+import org.sysunit.model.PhysicalMachineInfo;
+import org.sysunit.testmesh.TestMeshManager;
+import org.sysunit.testmesh.master.AddRegisteredSlaveHostCommand;
+import org.sysunit.testmesh.master.RemoveSlaveHostCommand;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.HashSet;
+
+// a long-running node that slave hosts register with once and send
+// heartbeats to, and masters subscribe to instead of pinging for slave
+// hosts; each subscriber is sent the live slave hosts, then every
+// heartbeat and unregistration after
+public class RegistryNode
+    extends NetworkedNode
+{
+    public static final int DEFAULT_PORT = 4243;
+
+    private static final NodeInfo[] EMPTY_NODEINFO_ARRAY = new NodeInfo[0];
+
+    private TestMeshManager testMeshManager;
+
+    private Map timeouts;
+
+    private Set subscribers;
+
+    public RegistryNode()
+    {
+        this( DEFAULT_PORT );
+    }
+
+    public RegistryNode(int port)
+    {
+        super( "registry",
+               port );
+
+        this.testMeshManager = new TestMeshManager();
+        this.timeouts        = new HashMap();
+        this.subscribers     = new HashSet();
+    }
+
+    // the registry at <host>[:<port>]
+    public static RemoteNodeInfo locate(NetworkedNode thisNode,
+                                        String registry)
+        throws UnknownHostException
+    {
+        int colonLoc = registry.lastIndexOf( ":" );
+
+        if ( colonLoc < 0 )
+        {
+            return new RemoteNodeInfo( thisNode,
+                                       "registry",
+                                       InetAddress.getByName( registry ),
+                                       DEFAULT_PORT );
+        }
+
+        return new RemoteNodeInfo( thisNode,
+                                   "registry",
+                                   InetAddress.getByName( registry.substring( 0,
+                                                                              colonLoc ) ),
+                                   Integer.parseInt( registry.substring( colonLoc + 1 ) ) );
+    }
+
+    public TestMeshManager getTestMeshManager()
+    {
+        return this.testMeshManager;
+    }
+
+    public NodeInfo[] getSlaveHosts()
+    {
+        NodeInfo[] evicted = getTestMeshManager().evictExpired( System.currentTimeMillis() );
+
+        synchronized ( this.timeouts )
+        {
+            for ( int i = 0 ; i < evicted.length ; ++i )
+            {
+                this.timeouts.remove( evicted[ i ] );
+            }
+        }
+
+        return getTestMeshManager().getSlaveHosts();
+    }
+
+    public NodeInfo[] getSubscribers()
+    {
+        synchronized ( this.subscribers )
+        {
+            return (NodeInfo[]) this.subscribers.toArray( EMPTY_NODEINFO_ARRAY );
+        }
+    }
+
+    // the first heartbeat registers the slave host; one that misses
+    // TestMeshManager.MISSED_HEARTBEATS in a row is evicted
+    void registerSlaveHost(NodeInfo slaveHost,
+                           PhysicalMachineInfo physicalMachineInfo,
+                           long heartbeatInterval)
+    {
+        long timeout = TestMeshManager.MISSED_HEARTBEATS * heartbeatInterval;
+
+        getTestMeshManager().addSlaveHost( slaveHost,
+                                           physicalMachineInfo,
+                                           timeout );
+
+        synchronized ( this.timeouts )
+        {
+            this.timeouts.put( slaveHost,
+                               new Long( timeout ) );
+        }
+
+        relay( newAddCommand( slaveHost,
+                              physicalMachineInfo,
+                              timeout ) );
+    }
+
+    void unregisterSlaveHost(NodeInfo slaveHost)
+    {
+        getTestMeshManager().removeSlaveHost( slaveHost );
+
+        synchronized ( this.timeouts )
+        {
+            this.timeouts.remove( slaveHost );
+        }
+
+        RemoteNodeInfo remoteSlaveHost = (RemoteNodeInfo) slaveHost;
+
+        relay( new RemoveSlaveHostCommand( remoteSlaveHost.getAddress(),
+                                           remoteSlaveHost.getPort() ) );
+    }
+
+    void subscribe(NodeInfo master)
+        throws Exception
+    {
+        synchronized ( this.subscribers )
+        {
+            this.subscribers.add( master );
+        }
+
+        NodeInfo[] slaveHosts = getSlaveHosts();
+
+        for ( int i = 0 ; i < slaveHosts.length ; ++i )
+        {
+            PhysicalMachineInfo physicalMachineInfo = getTestMeshManager().getPhysicalMachineInfo( slaveHosts[ i ] );
+
+            Long timeout = null;
+
+            synchronized ( this.timeouts )
+            {
+                timeout = (Long) this.timeouts.get( slaveHosts[ i ] );
+            }
+
+            // unregistered since
+            if ( physicalMachineInfo == null
+                 ||
+                 timeout == null )
+            {
+                continue;
+            }
+
+            executeOn( master,
+                       newAddCommand( slaveHosts[ i ],
+                                      physicalMachineInfo,
+                                      timeout.longValue() ) );
+        }
+    }
+
+    Command newAddCommand(NodeInfo slaveHost,
+                          PhysicalMachineInfo physicalMachineInfo,
+                          long timeout)
+    {
+        RemoteNodeInfo remoteSlaveHost = (RemoteNodeInfo) slaveHost;
+
+        return new AddRegisteredSlaveHostCommand( remoteSlaveHost.getName(),
+                                                  remoteSlaveHost.getAddress(),
+                                                  remoteSlaveHost.getPort(),
+                                                  physicalMachineInfo,
+                                                  timeout );
+    }
+
+    // subscribers that stop answering are dropped
+    void relay(Command command)
+    {
+        NodeInfo[] subscribers = getSubscribers();
+
+        for ( int i = 0 ; i < subscribers.length ; ++i )
+        {
+            try
+            {
+                executeOn( subscribers[ i ],
+                           command );
+            }
+            catch (Exception e)
+            {
+                synchronized ( this.subscribers )
+                {
+                    this.subscribers.remove( subscribers[ i ] );
+                }
+            }
+        }
+    }
+}
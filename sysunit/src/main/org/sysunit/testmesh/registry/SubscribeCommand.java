@@ -0,0 +1,11 @@
+package org.sysunit.testmesh.registry;
+
+public class SubscribeCommand
+    extends RegistryCommand
+{
+    public void execute(RegistryNode node)
+        throws Exception
+    {
+        node.subscribe( getOrigin() );
+    }
+}
@@ -0,0 +1,43 @@
+package org.sysunit.testmesh.slave;
+
+import java.net.InetAddress;
+
+public class AssignJvmCommand
+    extends SlaveCommand
+{
+    private int jvmId;
+    private InetAddress masterAddress;
+    private int masterPort;
+
+    public AssignJvmCommand(int jvmId,
+                            InetAddress masterAddress,
+                            int masterPort)
+    {
+        this.jvmId         = jvmId;
+        this.masterAddress = masterAddress;
+        this.masterPort    = masterPort;
+    }
+
+    public int getJvmId()
+    {
+        return this.jvmId;
+    }
+
+    public InetAddress getMasterAddress()
+    {
+        return this.masterAddress;
+    }
+
+    public int getMasterPort()
+    {
+        return this.masterPort;
+    }
+
+    public void execute(SlaveNode node)
+        throws Exception
+    {
+        node.assign( getJvmId(),
+                     getMasterAddress(),
+                     getMasterPort() );
+    }
+}
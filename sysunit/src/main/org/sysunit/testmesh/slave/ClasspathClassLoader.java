@@ -1,7 +1,12 @@
 package org.sysunit.testmesh.slave;
 
+import java.io.InputStream;
+import java.io.IOException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.net.HttpURLConnection;
+import java.util.zip.GZIPInputStream;
 
 public class ClasspathClassLoader
     extends URLClassLoader
@@ -11,11 +16,57 @@ public class ClasspathClassLoader
         super( urls );
     }
 
+    public ClasspathClassLoader(URL[] urls,
+                                ClassLoader parent)
+    {
+        super( urls,
+               parent );
+    }
+
     public Class loadClass(String name)
         throws ClassNotFoundException
     {
         return loadClass( name,
                           true );
     }
-}
 
+    public InputStream getResourceAsStream(String name)
+    {
+        URL url = getResource( name );
+
+        if ( url == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            return openStream( url );
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+    static InputStream openStream(URL url)
+        throws IOException
+    {
+        URLConnection conn = url.openConnection();
+
+        if ( conn instanceof HttpURLConnection )
+        {
+            conn.setRequestProperty( "Accept-Encoding",
+                                     "gzip" );
+        }
+
+        InputStream in = conn.getInputStream();
+
+        if ( "gzip".equalsIgnoreCase( conn.getContentEncoding() ) )
+        {
+            return new GZIPInputStream( in );
+        }
+
+        return in;
+    }
+}
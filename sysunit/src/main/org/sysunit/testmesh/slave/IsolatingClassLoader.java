@@ -0,0 +1,148 @@
+package org.sysunit.testmesh.slave;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.MalformedURLException;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.StringTokenizer;
+
+public class IsolatingClassLoader
+    extends URLClassLoader
+{
+    private static final URL[] EMPTY_URL_ARRAY = new URL[0];
+
+    private static final String[] SHARED_PREFIXES = new String[] {
+        "java.",
+        "javax.",
+        "sun.",
+        "com.sun.",
+        "jdk.",
+        "org.xml.",
+        "org.w3c.",
+        "junit.",
+    };
+
+    private static final String[] SHARED_SYSUNIT_PACKAGES = new String[] {
+        "builder",
+        "maven",
+        "mesh",
+        "metrics",
+        "model",
+        "net",
+        "plan",
+        "report",
+        "sync",
+        "testmesh",
+        "util",
+    };
+
+    public IsolatingClassLoader(URL[] urls,
+                                ClassLoader parent)
+    {
+        super( urls,
+               parent );
+    }
+
+    public IsolatingClassLoader(String classpath,
+                                ClassLoader parent)
+        throws MalformedURLException
+    {
+        this( toUrls( classpath ),
+              parent );
+    }
+
+    public Class loadClass(String name)
+        throws ClassNotFoundException
+    {
+        return loadClass( name,
+                          true );
+    }
+
+    protected synchronized Class loadClass(String name,
+                                           boolean resolve)
+        throws ClassNotFoundException
+    {
+        if ( isShared( name ) )
+        {
+            return super.loadClass( name,
+                                    resolve );
+        }
+
+        Class theClass = findLoadedClass( name );
+
+        if ( theClass == null )
+        {
+            try
+            {
+                theClass = findClass( name );
+            }
+            catch (ClassNotFoundException e)
+            {
+                theClass = getParent().loadClass( name );
+            }
+        }
+
+        if ( resolve )
+        {
+            resolveClass( theClass );
+        }
+
+        return theClass;
+    }
+
+    static boolean isShared(String name)
+    {
+        for ( int i = 0 ; i < SHARED_PREFIXES.length ; ++i )
+        {
+            if ( name.startsWith( SHARED_PREFIXES[ i ] ) )
+            {
+                return true;
+            }
+        }
+
+        if ( ! name.startsWith( "org.sysunit." ) )
+        {
+            return false;
+        }
+
+        String rest = name.substring( "org.sysunit.".length() );
+
+        int dotLoc = rest.indexOf( "." );
+
+        if ( dotLoc < 0 )
+        {
+            return true;
+        }
+
+        String pkg = rest.substring( 0,
+                                     dotLoc );
+
+        for ( int i = 0 ; i < SHARED_SYSUNIT_PACKAGES.length ; ++i )
+        {
+            if ( pkg.equals( SHARED_SYSUNIT_PACKAGES[ i ] ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    static URL[] toUrls(String classpath)
+        throws MalformedURLException
+    {
+        List urls = new ArrayList();
+
+        StringTokenizer tokens = new StringTokenizer( classpath,
+                                                      File.pathSeparator );
+
+        while ( tokens.hasMoreTokens() )
+        {
+            urls.add( new File( tokens.nextToken() ).toURI().toURL() );
+        }
+
+        return (URL[]) urls.toArray( EMPTY_URL_ARRAY );
+    }
+}
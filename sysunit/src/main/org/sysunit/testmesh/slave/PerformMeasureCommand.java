@@ -0,0 +1,29 @@
+package org.sysunit.testmesh.slave;
+
+public class PerformMeasureCommand
+    extends PerformCommand
+{
+    private int wave;
+    private int waves;
+
+    public PerformMeasureCommand()
+    {
+        this( 0,
+              1 );
+    }
+
+    // releasing the slave's share of TBeans as of the wave of a ramp
+    public PerformMeasureCommand(int wave,
+                                 int waves)
+    {
+        this.wave  = wave;
+        this.waves = waves;
+    }
+
+    public void execute(SlaveNode node)
+        throws Exception
+    {
+        node.performMeasure( this.wave,
+                             this.waves );
+    }
+}
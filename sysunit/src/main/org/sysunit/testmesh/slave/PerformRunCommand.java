@@ -3,9 +3,27 @@ package org.sysunit.testmesh.slave;
 public class PerformRunCommand
     extends PerformCommand
 {
+    private int wave;
+    private int waves;
+
+    public PerformRunCommand()
+    {
+        this( 0,
+              1 );
+    }
+
+    // releasing the slave's share of TBeans as of the wave of a ramp
+    public PerformRunCommand(int wave,
+                             int waves)
+    {
+        this.wave  = wave;
+        this.waves = waves;
+    }
+
     public void execute(SlaveNode node)
         throws Exception
     {
-        node.performRun();
+        node.performRun( this.wave,
+                         this.waves );
     }
 }
@@ -0,0 +1,23 @@
+package org.sysunit.testmesh.slave;
+
+public class PerformWarmUpCommand
+    extends PerformCommand
+{
+    private boolean gc;
+
+    public PerformWarmUpCommand(boolean gc)
+    {
+        this.gc = gc;
+    }
+
+    public boolean isGc()
+    {
+        return this.gc;
+    }
+
+    public void execute(SlaveNode node)
+        throws Exception
+    {
+        node.performWarmUp( this.gc );
+    }
+}
@@ -0,0 +1,22 @@
+package org.sysunit.testmesh.slave;
+
+public class ReleaseTBeansCommand
+    extends SlaveCommand
+{
+    private int wave;
+    private int waves;
+
+    public ReleaseTBeansCommand(int wave,
+                                int waves)
+    {
+        this.wave  = wave;
+        this.waves = waves;
+    }
+
+    public void execute(SlaveNode node)
+        throws Exception
+    {
+        node.releaseTBeans( this.wave,
+                            this.waves );
+    }
+}
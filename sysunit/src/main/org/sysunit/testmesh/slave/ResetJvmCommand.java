@@ -0,0 +1,17 @@
+package org.sysunit.testmesh.slave;
+
+import org.sysunit.testmesh.slavehost.JvmResetCommand;
+
+public class ResetJvmCommand
+    extends SlaveCommand
+{
+    public ResetJvmCommand()
+    {
+    }
+
+    public void execute(SlaveNode node)
+        throws Exception
+    {
+        reply( new JvmResetCommand( node.resetJvm() ) );
+    }
+}
@@ -0,0 +1,35 @@
+package org.sysunit.testmesh.slave;
+
+// samples the counters and gauges of a slave's TBeans every INTERVAL
+// millis until interrupted
+class SamplerThread
+    extends Thread
+{
+    static final long INTERVAL = 1000;
+
+    private SlaveNode slaveNode;
+
+    SamplerThread(SlaveNode slaveNode)
+    {
+        super( "SamplerThread" );
+        this.slaveNode = slaveNode;
+        setDaemon( true );
+    }
+
+    public void run()
+    {
+        while ( true )
+        {
+            try
+            {
+                Thread.sleep( INTERVAL );
+
+                this.slaveNode.reportSample();
+            }
+            catch (InterruptedException e)
+            {
+                return;
+            }
+        }
+    }
+}
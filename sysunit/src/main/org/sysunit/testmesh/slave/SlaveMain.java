@@ -1,17 +1,43 @@
 package org.sysunit.testmesh.slave;
 
+import org.sysunit.mesh.RemoteNodeInfo;
 import org.sysunit.testmesh.master.AddSlaveCommand;
+import org.sysunit.testmesh.slavehost.PooledJvmReadyCommand;
 
 import java.net.InetAddress;
 
 public class SlaveMain
 {
+    public static final String POOL_FLAG = "-pool";
+    public static final String TRAIN_FLAG = "-train";
+
+    public static final String LAUNCH_TIME_PROPERTY = "sysunit.slave.launchTime";
+    public static final String CDS_PROPERTY = "sysunit.slave.cds";
+    public static final String BINDING_PROPERTY = "sysunit.slave.binding";
+
     public static void main(String[] args)
         throws Exception
     {
+        if ( args.length == 1
+             &&
+             args[ 0 ].equals( TRAIN_FLAG ) )
+        {
+            mainTrain();
+            return;
+        }
+
+        if ( args.length == 4
+             &&
+             args[ 0 ].equals( POOL_FLAG ) )
+        {
+            mainPooled( args );
+            return;
+        }
+
         if ( args.length != 3 )
         {
             System.err.println( "usage: java org.sysunit.testmesh.slave.SlaveMain <jvmId> <masterAddress> <masterPort>" );
+            System.err.println( "       java org.sysunit.testmesh.slave.SlaveMain " + POOL_FLAG + " <slaveHostAddress> <slaveHostPort> <poolId>" );
             System.exit( 1 );
         }
 
@@ -27,6 +53,97 @@ public class SlaveMain
                                                masterAddress,
                                                masterPort );
 
+        addShutdownHook( slave );
+
+        slave.start();
+
+        slave.setStartupTime( getStartupTime() );
+
+        slave.executeOn( slave.getMasterNodeInfo(),
+                         slave.newAddSlaveCommand() );
+    }
+
+    static void mainPooled(String[] args)
+        throws Exception
+    {
+        InetAddress slaveHostAddress = InetAddress.getByName( args[ 1 ] );
+        int         slaveHostPort    = Integer.parseInt( args[ 2 ] );
+        int         poolId           = Integer.parseInt( args[ 3 ] );
+
+        final SlaveNode slave = new SlaveNode();
+
+        addShutdownHook( slave );
+
+        // started ahead of any test, so it reports no startup time
+        slave.start();
+
+        RemoteNodeInfo slaveHost = new RemoteNodeInfo( slave,
+                                                       "slave-host",
+                                                       slaveHostAddress,
+                                                       slaveHostPort );
+
+        slave.executeOn( slaveHost,
+                         new PooledJvmReadyCommand( poolId ) );
+    }
+
+    // exercises the classes a slave loads on every run, so that a
+    // class-data-sharing archive dumped at exit covers them
+    static void mainTrain()
+        throws Exception
+    {
+        SlaveNode slave = new SlaveNode();
+
+        slave.start();
+
+        String[] classNames = new String[] {
+            "org.sysunit.testmesh.slave.ClasspathClassLoader",
+            "org.sysunit.util.TBeanThread",
+            "org.sysunit.sync.Synchronizer",
+            "org.sysunit.util.ResolvingObjectInputStream",
+            "org.sysunit.testmesh.slave.InitializeJvmCommand",
+            "org.sysunit.testmesh.slave.PerformSetUpCommand",
+            "org.sysunit.testmesh.slave.PerformRunCommand",
+            "org.sysunit.testmesh.slave.PerformAssertValidCommand",
+            "org.sysunit.testmesh.slave.PerformTearDownCommand",
+            "org.sysunit.testmesh.slave.PerformStopCommand",
+            "org.sysunit.testmesh.slave.ResetJvmCommand",
+            "org.sysunit.testmesh.slave.DestroyJvmCommand",
+            "org.sysunit.testmesh.master.AddSlaveCommand",
+            "org.sysunit.mesh.ReportCompletionCommand",
+            "org.sysunit.mesh.ReportErrorCommand",
+        };
+
+        for ( int i = 0 ; i < classNames.length ; ++i )
+        {
+            Class.forName( classNames[ i ] );
+        }
+
+        slave.stop();
+
+        System.exit( 0 );
+    }
+
+    static long getStartupTime()
+    {
+        String launchTime = System.getProperty( LAUNCH_TIME_PROPERTY );
+
+        if ( launchTime == null )
+        {
+            return -1;
+        }
+
+        try
+        {
+            return System.currentTimeMillis() - Long.parseLong( launchTime );
+        }
+        catch (NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+
+    static void addShutdownHook(final SlaveNode slave)
+    {
         Runtime.getRuntime().addShutdownHook( new Thread()
             {
                 public void run()
@@ -41,10 +158,5 @@ public class SlaveMain
                     }
                 }
             } );
-
-        slave.start();
-
-        slave.executeOn( slave.getMasterNodeInfo(),
-                         new AddSlaveCommand( jvmId ) );
     }
 }
@@ -2,23 +2,38 @@ package org.sysunit.testmesh.slave;
 
 import org.sysunit.TBean;
 import org.sysunit.SynchronizableTBean;
+import org.sysunit.InstrumentedTBean;
+import org.sysunit.StoppableTBean;
+import org.sysunit.StopSignal;
 import org.sysunit.TBeanSynchronizer;
 import org.sysunit.mesh.NetworkedNode;
+import org.sysunit.mesh.NodeInfo;
+import org.sysunit.mesh.LocalNodeInfo;
 import org.sysunit.mesh.RemoteNodeInfo;
 import org.sysunit.model.JvmInfo;
 import org.sysunit.model.TBeanInfo;
+import org.sysunit.model.RampInfo;
 import org.sysunit.testmesh.master.AddSlaveCommand;
 import org.sysunit.testmesh.master.SetUpThrewCommand;
+import org.sysunit.testmesh.master.WarmUpThrewCommand;
 import org.sysunit.testmesh.master.RunThrewCommand;
 import org.sysunit.testmesh.master.AssertValidThrewCommand;
 import org.sysunit.testmesh.master.TearDownThrewCommand;
 import org.sysunit.testmesh.master.NotifyFullyBlockedCommand;
+import org.sysunit.testmesh.master.ReportTimingsCommand;
+import org.sysunit.testmesh.master.ReportSampleCommand;
+import org.sysunit.report.TBeanTimings;
+import org.sysunit.metrics.Metrics;
+import org.sysunit.metrics.Sample;
+import org.sysunit.metrics.Gauge;
 import org.sysunit.util.PropUtils;
 import org.sysunit.util.TBeanThread;
 import org.sysunit.util.TBeanThreadCallback;
+import org.sysunit.util.VirtualThreads;
 import org.sysunit.sync.Synchronizer;
 import org.sysunit.sync.SynchronizerCallback;
 
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.URL;
 import java.net.URLClassLoader;
@@ -27,6 +42,9 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Properties;
 import java.util.Enumeration;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.Condition;
 
 public class SlaveNode
     extends NetworkedNode
@@ -34,24 +52,48 @@ public class SlaveNode
 {
     private static final TBean[] EMPTY_TBEAN_ARRAY = new TBean[0];
 
+    private static final long RESET_TIMEOUT = 5000;
+
+    // TBeans released into the run and not yet returned
+    public static final String ACTIVE_GAUGE = "tbeans.active";
+
     private int jvmId;
-    private RemoteNodeInfo masterNodeInfo;
+    private NodeInfo masterNodeInfo;
+
+    private boolean inProcess;
+
+    private long startupTime = -1;
 
     private TBeanThread[] tbeanThreads;
 
     private Synchronizer synchronizer;
+    private Metrics metrics;
+    private StopSignal stopSignal;
+    private Gauge active;
+    private Thread samplerThread;
     private int completed;
     private int unblockSequence;
 
+    // TBeans released into the run so far, as of which wave of how many
+    private boolean measuring;
+    private int released;
+    private int wave;
+    private int waves;
+
     private JvmInfo jvmInfo;
 
     private ClassLoader cl;
 
+    // guards the step and ramp state the TBean threads report back to,
+    // so one on a virtual thread never blocks holding a monitor
+    private Lock lock;
+    private Condition changed;
+
     public SlaveNode(int jvmId,
                      InetAddress masterAddress,
                      int masterPort)
     {
-        super( "slave" );
+        this();
 
         this.jvmId = jvmId;
         this.masterNodeInfo = new RemoteNodeInfo( this,
@@ -60,6 +102,34 @@ public class SlaveNode
                                                   masterPort );
     }
 
+    public SlaveNode(int jvmId,
+                     LocalNodeInfo masterNodeInfo)
+    {
+        this();
+
+        this.jvmId          = jvmId;
+        this.masterNodeInfo = masterNodeInfo;
+        this.inProcess      = true;
+    }
+
+    public SlaveNode()
+    {
+        super( "slave" );
+
+        this.lock    = new ReentrantLock();
+        this.changed = this.lock.newCondition();
+    }
+
+    public boolean isInProcess()
+    {
+        return this.inProcess;
+    }
+
+    protected boolean isListening()
+    {
+        return ! isInProcess();
+    }
+
     public void stop()
         throws InterruptedException
     {
@@ -68,16 +138,49 @@ public class SlaveNode
         //System.err.println( "SlaveNode::stop() complete" );
     }
 
-    public RemoteNodeInfo getMasterNodeInfo()
+    public synchronized NodeInfo getMasterNodeInfo()
     {
         return this.masterNodeInfo;
     }
 
-    public int getJvmId()
+    public synchronized int getJvmId()
     {
         return this.jvmId;
     }
 
+    synchronized void assign(int jvmId,
+                             InetAddress masterAddress,
+                             int masterPort)
+        throws Exception
+    {
+        this.jvmId = jvmId;
+        this.masterNodeInfo = new RemoteNodeInfo( this,
+                                                  "master",
+                                                  masterAddress,
+                                                  masterPort );
+
+        executeOn( getMasterNodeInfo(),
+                   newAddSlaveCommand() );
+    }
+
+    void setStartupTime(long startupTime)
+    {
+        this.startupTime = startupTime;
+    }
+
+    public long getStartupTime()
+    {
+        return this.startupTime;
+    }
+
+    AddSlaveCommand newAddSlaveCommand()
+    {
+        return new AddSlaveCommand( getJvmId(),
+                                    getStartupTime(),
+                                    Boolean.getBoolean( SlaveMain.CDS_PROPERTY ),
+                                    System.getProperty( SlaveMain.BINDING_PROPERTY ) );
+    }
+
     void initializeJvm(int classpathServerPort,
                        String[] relativeUrls,
                        JvmInfo jvmInfo)
@@ -114,17 +217,45 @@ public class SlaveNode
             }
         }
 
+        this.metrics = new Metrics();
+
+        this.active = this.metrics.createGauge( ACTIVE_GAUGE );
+
+        for ( int i = 0 ; i < tbeans.length ; ++i )
+        {
+            if ( tbeans[ i ] instanceof InstrumentedTBean )
+            {
+                ((InstrumentedTBean)tbeans[i]).setMetrics( this.metrics );
+            }
+        }
+
+        this.stopSignal = new StopSignal();
+
+        for ( int i = 0 ; i < tbeans.length ; ++i )
+        {
+            if ( tbeans[ i ] instanceof StoppableTBean )
+            {
+                ((StoppableTBean)tbeans[i]).setStopSignal( this.stopSignal );
+            }
+        }
+
+        boolean[] virtual = initializeVirtual( jvmInfo );
+
         this.tbeanThreads = new TBeanThread[ tbeans.length ];
 
         for ( int i = 0 ; i < this.tbeanThreads.length ; ++i )
         {
             this.tbeanThreads[ i ] = new TBeanThread( tbeans[ i ],
-                                                      this );
+                                                      this,
+                                                      virtual[ i ] );
 
             this.tbeanThreads[ i ].setContextClassLoader( this.cl );
 
             this.tbeanThreads[ i ].start();
         }
+
+        this.samplerThread = new SamplerThread( this );
+        this.samplerThread.start();
     }
 
     void performSetUp()
@@ -140,17 +271,119 @@ public class SlaveNode
         waitForThreads();
     }
 
-    void performRun()
+    // what was recorded while warming up is dropped, and garbage
+    // left by it collected if asked, before the master has every JVM
+    // measure
+    void performWarmUp(boolean gc)
         throws InterruptedException
     {
         this.completed = 0;
 
         for ( int i = 0 ; i < this.tbeanThreads.length ; ++i )
         {
-            this.tbeanThreads[ i ].performRun();
+            this.tbeanThreads[ i ].performWarmUp();
         }
 
         waitForThreads();
+
+        this.metrics.reset();
+
+        if ( gc )
+        {
+            System.gc();
+        }
+    }
+
+    void performMeasure(int wave,
+                        int waves)
+        throws InterruptedException
+    {
+        performRun( wave,
+                    waves,
+                    true );
+    }
+
+    void performRun(int wave,
+                    int waves)
+        throws InterruptedException
+    {
+        performRun( wave,
+                    waves,
+                    false );
+    }
+
+    // only the TBeans released as of the wave start; the master
+    // releases the rest as the ramp goes on
+    void performRun(int wave,
+                    int waves,
+                    boolean measuring)
+        throws InterruptedException
+    {
+        this.lock.lock();
+
+        try
+        {
+            this.completed = 0;
+            this.measuring = measuring;
+            this.waves     = waves;
+
+            release( wave );
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+
+        waitForThreads();
+    }
+
+    // a wave may overtake the start of the run it belongs to
+    void releaseTBeans(int wave,
+                       int waves)
+        throws InterruptedException
+    {
+        this.lock.lock();
+
+        try
+        {
+            if ( this.waves == 0 )
+            {
+                this.wave = Math.max( this.wave,
+                                      wave );
+                return;
+            }
+
+            release( wave );
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    void release(int wave)
+        throws InterruptedException
+    {
+        this.wave = Math.max( this.wave,
+                              wave );
+
+        int released = RampInfo.getReleased( this.tbeanThreads.length,
+                                             this.wave,
+                                             this.waves );
+
+        for ( ; this.released < released ; ++this.released )
+        {
+            this.active.add( 1 );
+
+            if ( this.measuring )
+            {
+                this.tbeanThreads[ this.released ].performMeasure();
+            }
+            else
+            {
+                this.tbeanThreads[ this.released ].performRun();
+            }
+        }
     }
 
     void performAssertValid()
@@ -177,6 +410,89 @@ public class SlaveNode
         }
 
         waitForThreads();
+
+        stopSampling();
+
+        reportSample();
+
+        reportTimings();
+    }
+
+    void stopSampling()
+        throws InterruptedException
+    {
+        Thread samplerThread = null;
+
+        synchronized ( this )
+        {
+            samplerThread      = this.samplerThread;
+            this.samplerThread = null;
+        }
+
+        if ( samplerThread != null )
+        {
+            samplerThread.interrupt();
+            samplerThread.join();
+        }
+    }
+
+    // tells the master what the counters counted since the last sample
+    // and where the gauges are, if there are any
+    void reportSample()
+        throws InterruptedException
+    {
+        Sample sample = this.metrics.sample();
+
+        if ( sample.isEmpty() )
+        {
+            return;
+        }
+
+        try
+        {
+            waitFor( executeOn( getMasterNodeInfo(),
+                                new ReportSampleCommand( getJvmId(),
+                                                         sample ) ) );
+        }
+        catch (InterruptedException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    // tells the master how long each TBean's phases took, how much of
+    // that was spent waiting at sync-points, and what they measured
+    void reportTimings()
+        throws InterruptedException
+    {
+        TBeanTimings[] timings = new TBeanTimings[ this.tbeanThreads.length ];
+
+        for ( int i = 0 ; i < timings.length ; ++i )
+        {
+            timings[ i ] = this.tbeanThreads[ i ].getTimings();
+        }
+
+        try
+        {
+            waitFor( executeOn( getMasterNodeInfo(),
+                                new ReportTimingsCommand( getJvmId(),
+                                                          timings,
+                                                          this.synchronizer.getSyncs(),
+                                                          this.synchronizer.getWaitTime(),
+                                                          this.metrics.getHistograms() ) ) );
+        }
+        catch (InterruptedException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            e.printStackTrace();
+        }
     }
 
     void performStop()
@@ -192,7 +508,15 @@ public class SlaveNode
                                       String[] relativeUrls)
         throws MalformedURLException
     {
-        String host = getMasterNodeInfo().getAddress().getHostName();
+        if ( isInProcess() )
+        {
+            this.cl = new IsolatingClassLoader( System.getProperty( "java.class.path" ),
+                                                SlaveNode.class.getClassLoader() );
+
+            return this.cl;
+        }
+
+        String host = ((RemoteNodeInfo)getMasterNodeInfo()).getAddress().getHostName();
 
         URL[] urls = new URL[ relativeUrls.length ];
 
@@ -241,6 +565,42 @@ public class SlaveNode
         return (TBean[]) tbeans.toArray( EMPTY_TBEAN_ARRAY );
     }
 
+    // whether each TBean, in the order initializeTBeans() made them,
+    // asked for a virtual thread; where the runtime has none they run
+    // on platform threads as before
+    boolean[] initializeVirtual(JvmInfo jvmInfo)
+    {
+        List virtual = new ArrayList();
+
+        TBeanInfo[] tbeanInfos = jvmInfo.getTBeans();
+
+        for ( int i = 0 ; i < tbeanInfos.length ; ++i )
+        {
+            for ( int j = 0 ; j < tbeanInfos[ i ].getCount() ; ++j )
+            {
+                virtual.add( Boolean.valueOf( tbeanInfos[ i ].isVirtualThreads() ) );
+            }
+        }
+
+        boolean[] flags = new boolean[ virtual.size() ];
+        boolean   asked = false;
+
+        for ( int i = 0 ; i < flags.length ; ++i )
+        {
+            flags[ i ] = ((Boolean)virtual.get( i )).booleanValue();
+            asked      = asked || flags[ i ];
+        }
+
+        if ( asked
+             &&
+             ! VirtualThreads.isAvailable() )
+        {
+            System.err.println( "virtual threads unavailable on this JVM; running TBeans on platform threads" );
+        }
+
+        return flags;
+    }
+
     TBean initializeTBean(ClassLoader cl,
                           TBeanInfo tbeanInfo)
         throws Exception
@@ -260,7 +620,7 @@ public class SlaveNode
     // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - 
 
     
-    public synchronized void notifySetUp(TBeanThread thread)
+    public void notifySetUp(TBeanThread thread)
     {
         if ( thread.getThrown() != null )
         {
@@ -276,11 +636,32 @@ public class SlaveNode
                 e.printStackTrace();
             }
         }
-        ++this.completed;
-        notifyAll();
+        completed();
     }
 
-    public synchronized void notifyRun(TBeanThread thread)
+    public void notifyWarmUp(TBeanThread thread)
+    {
+        if ( thread.getThrown() != null )
+        {
+            try
+            {
+                waitFor( executeOn( getMasterNodeInfo(),
+                                    new WarmUpThrewCommand( getJvmId(),
+                                                            thread.getName(),
+                                                            thread.getThrown() ) ) );
+            }
+            catch (Exception e)
+            {
+                e.printStackTrace();
+            }
+
+            this.synchronizer.setError();
+        }
+
+        completed();
+    }
+
+    public void notifyRun(TBeanThread thread)
     {
         if ( thread.getThrown() != null )
         {
@@ -300,11 +681,11 @@ public class SlaveNode
         }
 
         this.synchronizer.reduceNumThreads();
-        ++this.completed;
-        notifyAll();
+        this.active.add( -1 );
+        completed();
     }
 
-    public synchronized void notifyAssertValid(TBeanThread thread)
+    public void notifyAssertValid(TBeanThread thread)
     {
         if ( thread.getThrown() != null )
         {
@@ -321,11 +702,10 @@ public class SlaveNode
             }
             this.synchronizer.setError();
         }
-        ++this.completed;
-        notifyAll();
+        completed();
     }
 
-    public synchronized void notifyTearDown(TBeanThread thread)
+    public void notifyTearDown(TBeanThread thread)
     {
         if ( thread.getThrown() != null )
         {
@@ -343,33 +723,67 @@ public class SlaveNode
             this.synchronizer.setError();
         }
 
-        ++this.completed;
-        notifyAll();
+        completed();
     }
 
-    synchronized void waitForThreads()
+    // counts a TBean done with the step, once any throw is reported
+    void completed()
+    {
+        this.lock.lock();
+
+        try
+        {
+            ++this.completed;
+            this.changed.signalAll();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    void waitForThreads()
         throws InterruptedException
     {
-        while ( this.completed != this.tbeanThreads.length )
+        this.lock.lock();
+
+        try
+        {
+            while ( this.completed != this.tbeanThreads.length )
+            {
+                this.changed.await();
+            }
+        }
+        finally
         {
-            wait();
+            this.lock.unlock();
         }
     }
 
-    synchronized void unblockSynchronizer(int unblockSequence)
+    void unblockSynchronizer(int unblockSequence)
         throws Exception
     {
-        while ( this.unblockSequence != unblockSequence )
+        this.lock.lock();
+
+        try
         {
-            wait();
-        }
+            while ( this.unblockSequence != unblockSequence )
+            {
+                this.changed.await();
+            }
 
-        ++this.unblockSequence;
-        this.synchronizer.unblock();
-        notifyAll();
+            ++this.unblockSequence;
+            this.synchronizer.unblock();
+            this.changed.signalAll();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
     }
 
-    public synchronized void notifyFullyBlocked(Synchronizer synchronizer)
+    // called holding the synchronizer's lock, so takes none of ours
+    public void notifyFullyBlocked(Synchronizer synchronizer)
     {
         try
         {
@@ -382,6 +796,12 @@ public class SlaveNode
         }
     }
 
+    // the run's duration has passed
+    void stopRun()
+    {
+        this.stopSignal.stop();
+    }
+
     void abortTest()
     {
         this.synchronizer.setError();
@@ -389,10 +809,117 @@ public class SlaveNode
 
     void destroyJvm()
     {
-        System.exit( 0 );
+        // cannot stop our own pool from one of its threads, nor exit
+        // from one, since the shutdown hook waits for the pool to stop
+        Thread stopper = new Thread()
+            {
+                public void run()
+                {
+                    if ( ! isInProcess() )
+                    {
+                        System.exit( 0 );
+                    }
+
+                    try
+                    {
+                        SlaveNode.this.stop();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        // swallow
+                    }
+                }
+            };
+
+        stopper.start();
+    }
+
+    // drops everything loaded for the last test so the JVM can be
+    // handed to another master; a TBean thread that will not finish
+    // makes the JVM unfit for reuse
+    boolean resetJvm()
+        throws InterruptedException
+    {
+        boolean reusable = ! isInProcess();
+
+        stopSampling();
+
+        TBeanThread[] threads = null;
+
+        synchronized ( this )
+        {
+            threads = this.tbeanThreads;
+        }
+
+        if ( threads != null )
+        {
+            for ( int i = 0 ; i < threads.length ; ++i )
+            {
+                threads[ i ].join( RESET_TIMEOUT );
+
+                if ( threads[ i ].isAlive() )
+                {
+                    threads[ i ].interrupt();
+                    reusable = false;
+                }
+            }
+        }
+
+        this.lock.lock();
+
+        try
+        {
+            this.released        = 0;
+            this.wave            = 0;
+            this.waves           = 0;
+            this.completed       = 0;
+            this.unblockSequence = 0;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+
+        ClassLoader cl = null;
+
+        synchronized ( this )
+        {
+            cl = this.cl;
+
+            this.tbeanThreads    = null;
+            this.synchronizer    = null;
+            this.stopSignal      = null;
+            this.active          = null;
+            this.jvmInfo         = null;
+            this.cl              = null;
+            this.jvmId           = 0;
+            this.masterNodeInfo  = null;
+            this.startupTime     = -1;
+        }
+
+        Thread.currentThread().setContextClassLoader( SlaveNode.class.getClassLoader() );
+
+        System.getProperties().remove( "sysunit.classpath" );
+
+        // releases the jar files and connections the last test opened
+        if ( cl instanceof URLClassLoader
+             &&
+             ! ( cl instanceof IsolatingClassLoader ) )
+        {
+            try
+            {
+                ((URLClassLoader) cl).close();
+            }
+            catch (IOException e)
+            {
+                // swallow
+            }
+        }
+
+        return reusable;
     }
 
-    public synchronized void notifyInconsistent(Synchronizer synchronizer)
+    public void notifyInconsistent(Synchronizer synchronizer)
     {
 
     }
@@ -0,0 +1,16 @@
+package org.sysunit.testmesh.slave;
+
+public class StopRunCommand
+    extends SlaveCommand
+{
+    public StopRunCommand()
+    {
+
+    }
+
+    public void execute(SlaveNode node)
+        throws Exception
+    {
+        node.stopRun();
+    }
+}
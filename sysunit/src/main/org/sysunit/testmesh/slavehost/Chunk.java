@@ -0,0 +1,27 @@
+package org.sysunit.testmesh.slavehost;
+
+import org.sysunit.mesh.NodeInfo;
+import org.sysunit.testmesh.master.OutputChunkCommand;
+
+class Chunk
+{
+    private NodeInfo master;
+    private OutputChunkCommand command;
+
+    Chunk(NodeInfo master,
+          OutputChunkCommand command)
+    {
+        this.master  = master;
+        this.command = command;
+    }
+
+    NodeInfo getMaster()
+    {
+        return this.master;
+    }
+
+    OutputChunkCommand getCommand()
+    {
+        return this.command;
+    }
+}
@@ -0,0 +1,228 @@
+package org.sysunit.testmesh.slavehost;
+
+import org.sysunit.testmesh.slave.SlaveMain;
+import org.sysunit.util.JvmExecutor;
+import org.sysunit.util.JvmExecutorCallback;
+
+import java.io.File;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.StringTokenizer;
+
+class ClassDataSharing
+    implements JvmExecutorCallback
+{
+    static final String ENABLED_PROPERTY = "sysunit.cds";
+
+    private static final String[] EMPTY_STRING_ARRAY = new String[0];
+
+    private File dir;
+    private String classpath;
+    private boolean enabled;
+
+    private Map archives;
+    private Set training;
+    private Set unsupported;
+
+    ClassDataSharing()
+    {
+        this( new File( System.getProperty( "java.io.tmpdir" ),
+                        "sysunit-cds" ),
+              System.getProperty( "java.class.path" ) );
+    }
+
+    ClassDataSharing(File dir,
+                     String classpath)
+    {
+        this.dir         = dir;
+        this.classpath   = classpath;
+        this.enabled     = ! "false".equals( System.getProperty( ENABLED_PROPERTY ) );
+        this.archives    = new HashMap();
+        this.training    = new HashSet();
+        this.unsupported = new HashSet();
+    }
+
+    boolean isEnabled()
+    {
+        return this.enabled;
+    }
+
+    void setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    File getDirectory()
+    {
+        return this.dir;
+    }
+
+    synchronized String[] getJvmOptions(File javaHome)
+    {
+        // until the archive exists, launch without it and train in the background
+        if ( ! isEnabled() )
+        {
+            return EMPTY_STRING_ARRAY;
+        }
+
+        String key = getKey( javaHome );
+
+        File archive = (File) this.archives.get( key );
+
+        if ( archive == null )
+        {
+            archive = getArchiveFile( javaHome );
+
+            if ( archive.length() > 0 )
+            {
+                this.archives.put( key,
+                                   archive );
+            }
+            else
+            {
+                startTraining( javaHome );
+                return EMPTY_STRING_ARRAY;
+            }
+        }
+
+        return new String[] { "-XX:SharedArchiveFile=" + archive.getPath(),
+                              "-Xshare:auto" };
+    }
+
+    synchronized boolean isUnsupported(File javaHome)
+    {
+        return this.unsupported.contains( getKey( javaHome ) );
+    }
+
+    synchronized boolean isTraining(File javaHome)
+    {
+        return this.training.contains( getKey( javaHome ) );
+    }
+
+    synchronized void startTraining(File javaHome)
+    {
+        String key = getKey( javaHome );
+
+        if ( this.training.contains( key )
+             ||
+             this.unsupported.contains( key ) )
+        {
+            return;
+        }
+
+        this.dir.mkdirs();
+
+        File archive = getArchiveFile( javaHome );
+
+        // train into a temporary file so a half-written archive is never used
+        File partial = new File( archive.getPath() + ".tmp" );
+
+        partial.delete();
+
+        JvmExecutor executor = new JvmExecutor( 0,
+                                                javaHome,
+                                                new String[] { "-XX:ArchiveClassesAtExit=" + partial.getPath() },
+                                                SlaveMain.class.getName(),
+                                                new String[] { SlaveMain.TRAIN_FLAG },
+                                                this );
+
+        this.training.add( key );
+
+        Thread thread = new Thread( executor );
+
+        thread.setDaemon( true );
+
+        thread.start();
+    }
+
+    synchronized void waitForTraining(File javaHome,
+                                      long timeout)
+        throws InterruptedException
+    {
+        long stop = System.currentTimeMillis() + timeout;
+
+        while ( isTraining( javaHome ) )
+        {
+            long left = stop - System.currentTimeMillis();
+
+            if ( left <= 0 )
+            {
+                return;
+            }
+
+            wait( left );
+        }
+    }
+
+    public synchronized void notifyJvmFinished(JvmExecutor executor,
+                                               int exitValue)
+    {
+        File javaHome = executor.getJavaHome();
+        String key = getKey( javaHome );
+
+        this.training.remove( key );
+
+        File archive = getArchiveFile( javaHome );
+        File partial = new File( archive.getPath() + ".tmp" );
+
+        if ( exitValue == 0
+             &&
+             partial.length() > 0
+             &&
+             partial.renameTo( archive ) )
+        {
+            this.archives.put( key,
+                               archive );
+        }
+        else
+        {
+            partial.delete();
+            this.unsupported.add( key );
+        }
+
+        notifyAll();
+    }
+
+    public synchronized void notifyJvmInterrupted(JvmExecutor executor)
+    {
+        this.training.remove( getKey( executor.getJavaHome() ) );
+        notifyAll();
+    }
+
+    public synchronized void notifyJvmException(JvmExecutor executor,
+                                                Exception e)
+    {
+        String key = getKey( executor.getJavaHome() );
+
+        this.training.remove( key );
+        this.unsupported.add( key );
+        notifyAll();
+    }
+
+    File getArchiveFile(File javaHome)
+    {
+        return new File( this.dir,
+                         "slave-" + getKey( javaHome ) + ".jsa" );
+    }
+
+    String getKey(File javaHome)
+    {
+        long hash = ( ( javaHome != null )
+                      ? javaHome.getAbsolutePath().hashCode()
+                      : 0 );
+
+        hash = ( hash * 31 ) + this.classpath.hashCode();
+
+        StringTokenizer tokens = new StringTokenizer( this.classpath,
+                                                      File.pathSeparator );
+
+        while ( tokens.hasMoreTokens() )
+        {
+            hash = ( hash * 31 ) + new File( tokens.nextToken() ).lastModified();
+        }
+
+        return Long.toHexString( hash );
+    }
+}
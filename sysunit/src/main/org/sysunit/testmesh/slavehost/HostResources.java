@@ -0,0 +1,115 @@
+package org.sysunit.testmesh.slavehost;
+
+import java.io.File;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.StringTokenizer;
+
+// what the slave host can tell about its machine; on systems without
+// /proc, memory and load are reported as unknown
+class HostResources
+{
+    private File proc;
+
+    HostResources()
+    {
+        this( new File( "/proc" ) );
+    }
+
+    HostResources(File proc)
+    {
+        this.proc = proc;
+    }
+
+    int getCores()
+    {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    // bytes, or -1 if unknown
+    long getMemory()
+    {
+        String memTotal = readLine( "meminfo",
+                                    "MemTotal:" );
+
+        if ( memTotal == null )
+        {
+            return -1;
+        }
+
+        StringTokenizer tokens = new StringTokenizer( memTotal );
+
+        try
+        {
+            tokens.nextToken();
+
+            return Long.parseLong( tokens.nextToken() ) * 1024;
+        }
+        catch (RuntimeException e)
+        {
+            return -1;
+        }
+    }
+
+    // one-minute load average, or -1 if unknown
+    double getLoad()
+    {
+        String loadavg = readLine( "loadavg",
+                                   "" );
+
+        if ( loadavg == null )
+        {
+            return -1;
+        }
+
+        try
+        {
+            return Double.parseDouble( new StringTokenizer( loadavg ).nextToken() );
+        }
+        catch (RuntimeException e)
+        {
+            return -1;
+        }
+    }
+
+    String readLine(String name,
+                    String prefix)
+    {
+        File file = new File( this.proc,
+                              name );
+
+        if ( ! file.exists() )
+        {
+            return null;
+        }
+
+        try
+        {
+            BufferedReader in = new BufferedReader( new FileReader( file ) );
+
+            try
+            {
+                String line = null;
+
+                while ( ( line = in.readLine() ) != null )
+                {
+                    if ( line.startsWith( prefix ) )
+                    {
+                        return line;
+                    }
+                }
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch (IOException e)
+        {
+            // unknown
+        }
+
+        return null;
+    }
+}
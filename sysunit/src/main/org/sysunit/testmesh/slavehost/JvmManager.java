@@ -4,7 +4,6 @@ import org.sysunit.mesh.NodeInfo;
 import org.sysunit.mesh.RemoteNodeInfo;
 import org.sysunit.util.JvmExecutor;
 import org.sysunit.util.JvmExecutorCallback;
-import org.sysunit.util.Output;
 import org.sysunit.testmesh.slave.SlaveMain;
 
 import java.io.File;
@@ -12,12 +11,20 @@ import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Arrays;
 
 class JvmManager
     implements JvmExecutorCallback
 {
     private static final JvmExecutor[] EMPTY_JVMEXECUTOR_ARRAY = new JvmExecutor[0];
 
+    static final String[] NO_JVM_OPTIONS = new String[0];
+
+    static final int ADMITTED = 0;
+    static final int QUEUED   = 1;
+    static final int REJECTED = 2;
+
     private SlaveHostNode node;
 
     private Map threads;
@@ -25,33 +32,180 @@ class JvmManager
     private Map jvms;
     private Map jvmsById;
 
+    private int poolIdCounter;
+    private Map poolKeys;
+    private Map pooledById;
+    private Map idleJvms;
+
+    private Map jvmKeys;
+    private Map uses;
+    private Map resetting;
+
+    private ClassDataSharing classDataSharing;
+
+    private ResourceBinder resourceBinder;
+    private Map slots;
+
+    private List queued;
+    private JvmExecutor retiring;
+
     public JvmManager(SlaveHostNode node)
+    {
+        this( node,
+              new ResourceBinder() );
+    }
+
+    JvmManager(SlaveHostNode node,
+               ResourceBinder resourceBinder)
     {
         this.node = node;
         this.threads = new HashMap();
         this.masters = new HashMap();
         this.jvms = new HashMap();
         this.jvmsById = new HashMap();
+
+        this.poolKeys = new HashMap();
+        this.pooledById = new HashMap();
+        this.idleJvms   = new HashMap();
+
+        this.jvmKeys   = new HashMap();
+        this.uses      = new HashMap();
+        this.resetting = new HashMap();
+
+        this.classDataSharing = new ClassDataSharing();
+
+        this.resourceBinder = resourceBinder;
+        this.slots          = new HashMap();
+
+        this.queued = new ArrayList();
+    }
+
+    ClassDataSharing getClassDataSharing()
+    {
+        return this.classDataSharing;
+    }
+
+    ResourceBinder getResourceBinder()
+    {
+        return this.resourceBinder;
+    }
+
+    String[] getLaunchOptions(File javaHome,
+                              String[] jvmOptions,
+                              ResourceSlot slot)
+    {
+        String[] cdsOptions = getClassDataSharing().getJvmOptions( javaHome );
+
+        List options = new ArrayList();
+
+        options.addAll( Arrays.asList( cdsOptions ) );
+
+        options.add( "-D" + SlaveMain.LAUNCH_TIME_PROPERTY + "=" + System.currentTimeMillis() );
+        options.add( "-D" + SlaveMain.CDS_PROPERTY + "=" + ( cdsOptions.length > 0 ) );
+
+        if ( slot != null )
+        {
+            options.add( "-D" + SlaveMain.BINDING_PROPERTY + "=" + getResourceBinder().getDescription( slot ) );
+        }
+        else if ( this.node.getConfiguration().getSlots().length > 0 )
+        {
+            // admission keeps this from happening, but a run that
+            // cannot be reproduced should at least say so
+            options.add( "-D" + SlaveMain.BINDING_PROPERTY + "=unbound: every slot taken" );
+        }
+
+        options.addAll( Arrays.asList( jvmOptions ) );
+
+        return (String[]) options.toArray( NO_JVM_OPTIONS );
+    }
+
+    // the first configured slot no running JVM holds, or null when
+    // none are configured or all are taken
+    synchronized ResourceSlot allocateSlot()
+    {
+        ResourceSlot[] configured = this.node.getConfiguration().getSlots();
+
+        for ( int i = 0 ; i < configured.length ; ++i )
+        {
+            if ( ! this.slots.containsValue( configured[ i ] ) )
+            {
+                return configured[ i ];
+            }
+        }
+
+        return null;
+    }
+
+    // whether a JVM started now would be bound, or no slots are
+    // configured
+    synchronized boolean hasFreeSlot()
+    {
+        return ( this.node.getConfiguration().getSlots().length == 0
+                 ||
+                 allocateSlot() != null );
+    }
+
+    // a start needs a free slot unless an idle JVM, which keeps its
+    // own, can take it
+    synchronized boolean canLaunch(String poolKey)
+    {
+        return ( hasFreeSlot()
+                 ||
+                 ! getIdleJvms( poolKey ).isEmpty() );
+    }
+
+    void bindSlot(JvmExecutor executor,
+                  ResourceSlot slot)
+    {
+        if ( slot == null )
+        {
+            return;
+        }
+
+        this.slots.put( executor,
+                        slot );
+
+        executor.setCommandPrefix( getResourceBinder().getCommandPrefix( slot ) );
+    }
+
+    synchronized ResourceSlot getSlot(JvmExecutor executor)
+    {
+        return (ResourceSlot) this.slots.get( executor );
     }
 
     synchronized Thread startJvm(int jvmId,
+                                 String jdk,
                                  File javaHome,
+                                 String[] jvmOptions,
                                  RemoteNodeInfo master)
     {
+        ResourceSlot slot = allocateSlot();
+
         final JvmExecutor executor = new JvmExecutor( jvmId,
                                                       javaHome,
+                                                      getLaunchOptions( javaHome,
+                                                                        jvmOptions,
+                                                                        slot ),
                                                       SlaveMain.class.getName(),
                                                       new String[] { "" + jvmId,
                                                                      master.getAddress().getHostAddress(),
                                                                      "" + master.getPort() },
                                                       this );
-        
+
+        bindSlot( executor,
+                  slot );
+
+        configureOutput( executor );
         
         Thread thread = new Thread( executor );
         
         this.threads.put( executor,
                           thread );
 
+        this.jvmKeys.put( executor,
+                          getPoolKey( jdk,
+                                      jvmOptions ) );
+
         this.masters.put( executor,
                           master );
 
@@ -74,20 +228,472 @@ class JvmManager
         return thread;
     }
 
-    void removeJvm(JvmExecutor executor)
+    static String getPoolKey(String jdk,
+                             String[] jvmOptions)
+    {
+        StringBuffer key = new StringBuffer( jdk );
+
+        for ( int i = 0 ; i < jvmOptions.length ; ++i )
+        {
+            key.append( " " );
+            key.append( jvmOptions[ i ] );
+        }
+
+        return key.toString();
+    }
+
+    synchronized void fillPool(String jdk,
+                               File javaHome,
+                               String[] jvmOptions,
+                               int size)
     {
-        List jvms = (List) this.jvms.get( getMaster( executor ) );
+        String poolKey = getPoolKey( jdk,
+                                     jvmOptions );
+
+        // with slots, starts waiting come before the pool
+        while ( getPoolCount( poolKey ) < size
+                &&
+                hasFreeSlot()
+                &&
+                ( this.queued.isEmpty()
+                  ||
+                  this.node.getConfiguration().getSlots().length == 0 ) )
+        {
+            startPooledJvm( poolKey,
+                            javaHome,
+                            jvmOptions );
+        }
+    }
 
-        jvms.remove( executor );
+    synchronized Thread startPooledJvm(String poolKey,
+                                       File javaHome,
+                                       String[] jvmOptions)
+    {
+        int poolId = ++this.poolIdCounter;
+
+        ResourceSlot slot = allocateSlot();
+
+        JvmExecutor executor = new JvmExecutor( 0,
+                                                javaHome,
+                                                getLaunchOptions( javaHome,
+                                                                  jvmOptions,
+                                                                  slot ),
+                                                SlaveMain.class.getName(),
+                                                new String[] { SlaveMain.POOL_FLAG,
+                                                               "127.0.0.1",
+                                                               "" + this.node.getPort(),
+                                                               "" + poolId },
+                                                this );
+
+        bindSlot( executor,
+                  slot );
+
+        configureOutput( executor );
+
+        Thread thread = new Thread( executor );
+
+        this.threads.put( executor,
+                          thread );
+
+        this.poolKeys.put( executor,
+                           poolKey );
+
+        this.jvmKeys.put( executor,
+                          poolKey );
+
+        this.pooledById.put( "" + poolId,
+                             executor );
+
+        thread.start();
+
+        return thread;
+    }
+
+    synchronized void pooledJvmReady(int poolId,
+                                     NodeInfo slave)
+    {
+        JvmExecutor executor = (JvmExecutor) this.pooledById.remove( "" + poolId );
+
+        if ( executor == null )
+        {
+            return;
+        }
+
+        String poolKey = (String) this.poolKeys.get( executor );
+
+        getIdleJvms( poolKey ).add( new PooledJvm( executor,
+                                               slave ) );
+    }
+
+    synchronized NodeInfo assignPooledJvm(String poolKey,
+                                          int jvmId,
+                                          NodeInfo master)
+    {
+        List idle = getIdleJvms( poolKey );
+
+        if ( idle.isEmpty() )
+        {
+            return null;
+        }
+
+        PooledJvm pooled = (PooledJvm) idle.remove( 0 );
+
+        JvmExecutor executor = pooled.getExecutor();
+
+        this.poolKeys.remove( executor );
+
+        executor.setJvmId( jvmId );
+
+        this.masters.put( executor,
+                          master );
+
+        this.jvmsById.put( "" + jvmId,
+                           executor );
+
+        List jvms = (List) this.jvms.get( master );
+
+        if ( jvms == null )
+        {
+            jvms = new ArrayList();
+            this.jvms.put( master,
+                           jvms );
+        }
+
+        jvms.add( executor );
+
+        return pooled.getSlave();
+    }
+
+    // JVMs started for, or handed to, a master and not yet released
+    synchronized int getRunningCount()
+    {
+        int count = 0;
+
+        for ( Iterator jvmsIter = this.jvms.values().iterator();
+              jvmsIter.hasNext() ; )
+        {
+            count += ((List)jvmsIter.next()).size();
+        }
+
+        return count;
+    }
+
+    // whether a slave may start now; starts beyond maxJvms, or with
+    // every slot taken, wait in order while fewer than maxQueued are
+    // waiting
+    synchronized int admit(int jvmId,
+                           String jdk,
+                           String[] jvmOptions,
+                           NodeInfo master,
+                           int maxJvms,
+                           int maxQueued)
+    {
+        if ( this.queued.isEmpty()
+             &&
+             ( maxJvms < 0
+               ||
+               getRunningCount() < maxJvms )
+             &&
+             canLaunch( getPoolKey( jdk,
+                                    jvmOptions ) ) )
+        {
+            return ADMITTED;
+        }
+
+        if ( this.queued.size() < maxQueued )
+        {
+            this.queued.add( new QueuedStart( jvmId,
+                                              jdk,
+                                              jvmOptions,
+                                              master ) );
+
+            if ( maxJvms < 0
+                 ||
+                 getRunningCount() < maxJvms )
+            {
+                launchable( (QueuedStart) this.queued.get( 0 ) );
+            }
+
+            return QUEUED;
+        }
+
+        return REJECTED;
+    }
+
+    // the first start waiting, once it can be launched
+    synchronized QueuedStart nextQueued(int maxJvms)
+    {
+        if ( this.queued.isEmpty()
+             ||
+             ( maxJvms >= 0
+               &&
+               getRunningCount() >= maxJvms ) )
+        {
+            return null;
+        }
+
+        if ( ! launchable( (QueuedStart) this.queued.get( 0 ) ) )
+        {
+            return null;
+        }
+
+        return (QueuedStart) this.queued.remove( 0 );
+    }
+
+    // a start waiting only for a slot has an idle JVM of another kind
+    // stopped to free one, and is launched when that JVM exits
+    boolean launchable(QueuedStart start)
+    {
+        if ( canLaunch( getPoolKey( start.getJdk(),
+                                    start.getJvmOptions() ) ) )
+        {
+            return true;
+        }
+
+        if ( this.retiring == null )
+        {
+            this.retiring = retireIdleJvm();
+        }
+
+        return false;
+    }
+
+    JvmExecutor retireIdleJvm()
+    {
+        for ( Iterator idleIter = this.idleJvms.values().iterator();
+              idleIter.hasNext() ; )
+        {
+            List idle = (List) idleIter.next();
+
+            if ( idle.isEmpty() )
+            {
+                continue;
+            }
+
+            JvmExecutor executor = ((PooledJvm)idle.remove( 0 )).getExecutor();
+
+            try
+            {
+                executor.destroy();
+            }
+            catch (Exception e)
+            {
+                e.printStackTrace();
+            }
+
+            return executor;
+        }
+
+        return null;
+    }
+
+    synchronized int getQueuedCount()
+    {
+        return this.queued.size();
+    }
+
+    synchronized void clearQueued()
+    {
+        this.queued.clear();
+    }
+
+    synchronized int getPoolCount(String poolKey)
+    {
+        int count = 0;
+
+        for ( Iterator keyIter = this.poolKeys.values().iterator();
+              keyIter.hasNext() ; )
+        {
+            if ( poolKey.equals( keyIter.next() ) )
+            {
+                ++count;
+            }
+        }
+
+        return count;
+    }
+
+    synchronized int getIdleCount(String poolKey)
+    {
+        return getIdleJvms( poolKey ).size();
+    }
+
+    List getIdleJvms(String poolKey)
+    {
+        List idle = (List) this.idleJvms.get( poolKey );
+
+        if ( idle == null )
+        {
+            idle = new ArrayList();
+            this.idleJvms.put( poolKey,
+                               idle );
+        }
+
+        return idle;
+    }
+
+    // detaches a JVM from the master that used it, and decides whether
+    // it should be reset for another test rather than destroyed
+    synchronized boolean releaseJvm(JvmExecutor executor,
+                                    NodeInfo slave,
+                                    int maxUses,
+                                    int maxIdle)
+    {
+        detachJvm( executor );
+
+        String poolKey = (String) this.jvmKeys.get( executor );
+
+        int used = getUses( executor ) + 1;
+
+        this.uses.put( executor,
+                       new Integer( used ) );
+
+        if ( poolKey == null
+             ||
+             used >= maxUses
+             ||
+             getIdleCount( poolKey ) + getResettingCount( poolKey ) >= maxIdle )
+        {
+            return false;
+        }
+
+        this.resetting.put( slave,
+                            executor );
+
+        return true;
+    }
+
+    // returns a reset JVM to the idle pool for its jdk and options
+    synchronized boolean recycleJvm(NodeInfo slave,
+                                    boolean reusable)
+    {
+        JvmExecutor executor = (JvmExecutor) this.resetting.remove( slave );
+
+        if ( executor == null
+             ||
+             ! reusable
+             ||
+             ! this.threads.containsKey( executor ) )
+        {
+            return false;
+        }
+
+        String poolKey = (String) this.jvmKeys.get( executor );
+
+        executor.setJvmId( 0 );
+        executor.clearOutput();
+
+        this.poolKeys.put( executor,
+                           poolKey );
+
+        getIdleJvms( poolKey ).add( new PooledJvm( executor,
+                                                   slave ) );
+
+        return true;
+    }
+
+    synchronized int getUses(JvmExecutor executor)
+    {
+        Integer used = (Integer) this.uses.get( executor );
+
+        if ( used == null )
+        {
+            return 0;
+        }
+
+        return used.intValue();
+    }
+
+    synchronized int getResettingCount(String poolKey)
+    {
+        int count = 0;
+
+        for ( Iterator executorIter = this.resetting.values().iterator();
+              executorIter.hasNext() ; )
+        {
+            if ( poolKey.equals( this.jvmKeys.get( executorIter.next() ) ) )
+            {
+                ++count;
+            }
+        }
+
+        return count;
+    }
+
+    boolean isPooled(JvmExecutor executor)
+    {
+        return this.poolKeys.containsKey( executor );
+    }
+
+    synchronized void removeJvm(JvmExecutor executor)
+    {
+        if ( this.retiring == executor )
+        {
+            this.retiring = null;
+        }
+
+        this.jvmKeys.remove( executor );
+        this.uses.remove( executor );
+        this.resetting.values().remove( executor );
+        this.slots.remove( executor );
+
+        String poolKey = (String) this.poolKeys.remove( executor );
+
+        if ( poolKey != null )
+        {
+            this.pooledById.values().remove( executor );
+
+            for ( Iterator idleIter = getIdleJvms( poolKey ).iterator();
+                  idleIter.hasNext() ; )
+            {
+                if ( ((PooledJvm)idleIter.next()).getExecutor() == executor )
+                {
+                    idleIter.remove();
+                }
+            }
+
+            this.threads.remove( executor );
+            return;
+        }
+
+        detachJvm( executor );
 
         this.threads.remove( executor );
-        this.masters.remove( executor );
-        this.jvmsById.remove( "" + executor.getJvmId() );
     }
 
-    JvmExecutor[] getJvmExecutors(NodeInfo master)
+    void detachJvm(JvmExecutor executor)
     {
-        return (JvmExecutor[]) ((List)this.jvms.get( master )).toArray( EMPTY_JVMEXECUTOR_ARRAY );
+        NodeInfo master = (NodeInfo) this.masters.remove( executor );
+
+        List jvms = (List) this.jvms.get( master );
+
+        if ( jvms != null )
+        {
+            jvms.remove( executor );
+
+            if ( jvms.isEmpty() )
+            {
+                this.jvms.remove( master );
+            }
+        }
+
+        // ids are only unique per master, so leave a newer owner alone
+        if ( this.jvmsById.get( "" + executor.getJvmId() ) == executor )
+        {
+            this.jvmsById.remove( "" + executor.getJvmId() );
+        }
+    }
+
+    synchronized JvmExecutor[] getJvmExecutors(NodeInfo master)
+    {
+        List jvms = (List) this.jvms.get( master );
+
+        if ( jvms == null )
+        {
+            return EMPTY_JVMEXECUTOR_ARRAY;
+        }
+
+        return (JvmExecutor[]) jvms.toArray( EMPTY_JVMEXECUTOR_ARRAY );
     }
 
 
@@ -101,47 +707,62 @@ class JvmManager
         return (Thread) this.threads.get( executor );
     }
 
-    NodeInfo getMaster(JvmExecutor executor)
+    synchronized NodeInfo getMaster(JvmExecutor executor)
     {
         return (NodeInfo) this.masters.get( executor );
     }
 
-    public synchronized void notifyJvmFinished(JvmExecutor jvm,
-                                               int exitValue)
+    // the node is told before the JVM is forgotten, so it can still
+    // find its master, and without holding our lock, since the node
+    // calls into us while holding its own
+    public void notifyJvmFinished(JvmExecutor jvm,
+                                  int exitValue)
     {
-        removeJvm( jvm );
         this.node.notifyJvmFinished( jvm,
                                      exitValue );
+        this.node.getOutputStreamer().removeJvm( jvm,
+                                                 getMaster( jvm ) );
+        removeJvm( jvm );
+        this.node.startQueuedSlaves();
     }
 
-    public synchronized void notifyJvmInterrupted(JvmExecutor jvm)
+    public void notifyJvmInterrupted(JvmExecutor jvm)
     {
-        removeJvm( jvm );
         this.node.notifyJvmInterrupted( jvm );
+        this.node.getOutputStreamer().removeJvm( jvm,
+                                                 getMaster( jvm ) );
+        removeJvm( jvm );
+        this.node.startQueuedSlaves();
     }
 
-    public synchronized void notifyJvmException(JvmExecutor jvm,
-                                                Exception e)
+    public void notifyJvmException(JvmExecutor jvm,
+                                   Exception e)
     {
-        removeJvm( jvm );
         this.node.notifyJvmException( jvm,
                                       e );
+        this.node.getOutputStreamer().removeJvm( jvm,
+                                                 getMaster( jvm ) );
+        removeJvm( jvm );
+        this.node.startQueuedSlaves();
     }
 
-    Output[] getOutputs(NodeInfo master)
+    void configureOutput(JvmExecutor executor)
     {
-        JvmExecutor[] executors = getJvmExecutors( master );
+        SlaveHostConfiguration config = this.node.getConfiguration();
 
-        Output[] outputs = new Output[ executors.length ];
+        executor.setOutputLimits( config.getOutputBuffer(),
+                                  config.getOutputSpill(),
+                                  getOutputDir() );
 
-        for ( int i = 0 ; i < executors.length ; ++i )
-        {
-            outputs[ i ] = new Output( executors[ i ].getJvmId(),
-                                       executors[ i ].getStdout(),
-                                       executors[ i ].getStderr() );
-        }
+        executor.setOutputEcho( config.getOutputEcho() );
+
+        executor.setOutputListener( this.node.getOutputStreamer() );
+    }
 
-        return outputs;
+    File getOutputDir()
+    {
+        return new File( System.getProperty( "java.io.tmpdir" ),
+                         "sysunit-output" );
     }
 
     synchronized void destroyAll()
@@ -0,0 +1,24 @@
+package org.sysunit.testmesh.slavehost;
+
+public class JvmResetCommand
+    extends SlaveHostCommand
+{
+    private boolean reusable;
+
+    public JvmResetCommand(boolean reusable)
+    {
+        this.reusable = reusable;
+    }
+
+    public boolean isReusable()
+    {
+        return this.reusable;
+    }
+
+    public void execute(SlaveHostNode node)
+        throws Exception
+    {
+        node.jvmReset( isReusable(),
+                       getOrigin() );
+    }
+}
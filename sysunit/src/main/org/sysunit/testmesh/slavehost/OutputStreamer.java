@@ -0,0 +1,342 @@
+package org.sysunit.testmesh.slavehost;
+
+import org.sysunit.mesh.NodeInfo;
+import org.sysunit.util.JvmExecutor;
+import org.sysunit.util.OutputBuffer;
+import org.sysunit.util.OutputListener;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.Iterator;
+
+// sends slave JVM output on to the JVM's master as it arrives, as
+// numbered chunks with at most WINDOW unacknowledged at a time; while
+// the master is behind, output waits in the JVM's OutputBuffer and
+// its spill file, and any dropped from there is skipped with a marker
+class OutputStreamer
+    extends Thread
+    implements OutputListener
+{
+    static final int CHUNK_SIZE  = 16 * 1024;
+    static final int WINDOW      = 4;
+    static final long ACK_TIMEOUT = 30000;
+
+    private static final PendingOutput[] EMPTY_PENDINGOUTPUT_ARRAY = new PendingOutput[0];
+
+    private SlaveHostNode node;
+
+    private List pending;
+
+    private LinkedList inFlight;
+
+    private int sending;
+
+    private boolean stopped;
+
+    OutputStreamer(SlaveHostNode node)
+    {
+        super( "OutputStreamer" );
+        setDaemon( true );
+
+        this.node     = node;
+        this.pending  = new ArrayList();
+        this.inFlight = new LinkedList();
+    }
+
+    public void outputWritten(JvmExecutor jvm,
+                              int stream,
+                              byte[] buf,
+                              int off,
+                              int len)
+    {
+        synchronized ( this )
+        {
+            if ( this.stopped )
+            {
+                return;
+            }
+
+            getPendingOutput( jvm,
+                              stream );
+
+            notifyAll();
+        }
+    }
+
+    PendingOutput getPendingOutput(JvmExecutor jvm,
+                                   int stream)
+    {
+        for ( Iterator outputIter = this.pending.iterator();
+              outputIter.hasNext() ; )
+        {
+            PendingOutput output = (PendingOutput) outputIter.next();
+
+            if ( output.getJvm() == jvm
+                 &&
+                 output.getStream() == stream )
+            {
+                return output;
+            }
+        }
+
+        PendingOutput output = new PendingOutput( jvm,
+                                                  stream );
+
+        this.pending.add( output );
+
+        return output;
+    }
+
+    // forgets a JVM that has exited, once its output is sent to the
+    // master it was running for, if any, and its buffers disposed of
+    synchronized void removeJvm(JvmExecutor jvm,
+                                NodeInfo master)
+    {
+        int[] streams = new int[] { STDOUT, STDERR };
+
+        for ( int i = 0 ; i < streams.length ; ++i )
+        {
+            OutputBuffer buffer = jvm.getOutputBuffer( streams[ i ] );
+
+            if ( buffer == null )
+            {
+                continue;
+            }
+
+            // nothing will be sent once stopped
+            if ( this.stopped
+                 ||
+                 ! isAlive() )
+            {
+                buffer.dispose();
+                continue;
+            }
+
+            PendingOutput output = getPendingOutput( jvm,
+                                                     streams[ i ] );
+
+            if ( master != null )
+            {
+                output.setMaster( master );
+            }
+
+            output.setRemoved( true );
+        }
+
+        notifyAll();
+    }
+
+    public void run()
+    {
+        try
+        {
+            while ( true )
+            {
+                Chunk chunk = nextChunk();
+
+                send( chunk );
+            }
+        }
+        catch (InterruptedException e)
+        {
+            // stopped
+        }
+        finally
+        {
+            stopped();
+        }
+    }
+
+    synchronized void stopped()
+    {
+        this.stopped = true;
+
+        for ( Iterator outputIter = this.pending.iterator();
+              outputIter.hasNext() ; )
+        {
+            PendingOutput output = (PendingOutput) outputIter.next();
+
+            output.getBuffer().dispose();
+        }
+
+        this.pending.clear();
+
+        notifyAll();
+    }
+
+    synchronized Chunk nextChunk()
+        throws InterruptedException
+    {
+        while ( true )
+        {
+            for ( Iterator outputIter = this.pending.iterator();
+                  outputIter.hasNext() ; )
+            {
+                PendingOutput output = (PendingOutput) outputIter.next();
+
+                if ( output.isEmpty() )
+                {
+                    if ( output.isRemoved() )
+                    {
+                        output.getBuffer().dispose();
+                        outputIter.remove();
+                    }
+
+                    continue;
+                }
+
+                NodeInfo master = getMaster( output );
+
+                if ( master == null )
+                {
+                    // an idle pooled or recycling JVM; nobody to send it to
+                    output.discard();
+                    continue;
+                }
+
+                ++this.sending;
+
+                return new Chunk( master,
+                                  output.take( CHUNK_SIZE ) );
+            }
+
+            notifyAll();
+            wait();
+        }
+    }
+
+    // a JVM that has exited still sends its last output to the
+    // master it was running for
+    NodeInfo getMaster(PendingOutput output)
+    {
+        NodeInfo master = this.node.getJvmManager().getMaster( output.getJvm() );
+
+        if ( master != null )
+        {
+            output.setMaster( master );
+        }
+        else if ( output.isRemoved() )
+        {
+            master = output.getMaster();
+        }
+
+        return master;
+    }
+
+    void send(Chunk chunk)
+        throws InterruptedException
+    {
+        try
+        {
+            int uid = this.node.executeOn( chunk.getMaster(),
+                                           chunk.getCommand() );
+
+            synchronized ( this )
+            {
+                this.inFlight.add( new Integer( uid ) );
+            }
+        }
+        catch (InterruptedException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            // the master has gone, its output goes nowhere
+        }
+        finally
+        {
+            synchronized ( this )
+            {
+                --this.sending;
+                notifyAll();
+            }
+        }
+
+        while ( getInFlightCount() >= WINDOW )
+        {
+            awaitOldest();
+        }
+    }
+
+    synchronized int getInFlightCount()
+    {
+        return this.inFlight.size();
+    }
+
+    void awaitOldest()
+        throws InterruptedException
+    {
+        Integer uid = null;
+
+        synchronized ( this )
+        {
+            if ( this.inFlight.isEmpty() )
+            {
+                return;
+            }
+
+            uid = (Integer) this.inFlight.getFirst();
+        }
+
+        // a master that stops acknowledging is given up on rather
+        // than holding up every other master's output
+        this.node.waitForCommand( uid.intValue(),
+                                  ACK_TIMEOUT );
+
+        synchronized ( this )
+        {
+            this.inFlight.remove( uid );
+            notifyAll();
+        }
+    }
+
+    // returns once everything received so far is acknowledged
+    void flush()
+        throws InterruptedException
+    {
+        synchronized ( this )
+        {
+            PendingOutput[] outputs = (PendingOutput[]) this.pending.toArray( EMPTY_PENDINGOUTPUT_ARRAY );
+
+            long[] received = new long[ outputs.length ];
+
+            for ( int i = 0 ; i < outputs.length ; ++i )
+            {
+                received[ i ] = outputs[ i ].getReceived();
+            }
+
+            while ( ! this.stopped
+                    &&
+                    ( this.sending > 0
+                      ||
+                      isBehind( outputs,
+                                received ) ) )
+            {
+                wait( 100 );
+            }
+        }
+
+        while ( getInFlightCount() > 0 )
+        {
+            awaitOldest();
+        }
+    }
+
+    boolean isBehind(PendingOutput[] outputs,
+                     long[] received)
+    {
+        for ( int i = 0 ; i < outputs.length ; ++i )
+        {
+            if ( outputs[ i ].getTaken() < received[ i ]
+                 &&
+                 getMaster( outputs[ i ] ) != null )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
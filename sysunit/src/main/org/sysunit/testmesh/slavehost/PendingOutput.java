@@ -0,0 +1,173 @@
+package org.sysunit.testmesh.slavehost;
+
+import org.sysunit.mesh.NodeInfo;
+import org.sysunit.testmesh.master.OutputChunkCommand;
+import org.sysunit.util.JvmExecutor;
+import org.sysunit.util.OutputBuffer;
+
+class PendingOutput
+{
+    private JvmExecutor jvm;
+    private int stream;
+
+    // the next byte of the stream to send
+    private long position;
+
+    private int jvmId;
+    private long sequence;
+
+    private boolean removed;
+
+    private NodeInfo master;
+
+    PendingOutput(JvmExecutor jvm,
+                  int stream)
+    {
+        this.jvm    = jvm;
+        this.stream = stream;
+    }
+
+    JvmExecutor getJvm()
+    {
+        return this.jvm;
+    }
+
+    int getStream()
+    {
+        return this.stream;
+    }
+
+    OutputBuffer getBuffer()
+    {
+        return this.jvm.getOutputBuffer( this.stream );
+    }
+
+    void setMaster(NodeInfo master)
+    {
+        this.master = master;
+    }
+
+    NodeInfo getMaster()
+    {
+        return this.master;
+    }
+
+    void setRemoved(boolean removed)
+    {
+        this.removed = removed;
+    }
+
+    boolean isRemoved()
+    {
+        return this.removed;
+    }
+
+    // bytes written by the JVM so far
+    long getReceived()
+    {
+        return getBuffer().getWritten();
+    }
+
+    // bytes sent on, discarded or skipped so far
+    long getTaken()
+    {
+        return this.position;
+    }
+
+    boolean isEmpty()
+    {
+        return this.position >= getReceived();
+    }
+
+    void discard()
+    {
+        this.position = getReceived();
+
+        getBuffer().release( this.position );
+    }
+
+    // the next chunk, numbered from 0 for each jvmId the JVM serves
+    OutputChunkCommand take(int max)
+    {
+        if ( this.jvm.getJvmId() != this.jvmId )
+        {
+            this.jvmId    = this.jvm.getJvmId();
+            this.sequence = 0;
+        }
+
+        OutputBuffer buffer = getBuffer();
+
+        byte[] data = null;
+
+        long skipped = 0;
+
+        synchronized ( buffer )
+        {
+            int read = 0;
+
+            // a spill file that cannot be read is dropped, and the
+            // read retried from what is still in memory
+            do
+            {
+                long available = buffer.getAvailable( this.position );
+
+                skipped += available - this.position;
+
+                data = new byte[ (int) Math.min( max,
+                                                 buffer.getWritten() - available ) ];
+
+                read = buffer.read( available,
+                                    data,
+                                    0,
+                                    data.length );
+
+                this.position = available + read;
+            }
+            while ( read == 0
+                    &&
+                    data.length > 0 );
+
+            buffer.release( this.position );
+
+            // a read from the spill file stops at its end
+            if ( read < data.length )
+            {
+                byte[] trimmed = new byte[ read ];
+
+                System.arraycopy( data,
+                                  0,
+                                  trimmed,
+                                  0,
+                                  read );
+
+                data = trimmed;
+            }
+        }
+
+        if ( skipped > 0 )
+        {
+            byte[] marker = ( "\n[... " + skipped + " bytes not streamed ...]\n" ).getBytes();
+
+            byte[] marked = new byte[ marker.length + data.length ];
+
+            System.arraycopy( marker,
+                              0,
+                              marked,
+                              0,
+                              marker.length );
+
+            System.arraycopy( data,
+                              0,
+                              marked,
+                              marker.length,
+                              data.length );
+
+            data = marked;
+        }
+
+        return new OutputChunkCommand( this.jvmId,
+                                       this.stream,
+                                       this.sequence++,
+                                       data );
+    }
+}
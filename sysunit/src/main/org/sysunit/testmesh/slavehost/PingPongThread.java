@@ -90,12 +90,18 @@ public class PingPongThread
             DatagramPacket ping = new DatagramPacket( buf,
                                                       buf.length );
             
+            // a stopped slave host stops answering pings
           LOOP:
             while ( true )
             {
                 try
                 {
                     pingSocket.receive( ping );
+
+                    if ( isInterrupted() )
+                    {
+                        break LOOP;
+                    }
                     
                     String message = new String( ping.getData(),
                                                  0,
@@ -118,7 +124,9 @@ public class PingPongThread
                             try
                             {
                                 getSlaveHostNode().executeOn( master,
-                                                              new AddSlaveHostCommand( getSlaveHostNode().getPhysicalMachineInfo() ) );
+                                                              new AddSlaveHostCommand( getSlaveHostNode().getPhysicalMachineInfo(),
+                                                                                       getSlaveHostNode().getRefreshInterval() ) );
+                                getSlaveHostNode().addMaster( master );
                             }
                             catch (Exception e)
                             {
@@ -133,6 +141,11 @@ public class PingPongThread
                 }
                 catch (SocketTimeoutException e)
                 { 
+                    if ( isInterrupted() )
+                    {
+                        break LOOP;
+                    }
+
                     continue LOOP;
                 }
                 catch (IOException e)
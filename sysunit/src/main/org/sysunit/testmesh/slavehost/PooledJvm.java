@@ -0,0 +1,27 @@
+package org.sysunit.testmesh.slavehost;
+
+import org.sysunit.mesh.NodeInfo;
+import org.sysunit.util.JvmExecutor;
+
+class PooledJvm
+{
+    private JvmExecutor executor;
+    private NodeInfo slave;
+
+    PooledJvm(JvmExecutor executor,
+              NodeInfo slave)
+    {
+        this.executor = executor;
+        this.slave    = slave;
+    }
+
+    JvmExecutor getExecutor()
+    {
+        return this.executor;
+    }
+
+    NodeInfo getSlave()
+    {
+        return this.slave;
+    }
+}
@@ -0,0 +1,24 @@
+package org.sysunit.testmesh.slavehost;
+
+public class PooledJvmReadyCommand
+    extends SlaveHostCommand
+{
+    private int poolId;
+
+    public PooledJvmReadyCommand(int poolId)
+    {
+        this.poolId = poolId;
+    }
+
+    public int getPoolId()
+    {
+        return this.poolId;
+    }
+
+    public void execute(SlaveHostNode node)
+        throws Exception
+    {
+        node.pooledJvmReady( getPoolId(),
+                             getOrigin() );
+    }
+}
@@ -0,0 +1,42 @@
+package org.sysunit.testmesh.slavehost;
+
+import org.sysunit.mesh.NodeInfo;
+
+class QueuedStart
+{
+    private int jvmId;
+    private String jdk;
+    private String[] jvmOptions;
+    private NodeInfo master;
+
+    QueuedStart(int jvmId,
+                String jdk,
+                String[] jvmOptions,
+                NodeInfo master)
+    {
+        this.jvmId      = jvmId;
+        this.jdk        = jdk;
+        this.jvmOptions = jvmOptions;
+        this.master     = master;
+    }
+
+    int getJvmId()
+    {
+        return this.jvmId;
+    }
+
+    String getJdk()
+    {
+        return this.jdk;
+    }
+
+    String[] getJvmOptions()
+    {
+        return this.jvmOptions;
+    }
+
+    NodeInfo getMaster()
+    {
+        return this.master;
+    }
+}
@@ -0,0 +1,32 @@
+package org.sysunit.testmesh.slavehost;
+
+class RefreshThread
+    extends Thread
+{
+    private SlaveHostNode slaveHostNode;
+
+    RefreshThread(SlaveHostNode slaveHostNode)
+    {
+        super( "RefreshThread" );
+        this.slaveHostNode = slaveHostNode;
+        setDaemon( true );
+    }
+
+    public void run()
+    {
+        while ( true )
+        {
+            try
+            {
+                Thread.sleep( this.slaveHostNode.getRefreshInterval() );
+            }
+            catch (InterruptedException e)
+            {
+                return;
+            }
+
+            this.slaveHostNode.refreshRegistry();
+            this.slaveHostNode.refreshMasters();
+        }
+    }
+}
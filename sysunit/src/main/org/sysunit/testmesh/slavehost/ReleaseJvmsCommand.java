@@ -0,0 +1,43 @@
+package org.sysunit.testmesh.slavehost;
+
+import java.net.InetAddress;
+
+public class ReleaseJvmsCommand
+    extends SlaveHostCommand
+{
+    private int[] jvmIds;
+    private InetAddress[] slaveAddresses;
+    private int[] slavePorts;
+
+    public ReleaseJvmsCommand(int[] jvmIds,
+                              InetAddress[] slaveAddresses,
+                              int[] slavePorts)
+    {
+        this.jvmIds         = jvmIds;
+        this.slaveAddresses = slaveAddresses;
+        this.slavePorts     = slavePorts;
+    }
+
+    public int[] getJvmIds()
+    {
+        return this.jvmIds;
+    }
+
+    public InetAddress[] getSlaveAddresses()
+    {
+        return this.slaveAddresses;
+    }
+
+    public int[] getSlavePorts()
+    {
+        return this.slavePorts;
+    }
+
+    public void execute(SlaveHostNode node)
+        throws Exception
+    {
+        node.releaseJvms( getJvmIds(),
+                          getSlaveAddresses(),
+                          getSlavePorts() );
+    }
+}
@@ -0,0 +1,224 @@
+package org.sysunit.testmesh.slavehost;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.HashSet;
+
+// binds a slave JVM to the cpus and memory of a slot, through a
+// cgroup v2 group per slot where one can be created, or taskset
+class ResourceBinder
+{
+    private static final String[] NO_PREFIX = new String[0];
+
+    private static final String[] CONTROLLERS = new String[] {
+        "+cpuset",
+        "+memory",
+    };
+
+    private File cgroupRoot;
+    private File taskset;
+
+    private Map cgroups;
+    private Set failed;
+
+    ResourceBinder()
+    {
+        this( isLinux()
+              ? new File( "/sys/fs/cgroup" )
+              : null,
+              isLinux()
+              ? findTaskset()
+              : null );
+    }
+
+    ResourceBinder(File cgroupRoot,
+                   File taskset)
+    {
+        this.cgroupRoot = cgroupRoot;
+        this.taskset    = taskset;
+        this.cgroups    = new HashMap();
+        this.failed     = new HashSet();
+    }
+
+    static boolean isLinux()
+    {
+        return System.getProperty( "os.name" ).toLowerCase().startsWith( "linux" );
+    }
+
+    static File findTaskset()
+    {
+        String[] paths = new String[] {
+            "/usr/bin/taskset",
+            "/bin/taskset",
+        };
+
+        for ( int i = 0 ; i < paths.length ; ++i )
+        {
+            File taskset = new File( paths[ i ] );
+
+            if ( taskset.exists() )
+            {
+                return taskset;
+            }
+        }
+
+        return null;
+    }
+
+    boolean isCgroupAvailable()
+    {
+        return ( this.cgroupRoot != null
+                 &&
+                 new File( this.cgroupRoot,
+                           "cgroup.controllers" ).exists() );
+    }
+
+    // the group for the slot, created on first use; null if it
+    // cannot be created, in which case taskset is used instead
+    synchronized File getCgroup(ResourceSlot slot)
+    {
+        if ( ! isCgroupAvailable()
+             ||
+             this.failed.contains( slot.getName() ) )
+        {
+            return null;
+        }
+
+        File cgroup = (File) this.cgroups.get( slot.getName() );
+
+        if ( cgroup != null )
+        {
+            return cgroup;
+        }
+
+        try
+        {
+            File parent = new File( this.cgroupRoot,
+                                    "sysunit" );
+
+            parent.mkdir();
+
+            enableControllers( this.cgroupRoot );
+            enableControllers( parent );
+
+            cgroup = new File( parent,
+                               slot.getName() );
+
+            cgroup.mkdir();
+
+            if ( ! cgroup.isDirectory() )
+            {
+                throw new IOException( "unable to create " + cgroup );
+            }
+
+            long memory = slot.getMemoryBytes();
+
+            write( new File( cgroup,
+                             "cpuset.cpus" ),
+                   slot.getCpus() );
+
+            write( new File( cgroup,
+                             "memory.max" ),
+                   ( memory < 0 )
+                   ? "max"
+                   : ( "" + memory ) );
+
+            this.cgroups.put( slot.getName(),
+                              cgroup );
+
+            return cgroup;
+        }
+        catch (IOException e)
+        {
+            System.err.println( "unable to create cgroup for " + slot + ", falling back to taskset: " + e.getMessage() );
+            this.failed.add( slot.getName() );
+            return null;
+        }
+    }
+
+    String[] getCommandPrefix(ResourceSlot slot)
+    {
+        File cgroup = getCgroup( slot );
+
+        if ( cgroup != null )
+        {
+            // the shell joins the group, then becomes the JVM
+            return new String[] { "sh",
+                                  "-c",
+                                  "echo $$ > \"$0\" && exec \"$@\"",
+                                  new File( cgroup,
+                                            "cgroup.procs" ).getPath() };
+        }
+
+        if ( this.taskset != null )
+        {
+            return new String[] { this.taskset.getPath(),
+                                  "-c",
+                                  slot.getCpus() };
+        }
+
+        return NO_PREFIX;
+    }
+
+    String getDescription(ResourceSlot slot)
+    {
+        StringBuffer desc = new StringBuffer( "slot " + slot.getName() + ":" );
+
+        if ( getCgroup( slot ) != null )
+        {
+            desc.append( " cpus " + slot.getCpus() );
+            desc.append( ", memory " + ( ( slot.getMemory() == null )
+                                         ? "unlimited"
+                                         : slot.getMemory() ) );
+            desc.append( ", via cgroup" );
+        }
+        else if ( this.taskset != null )
+        {
+            desc.append( " cpus " + slot.getCpus() );
+
+            if ( slot.getMemory() != null )
+            {
+                desc.append( ", memory " + slot.getMemory() + " not enforced" );
+            }
+
+            desc.append( ", via taskset" );
+        }
+        else
+        {
+            desc.append( " not enforced" );
+        }
+
+        return desc.toString();
+    }
+
+    void enableControllers(File cgroup)
+        throws IOException
+    {
+        for ( int i = 0 ; i < CONTROLLERS.length ; ++i )
+        {
+            write( new File( cgroup,
+                             "cgroup.subtree_control" ),
+                   CONTROLLERS[ i ] );
+        }
+    }
+
+    void write(File file,
+               String value)
+        throws IOException
+    {
+        FileWriter out = new FileWriter( file );
+
+        try
+        {
+            out.write( value );
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.sysunit.testmesh.slavehost;
+
+public class ResourceSlot
+{
+    private String name;
+    private String cpus;
+    private String memory;
+
+    public ResourceSlot(String name,
+                        String cpus,
+                        String memory)
+    {
+        this.name   = name;
+        this.cpus   = cpus;
+        this.memory = memory;
+    }
+
+    public String getName()
+    {
+        return this.name;
+    }
+
+    // cpu list in taskset/cpuset form, such as 0-1,4
+    public String getCpus()
+    {
+        return this.cpus;
+    }
+
+    // such as 512m, or null when unlimited
+    public String getMemory()
+    {
+        return this.memory;
+    }
+
+    public long getMemoryBytes()
+    {
+        return parseMemory( getMemory() );
+    }
+
+    public static boolean isValidCpus(String cpus)
+    {
+        if ( cpus.length() == 0 )
+        {
+            return false;
+        }
+
+        for ( int i = 0 ; i < cpus.length() ; ++i )
+        {
+            char c = cpus.charAt( i );
+
+            if ( ! Character.isDigit( c )
+                 &&
+                 c != ','
+                 &&
+                 c != '-' )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // bytes, or -1 if unlimited or not a size
+    public static long parseMemory(String memory)
+    {
+        if ( memory == null
+             ||
+             memory.length() == 0 )
+        {
+            return -1;
+        }
+
+        long multiplier = 1;
+
+        char unit = Character.toLowerCase( memory.charAt( memory.length() - 1 ) );
+
+        if ( unit == 'k' )
+        {
+            multiplier = 1024;
+        }
+        else if ( unit == 'm' )
+        {
+            multiplier = 1024 * 1024;
+        }
+        else if ( unit == 'g' )
+        {
+            multiplier = 1024 * 1024 * 1024;
+        }
+
+        String digits = ( ( multiplier == 1 )
+                          ? memory
+                          : memory.substring( 0,
+                                              memory.length() - 1 ) );
+
+        try
+        {
+            long value = Long.parseLong( digits );
+
+            if ( value <= 0 )
+            {
+                return -1;
+            }
+
+            return value * multiplier;
+        }
+        catch (NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+
+    public String toString()
+    {
+        return "[ResourceSlot: name=" + this.name + "; cpus=" + this.cpus + "; memory=" + this.memory + "]";
+    }
+}
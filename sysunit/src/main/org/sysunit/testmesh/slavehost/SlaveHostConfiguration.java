@@ -1,6 +1,7 @@
 package org.sysunit.testmesh.slavehost;
 
 import org.sysunit.model.PhysicalMachineInfo;
+import org.sysunit.model.AffinityInfo;
 
 import java.io.File;
 import java.io.FileReader;
@@ -13,19 +14,56 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.StringTokenizer;
 
 
 public class SlaveHostConfiguration
 {
     private static final String[] EMPTY_STRING_ARRAY = new String[0];
+    private static final ResourceSlot[] EMPTY_RESOURCESLOT_ARRAY = new ResourceSlot[0];
 
     private List tags;
     private Map jdks;
+    private Map poolSizes;
+
+    private int recycleUses;
+    private int recycleIdle;
+
+    private List slots;
+
+    private int maxJvms;
+    private int maxQueued;
+
+    private int outputBuffer;
+    private long outputSpill;
+    private boolean outputEcho;
+
+    private Map locality;
+
+    private String registry;
+    private long heartbeatInterval;
 
     public SlaveHostConfiguration()
     {
-        this.tags = new ArrayList();
-        this.jdks = new HashMap();
+        this.tags      = new ArrayList();
+        this.jdks      = new HashMap();
+        this.poolSizes = new HashMap();
+
+        this.recycleUses = 1;
+        this.recycleIdle = 4;
+
+        this.slots = new ArrayList();
+
+        this.maxJvms   = -1;
+        this.maxQueued = 0;
+
+        this.outputBuffer = 64 * 1024;
+        this.outputSpill  = 8 * 1024 * 1024;
+        this.outputEcho   = true;
+
+        this.locality = new HashMap();
+
+        this.heartbeatInterval = 2000;
     }
 
     public void addTag(String tag)
@@ -55,10 +93,176 @@ public class SlaveHostConfiguration
         return (File) this.jdks.get( jdk );
     }
 
+    public void setPoolSize(String jdk,
+                            int size)
+    {
+        this.poolSizes.put( jdk,
+                            new Integer( size ) );
+    }
+
+    public int getPoolSize(String jdk)
+    {
+        Integer size = (Integer) this.poolSizes.get( jdk );
+
+        if ( size == null )
+        {
+            return 0;
+        }
+
+        return size.intValue();
+    }
+
+    public String[] getPooledJdks()
+    {
+        return (String[]) this.poolSizes.keySet().toArray( EMPTY_STRING_ARRAY );
+    }
+
+    public void setRecycleUses(int recycleUses)
+    {
+        this.recycleUses = recycleUses;
+    }
+
+    public int getRecycleUses()
+    {
+        return this.recycleUses;
+    }
+
+    public void setRecycleIdle(int recycleIdle)
+    {
+        this.recycleIdle = recycleIdle;
+    }
+
+    public int getRecycleIdle()
+    {
+        return this.recycleIdle;
+    }
+
+    public void addSlot(ResourceSlot slot)
+    {
+        this.slots.add( slot );
+    }
+
+    public ResourceSlot[] getSlots()
+    {
+        return (ResourceSlot[]) this.slots.toArray( EMPTY_RESOURCESLOT_ARRAY );
+    }
+
+    // -1 if unlimited
+    public void setMaxJvms(int maxJvms)
+    {
+        this.maxJvms = maxJvms;
+    }
+
+    public int getMaxJvms()
+    {
+        return this.maxJvms;
+    }
+
+    public void setMaxQueued(int maxQueued)
+    {
+        this.maxQueued = maxQueued;
+    }
+
+    public int getMaxQueued()
+    {
+        return this.maxQueued;
+    }
+
+    // bytes of each slave JVM stream held in memory
+    public void setOutputBuffer(int outputBuffer)
+    {
+        this.outputBuffer = outputBuffer;
+    }
+
+    public int getOutputBuffer()
+    {
+        return this.outputBuffer;
+    }
+
+    // bytes of each stream spilled to disk ahead of the buffer
+    public void setOutputSpill(long outputSpill)
+    {
+        this.outputSpill = outputSpill;
+    }
+
+    public long getOutputSpill()
+    {
+        return this.outputSpill;
+    }
+
+    public void setOutputEcho(boolean outputEcho)
+    {
+        this.outputEcho = outputEcho;
+    }
+
+    public boolean getOutputEcho()
+    {
+        return this.outputEcho;
+    }
+
+    // the host's label at a level of the network, such as its rack,
+    // for JVMs kept together or apart at that level
+    public void setLocality(String level,
+                            String label)
+    {
+        this.locality.put( level,
+                           label );
+    }
+
+    public String getLocality(String level)
+    {
+        return (String) this.locality.get( level );
+    }
+
+    public String[] getLocalityLevels()
+    {
+        return (String[]) this.locality.keySet().toArray( EMPTY_STRING_ARRAY );
+    }
+
+    // <host>[:<port>] of the registry to register with, or null
+    public void setRegistry(String registry)
+    {
+        this.registry = registry;
+    }
+
+    public String getRegistry()
+    {
+        return this.registry;
+    }
+
+    // millis between the capacity sent to the registry and to masters
+    public void setHeartbeatInterval(long heartbeatInterval)
+    {
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    public long getHeartbeatInterval()
+    {
+        return this.heartbeatInterval;
+    }
+
     public PhysicalMachineInfo getPhysicalMachineInfo()
     {
-        return new PhysicalMachineInfo( getTags(),
-                                        getJdks() );
+        return addLocality( new PhysicalMachineInfo( getTags(),
+                                                     getJdks(),
+                                                     -1,
+                                                     -1,
+                                                     -1,
+                                                     getMaxJvms(),
+                                                     0 ) );
+    }
+
+    PhysicalMachineInfo addLocality(PhysicalMachineInfo physicalMachineInfo)
+    {
+        String[] levels = getLocalityLevels();
+
+        for ( int i = 0 ; i < levels.length ; ++i )
+        {
+            physicalMachineInfo.setLocality( levels[ i ],
+                                             getLocality( levels[ i ] ) );
+        }
+
+        return physicalMachineInfo;
     }
 
     public static SlaveHostConfiguration build(InputStream stream)
@@ -93,6 +297,13 @@ public class SlaveHostConfiguration
 
         boolean processingTags = false;
         boolean processingJdks = false;
+        boolean processingPool = false;
+        boolean processingRecycle = false;
+        boolean processingSlots = false;
+        boolean processingCapacity = false;
+        boolean processingOutput = false;
+        boolean processingRegistry = false;
+        boolean processingLocality = false;
 
         SlaveHostConfiguration config = new SlaveHostConfiguration();
 
@@ -117,6 +328,13 @@ public class SlaveHostConfiguration
             {
                 processingTags = true;
                 processingJdks = false;
+                processingPool = false;
+                processingRecycle = false;
+                processingSlots = false;
+                processingCapacity = false;
+                processingOutput = false;
+                processingRegistry = false;
+                processingLocality = false;
                 continue;
             }
 
@@ -124,6 +342,111 @@ public class SlaveHostConfiguration
             {
                 processingTags = false;
                 processingJdks = true;
+                processingPool = false;
+                processingRecycle = false;
+                processingSlots = false;
+                processingCapacity = false;
+                processingOutput = false;
+                processingRegistry = false;
+                processingLocality = false;
+                continue;
+            }
+
+            if ( line.equals( "[pool]" ) )
+            {
+                processingTags = false;
+                processingJdks = false;
+                processingPool = true;
+                processingRecycle = false;
+                processingSlots = false;
+                processingCapacity = false;
+                processingOutput = false;
+                processingRegistry = false;
+                processingLocality = false;
+                continue;
+            }
+
+            if ( line.equals( "[recycle]" ) )
+            {
+                processingTags = false;
+                processingJdks = false;
+                processingPool = false;
+                processingRecycle = true;
+                processingSlots = false;
+                processingCapacity = false;
+                processingOutput = false;
+                processingRegistry = false;
+                processingLocality = false;
+                continue;
+            }
+
+            if ( line.equals( "[slots]" ) )
+            {
+                processingTags = false;
+                processingJdks = false;
+                processingPool = false;
+                processingRecycle = false;
+                processingSlots = true;
+                processingCapacity = false;
+                processingOutput = false;
+                processingRegistry = false;
+                processingLocality = false;
+                continue;
+            }
+
+            if ( line.equals( "[capacity]" ) )
+            {
+                processingTags = false;
+                processingJdks = false;
+                processingPool = false;
+                processingRecycle = false;
+                processingSlots = false;
+                processingCapacity = true;
+                processingOutput = false;
+                processingRegistry = false;
+                processingLocality = false;
+                continue;
+            }
+
+            if ( line.equals( "[output]" ) )
+            {
+                processingTags = false;
+                processingJdks = false;
+                processingPool = false;
+                processingRecycle = false;
+                processingSlots = false;
+                processingCapacity = false;
+                processingOutput = true;
+                processingRegistry = false;
+                processingLocality = false;
+                continue;
+            }
+
+            if ( line.equals( "[registry]" ) )
+            {
+                processingTags = false;
+                processingJdks = false;
+                processingPool = false;
+                processingRecycle = false;
+                processingSlots = false;
+                processingCapacity = false;
+                processingOutput = false;
+                processingRegistry = true;
+                processingLocality = false;
+                continue;
+            }
+
+            if ( line.equals( "[locality]" ) )
+            {
+                processingTags = false;
+                processingJdks = false;
+                processingPool = false;
+                processingRecycle = false;
+                processingSlots = false;
+                processingCapacity = false;
+                processingOutput = false;
+                processingRegistry = false;
+                processingLocality = true;
                 continue;
             }
 
@@ -148,6 +471,278 @@ public class SlaveHostConfiguration
                 config.addJdk( jdk,
                                javaHome );
             }
+            else if ( processingPool )
+            {
+                int equalLoc = line.indexOf( "=" );
+
+                if ( equalLoc < 0 )
+                {
+                    throw new SlaveHostConfigurationException( line );
+                }
+
+                String jdk = line.substring( 0,
+                                             equalLoc ).trim();
+
+                try
+                {
+                    int size = Integer.parseInt( line.substring( equalLoc + 1 ).trim() );
+
+                    if ( size < 0 )
+                    {
+                        throw new SlaveHostConfigurationException( line );
+                    }
+
+                    config.setPoolSize( jdk,
+                                        size );
+                }
+                catch (NumberFormatException e)
+                {
+                    throw new SlaveHostConfigurationException( line );
+                }
+            }
+            else if ( processingRecycle )
+            {
+                int equalLoc = line.indexOf( "=" );
+
+                if ( equalLoc < 0 )
+                {
+                    throw new SlaveHostConfigurationException( line );
+                }
+
+                String name = line.substring( 0,
+                                              equalLoc ).trim();
+
+                int value = 0;
+
+                try
+                {
+                    value = Integer.parseInt( line.substring( equalLoc + 1 ).trim() );
+                }
+                catch (NumberFormatException e)
+                {
+                    throw new SlaveHostConfigurationException( line );
+                }
+
+                if ( name.equals( "uses" )
+                     &&
+                     value >= 1 )
+                {
+                    config.setRecycleUses( value );
+                }
+                else if ( name.equals( "idle" )
+                          &&
+                          value >= 0 )
+                {
+                    config.setRecycleIdle( value );
+                }
+                else
+                {
+                    throw new SlaveHostConfigurationException( line );
+                }
+            }
+            else if ( processingSlots )
+            {
+                int equalLoc = line.indexOf( "=" );
+
+                if ( equalLoc < 0 )
+                {
+                    throw new SlaveHostConfigurationException( line );
+                }
+
+                String name = line.substring( 0,
+                                              equalLoc ).trim();
+
+                StringTokenizer tokens = new StringTokenizer( line.substring( equalLoc + 1 ) );
+
+                if ( name.equals( "" )
+                     ||
+                     name.indexOf( "/" ) >= 0
+                     ||
+                     tokens.countTokens() < 1
+                     ||
+                     tokens.countTokens() > 2 )
+                {
+                    throw new SlaveHostConfigurationException( line );
+                }
+
+                String cpus   = tokens.nextToken();
+                String memory = null;
+
+                if ( tokens.hasMoreTokens() )
+                {
+                    memory = tokens.nextToken();
+                }
+
+                if ( ! ResourceSlot.isValidCpus( cpus )
+                     ||
+                     ( memory != null
+                       &&
+                       ResourceSlot.parseMemory( memory ) < 0 ) )
+                {
+                    throw new SlaveHostConfigurationException( line );
+                }
+
+                config.addSlot( new ResourceSlot( name,
+                                                  cpus,
+                                                  memory ) );
+            }
+            else if ( processingCapacity )
+            {
+                int equalLoc = line.indexOf( "=" );
+
+                if ( equalLoc < 0 )
+                {
+                    throw new SlaveHostConfigurationException( line );
+                }
+
+                String name = line.substring( 0,
+                                              equalLoc ).trim();
+
+                int value = 0;
+
+                try
+                {
+                    value = Integer.parseInt( line.substring( equalLoc + 1 ).trim() );
+                }
+                catch (NumberFormatException e)
+                {
+                    throw new SlaveHostConfigurationException( line );
+                }
+
+                if ( name.equals( "jvms" )
+                     &&
+                     value >= 1 )
+                {
+                    config.setMaxJvms( value );
+                }
+                else if ( name.equals( "queue" )
+                          &&
+                          value >= 0 )
+                {
+                    config.setMaxQueued( value );
+                }
+                else
+                {
+                    throw new SlaveHostConfigurationException( line );
+                }
+            }
+            else if ( processingOutput )
+            {
+                int equalLoc = line.indexOf( "=" );
+
+                if ( equalLoc < 0 )
+                {
+                    throw new SlaveHostConfigurationException( line );
+                }
+
+                String name = line.substring( 0,
+                                              equalLoc ).trim();
+
+                String value = line.substring( equalLoc + 1 ).trim();
+
+                long size = ( value.equals( "0" )
+                              ? 0
+                              : ResourceSlot.parseMemory( value ) );
+
+                if ( name.equals( "buffer" )
+                     &&
+                     size > 0
+                     &&
+                     size <= Integer.MAX_VALUE )
+                {
+                    config.setOutputBuffer( (int) size );
+                }
+                else if ( name.equals( "spill" )
+                          &&
+                          size >= 0 )
+                {
+                    config.setOutputSpill( size );
+                }
+                else if ( name.equals( "echo" )
+                          &&
+                          ( value.equals( "true" )
+                            ||
+                            value.equals( "false" ) ) )
+                {
+                    config.setOutputEcho( value.equals( "true" ) );
+                }
+                else
+                {
+                    throw new SlaveHostConfigurationException( line );
+                }
+            }
+            else if ( processingRegistry )
+            {
+                int equalLoc = line.indexOf( "=" );
+
+                if ( equalLoc < 0 )
+                {
+                    throw new SlaveHostConfigurationException( line );
+                }
+
+                String name = line.substring( 0,
+                                              equalLoc ).trim();
+
+                String value = line.substring( equalLoc + 1 ).trim();
+
+                if ( name.equals( "address" )
+                     &&
+                     ! value.equals( "" ) )
+                {
+                    config.setRegistry( value );
+                }
+                else if ( name.equals( "heartbeat" ) )
+                {
+                    long interval = 0;
+
+                    try
+                    {
+                        interval = Long.parseLong( value );
+                    }
+                    catch (NumberFormatException e)
+                    {
+                        throw new SlaveHostConfigurationException( line );
+                    }
+
+                    if ( interval < 1 )
+                    {
+                        throw new SlaveHostConfigurationException( line );
+                    }
+
+                    config.setHeartbeatInterval( interval );
+                }
+                else
+                {
+                    throw new SlaveHostConfigurationException( line );
+                }
+            }
+            else if ( processingLocality )
+            {
+                int equalLoc = line.indexOf( "=" );
+
+                if ( equalLoc < 0 )
+                {
+                    throw new SlaveHostConfigurationException( line );
+                }
+
+                String level = line.substring( 0,
+                                               equalLoc ).trim();
+
+                String label = line.substring( equalLoc + 1 ).trim();
+
+                // every host is its own place at the host level
+                if ( level.equals( "" )
+                     ||
+                     level.equals( AffinityInfo.HOST )
+                     ||
+                     label.equals( "" ) )
+                {
+                    throw new SlaveHostConfigurationException( line );
+                }
+
+                config.setLocality( level,
+                                    label );
+            }
             else
             {
                 throw new SlaveHostConfigurationException( line );
@@ -6,8 +6,15 @@ import org.sysunit.mesh.NodeInfo;
 import org.sysunit.mesh.RemoteNodeInfo;
 import org.sysunit.testmesh.PingPongNode;
 import org.sysunit.testmesh.master.JvmErrorCommand;
-import org.sysunit.testmesh.master.ReportOutputsCommand;
+import org.sysunit.testmesh.master.AddSlaveHostCommand;
+import org.sysunit.testmesh.master.SlaveRejectedCommand;
+import org.sysunit.testmesh.registry.RegistryNode;
+import org.sysunit.testmesh.registry.RegisterSlaveHostCommand;
+import org.sysunit.testmesh.registry.UnregisterSlaveHostCommand;
 import org.sysunit.testmesh.slave.SlaveMain;
+import org.sysunit.testmesh.slave.AssignJvmCommand;
+import org.sysunit.testmesh.slave.ResetJvmCommand;
+import org.sysunit.testmesh.slave.DestroyJvmCommand;
 import org.sysunit.util.JvmExecutor;
 import org.sysunit.util.JvmExecutorCallback;
 
@@ -16,26 +23,42 @@ import java.net.InetAddress;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Set;
+import java.util.HashSet;
 
 public class SlaveHostNode
     extends PingPongNode
     implements JvmExecutorCallback
 {
     private static final JvmInfo[] EMPTY_JVMINFO_ARRAY = new JvmInfo[0];
+    private static final NodeInfo[] EMPTY_NODEINFO_ARRAY = new NodeInfo[0];
 
     private Thread mcastPingPongThread;
     private Thread bcastPingPongThread;
+    private Thread refreshThread;
 
     private SlaveHostConfiguration config;
 
     private JvmManager jvmManager;
 
+    private HostResources resources;
+
+    private Set masters;
+
+    private NodeInfo registry;
+
+    private OutputStreamer outputStreamer;
+
     public SlaveHostNode(String name,
                          SlaveHostConfiguration config)
     {
         super( name );
         this.config  = config;
         this.jvmManager = new JvmManager( this );
+        this.resources  = new HostResources();
+        this.masters    = new HashSet();
+
+        this.outputStreamer = new OutputStreamer( this );
     }
 
     public SlaveHostNode(SlaveHostConfiguration config)
@@ -46,7 +69,18 @@ public class SlaveHostNode
 
     public PhysicalMachineInfo getPhysicalMachineInfo()
     {
-        return this.config.getPhysicalMachineInfo();
+        return getConfiguration().addLocality( new PhysicalMachineInfo( getConfiguration().getTags(),
+                                                                        getConfiguration().getJdks(),
+                                                                        this.resources.getCores(),
+                                                                        this.resources.getMemory(),
+                                                                        this.resources.getLoad(),
+                                                                        getConfiguration().getMaxJvms(),
+                                                                        this.jvmManager.getRunningCount() ) );
+    }
+
+    public long getRefreshInterval()
+    {
+        return getConfiguration().getHeartbeatInterval();
     }
 
     public SlaveHostConfiguration getConfiguration()
@@ -59,6 +93,14 @@ public class SlaveHostNode
     {
         super.start();
 
+        if ( getConfiguration().getRegistry() != null )
+        {
+            this.registry = RegistryNode.locate( this,
+                                                 getConfiguration().getRegistry() );
+
+            refreshRegistry();
+        }
+
         this.mcastPingPongThread = new PingPongThread( this,
                                                        getPingAddress() );
         this.mcastPingPongThread.start();
@@ -66,6 +108,18 @@ public class SlaveHostNode
         this.bcastPingPongThread = new PingPongThread( this,
                                                        null );
         this.bcastPingPongThread.start();
+
+        this.refreshThread = new RefreshThread( this );
+        this.refreshThread.start();
+
+        this.outputStreamer.start();
+
+        String[] pooledJdks = getConfiguration().getPooledJdks();
+
+        for ( int i = 0 ; i < pooledJdks.length ; ++i )
+        {
+            fillPool( pooledJdks[ i ] );
+        }
     }
 
     public synchronized void stop()
@@ -74,9 +128,25 @@ public class SlaveHostNode
         //System.err.println( "SlaveHostNode::stop()" );
         this.mcastPingPongThread.interrupt();
         this.bcastPingPongThread.interrupt();
+        this.refreshThread.interrupt();
+        this.outputStreamer.interrupt();
+
+        if ( this.registry != null )
+        {
+            try
+            {
+                executeOn( this.registry,
+                           new UnregisterSlaveHostCommand() );
+            }
+            catch (Exception e)
+            {
+                // evicted once its heartbeats stop instead
+            }
+        }
 
         super.stop();
 
+        this.jvmManager.clearQueued();
         this.jvmManager.destroyAll();
 
         /*
@@ -94,16 +164,238 @@ public class SlaveHostNode
         //System.err.println( "SlaveHostNode::stop() complete" );
     }
 
-    void startSlave(int jvmId,
-                    String jdk,
-                    NodeInfo master)
+    // masters that have pinged us, and are sent our capacity
+    // every refresh interval until they stop answering
+    void addMaster(NodeInfo master)
+    {
+        synchronized ( this.masters )
+        {
+            this.masters.add( master );
+        }
+    }
+
+    // registers with the registry, if any, and is the heartbeat that
+    // keeps this host registered; a registry not answering is tried
+    // again next interval
+    void refreshRegistry()
+    {
+        if ( this.registry == null )
+        {
+            return;
+        }
+
+        try
+        {
+            executeOn( this.registry,
+                       new RegisterSlaveHostCommand( getPhysicalMachineInfo(),
+                                                     getRefreshInterval() ) );
+        }
+        catch (Exception e)
+        {
+            // try again
+        }
+    }
+
+    void refreshMasters()
+    {
+        NodeInfo[] masters = null;
+
+        synchronized ( this.masters )
+        {
+            masters = (NodeInfo[]) this.masters.toArray( EMPTY_NODEINFO_ARRAY );
+        }
+
+        if ( masters.length == 0 )
+        {
+            return;
+        }
+
+        PhysicalMachineInfo physicalMachineInfo = getPhysicalMachineInfo();
+
+        for ( int i = 0 ; i < masters.length ; ++i )
+        {
+            try
+            {
+                executeOn( masters[ i ],
+                           new AddSlaveHostCommand( physicalMachineInfo,
+                                                    getRefreshInterval() ) );
+            }
+            catch (Exception e)
+            {
+                synchronized ( this.masters )
+                {
+                    this.masters.remove( masters[ i ] );
+                }
+            }
+        }
+    }
+
+    synchronized void startSlave(int jvmId,
+                                 String jdk,
+                                 String[] jvmOptions,
+                                 NodeInfo master)
         throws Exception
     {
+        int admission = this.jvmManager.admit( jvmId,
+                                               jdk,
+                                               jvmOptions,
+                                               master,
+                                               getConfiguration().getMaxJvms(),
+                                               getConfiguration().getMaxQueued() );
+
+        if ( admission == JvmManager.QUEUED )
+        {
+            return;
+        }
+
+        if ( admission == JvmManager.REJECTED )
+        {
+            executeOn( master,
+                       new SlaveRejectedCommand( jvmId,
+                                                 getCapacityReport() ) );
+            return;
+        }
+
+        launchSlave( jvmId,
+                     jdk,
+                     jvmOptions,
+                     master );
+    }
+
+    String getCapacityReport()
+    {
+        return ( getName() + " at capacity: "
+                 + this.jvmManager.getRunningCount() + " of " + getConfiguration().getMaxJvms() + " jvms running, "
+                 + this.jvmManager.getQueuedCount() + " of " + getConfiguration().getMaxQueued() + " queued" );
+    }
+
+    synchronized void startQueuedSlaves()
+    {
+        QueuedStart next = null;
+
+        while ( ( next = this.jvmManager.nextQueued( getConfiguration().getMaxJvms() ) ) != null )
+        {
+            try
+            {
+                launchSlave( next.getJvmId(),
+                             next.getJdk(),
+                             next.getJvmOptions(),
+                             next.getMaster() );
+            }
+            catch (Exception e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    void launchSlave(int jvmId,
+                     String jdk,
+                     String[] jvmOptions,
+                     NodeInfo master)
+        throws Exception
+    {
+        NodeInfo pooled = this.jvmManager.assignPooledJvm( JvmManager.getPoolKey( jdk,
+                                                                                  jvmOptions ),
+                                                           jvmId,
+                                                           master );
+
+        if ( pooled != null )
+        {
+            executeOn( pooled,
+                       new AssignJvmCommand( jvmId,
+                                             ((RemoteNodeInfo)master).getAddress(),
+                                             ((RemoteNodeInfo)master).getPort() ) );
+
+            fillPool( jdk );
+
+            return;
+        }
+
         File javaHome = getConfiguration().getJavaHome( jdk );
 
         this.jvmManager.startJvm( jvmId,
+                                  jdk,
                                   javaHome,
+                                  jvmOptions,
                                   (RemoteNodeInfo) master );
+
+        fillPool( jdk );
+    }
+
+    void fillPool(String jdk)
+    {
+        this.jvmManager.fillPool( jdk,
+                                  getConfiguration().getJavaHome( jdk ),
+                                  JvmManager.NO_JVM_OPTIONS,
+                                  getConfiguration().getPoolSize( jdk ) );
+    }
+
+    void pooledJvmReady(int poolId,
+                        NodeInfo slave)
+    {
+        this.jvmManager.pooledJvmReady( poolId,
+                                        slave );
+
+        // a start may be waiting for it, or for the slot it holds
+        startQueuedSlaves();
+    }
+
+    void releaseJvms(int[] jvmIds,
+                     InetAddress[] slaveAddresses,
+                     int[] slavePorts)
+        throws Exception
+    {
+        for ( int i = 0 ; i < jvmIds.length ; ++i )
+        {
+            JvmExecutor executor = this.jvmManager.getJvmExecutor( jvmIds[ i ] );
+
+            if ( executor == null )
+            {
+                continue;
+            }
+
+            NodeInfo slave = new RemoteNodeInfo( this,
+                                                 "slave",
+                                                 slaveAddresses[ i ],
+                                                 slavePorts[ i ] );
+
+            if ( this.jvmManager.releaseJvm( executor,
+                                             slave,
+                                             getConfiguration().getRecycleUses(),
+                                             getConfiguration().getRecycleIdle() ) )
+            {
+                executeOn( slave,
+                           new ResetJvmCommand() );
+            }
+            else
+            {
+                executeOn( slave,
+                           new DestroyJvmCommand() );
+            }
+        }
+
+        startQueuedSlaves();
+    }
+
+    void jvmReset(boolean reusable,
+                  NodeInfo slave)
+        throws Exception
+    {
+        if ( ! this.jvmManager.recycleJvm( slave,
+                                           reusable ) )
+        {
+            executeOn( slave,
+                       new DestroyJvmCommand() );
+            return;
+        }
+
+        startQueuedSlaves();
+    }
+
+    JvmManager getJvmManager()
+    {
+        return this.jvmManager;
     }
 
     void killSlave(int jvmId)
@@ -111,11 +403,25 @@ public class SlaveHostNode
         
     }
 
+    OutputStreamer getOutputStreamer()
+    {
+        return this.outputStreamer;
+    }
+
+    // output is streamed to masters as it arrives; collecting it
+    // just waits for what has been received to be acknowledged
     void collectOutputs(NodeInfo master)
         throws Exception
     {
-        executeOn( master,
-                   new ReportOutputsCommand( this.jvmManager.getOutputs( master ) ) );
+        this.outputStreamer.flush();
+    }
+
+    boolean waitForCommand(int uid,
+                           long timeout)
+        throws InterruptedException
+    {
+        return waitFor( uid,
+                        timeout );
     }
 
     public synchronized void notifyJvmFinished(JvmExecutor jvm,
@@ -124,10 +430,16 @@ public class SlaveHostNode
         if ( exitValue != 0 )
         {
             NodeInfo master = this.jvmManager.getMaster( jvm );
+
+            if ( master == null )
+            {
+                return;
+            }
+
             try
             {
                 executeOn( master,
-                           new JvmErrorCommand() );
+                           new JvmErrorCommand( jvm.getJvmId() ) );
             }
             catch (Exception e)
             {
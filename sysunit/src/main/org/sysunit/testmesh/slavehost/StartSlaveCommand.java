@@ -10,12 +10,23 @@ public class StartSlaveCommand
 {
     private String jdk;
     private int jvmId;
+    private String[] jvmOptions;
 
     public StartSlaveCommand(String jdk,
                              int jvmId)
     {
-        this.jdk   = jdk;
-        this.jvmId = jvmId;
+        this( jdk,
+              jvmId,
+              new String[0] );
+    }
+
+    public StartSlaveCommand(String jdk,
+                             int jvmId,
+                             String[] jvmOptions)
+    {
+        this.jdk        = jdk;
+        this.jvmId      = jvmId;
+        this.jvmOptions = jvmOptions;
     }
 
     public String getJdk()
@@ -28,11 +39,17 @@ public class StartSlaveCommand
         return this.jvmId;
     }
 
+    public String[] getJvmOptions()
+    {
+        return this.jvmOptions;
+    }
+
     public void execute(SlaveHostNode node)
         throws Exception
     {
         node.startSlave( getJvmId(),
                          getJdk(),
+                         getJvmOptions(),
                          getOrigin() );
     }
 }
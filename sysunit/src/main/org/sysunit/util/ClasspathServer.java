@@ -9,6 +9,7 @@ import java.io.InputStreamReader;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.net.InetAddress;
 
 import java.util.StringTokenizer;
@@ -19,9 +20,15 @@ import java.util.Iterator;
 public class ClasspathServer
     implements ServerLoop
 {
+    private static final long COMPRESSION_THRESHOLD = 4 * 1024;
+    private static final long COMPRESSION_LIMIT = 64 * 1024 * 1024;
+    private static final long COMPRESSION_CACHE_SIZE = 256 * 1024 * 1024;
+
     private Server server;
     private List mappings;
 
+    private CompressedResourceCache compressedCache;
+
     public ClasspathServer(int numThreads)
     {
         this.server = new Server( numThreads,
@@ -29,6 +36,11 @@ public class ClasspathServer
 
         this.mappings = new ArrayList();
 
+        this.compressedCache = new CompressedResourceCache( new File( System.getProperty( "java.io.tmpdir" ),
+                                                                      "sysunit-gzip" ),
+                                                            COMPRESSION_CACHE_SIZE,
+                                                            COMPRESSION_LIMIT );
+
         init();
     }
 
@@ -47,6 +59,8 @@ public class ClasspathServer
         throws InterruptedException
     {
         getServer().stop();
+
+        this.compressedCache.clear();
     }
 
     void init()
@@ -115,6 +129,70 @@ public class ClasspathServer
         return null;
     }
 
+    boolean isCompressible(File local)
+    {
+        return ( ! isArchive( local )
+                 &&
+                 local.length() >= COMPRESSION_THRESHOLD );
+    }
+
+    boolean isArchive(File local)
+    {
+        return ( local.getName().endsWith( ".zip" )
+                 ||
+                 local.getName().endsWith( ".jar" ) );
+    }
+
+    boolean acceptsGzip(String acceptEncoding)
+    {
+        if ( acceptEncoding == null )
+        {
+            return false;
+        }
+
+        StringTokenizer tokens = new StringTokenizer( acceptEncoding,
+                                                      "," );
+
+        while ( tokens.hasMoreTokens() )
+        {
+            String coding = tokens.nextToken().trim();
+
+            int semiLoc = coding.indexOf( ";" );
+
+            if ( semiLoc >= 0 )
+            {
+                String param = coding.substring( semiLoc + 1 ).trim();
+
+                coding = coding.substring( 0,
+                                           semiLoc ).trim();
+
+                if ( param.startsWith( "q=" ) )
+                {
+                    try
+                    {
+                        if ( Double.parseDouble( param.substring( 2 ) ) <= 0 )
+                        {
+                            continue;
+                        }
+                    }
+                    catch (NumberFormatException e)
+                    {
+                        continue;
+                    }
+                }
+            }
+
+            if ( coding.equalsIgnoreCase( "gzip" )
+                 ||
+                 coding.equals( "*" ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     public void accept(InetAddress remoteAddress,
                        int remotePort,
                        InputStream in,
@@ -129,6 +207,8 @@ public class ClasspathServer
 
         boolean head = false;
 
+        String acceptEncoding = null;
+
         while ( true )
         {
             line = reader.readLine().trim();
@@ -138,6 +218,11 @@ public class ClasspathServer
                 break;
             }
 
+            if ( line.toLowerCase().startsWith( "accept-encoding:" ) )
+            {
+                acceptEncoding = line.substring( "accept-encoding:".length() ).trim();
+            }
+
             if ( line.startsWith( "GET" )
                  ||
                  line.startsWith( "HEAD" ) )
@@ -173,37 +258,101 @@ public class ClasspathServer
             return;
         }
 
+        FileInputStream compressed = null;
+
+        if ( isCompressible( local )
+             &&
+             acceptsGzip( acceptEncoding ) )
+        {
+            compressed = this.compressedCache.openCompressed( local );
+        }
+
+        try
+        {
+            accept( local,
+                    compressed,
+                    head,
+                    out );
+        }
+        finally
+        {
+            if ( compressed != null )
+            {
+                compressed.close();
+            }
+        }
+    }
+
+    // streams the gzipped copy when there is one, the file otherwise
+    void accept(File local,
+                FileInputStream compressed,
+                boolean head,
+                OutputStream out)
+        throws Exception
+    {
         out.write( "HTTP/1.1 200\r\n".getBytes() );
-        out.write( ("Content-length: " + local.length() + "\r\n").getBytes() );
 
-        if ( local.getName().endsWith( ".zip" )
-             ||
-             local.getName().endsWith( ".jar" ) )
+        if ( compressed != null )
+        {
+            out.write( ("Content-length: " + compressed.getChannel().size() + "\r\n").getBytes() );
+            out.write( "Content-encoding: gzip\r\n".getBytes() );
+        }
+        else
+        {
+            out.write( ("Content-length: " + local.length() + "\r\n").getBytes() );
+        }
+
+        if ( isArchive( local ) )
         {
             out.write( "Content-type: application/java-archive\r\n".getBytes() );
         }
         else
         {
-            out.write( "Content-type: application/octect-stream\r\n".getBytes() );
+            out.write( "Content-type: application/octet-stream\r\n".getBytes() );
+            out.write( "Vary: Accept-Encoding\r\n".getBytes() );
         }
 
         out.write( "\r\n".getBytes() );
 
-        if ( ! head )
+        if ( head )
         {
-            FileInputStream fileIn = new FileInputStream( local );
-            
-            byte[] buf = new byte[1024];
-            int len = 0;
-            
-            while ( ( len = fileIn.read( buf,
-                                         0,
-                                         1024 ) ) > 0 )
-            {
-                out.write( buf,
-                           0,
-                           len );
-            }
+            return;
+        }
+
+        if ( compressed != null )
+        {
+            copy( compressed,
+                  out );
+            return;
+        }
+
+        FileInputStream fileIn = new FileInputStream( local );
+
+        try
+        {
+            copy( fileIn,
+                  out );
+        }
+        finally
+        {
+            fileIn.close();
+        }
+    }
+
+    void copy(InputStream in,
+              OutputStream out)
+        throws IOException
+    {
+        byte[] buf = new byte[8192];
+        int len = 0;
+
+        while ( ( len = in.read( buf,
+                                 0,
+                                 buf.length ) ) > 0 )
+        {
+            out.write( buf,
+                       0,
+                       len );
         }
     }
 }
@@ -0,0 +1,322 @@
+package org.sysunit.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.zip.GZIPOutputStream;
+
+// gzipped copies of served files, kept on disk under dir and streamed
+// from there.  Each file is compressed once per version, by one thread
+// while any others asking for it wait; files larger than maxFileSize
+// are never compressed, and files that do not come out smaller are
+// remembered as such
+class CompressedResourceCache
+{
+    private File dir;
+
+    private long maxBytes;
+    private long maxFileSize;
+    private long totalBytes;
+
+    private int compressions;
+
+    private LinkedHashMap entries;
+
+    CompressedResourceCache(File dir,
+                            long maxBytes,
+                            long maxFileSize)
+    {
+        this.dir         = dir;
+        this.maxBytes    = maxBytes;
+        this.maxFileSize = maxFileSize;
+        this.entries     = new LinkedHashMap( 16,
+                                              0.75f,
+                                              true );
+    }
+
+    long getMaxBytes()
+    {
+        return this.maxBytes;
+    }
+
+    long getMaxFileSize()
+    {
+        return this.maxFileSize;
+    }
+
+    synchronized long getTotalBytes()
+    {
+        return this.totalBytes;
+    }
+
+    // how many times a file has been compressed
+    synchronized int getCompressions()
+    {
+        return this.compressions;
+    }
+
+    // the gzipped file, opened, or null when it is to be served as it is
+    FileInputStream openCompressed(File file)
+        throws InterruptedException
+    {
+        if ( file.length() > this.maxFileSize )
+        {
+            return null;
+        }
+
+        String key = file.getPath();
+
+        Entry entry = null;
+
+        synchronized ( this )
+        {
+            while ( true )
+            {
+                entry = (Entry) this.entries.get( key );
+
+                if ( entry == null
+                     ||
+                     ! entry.isCurrent( file ) )
+                {
+                    break;
+                }
+
+                if ( ! entry.isCompressing() )
+                {
+                    return open( entry );
+                }
+
+                wait();
+            }
+
+            remove( key );
+
+            entry = new Entry( file.lastModified(),
+                               file.length() );
+
+            this.entries.put( key,
+                              entry );
+
+            ++this.compressions;
+        }
+
+        File compressed = null;
+
+        try
+        {
+            compressed = compress( file );
+        }
+        finally
+        {
+            synchronized ( this )
+            {
+                // the file changed while it was being compressed
+                if ( compressed != null
+                     &&
+                     this.entries.get( key ) != entry )
+                {
+                    compressed.delete();
+                    compressed = null;
+                }
+
+                entry.setCompressed( compressed );
+
+                if ( compressed != null )
+                {
+                    this.totalBytes += compressed.length();
+                }
+
+                evict();
+
+                notifyAll();
+            }
+        }
+
+        synchronized ( this )
+        {
+            return open( entry );
+        }
+    }
+
+    // deletes every gzipped file
+    synchronized void clear()
+    {
+        for ( Iterator entryIter = this.entries.values().iterator();
+              entryIter.hasNext() ; )
+        {
+            Entry entry = (Entry) entryIter.next();
+
+            if ( entry.getCompressed() != null )
+            {
+                entry.getCompressed().delete();
+            }
+        }
+
+        this.entries.clear();
+
+        this.totalBytes = 0;
+    }
+
+    FileInputStream open(Entry entry)
+    {
+        if ( entry.getCompressed() == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            return new FileInputStream( entry.getCompressed() );
+        }
+        catch (IOException e)
+        {
+            // deleted from under us, serve the file as it is
+            return null;
+        }
+    }
+
+    void remove(String key)
+    {
+        Entry stale = (Entry) this.entries.remove( key );
+
+        if ( stale != null
+             &&
+             stale.getCompressed() != null )
+        {
+            this.totalBytes -= stale.getCompressed().length();
+
+            stale.getCompressed().delete();
+        }
+    }
+
+    // drops the least recently served gzipped files until the rest fit
+    void evict()
+    {
+        Iterator entryIter = this.entries.values().iterator();
+
+        while ( this.totalBytes > this.maxBytes
+                &&
+                entryIter.hasNext() )
+        {
+            Entry eldest = (Entry) entryIter.next();
+
+            if ( eldest.getCompressed() == null )
+            {
+                continue;
+            }
+
+            this.totalBytes -= eldest.getCompressed().length();
+
+            eldest.getCompressed().delete();
+
+            entryIter.remove();
+        }
+    }
+
+    // null if the file does not come out smaller, or cannot be written
+    File compress(File file)
+    {
+        File compressed = null;
+
+        try
+        {
+            this.dir.mkdirs();
+
+            compressed = File.createTempFile( "resource",
+                                              ".gz",
+                                              this.dir );
+
+            compressed.deleteOnExit();
+
+            GZIPOutputStream gzipOut = new GZIPOutputStream( new BufferedOutputStream( new FileOutputStream( compressed ) ) );
+
+            try
+            {
+                FileInputStream fileIn = new FileInputStream( file );
+
+                try
+                {
+                    byte[] buf = new byte[8192];
+                    int len = 0;
+
+                    while ( ( len = fileIn.read( buf,
+                                                 0,
+                                                 buf.length ) ) > 0 )
+                    {
+                        gzipOut.write( buf,
+                                       0,
+                                       len );
+                    }
+                }
+                finally
+                {
+                    fileIn.close();
+                }
+            }
+            finally
+            {
+                gzipOut.close();
+            }
+
+            if ( compressed.length() < file.length() )
+            {
+                return compressed;
+            }
+        }
+        catch (IOException e)
+        {
+            // swallow, serve the file as it is
+        }
+
+        if ( compressed != null )
+        {
+            compressed.delete();
+        }
+
+        return null;
+    }
+
+    static class Entry
+    {
+        private long lastModified;
+        private long length;
+
+        private boolean compressing;
+        private File compressed;
+
+        Entry(long lastModified,
+              long length)
+        {
+            this.lastModified = lastModified;
+            this.length       = length;
+            this.compressing  = true;
+        }
+
+        boolean isCurrent(File file)
+        {
+            return ( this.lastModified == file.lastModified()
+                     &&
+                     this.length == file.length() );
+        }
+
+        boolean isCompressing()
+        {
+            return this.compressing;
+        }
+
+        void setCompressed(File compressed)
+        {
+            this.compressed  = compressed;
+            this.compressing = false;
+        }
+
+        File getCompressed()
+        {
+            return this.compressed;
+        }
+    }
+}
@@ -8,14 +8,25 @@ public class InputStreamEater
 {
     private InputStream in;
 
-    private StringBuffer buffer;
+    private OutputBuffer buffer;
 
     private boolean multiplex;
 
+    private OutputListener listener;
+    private JvmExecutor jvm;
+    private int stream;
+
     public InputStreamEater(InputStream in)
+    {
+        this( in,
+              new OutputBuffer() );
+    }
+
+    public InputStreamEater(InputStream in,
+                            OutputBuffer buffer)
     {
         this.in = in;
-        this.buffer = new StringBuffer();
+        this.buffer = buffer;
     }
 
     public void setMultiplex(boolean multiplex)
@@ -28,9 +39,29 @@ public class InputStreamEater
         return this.multiplex;
     }
 
+    // told of each block read, after it is buffered
+    public void setListener(OutputListener listener,
+                            JvmExecutor jvm,
+                            int stream)
+    {
+        this.listener = listener;
+        this.jvm      = jvm;
+        this.stream   = stream;
+    }
+
+    public OutputBuffer getBuffer()
+    {
+        return this.buffer;
+    }
+
     public String getOutput()
     {
-        return this.buffer.toString();
+        return this.buffer.getOutput();
+    }
+
+    public void clearOutput()
+    {
+        this.buffer.clear();
     }
 
     public void run()
@@ -46,13 +77,24 @@ public class InputStreamEater
             {
                 if ( read > 0 )
                 { 
-                    buffer.append( new String( buf,
-                                               0,
-                                               read ) );
+                    this.buffer.write( buf,
+                                       0,
+                                       read );
+
+                    if ( this.listener != null )
+                    {
+                        this.listener.outputWritten( this.jvm,
+                                                     this.stream,
+                                                     buf,
+                                                     0,
+                                                     read );
+                    }
 
                     if ( this.multiplex )
                     {
-                        System.err.print( new String( buf, 0, read ) );
+                        System.err.write( buf,
+                                          0,
+                                          read );
                     }
                 }
             }
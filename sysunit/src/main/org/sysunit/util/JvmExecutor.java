@@ -9,6 +9,8 @@ public class JvmExecutor
 
     private int jvmId;
     private File javaHome;
+    private String[] jvmOptions;
+    private String[] commandPrefix;
     private String className;
     private String[] arguments;
 
@@ -22,29 +24,122 @@ public class JvmExecutor
     private InputStreamEater stdoutEater;
     private InputStreamEater stderrEater;
 
+    private int outputCapacity;
+    private long outputSpill;
+    private File outputDir;
+    private boolean outputEcho;
+    private OutputListener outputListener;
+
+    public JvmExecutor(int jvmId,
+                       File javaHome,
+                       String className,
+                       String[] arguments,
+                       JvmExecutorCallback callback)
+    {
+        this( jvmId,
+              javaHome,
+              new String[0],
+              className,
+              arguments,
+              callback );
+    }
+
     public JvmExecutor(int jvmId,
                        File javaHome,
+                       String[] jvmOptions,
                        String className,
                        String[] arguments,
                        JvmExecutorCallback callback)
     {
         this.jvmId = jvmId;
         this.javaHome  = javaHome;
+        this.jvmOptions = jvmOptions;
+        this.commandPrefix = new String[0];
         this.className = className;
         this.arguments = arguments;
         this.callback  = callback;
+        this.outputCapacity = OutputBuffer.DEFAULT_CAPACITY;
+        this.outputEcho     = true;
     }
 
-    public int getJvmId()
+    public synchronized int getJvmId()
     {
         return this.jvmId;
     }
 
+    public synchronized void setJvmId(int jvmId)
+    {
+        this.jvmId = jvmId;
+    }
+
     public File getJavaHome()
     {
         return this.javaHome;
     }
 
+    public String[] getJvmOptions()
+    {
+        return this.jvmOptions;
+    }
+
+    // a launcher the java command is handed to, such as taskset
+    public void setCommandPrefix(String[] commandPrefix)
+    {
+        this.commandPrefix = commandPrefix;
+    }
+
+    public String[] getCommandPrefix()
+    {
+        return this.commandPrefix;
+    }
+
+    // each stream keeps its last capacity bytes in memory, and spills
+    // up to spill bytes before that to a file in dir
+    public void setOutputLimits(int capacity,
+                                long spill,
+                                File dir)
+    {
+        this.outputCapacity = capacity;
+        this.outputSpill    = spill;
+        this.outputDir      = dir;
+    }
+
+    public int getOutputCapacity()
+    {
+        return this.outputCapacity;
+    }
+
+    public long getOutputSpill()
+    {
+        return this.outputSpill;
+    }
+
+    public File getOutputDir()
+    {
+        return this.outputDir;
+    }
+
+    // whether output is copied to this JVM's System.err as it arrives
+    public void setOutputEcho(boolean outputEcho)
+    {
+        this.outputEcho = outputEcho;
+    }
+
+    public boolean getOutputEcho()
+    {
+        return this.outputEcho;
+    }
+
+    public void setOutputListener(OutputListener outputListener)
+    {
+        this.outputListener = outputListener;
+    }
+
+    public OutputListener getOutputListener()
+    {
+        return this.outputListener;
+    }
+
     public String getClassName()
     {
         return this.className;
@@ -90,19 +185,86 @@ public class JvmExecutor
                  : "" );
     }
 
+    // the buffer behind one of OutputListener's streams, once the
+    // JVM has started
+    public OutputBuffer getOutputBuffer(int stream)
+    {
+        InputStreamEater eater = ( ( stream == OutputListener.STDOUT )
+                                   ? this.stdoutEater
+                                   : this.stderrEater );
+
+        return ( ( eater != null )
+                 ? eater.getBuffer()
+                 : null );
+    }
+
+    public void clearOutput()
+    {
+        if ( this.stdoutEater != null )
+        {
+            this.stdoutEater.clearOutput();
+        }
+
+        if ( this.stderrEater != null )
+        {
+            this.stderrEater.clearOutput();
+        }
+    }
+
+    OutputBuffer newOutputBuffer(String stream)
+    {
+        File spillFile = null;
+
+        if ( getOutputDir() != null
+             &&
+             getOutputSpill() > 0 )
+        {
+            try
+            {
+                getOutputDir().mkdirs();
+
+                spillFile = File.createTempFile( "jvm-",
+                                                 "." + stream,
+                                                 getOutputDir() );
+            }
+            catch (IOException e)
+            {
+                // keep the in-memory tail only
+            }
+        }
+
+        return new OutputBuffer( getOutputCapacity(),
+                                 spillFile,
+                                 getOutputSpill() );
+    }
+
     public String[] getCommandArray()
     {
-        String[] commandArray = new String[ this.arguments.length + 4 ];
+        String[] commandPrefix = getCommandPrefix();
+        String[] jvmOptions = getJvmOptions();
+
+        String[] commandArray = new String[ commandPrefix.length + jvmOptions.length + this.arguments.length + 4 ];
+
+        int cur = 0;
+
+        for ( int i = 0 ; i < commandPrefix.length ; ++i ) {
+            commandArray[ cur++ ] = commandPrefix[ i ];
+        }
+
+        commandArray[ cur++ ] = getJava();
 
-        commandArray[ 0 ] = getJava();
-        commandArray[ 1 ] = "-classpath";
-        commandArray[ 2 ] = System.getProperty( "java.class.path" );
-        commandArray[ 3 ] = getClassName();
+        for ( int i = 0 ; i < jvmOptions.length ; ++i ) {
+            commandArray[ cur++ ] = jvmOptions[ i ];
+        }
+
+        commandArray[ cur++ ] = "-classpath";
+        commandArray[ cur++ ] = System.getProperty( "java.class.path" );
+        commandArray[ cur++ ] = getClassName();
 
         String[] arguments = getArguments();
 
         for ( int i = 0 ; i < arguments.length ; ++i ) {
-            commandArray[ i + 4 ] = arguments[ i ];
+            commandArray[ cur++ ] = arguments[ i ];
         }
 
         return commandArray;
@@ -127,11 +289,23 @@ public class JvmExecutor
             this.process = runtime.exec( getCommandArray(),
                                          null );
 
-            this.stdoutEater = new InputStreamEater( process.getInputStream() );
-            this.stderrEater = new InputStreamEater( process.getErrorStream() );
+            this.stdoutEater = new InputStreamEater( process.getInputStream(),
+                                                     newOutputBuffer( "stdout" ) );
+            this.stderrEater = new InputStreamEater( process.getErrorStream(),
+                                                     newOutputBuffer( "stderr" ) );
+
+            this.stdoutEater.setMultiplex( getOutputEcho() );
+            this.stderrEater.setMultiplex( getOutputEcho() );
 
-            this.stdoutEater.setMultiplex( true );
-            this.stderrEater.setMultiplex( true );
+            if ( getOutputListener() != null )
+            {
+                this.stdoutEater.setListener( getOutputListener(),
+                                              this,
+                                              OutputListener.STDOUT );
+                this.stderrEater.setListener( getOutputListener(),
+                                              this,
+                                              OutputListener.STDERR );
+            }
 
             this.stdoutEaterThread = new Thread( this.stdoutEater );
             this.stderrEaterThread = new Thread( this.stderrEater );
@@ -161,6 +335,29 @@ public class JvmExecutor
                 getCallback().notifyJvmInterrupted( this );
             }
         }
+        finally
+        {
+            // a listener may not have read everything yet, and
+            // disposes of the output itself
+            if ( getOutputListener() == null )
+            {
+                disposeOutput();
+            }
+        }
+    }
+
+    // removes spill files once the JVM has gone
+    void disposeOutput()
+    {
+        if ( this.stdoutEater != null )
+        {
+            this.stdoutEater.getBuffer().dispose();
+        }
+
+        if ( this.stderrEater != null )
+        {
+            this.stderrEater.getBuffer().dispose();
+        }
     }
 
     public void destroy()
@@ -0,0 +1,512 @@
+package org.sysunit.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.OutputStream;
+import java.io.IOException;
+
+// a stream's output, positioned from its first byte: the last bytes
+// in memory, older ones in a spill file, and a marker for those
+// dropped between.  A consumer reading it by position releases what
+// it has read, which is then neither spilled nor kept
+public class OutputBuffer
+{
+    public static final int DEFAULT_CAPACITY = 64 * 1024;
+
+    // most spilled bytes getOutput() reads back
+    public static final int MAX_OUTPUT = 1024 * 1024;
+
+    private static final int READ_SIZE = 8 * 1024;
+
+    private byte[] ring;
+    private int start;
+    private int length;
+
+    private File spillFile;
+    private long spillLimit;
+    private OutputStream spillOut;
+    private long spilled;
+
+    private long dropped;
+
+    private long written;
+    private long spillStart;
+    private long released;
+
+    public OutputBuffer()
+    {
+        this( DEFAULT_CAPACITY,
+              null,
+              0 );
+    }
+
+    // keeps the last capacity bytes in memory; older bytes go to
+    // spillFile until spillLimit bytes have been written there, and
+    // are dropped after that
+    public OutputBuffer(int capacity,
+                        File spillFile,
+                        long spillLimit)
+    {
+        this.ring       = new byte[ capacity ];
+        this.spillFile  = spillFile;
+        this.spillLimit = spillLimit;
+    }
+
+    public int getCapacity()
+    {
+        return this.ring.length;
+    }
+
+    public File getSpillFile()
+    {
+        return this.spillFile;
+    }
+
+    public synchronized long getSpilled()
+    {
+        return this.spilled;
+    }
+
+    public synchronized long getDropped()
+    {
+        return this.dropped;
+    }
+
+    // bytes written so far, and the position of the next
+    public synchronized long getWritten()
+    {
+        return this.written;
+    }
+
+    public synchronized void write(byte[] buf,
+                                   int off,
+                                   int len)
+    {
+        long position = this.written;
+
+        this.written += len;
+
+        int overflow = this.length + len - this.ring.length;
+
+        if ( overflow > 0 )
+        {
+            int evicted = Math.min( overflow,
+                                    this.length );
+
+            evict( evicted,
+                   position - this.length );
+
+            overflow -= evicted;
+        }
+
+        if ( overflow > 0 )
+        {
+            spill( buf,
+                   off,
+                   overflow,
+                   position );
+
+            off += overflow;
+            len -= overflow;
+        }
+
+        int end = ( this.start + this.length ) % this.ring.length;
+
+        int first = Math.min( len,
+                              this.ring.length - end );
+
+        System.arraycopy( buf,
+                          off,
+                          this.ring,
+                          end,
+                          first );
+
+        System.arraycopy( buf,
+                          off + first,
+                          this.ring,
+                          0,
+                          len - first );
+
+        this.length += len;
+    }
+
+    public String getOutput()
+    {
+        return getOutput( MAX_OUTPUT );
+    }
+
+    // up to max spilled bytes, markers for any not shown or dropped,
+    // then the buffered tail
+    public synchronized String getOutput(int max)
+    {
+        StringBuffer output = new StringBuffer();
+
+        byte[] spilled = readSpilled( max );
+
+        output.append( new String( spilled ) );
+
+        if ( this.spilled > spilled.length )
+        {
+            output.append( "\n[... " + ( this.spilled - spilled.length ) + " bytes not shown ...]\n" );
+        }
+
+        if ( this.dropped > 0 )
+        {
+            output.append( "\n[... " + this.dropped + " bytes dropped ...]\n" );
+        }
+
+        output.append( new String( getBuffered() ) );
+
+        return output.toString();
+    }
+
+    public synchronized void clear()
+    {
+        this.start   = 0;
+        this.length  = 0;
+        this.dropped = 0;
+
+        resetSpill();
+    }
+
+    // the first position from position on whose byte is still held,
+    // in the spill file or in memory; getWritten() once all are read
+    public synchronized long getAvailable(long position)
+    {
+        if ( this.spilled > 0 )
+        {
+            if ( position < this.spillStart )
+            {
+                return this.spillStart;
+            }
+
+            if ( position < this.spillStart + this.spilled )
+            {
+                return position;
+            }
+        }
+
+        return Math.max( position,
+                         this.written - this.length );
+    }
+
+    // copies up to len held bytes from position, as getAvailable()
+    // gives it, and returns how many; 0 once all are read
+    public synchronized int read(long position,
+                                 byte[] buf,
+                                 int off,
+                                 int len)
+    {
+        if ( this.spilled > 0
+             &&
+             position >= this.spillStart
+             &&
+             position < this.spillStart + this.spilled )
+        {
+            return readSpilled( position - this.spillStart,
+                                buf,
+                                off,
+                                (int) Math.min( len,
+                                                this.spillStart + this.spilled - position ) );
+        }
+
+        long ringStart = this.written - this.length;
+
+        if ( position < ringStart )
+        {
+            return 0;
+        }
+
+        int count = (int) Math.min( len,
+                                    this.written - position );
+
+        int from = ( this.start + (int) ( position - ringStart ) ) % this.ring.length;
+
+        int first = Math.min( count,
+                              this.ring.length - from );
+
+        System.arraycopy( this.ring,
+                          from,
+                          buf,
+                          off,
+                          first );
+
+        System.arraycopy( this.ring,
+                          0,
+                          buf,
+                          off + first,
+                          count - first );
+
+        return count;
+    }
+
+    // bytes before position have been read by the consumer; a spill
+    // file holding nothing later is emptied
+    public synchronized void release(long position)
+    {
+        this.released = Math.max( this.released,
+                                  position );
+
+        if ( this.spilled > 0
+             &&
+             this.released >= this.spillStart + this.spilled )
+        {
+            resetSpill();
+        }
+    }
+
+    // deletes the spill file, keeping the in-memory tail
+    public synchronized void dispose()
+    {
+        closeSpill();
+
+        if ( this.spillFile != null )
+        {
+            this.spillFile.delete();
+            this.spillFile = null;
+        }
+
+        this.dropped += this.spilled;
+        this.spilled  = 0;
+    }
+
+    byte[] getBuffered()
+    {
+        byte[] buffered = new byte[ this.length ];
+
+        int first = Math.min( this.length,
+                              this.ring.length - this.start );
+
+        System.arraycopy( this.ring,
+                          this.start,
+                          buffered,
+                          0,
+                          first );
+
+        System.arraycopy( this.ring,
+                          0,
+                          buffered,
+                          first,
+                          this.length - first );
+
+        return buffered;
+    }
+
+    // position is that of the ring's first byte
+    void evict(int len,
+               long position)
+    {
+        int first = Math.min( len,
+                              this.ring.length - this.start );
+
+        spill( this.ring,
+               this.start,
+               first,
+               position );
+
+        spill( this.ring,
+               0,
+               len - first,
+               position + first );
+
+        this.start   = ( this.start + len ) % this.ring.length;
+        this.length -= len;
+    }
+
+    void spill(byte[] buf,
+               int off,
+               int len,
+               long position)
+    {
+        int consumed = (int) Math.max( 0,
+                                       Math.min( len,
+                                                 this.released - position ) );
+
+        off      += consumed;
+        len      -= consumed;
+        position += consumed;
+
+        if ( len == 0 )
+        {
+            return;
+        }
+
+        if ( this.spilled == 0 )
+        {
+            this.spillStart = position;
+        }
+
+        // the spill file only ever holds one run of bytes
+        int kept = ( ( position == this.spillStart + this.spilled )
+                     ? (int) Math.max( 0,
+                                       Math.min( len,
+                                                 this.spillLimit - this.spilled ) )
+                     : 0 );
+
+        if ( this.spillFile != null
+             &&
+             kept > 0 )
+        {
+            try
+            {
+                if ( this.spillOut == null )
+                {
+                    this.spillFile.getParentFile().mkdirs();
+                    this.spillFile.deleteOnExit();
+                    this.spillOut = new BufferedOutputStream( new FileOutputStream( this.spillFile,
+                                                                                    true ) );
+                }
+
+                this.spillOut.write( buf,
+                                     off,
+                                     kept );
+
+                this.spilled += kept;
+                this.dropped += len - kept;
+
+                return;
+            }
+            catch (IOException e)
+            {
+                // disk trouble, drop from here on
+                closeSpill();
+                this.spillFile = null;
+            }
+        }
+
+        this.dropped += len;
+    }
+
+    // the first max spilled bytes, read a block at a time
+    byte[] readSpilled(int max)
+    {
+        ByteArrayOutputStream spilled = new ByteArrayOutputStream();
+
+        if ( this.spillFile == null
+             ||
+             this.spilled == 0 )
+        {
+            return spilled.toByteArray();
+        }
+
+        long remaining = Math.min( this.spilled,
+                                   max );
+
+        byte[] buf = new byte[ READ_SIZE ];
+
+        try
+        {
+            if ( this.spillOut != null )
+            {
+                this.spillOut.flush();
+            }
+
+            InputStream in = new FileInputStream( this.spillFile );
+
+            try
+            {
+                int read = 0;
+
+                while ( remaining > 0
+                        &&
+                        ( read = in.read( buf,
+                                          0,
+                                          (int) Math.min( buf.length,
+                                                          remaining ) ) ) >= 0 )
+                {
+                    spilled.write( buf,
+                                   0,
+                                   read );
+
+                    remaining -= read;
+                }
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch (IOException e)
+        {
+            // swallow, report what was read and kept in memory
+        }
+
+        return spilled.toByteArray();
+    }
+
+    // a failed read drops the spill file rather than the stream
+    int readSpilled(long offset,
+                    byte[] buf,
+                    int off,
+                    int len)
+    {
+        try
+        {
+            if ( this.spillOut != null )
+            {
+                this.spillOut.flush();
+            }
+
+            RandomAccessFile in = new RandomAccessFile( this.spillFile,
+                                                        "r" );
+
+            try
+            {
+                in.seek( offset );
+                in.readFully( buf,
+                              off,
+                              len );
+            }
+            finally
+            {
+                in.close();
+            }
+
+            return len;
+        }
+        catch (IOException e)
+        {
+            this.dropped += this.spilled;
+
+            resetSpill();
+
+            this.spillFile = null;
+
+            return 0;
+        }
+    }
+
+    void resetSpill()
+    {
+        closeSpill();
+
+        if ( this.spillFile != null )
+        {
+            this.spillFile.delete();
+        }
+
+        this.spilled = 0;
+    }
+
+    void closeSpill()
+    {
+        if ( this.spillOut != null )
+        {
+            try
+            {
+                this.spillOut.close();
+            }
+            catch (IOException e)
+            {
+                // swallow
+            }
+
+            this.spillOut = null;
+        }
+    }
+}
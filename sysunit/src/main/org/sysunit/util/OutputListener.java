@@ -0,0 +1,15 @@
+package org.sysunit.util;
+
+// told of each block a JVM writes once it is in the JVM's
+// OutputBuffer; a listener disposes of the buffers after the JVM exits
+public interface OutputListener
+{
+    int STDOUT = 1;
+    int STDERR = 2;
+
+    void outputWritten(JvmExecutor jvm,
+                       int stream,
+                       byte[] buf,
+                       int off,
+                       int len);
+}
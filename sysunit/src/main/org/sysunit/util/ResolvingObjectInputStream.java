@@ -21,6 +21,9 @@ public class ResolvingObjectInputStream
     public Class resolveClass(ObjectStreamClass classDesc)
         throws IOException, ClassNotFoundException
     {
-        return this.classLoader.loadClass( classDesc.getName() );
+        // Class.forName() also resolves array descriptors such as [Ljava.lang.String;
+        return Class.forName( classDesc.getName(),
+                              false,
+                              this.classLoader );
     }
 }
@@ -1,14 +1,24 @@
 package org.sysunit.util;
 
 import org.sysunit.TBean;
+import org.sysunit.MeasurableTBean;
 import org.sysunit.ThreadMethodTBean;
 import org.sysunit.sync.Synchronizer;
 import org.sysunit.sync.SecondaryFailureError;
+import org.sysunit.report.TBeanTimings;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.Condition;
 
+// runs a TBean's steps, one task at a time, on a thread of its own:
+// a platform thread, or a virtual thread where asked for and the
+// runtime has them.  Tasks are handed over with a Lock rather than a
+// monitor, and run outside it, so a virtual thread blocking in one
+// does not pin its carrier
 public class TBeanThread
-    extends Thread
+    implements Runnable
 {
     private static final Throwable[] EMPTY_THROWABLE_ARRAY = new Throwable[0];
     private static final Runnable EXIT_TASK = new Runnable()
@@ -19,21 +29,84 @@ public class TBeanThread
     private TBean tbean;
     private TBeanThreadCallback callback;
     private Runnable task;
-    private Object taskLock;
+    private Lock taskLock;
+    private Condition taskChanged;
+
+    private Thread thread;
+    private boolean virtual;
 
     private Throwable thrown;
 
+    private TBeanTimings timings;
+
     public TBeanThread(TBean tbean,
                        TBeanThreadCallback callback)
     {
-        super( ( tbean instanceof ThreadMethodTBean )
-               ? ( ((ThreadMethodTBean)tbean).getMethod().getName() )
-               : ( tbean.getClass().getName() ) );
-        this.tbean    = tbean;
-        this.callback = callback;
-        this.task     = null;
-        this.taskLock = new Object();
-        this.thrown   = null;
+        this( tbean,
+              callback,
+              false );
+    }
+
+    public TBeanThread(TBean tbean,
+                       TBeanThreadCallback callback,
+                       boolean virtual)
+    {
+        this.tbean       = tbean;
+        this.callback    = callback;
+        this.task        = null;
+        this.taskLock    = new ReentrantLock();
+        this.taskChanged = this.taskLock.newCondition();
+        this.thrown      = null;
+        this.thread      = VirtualThreads.newThread( this,
+                                                     ( ( tbean instanceof ThreadMethodTBean )
+                                                       ? ( ((ThreadMethodTBean)tbean).getMethod().getName() )
+                                                       : ( tbean.getClass().getName() ) ),
+                                                     virtual );
+        this.virtual     = VirtualThreads.isVirtual( this.thread );
+        this.timings     = new TBeanTimings( getName() );
+    }
+
+    public String getName()
+    {
+        return this.thread.getName();
+    }
+
+    // whether running on a virtual thread, as asked for and available
+    public boolean isVirtual()
+    {
+        return this.virtual;
+    }
+
+    public void setContextClassLoader(ClassLoader cl)
+    {
+        this.thread.setContextClassLoader( cl );
+    }
+
+    public void start()
+    {
+        this.thread.start();
+    }
+
+    public void interrupt()
+    {
+        this.thread.interrupt();
+    }
+
+    public boolean isAlive()
+    {
+        return this.thread.isAlive();
+    }
+
+    public void join()
+        throws InterruptedException
+    {
+        this.thread.join();
+    }
+
+    public void join(long millis)
+        throws InterruptedException
+    {
+        this.thread.join( millis );
     }
 
     public TBean getTBean()
@@ -49,16 +122,22 @@ public class TBeanThread
     void performTask(Runnable task)
         throws InterruptedException
     {
-        synchronized ( this.taskLock )
+        this.taskLock.lock();
+
+        try
         {
             while ( this.task != null )
             {
-                this.taskLock.wait();
+                this.taskChanged.await();
             }
             
             this.thrown = null;
             this.task = task;
-            this.taskLock.notifyAll();
+            this.taskChanged.signalAll();
+        }
+        finally
+        {
+            this.taskLock.unlock();
         }
     }
 
@@ -82,6 +161,18 @@ public class TBeanThread
         return this.thrown;
     }
 
+    public TBeanTimings getTimings()
+    {
+        return this.timings;
+    }
+
+    void setTime(String phase,
+                 long start)
+    {
+        this.timings.setTime( phase,
+                              System.currentTimeMillis() - start );
+    }
+
     public void performSetUp()
         throws InterruptedException
     {
@@ -89,6 +180,8 @@ public class TBeanThread
             {
                 public void run()
                 {
+                    long start = System.currentTimeMillis();
+
                     try
                     {
                         getTBean().setUp();
@@ -97,11 +190,79 @@ public class TBeanThread
                     {
                         setThrown( t );
                     }
+
+                    setTime( TBeanTimings.SET_UP,
+                             start );
+
                     getCallback().notifySetUp( TBeanThread.this );
                 }
             } );
     }
 
+    // a TBean that is not measurable has nothing to warm up
+    public void performWarmUp()
+        throws InterruptedException
+    {
+        performTask( new Runnable()
+            {
+                public void run()
+                {
+                    TBean tbean = getTBean();
+
+                    try
+                    {
+                        if ( tbean instanceof MeasurableTBean )
+                        {
+                            ((MeasurableTBean)tbean).warmUp();
+                        }
+                    }
+                    catch (Throwable t)
+                    {
+                        setThrown( t );
+                    }
+
+                    getCallback().notifyWarmUp( TBeanThread.this );
+                }
+            } );
+    }
+
+    // the run of a warmed-up test: a measurable TBean measures, and
+    // any other runs
+    public void performMeasure()
+        throws InterruptedException
+    {
+        performTask( new Runnable()
+            {
+                public void run()
+                {
+                    TBean tbean = getTBean();
+
+                    long start = System.currentTimeMillis();
+
+                    try
+                    {
+                        if ( tbean instanceof MeasurableTBean )
+                        {
+                            ((MeasurableTBean)tbean).measure();
+                        }
+                        else
+                        {
+                            tbean.run();
+                        }
+                    }
+                    catch (Throwable t)
+                    {
+                        setThrown( t );
+                    }
+
+                    setTime( TBeanTimings.RUN,
+                             start );
+
+                    getCallback().notifyRun( TBeanThread.this );
+                }
+            } );
+    }
+
     public void performRun()
         throws InterruptedException
     {
@@ -111,6 +272,8 @@ public class TBeanThread
                 {
                     TBean tbean = getTBean();
 
+                    long start = System.currentTimeMillis();
+
                     try
                     {
                         if ( tbean instanceof ThreadMethodTBean )
@@ -133,6 +296,9 @@ public class TBeanThread
                         }
                     }
 
+                    setTime( TBeanTimings.RUN,
+                             start );
+
                     getCallback().notifyRun( TBeanThread.this );
                 }
             } );
@@ -145,6 +311,8 @@ public class TBeanThread
             {
                 public void run()
                 {
+                    long start = System.currentTimeMillis();
+
                     try
                     {
                         getTBean().assertValid();
@@ -153,6 +321,10 @@ public class TBeanThread
                     {
                         setThrown( t );
                     }
+
+                    setTime( TBeanTimings.ASSERT_VALID,
+                             start );
+
                     getCallback().notifyAssertValid( TBeanThread.this );
                 }
             } );
@@ -165,6 +337,8 @@ public class TBeanThread
             {
                 public void run()
                 {
+                    long start = System.currentTimeMillis();
+
                     try
                     {
                         getTBean().tearDown();
@@ -173,6 +347,10 @@ public class TBeanThread
                     {
                         setThrown( t );
                     }
+
+                    setTime( TBeanTimings.TEAR_DOWN,
+                             start );
+
                     getCallback().notifyTearDown( TBeanThread.this );
                 }
             } );
@@ -184,35 +362,50 @@ public class TBeanThread
         performTask( EXIT_TASK );
     }
 
+    // the task stays set while it runs, so the next waits for it
     public void run()
     {
-      SERVICE_LOOP:
         while ( true )
         {
+            Runnable task = null;
+
+            this.taskLock.lock();
+
             try
             {
-                synchronized ( this.taskLock )
+                while ( this.task == null )
                 {
-                    while ( this.task == null )
-                    {
-                        this.taskLock.wait();
-                    }
-                    
-                    if ( this.task == EXIT_TASK )
-                    {
-                        this.task = null;
-                        this.taskLock.notifyAll();
-                        break SERVICE_LOOP;
-                    }
-                    
-                    this.task.run();
-                    this.task = null;
-                    this.taskLock.notifyAll();
+                    this.taskChanged.await();
                 }
+
+                task = this.task;
             }
             catch (InterruptedException e)
             {
-                break SERVICE_LOOP;
+                return;
+            }
+            finally
+            {
+                this.taskLock.unlock();
+            }
+
+            task.run();
+
+            this.taskLock.lock();
+
+            try
+            {
+                this.task = null;
+                this.taskChanged.signalAll();
+            }
+            finally
+            {
+                this.taskLock.unlock();
+            }
+
+            if ( task == EXIT_TASK )
+            {
+                return;
             }
         }
     }
@@ -0,0 +1,143 @@
+package org.sysunit.util;
+
+import java.lang.reflect.Method;
+
+// makes virtual threads on runtimes that have them, found by
+// reflection so that sysunit still builds and runs on those without;
+// where they are missing, or not enabled, a platform thread is made
+public class VirtualThreads
+{
+    private static final Method OF_VIRTUAL = getMethod( Thread.class,
+                                                        "ofVirtual",
+                                                        new Class[0] );
+
+    private static final Method IS_VIRTUAL = getMethod( Thread.class,
+                                                        "isVirtual",
+                                                        new Class[0] );
+
+    private static final Class BUILDER = getClass( "java.lang.Thread$Builder" );
+
+    private static final Method NAME = getMethod( BUILDER,
+                                                  "name",
+                                                  new Class[] { String.class } );
+
+    private static final Method UNSTARTED = getMethod( BUILDER,
+                                                       "unstarted",
+                                                       new Class[] { Runnable.class } );
+
+    private VirtualThreads()
+    {
+    }
+
+    public static boolean isAvailable()
+    {
+        return newVirtualThread( new Runnable()
+            {
+                public void run() { }
+            },
+                                 "probe" ) != null;
+    }
+
+    // an unstarted thread, virtual if it can be
+    public static Thread newThread(Runnable runnable,
+                                   String name,
+                                   boolean virtual)
+    {
+        Thread thread = null;
+
+        if ( virtual )
+        {
+            thread = newVirtualThread( runnable,
+                                       name );
+        }
+
+        if ( thread == null )
+        {
+            thread = new Thread( runnable,
+                                 name );
+        }
+
+        return thread;
+    }
+
+    public static boolean isVirtual(Thread thread)
+    {
+        if ( IS_VIRTUAL == null )
+        {
+            return false;
+        }
+
+        try
+        {
+            return ((Boolean) IS_VIRTUAL.invoke( thread,
+                                                 new Object[0] )).booleanValue();
+        }
+        catch (Exception e)
+        {
+            return false;
+        }
+    }
+
+    // null where virtual threads are missing or, as a preview, not
+    // enabled
+    static Thread newVirtualThread(Runnable runnable,
+                                   String name)
+    {
+        if ( OF_VIRTUAL == null
+             ||
+             NAME == null
+             ||
+             UNSTARTED == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            Object builder = OF_VIRTUAL.invoke( null,
+                                                new Object[0] );
+
+            builder = NAME.invoke( builder,
+                                   new Object[] { name } );
+
+            return (Thread) UNSTARTED.invoke( builder,
+                                              new Object[] { runnable } );
+        }
+        catch (Exception e)
+        {
+            return null;
+        }
+    }
+
+    static Class getClass(String name)
+    {
+        try
+        {
+            return Class.forName( name );
+        }
+        catch (ClassNotFoundException e)
+        {
+            return null;
+        }
+    }
+
+    static Method getMethod(Class type,
+                            String name,
+                            Class[] parameterTypes)
+    {
+        if ( type == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            return type.getMethod( name,
+                                   parameterTypes );
+        }
+        catch (NoSuchMethodException e)
+        {
+            return null;
+        }
+    }
+}
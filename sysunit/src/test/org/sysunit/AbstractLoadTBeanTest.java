@@ -0,0 +1,127 @@
+package org.sysunit;
+
+import org.sysunit.tests.StallingLoadTBean;
+import org.sysunit.util.PropUtils;
+
+public class AbstractLoadTBeanTest
+    extends SysUnitTestBase
+{
+    private static final long MILLIS = 1000000L;
+
+    public void testRate()
+        throws Throwable
+    {
+        StallingLoadTBean tbean = new StallingLoadTBean();
+
+        PropUtils.setProperty( tbean,
+                               "rate",
+                               "200" );
+
+        PropUtils.setProperty( tbean,
+                               "duration",
+                               "250" );
+
+        long start = System.currentTimeMillis();
+
+        tbean.run();
+
+        assertEquals( "5ms apart for 250ms",
+                      50,
+                      tbean.getOperations() );
+
+        assertEquals( "every operation recorded",
+                      50,
+                      tbean.getLatencies().getCount() );
+
+        assertTrue( "paced over the duration",
+                    System.currentTimeMillis() - start >= 240 );
+    }
+
+    public void testLatencyFromIntendedStart()
+        throws Throwable
+    {
+        StallingLoadTBean tbean = new StallingLoadTBean();
+
+        tbean.setRate( 100 );
+        tbean.setDuration( 200 );
+        tbean.setStall( 100 );
+
+        tbean.run();
+
+        assertEquals( "operations still scheduled through the stall",
+                      20,
+                      tbean.getOperations() );
+
+        assertTrue( "stalled operation",
+                    tbean.getLatencies().getMax() >= 100 * MILLIS );
+
+        // those scheduled during the stall waited for it, as a closed
+        // loop would not have shown
+        assertTrue( "queued behind the stall",
+                    tbean.getLatencies().getValueAtPercentile( 75 ) >= 20 * MILLIS );
+    }
+
+    public void testWarmUp()
+        throws Throwable
+    {
+        StallingLoadTBean tbean = new StallingLoadTBean();
+
+        tbean.setRate( 100 );
+        tbean.setDuration( 100 );
+        tbean.setWarmUpDuration( 200 );
+
+        tbean.warmUp();
+
+        assertEquals( "warmed up for 200ms",
+                      20,
+                      tbean.getOperations() );
+
+        assertEquals( "warm-up dropped",
+                      0,
+                      tbean.getLatencies().getCount() );
+
+        tbean.measure();
+
+        assertEquals( "measured for 100ms",
+                      10,
+                      tbean.getLatencies().getCount() );
+    }
+
+    public void testStopped()
+        throws Throwable
+    {
+        StallingLoadTBean tbean = new StallingLoadTBean();
+
+        StopSignal stopSignal = new StopSignal();
+
+        tbean.setRate( 100 );
+        tbean.setDuration( 60000 );
+        tbean.setStopSignal( stopSignal );
+
+        stopSignal.stop();
+
+        tbean.run();
+
+        assertEquals( "no operations once stopped",
+                      0,
+                      tbean.getOperations() );
+    }
+
+    public void testInvalidRate()
+        throws Throwable
+    {
+        StallingLoadTBean tbean = new StallingLoadTBean();
+
+        tbean.setRate( 0 );
+
+        try
+        {
+            tbean.run();
+            fail( "should have thrown IllegalStateException" );
+        }
+        catch (IllegalStateException e)
+        {
+            // expected and correct
+        }
+    }
+}
@@ -10,11 +10,16 @@ import junit.framework.Test;
 import junit.framework.TestResult;
 import junit.textui.TestRunner;
 
+import java.io.File;
+import java.io.FileReader;
+import java.io.Reader;
 import java.io.InputStream;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Enumeration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class DistributedTestCaseTest
     extends SysUnitTestBase
@@ -100,6 +105,168 @@ public class DistributedTestCaseTest
         dump();
     }
 
+    public void testInProcess_NoOpWithSyncSuccessful()
+        throws Exception
+    {
+        runTestInProcess( "NoOpSyncTest" );
+
+        assertErrors( 0 );
+        assertFailures( 0 );
+    }
+
+    public void testInProcess_ThrowInRun()
+        throws Exception
+    {
+        runTestInProcess( "ThrowingTest" );
+
+        assertErrors( 1 );
+        assertFailures( 0 );
+    }
+
+    public void testInProcess_LoadMetricsMerged()
+        throws Exception
+    {
+        runTestInProcess( "LoadTest" );
+
+        assertErrors( 0 );
+        assertFailures( 0 );
+
+        String json = read( new File( System.getProperty( "sysunit.report.dir",
+                                                          "target/sysunit-reports" ),
+                                      "load.none.json" ) );
+
+        assertTrue( "each jvm's tbeans merged",
+                    json.indexOf( "\"latency\": { \"count\": 20," ) >= 0 );
+
+        assertTrue( "every jvm merged",
+                    json.indexOf( "\"latency\": { \"count\": 40," ) >= 0 );
+    }
+
+    public void testInProcess_LoadSeries()
+        throws Exception
+    {
+        runTestInProcess( "LoadTest" );
+
+        assertErrors( 0 );
+        assertFailures( 0 );
+
+        String csv = read( new File( System.getProperty( "sysunit.report.dir",
+                                                         "target/sysunit-reports" ),
+                                     "load.none.series.csv" ) );
+
+        long operations = 0;
+
+        String[] rows = csv.split( "\n" );
+
+        for ( int i = 1 ; i < rows.length ; ++i )
+        {
+            String[] columns = rows[ i ].split( "," );
+
+            if ( columns[ 2 ].equals( "latency.operations" ) )
+            {
+                operations += Long.parseLong( columns[ 4 ].trim() );
+            }
+        }
+
+        assertEquals( "every jvm's operations",
+                      40,
+                      operations );
+    }
+
+    // the TBeans assert they warmed up as well as measured
+    public void testInProcess_WarmUpNotMeasured()
+        throws Exception
+    {
+        runTestInProcess( "WarmUpTest" );
+
+        assertErrors( 0 );
+        assertFailures( 0 );
+
+        String json = read( new File( System.getProperty( "sysunit.report.dir",
+                                                          "target/sysunit-reports" ),
+                                      "warmUp.none.json" ) );
+
+        assertTrue( "only each jvm's measurement",
+                    json.indexOf( "\"latency\": { \"count\": 20," ) >= 0 );
+
+        assertTrue( "only every jvm's measurement",
+                    json.indexOf( "\"latency\": { \"count\": 40," ) >= 0 );
+    }
+
+    // the load TBeans would run for a minute, and the looping ones
+    // forever, were they not told to stop
+    public void testInProcess_RunDuration()
+        throws Exception
+    {
+        long start = System.currentTimeMillis();
+
+        runTestInProcess( "RunDurationTest" );
+
+        assertErrors( 0 );
+        assertFailures( 0 );
+
+        assertTrue( "stopped at the deadline",
+                    System.currentTimeMillis() - start < 30000 );
+    }
+
+    // TBeans released in later waves run for less of the run
+    public void testInProcess_Ramp()
+        throws Exception
+    {
+        runTestInProcess( "RampTest" );
+
+        assertErrors( 0 );
+        assertFailures( 0 );
+
+        String json = read( new File( System.getProperty( "sysunit.report.dir",
+                                                          "target/sysunit-reports" ),
+                                      "ramp.none.json" ) );
+
+        Matcher matcher = Pattern.compile( "LoopingTBean\", \"setUp\": [0-9]+, \"run\": ([0-9]+)" ).matcher( json );
+
+        long min = Long.MAX_VALUE;
+        long max = 0;
+
+        while ( matcher.find() )
+        {
+            long run = Long.parseLong( matcher.group( 1 ) );
+
+            min = Math.min( min,
+                            run );
+            max = Math.max( max,
+                            run );
+        }
+
+        assertTrue( "first wave ran throughout: " + max,
+                    max >= 900 );
+
+        assertTrue( "last wave ran for the end: " + min,
+                    min <= 600 );
+
+        assertTrue( "active TBeans sampled",
+                    json.indexOf( "\"tbeans.active\": { \"kind\": \"gauge\"" ) >= 0 );
+    }
+
+    // every TBean meets at every sync-point, virtual threads or not
+    public void testInProcess_VirtualThreads()
+        throws Exception
+    {
+        runTestInProcess( "VirtualThreadsTest" );
+
+        assertErrors( 0 );
+        assertFailures( 0 );
+
+        String json = read( new File( System.getProperty( "sysunit.report.dir",
+                                                          "target/sysunit-reports" ),
+                                      "virtual.none.json" ) );
+
+        assertTrue( "all synced",
+                    json.indexOf( "\"syncs\": 800," ) >= 0 );
+
+        assertTrue( "four barriers",
+                    json.indexOf( "\"barriers\": 4," ) >= 0 );
+    }
+
     void dump()
     {
         Enumeration errors = this.testResult.errors();
@@ -119,6 +286,22 @@ public class DistributedTestCaseTest
 
     void runTest(String name)
         throws Exception
+    {
+        runTest( newTest( name ) );
+    }
+
+    void runTestInProcess(String name)
+        throws Exception
+    {
+        DistributedTestCase test = newTest( name );
+
+        test.setInProcess( true );
+
+        runTest( test );
+    }
+
+    DistributedTestCase newTest(String name)
+        throws Exception
     {
         InputStream in = getClass().getResourceAsStream( "tests/" + name + ".systest" );
 
@@ -132,9 +315,7 @@ public class DistributedTestCaseTest
         ScenarioInfo scenarioInfo = new ScenarioInfo( "none",
                                                       testInfo );
 
-        DistributedTestCase test = new DistributedTestCase( scenarioInfo );
-
-        runTest( test );
+        return new DistributedTestCase( scenarioInfo );
     }
 
     void runTest(DistributedTestCase test)
@@ -167,6 +348,33 @@ public class DistributedTestCaseTest
         return slaveHost;
     }
 
+    String read(File file)
+        throws Exception
+    {
+        StringBuffer text = new StringBuffer();
+
+        Reader in = new FileReader( file );
+
+        try
+        {
+            char[] buf = new char[ 8192 ];
+            int read = 0;
+
+            while ( ( read = in.read( buf ) ) >= 0 )
+            {
+                text.append( buf,
+                             0,
+                             read );
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+
+        return text.toString();
+    }
+
     void assertErrors(int num)
     {
         if ( this.testResult.errorCount() != num )
@@ -0,0 +1,184 @@
+package org.sysunit;
+
+import org.sysunit.builder.DistributedSystemTestInfoBuilder;
+import org.sysunit.model.DistributedSystemTestInfo;
+import org.sysunit.model.ScenarioInfo;
+import org.sysunit.testmesh.slavehost.SlaveHostNode;
+import org.sysunit.testmesh.slavehost.SlaveHostConfiguration;
+
+import junit.framework.TestResult;
+import junit.textui.TestRunner;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+public class DistributedTestSuiteTest
+    extends SysUnitTestBase
+{
+    private List slaveHosts;
+
+    private TestRunner testRunner;
+    private TestResult testResult;
+
+    public void setUp()
+        throws Exception
+    {
+        super.setUp();
+        this.testRunner = new TestRunner();
+        this.slaveHosts = new ArrayList();
+    }
+
+    public void tearDown()
+        throws Exception
+    {
+        for ( Iterator hostIter = this.slaveHosts.iterator() ;
+              hostIter.hasNext() ; )
+        {
+            SlaveHostNode host = (SlaveHostNode) hostIter.next();
+
+            host.stop();
+        }
+
+        this.testRunner = null;
+        this.testResult = null;
+
+        super.tearDown();
+    }
+
+    public void testConcurrent()
+        throws Exception
+    {
+        startSlaveHosts( 2 );
+
+        DistributedTestSuite suite = new DistributedTestSuite();
+
+        suite.addTest( newTest( "NoOpSyncTest" ) );
+        suite.addTest( newTest( "ThrowingTest" ) );
+        suite.addTest( newTest( "NoOpSyncTest" ) );
+
+        suite.setConcurrency( 3 );
+
+        runTest( suite );
+
+        assertRuns( 3 );
+        assertErrors( 1 );
+        assertFailures( 0 );
+    }
+
+    public void testInProcess_Concurrent()
+        throws Exception
+    {
+        DistributedTestSuite suite = new DistributedTestSuite();
+
+        suite.addTest( newTest( "NoOpSyncTest" ) );
+        suite.addTest( newTest( "ThrowingTest" ) );
+        suite.addTest( newTest( "NoOpSyncTest" ) );
+        suite.addTest( newTest( "ThrowingTest" ) );
+
+        suite.setConcurrency( 4 );
+        suite.setInProcess( true );
+
+        runTest( suite );
+
+        assertRuns( 4 );
+        assertErrors( 2 );
+        assertFailures( 0 );
+    }
+
+    public void testWaitsForCapacity()
+        throws Exception
+    {
+        SlaveHostConfiguration config = new SlaveHostConfiguration();
+        config.addTag( "*" );
+        config.setMaxJvms( 2 );
+
+        startSlaveHost( config );
+
+        DistributedTestSuite suite = new DistributedTestSuite();
+
+        suite.addTest( newTest( "NoOpSyncTest" ) );
+        suite.addTest( newTest( "NoOpSyncTest" ) );
+
+        suite.setConcurrency( 2 );
+
+        runTest( suite );
+
+        assertRuns( 2 );
+        assertErrors( 0 );
+        assertFailures( 0 );
+    }
+
+    DistributedTestCase newTest(String name)
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "tests/" + name + ".systest" );
+
+        if ( in == null )
+        {
+            fail( "no such test <" + name + ".systest>" );
+        }
+
+        DistributedSystemTestInfo testInfo = DistributedSystemTestInfoBuilder.build( in );
+
+        ScenarioInfo scenarioInfo = new ScenarioInfo( "none",
+                                                      testInfo );
+
+        return new DistributedTestCase( scenarioInfo );
+    }
+
+    void runTest(DistributedTestSuite suite)
+        throws Exception
+    {
+        this.testResult = this.testRunner.doRun( suite );
+    }
+
+    void startSlaveHosts(int num)
+        throws Exception
+    {
+        for ( int i = 0 ; i < num ; ++i )
+        {
+            SlaveHostConfiguration config = new SlaveHostConfiguration();
+            config.addTag( "*" );
+
+            startSlaveHost( config );
+        }
+    }
+
+    SlaveHostNode startSlaveHost(SlaveHostConfiguration config)
+        throws Exception
+    {
+        SlaveHostNode slaveHost = new SlaveHostNode( config );
+
+        slaveHost.start();
+
+        this.slaveHosts.add( slaveHost );
+
+        return slaveHost;
+    }
+
+    void assertRuns(int num)
+    {
+        if ( this.testResult.runCount() != num )
+        {
+            fail( "expected <" + num + "> runs, but found <" + this.testResult.runCount() + ">" );
+        }
+    }
+
+    void assertErrors(int num)
+    {
+        if ( this.testResult.errorCount() != num )
+        {
+            fail( "expected <" + num + "> errors, but found <" + this.testResult.errorCount() + ">" );
+        }
+    }
+
+    void assertFailures(int num)
+    {
+        if ( this.testResult.failureCount() != num )
+        {
+            fail( "expected <" + num + "> failures, but found <" + this.testResult.failureCount() + ">" );
+        }
+    }
+}
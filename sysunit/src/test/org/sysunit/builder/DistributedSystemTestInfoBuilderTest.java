@@ -1,6 +1,10 @@
 package org.sysunit.builder;
 
 import org.sysunit.model.DistributedSystemTestInfo;
+import org.sysunit.model.JvmInfo;
+import org.sysunit.model.TBeanInfo;
+import org.sysunit.model.AffinityInfo;
+import org.sysunit.model.RampInfo;
 
 import java.io.InputStream;
 
@@ -25,4 +29,311 @@ public class DistributedSystemTestInfoBuilderTest
                       0,
                       testInfo.getJvms().length );
     }
+
+    public void testRunDuration()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "RunDuration.xml" );
+
+        DistributedSystemTestInfo testInfo = DistributedSystemTestInfoBuilder.build( in );
+
+        assertEquals( "300s",
+                      300000,
+                      testInfo.getRunDuration() );
+
+        in = getClass().getResourceAsStream( "OnlySystemTest.xml" );
+
+        testInfo = DistributedSystemTestInfoBuilder.build( in );
+
+        assertEquals( "unbounded by default",
+                      0,
+                      testInfo.getRunDuration() );
+    }
+
+    public void testInvalidRunDuration()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "InvalidRunDuration.xml" );
+
+        try
+        {
+            DistributedSystemTestInfoBuilder.build( in );
+            fail( "should have thrown ParseException" );
+        }
+        catch (ParseException e)
+        {
+            // expected and correct
+        }
+    }
+
+    public void testRamp()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "Ramp.xml" );
+
+        RampInfo ramp = DistributedSystemTestInfoBuilder.build( in ).getRamp();
+
+        assertEquals( "stepped",
+                      RampInfo.STEPPED,
+                      ramp.getProfile() );
+
+        assertEquals( "60s",
+                      60000,
+                      ramp.getDuration() );
+
+        assertEquals( "4 steps",
+                      4,
+                      ramp.getSteps() );
+
+        in = getClass().getResourceAsStream( "OnlySystemTest.xml" );
+
+        assertNull( "all at once by default",
+                    DistributedSystemTestInfoBuilder.build( in ).getRamp() );
+    }
+
+    public void testInvalidRamp()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "InvalidRamp.xml" );
+
+        try
+        {
+            DistributedSystemTestInfoBuilder.build( in );
+            fail( "should have thrown ParseException" );
+        }
+        catch (ParseException e)
+        {
+            // expected and correct
+        }
+    }
+
+    public void testWarmUp()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "WarmUp.xml" );
+
+        DistributedSystemTestInfo testInfo = DistributedSystemTestInfoBuilder.build( in );
+
+        assertTrue( "warm up",
+                    testInfo.isWarmUp() );
+
+        assertTrue( "gc after warm up",
+                    testInfo.isGcAfterWarmUp() );
+
+        in = getClass().getResourceAsStream( "OnlySystemTest.xml" );
+
+        testInfo = DistributedSystemTestInfoBuilder.build( in );
+
+        assertFalse( "no warm up by default",
+                     testInfo.isWarmUp() );
+
+        assertFalse( "no gc by default",
+                     testInfo.isGcAfterWarmUp() );
+    }
+
+    public void testInvalidWarmUp()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "InvalidWarmUp.xml" );
+
+        try
+        {
+            DistributedSystemTestInfoBuilder.build( in );
+            fail( "should have thrown ParseException" );
+        }
+        catch (ParseException e)
+        {
+            // expected and correct
+        }
+    }
+
+    // a tbean runs as its jvm says unless it says otherwise
+    public void testVirtualThreads()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "VirtualThreads.xml" );
+
+        DistributedSystemTestInfo testInfo = DistributedSystemTestInfoBuilder.build( in );
+
+        JvmInfo client = testInfo.getJvm( "client" );
+
+        assertTrue( "client virtual",
+                    client.isVirtualThreads() );
+
+        TBeanInfo tbean = client.getTBeans()[ 0 ];
+
+        assertTrue( "client tbean virtual",
+                    tbean.isVirtualThreads() );
+
+        assertNull( "not a tbean property",
+                    tbean.getProperties().getProperty( "virtualThreads" ) );
+
+        JvmInfo server = testInfo.getJvm( "server" );
+
+        assertFalse( "server not virtual",
+                     server.isVirtualThreads() );
+
+        TBeanInfo[] tbeans = server.getTBeans();
+
+        for ( int i = 0 ; i < tbeans.length ; ++i )
+        {
+            assertEquals( tbeans[ i ].getClassName(),
+                          tbeans[ i ].getClassName().endsWith( "SimpleSynchronizableTBean" ),
+                          tbeans[ i ].isVirtualThreads() );
+        }
+    }
+
+    public void testJvmOptions()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "JvmOptions.xml" );
+
+        DistributedSystemTestInfo testInfo = DistributedSystemTestInfoBuilder.build( in );
+
+        JvmInfo server = testInfo.getJvm( "server" );
+
+        assertEquals( "server heap",
+                      "256m",
+                      server.getHeap() );
+
+        assertEquals( "server gc",
+                      "Serial",
+                      server.getGc() );
+
+        assertLength( "2 server jvmArgs",
+                      2,
+                      server.getJvmArgs() );
+
+        String[] options = server.getJvmOptions();
+
+        assertLength( "5 server options",
+                      5,
+                      options );
+
+        assertEquals( "-Xms256m",
+                      "-Xms256m",
+                      options[ 0 ] );
+
+        assertEquals( "-Xmx256m",
+                      "-Xmx256m",
+                      options[ 1 ] );
+
+        assertEquals( "-XX:+UseSerialGC",
+                      "-XX:+UseSerialGC",
+                      options[ 2 ] );
+
+        assertEquals( "jvmArgs follow in order",
+                      "-Dcheese=gouda",
+                      options[ 4 ] );
+
+        assertLength( "no client options",
+                      0,
+                      testInfo.getJvm( "client" ).getJvmOptions() );
+
+        assertEquals( "server weight",
+                      2,
+                      server.getWeight() );
+
+        assertEquals( "server memory",
+                      256 * 1024 * 1024,
+                      server.getMemory() );
+
+        assertEquals( "client weight defaults to 1",
+                      1,
+                      testInfo.getJvm( "client" ).getWeight() );
+
+        assertEquals( "client memory unknown",
+                      -1,
+                      testInfo.getJvm( "client" ).getMemory() );
+    }
+
+    public void testInvalidHeap()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "InvalidHeap.xml" );
+
+        try
+        {
+            DistributedSystemTestInfoBuilder.build( in );
+            fail( "should have thrown ParseException" );
+        }
+        catch (ParseException e)
+        {
+            // expected and correct
+        }
+    }
+
+    public void testInvalidWeight()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "InvalidWeight.xml" );
+
+        try
+        {
+            DistributedSystemTestInfoBuilder.build( in );
+            fail( "should have thrown ParseException" );
+        }
+        catch (ParseException e)
+        {
+            // expected and correct
+        }
+    }
+
+    public void testAffinity()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "Affinity.xml" );
+
+        DistributedSystemTestInfo testInfo = DistributedSystemTestInfoBuilder.build( in );
+
+        AffinityInfo[] serverAffinities = testInfo.getJvm( "server" ).getAffinities();
+
+        assertLength( "1 server affinity",
+                      1,
+                      serverAffinities );
+
+        assertTrue( "server is apart from itself",
+                    serverAffinities[ 0 ].isAnti() );
+
+        assertEquals( "server apart by rack",
+                      "rack",
+                      serverAffinities[ 0 ].getLevel() );
+
+        AffinityInfo[] clientAffinities = testInfo.getJvm( "client" ).getAffinities();
+
+        assertLength( "2 client affinities",
+                      2,
+                      clientAffinities );
+
+        assertEquals( "client near server",
+                      "server",
+                      clientAffinities[ 0 ].getJvm() );
+
+        assertFalse( "client near server",
+                     clientAffinities[ 0 ].isAnti() );
+
+        assertEquals( "level defaults to host",
+                      AffinityInfo.HOST,
+                      clientAffinities[ 1 ].getLevel() );
+
+        assertLength( "no cache affinities",
+                      0,
+                      testInfo.getJvm( "cache" ).getAffinities() );
+    }
+
+    public void testInvalidAffinity()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "InvalidAffinity.xml" );
+
+        try
+        {
+            DistributedSystemTestInfoBuilder.build( in );
+            fail( "should have thrown ParseException" );
+        }
+        catch (ParseException e)
+        {
+            // expected and correct
+        }
+    }
 }
@@ -55,6 +55,33 @@ public class ScenarioInfoBuilderTest
                       scenarioInfo.getTag( jvmInfo ) );
     }
 
+    public void testTagExpression()
+        throws Exception
+    {
+        setProperty( "test",
+                     "org.sysunit.tests.NoOpTest" );
+
+        setProperty( "jvm.one.tag",
+                     "linux & !slow" );
+
+        assertEquals( "jvm 'one' tagged with an expression",
+                      "linux & !slow",
+                      build().getTag( this.testInfo.getJvm( "one" ) ) );
+
+        setProperty( "jvm.one.tag",
+                     "linux & (slow" );
+
+        try
+        {
+            build();
+            fail( "should have thrown IllegalArgumentException" );
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected and correct
+        }
+    }
+
     public void testJdk()
         throws Exception
     {
@@ -108,6 +135,112 @@ public class ScenarioInfoBuilderTest
                       scenarioInfo.getJdk( jvmInfo ) );
     }
 
+    public void testOpts()
+        throws Exception
+    {
+        setProperty( "test",
+                     "org.sysunit.tests.NoOpTest" );
+
+        setProperty( "jvm.*.opts",
+                     "-Xmx64m" );
+
+        setProperty( "jvm.one.opts",
+                     " -Xmx128m   -Dcheese=gouda " );
+
+        ScenarioInfo scenarioInfo = build();
+
+        DistributedSystemTestInfo testInfo = scenarioInfo.getSystemTestInfo();
+
+        String[] one = scenarioInfo.getJvmOptions( testInfo.getJvm( "one" ) );
+
+        assertLength( "jvm 'one' has 2 options",
+                      2,
+                      one );
+
+        assertEquals( "jvm 'one' has -Xmx128m",
+                      "-Xmx128m",
+                      one[ 0 ] );
+
+        assertEquals( "jvm 'one' has -Dcheese=gouda",
+                      "-Dcheese=gouda",
+                      one[ 1 ] );
+    }
+
+    public void testDefaultOpts()
+        throws Exception
+    {
+        setProperty( "test",
+                     "org.sysunit.tests.NoOpTest" );
+
+        setProperty( "jvm.*.opts",
+                     "-Xmx64m" );
+
+        ScenarioInfo scenarioInfo = build();
+
+        DistributedSystemTestInfo testInfo = scenarioInfo.getSystemTestInfo();
+
+        String[] one = scenarioInfo.getJvmOptions( testInfo.getJvm( "one" ) );
+
+        assertLength( "jvm 'one' has default option",
+                      1,
+                      one );
+
+        assertEquals( "jvm 'one' has -Xmx64m",
+                      "-Xmx64m",
+                      one[ 0 ] );
+    }
+
+    public void testPlacement()
+        throws Exception
+    {
+        setProperty( "test",
+                     "org.sysunit.tests.NoOpTest" );
+
+        assertEquals( "round-robin by default",
+                      ScenarioInfo.ROUND_ROBIN,
+                      build().getPlacement() );
+
+        setProperty( "placement",
+                     "binpacking" );
+
+        assertEquals( "bin-packing",
+                      ScenarioInfo.BIN_PACKING,
+                      build().getPlacement() );
+
+        setProperty( "placement",
+                     "random" );
+
+        try
+        {
+            build();
+            fail( "should have thrown IllegalArgumentException" );
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected and correct
+        }
+    }
+
+    public void testSpread()
+        throws Exception
+    {
+        setProperty( "test",
+                     "org.sysunit.tests.NoOpTest" );
+
+        ScenarioInfo scenarioInfo = build();
+
+        assertFalse( "not spread by default",
+                     scenarioInfo.isSpread( this.testInfo.getJvm( "one" ) ) );
+
+        setProperty( "jvm.*.spread",
+                     "true" );
+
+        scenarioInfo = build();
+
+        assertTrue( "jvm 'one' is spread",
+                    scenarioInfo.isSpread( this.testInfo.getJvm( "one" ) ) );
+    }
+
     void setProperty(String name,
                      String value)
     {
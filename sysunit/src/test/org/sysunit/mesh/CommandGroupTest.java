@@ -1,8 +1,5 @@
 package org.sysunit.mesh;
 
-import java.util.Map;
-import java.util.HashMap;
-
 public class CommandGroupTest
     extends MeshTestBase
 {
@@ -16,9 +13,9 @@ public class CommandGroupTest
     public void testNoneInFlight()
         throws Exception
     {
-        Map map = new HashMap();
+        InFlightCommands inFlight = new InFlightCommands();
 
-        CommandGroup group = new CommandGroup( map );
+        CommandGroup group = new CommandGroup( inFlight );
 
         group.add( 1 );
         group.add( 2 );
@@ -34,22 +31,18 @@ public class CommandGroupTest
     public void testInFlight()
         throws Exception
     {
-        Map map = new HashMap();
+        InFlightCommands inFlight = new InFlightCommands();
 
-        CommandGroup group = new CommandGroup( map );
+        CommandGroup group = new CommandGroup( inFlight );
 
         group.add( 1 );
         group.add( 2 );
         group.add( 3 );
 
-        map.put( "1",
-                 Boolean.TRUE );
-        map.put( "2",
-                 Boolean.TRUE );
-        map.put( "3",
-                 Boolean.TRUE );
-        map.put( "4",
-                 Boolean.TRUE );
+        inFlight.add( newCommand( 1 ) );
+        inFlight.add( newCommand( 2 ) );
+        inFlight.add( newCommand( 3 ) );
+        inFlight.add( newCommand( 4 ) );
 
         waitFor( group );
 
@@ -57,43 +50,36 @@ public class CommandGroupTest
 
         assertNotTouched();
 
-        synchronized ( map )
-        {
-            map.remove( "1" );
-            map.notifyAll();
-        }
+        inFlight.remove( 1 );
 
         Thread.sleep( 200 );
         assertNotTouched();
 
-        synchronized ( map )
-        {
-            map.remove( "2" );
-            map.notifyAll();
-        }
+        inFlight.remove( 2 );
 
         Thread.sleep( 200 );
         assertNotTouched();
 
-        synchronized ( map )
-        {
-            map.remove( "4" );
-            map.notifyAll();
-        }
+        inFlight.remove( 4 );
 
         Thread.sleep( 200 );
         assertNotTouched();
 
-        synchronized ( map )
-        {
-            map.remove( "3" );
-            map.notifyAll();
-        }
+        inFlight.remove( 3 );
 
         Thread.sleep( 200 );
         assertTouched();
     }
 
+    Command newCommand(int uid)
+    {
+        Command command = new MockCommand( uid );
+
+        command.setUid( uid );
+
+        return command;
+    }
+
     void waitFor(final CommandGroup group)
     {
         Thread thr = new Thread()
@@ -0,0 +1,51 @@
+package org.sysunit.mesh;
+
+import java.util.Set;
+import java.util.HashSet;
+
+public class NodeTest
+    extends MeshTestBase
+{
+    public void testUidsUnique()
+        throws Exception
+    {
+        final Node node = new Node( "node" );
+
+        final Set uids = new HashSet();
+
+        Thread[] threads = new Thread[ 8 ];
+
+        for ( int i = 0 ; i < threads.length ; ++i )
+        {
+            threads[ i ] = new Thread()
+                {
+                    public void run()
+                    {
+                        for ( int j = 0 ; j < 10000 ; ++j )
+                        {
+                            int uid = node.getNextUid();
+
+                            synchronized ( uids )
+                            {
+                                uids.add( new Integer( uid ) );
+                            }
+                        }
+                    }
+                };
+        }
+
+        for ( int i = 0 ; i < threads.length ; ++i )
+        {
+            threads[ i ].start();
+        }
+
+        for ( int i = 0 ; i < threads.length ; ++i )
+        {
+            threads[ i ].join();
+        }
+
+        assertEquals( "no uid given twice",
+                      threads.length * 10000,
+                      uids.size() );
+    }
+}
@@ -0,0 +1,56 @@
+package org.sysunit.metrics;
+
+public class CounterTest
+    extends MetricsTestBase
+{
+    public void testConcurrentIncrements()
+        throws Exception
+    {
+        final Counter counter = new Counter();
+
+        Thread[] threads = new Thread[ 8 ];
+
+        for ( int i = 0 ; i < threads.length ; ++i )
+        {
+            threads[ i ] = new Thread()
+                {
+                    public void run()
+                    {
+                        for ( int j = 0 ; j < 100000 ; ++j )
+                        {
+                            counter.increment();
+                        }
+                    }
+                };
+
+            threads[ i ].start();
+        }
+
+        for ( int i = 0 ; i < threads.length ; ++i )
+        {
+            threads[ i ].join();
+        }
+
+        assertEquals( "every increment",
+                      800000,
+                      counter.get() );
+
+        counter.reset();
+
+        assertEquals( "reset",
+                      0,
+                      counter.get() );
+    }
+
+    public void testStripes()
+        throws Exception
+    {
+        assertEquals( "1 processor",
+                      2,
+                      Counter.stripes( 1 ) );
+
+        assertEquals( "6 processors",
+                      16,
+                      Counter.stripes( 6 ) );
+    }
+}
@@ -0,0 +1,164 @@
+package org.sysunit.metrics;
+
+public class HistogramTest
+    extends MetricsTestBase
+{
+    public void testEmpty()
+        throws Exception
+    {
+        Histogram histogram = new Histogram();
+
+        assertEquals( "no count",
+                      0,
+                      histogram.getCount() );
+
+        assertEquals( "no min",
+                      0,
+                      histogram.getMin() );
+
+        assertEquals( "no p99",
+                      0,
+                      histogram.getValueAtPercentile( 99 ) );
+    }
+
+    public void testSmallValuesExact()
+        throws Exception
+    {
+        Histogram histogram = new Histogram();
+
+        for ( int i = 1 ; i <= 100 ; ++i )
+        {
+            histogram.record( i );
+        }
+
+        assertEquals( "p50",
+                      50,
+                      histogram.getValueAtPercentile( 50 ) );
+
+        assertEquals( "p99",
+                      99,
+                      histogram.getValueAtPercentile( 99 ) );
+
+        assertEquals( "p100",
+                      100,
+                      histogram.getValueAtPercentile( 100 ) );
+
+        assertEquals( "min",
+                      1,
+                      histogram.getMin() );
+
+        assertEquals( "mean",
+                      50.5,
+                      histogram.getMean(),
+                      0.001 );
+    }
+
+    public void testLargeValuesWithinPrecision()
+        throws Exception
+    {
+        Histogram histogram = new Histogram();
+
+        for ( long value = 1000 ; value <= 1000000000000L ; value = value * 3 + 7 )
+        {
+            histogram.reset();
+            histogram.record( value );
+            histogram.record( 0 );
+
+            long p100 = histogram.getValueAtPercentile( 100 );
+
+            assertEquals( "max exact",
+                          value,
+                          p100 );
+
+            histogram.record( value * 2 );
+
+            long p66 = histogram.getValueAtPercentile( 66 );
+
+            assertTrue( value + " within 1 in 64, was " + p66,
+                        p66 >= value
+                        &&
+                        p66 - value <= value / 64 );
+        }
+    }
+
+    public void testBuckets()
+        throws Exception
+    {
+        long[] values = new long[] { 0, 1, 127, 128, 129, 255, 256, 1000, 123456789, Long.MAX_VALUE };
+
+        for ( int i = 0 ; i < values.length ; ++i )
+        {
+            int index = Histogram.indexOf( values[ i ] );
+
+            assertTrue( values[ i ] + " >= lowest of its bucket",
+                        values[ i ] >= Histogram.lowestValueOf( index ) );
+
+            assertTrue( values[ i ] + " <= highest of its bucket",
+                        values[ i ] <= Histogram.highestValueOf( index ) );
+        }
+
+        assertEquals( "buckets contiguous",
+                      Histogram.highestValueOf( 200 ) + 1,
+                      Histogram.lowestValueOf( 201 ) );
+    }
+
+    public void testMerge()
+        throws Exception
+    {
+        Histogram all   = new Histogram();
+        Histogram left  = new Histogram();
+        Histogram right = new Histogram();
+
+        for ( long value = 1 ; value < 10000000 ; value = value * 7 + 3 )
+        {
+            all.record( value );
+
+            ( ( value % 2 == 0 )
+              ? left
+              : right ).record( value );
+        }
+
+        left.merge( right );
+        left.merge( new Histogram() );
+
+        assertEquals( "count",
+                      all.getCount(),
+                      left.getCount() );
+
+        assertEquals( "min",
+                      all.getMin(),
+                      left.getMin() );
+
+        assertEquals( "max",
+                      all.getMax(),
+                      left.getMax() );
+
+        assertEquals( "mean",
+                      all.getMean(),
+                      left.getMean(),
+                      0.001 );
+
+        for ( int p = 0 ; p <= 100 ; p += 5 )
+        {
+            assertEquals( "p" + p,
+                          all.getValueAtPercentile( p ),
+                          left.getValueAtPercentile( p ) );
+        }
+    }
+
+    public void testNegativeAsZero()
+        throws Exception
+    {
+        Histogram histogram = new Histogram();
+
+        histogram.record( -5 );
+
+        assertEquals( "max",
+                      0,
+                      histogram.getMax() );
+
+        assertEquals( "count",
+                      1,
+                      histogram.getCount() );
+    }
+}
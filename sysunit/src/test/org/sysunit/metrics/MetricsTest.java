@@ -0,0 +1,123 @@
+package org.sysunit.metrics;
+
+import java.util.Map;
+
+public class MetricsTest
+    extends MetricsTestBase
+{
+    public void testMergedByName()
+        throws Exception
+    {
+        Metrics metrics = new Metrics();
+
+        Histogram latency1 = metrics.createHistogram( "latency" );
+        Histogram latency2 = metrics.createHistogram( "latency" );
+        Histogram size     = metrics.createHistogram( "size" );
+
+        assertNotSame( "a histogram per caller",
+                       latency1,
+                       latency2 );
+
+        latency1.record( 10 );
+        latency2.record( 20 );
+        size.record( 1000 );
+
+        Map histograms = metrics.getHistograms();
+
+        assertEquals( "2 names",
+                      2,
+                      histograms.size() );
+
+        Histogram latency = (Histogram) histograms.get( "latency" );
+
+        assertEquals( "latency count",
+                      2,
+                      latency.getCount() );
+
+        assertEquals( "latency max",
+                      20,
+                      latency.getMax() );
+
+        latency1.record( 30 );
+
+        assertEquals( "snapshot unchanged",
+                      2,
+                      latency.getCount() );
+    }
+
+    public void testReset()
+        throws Exception
+    {
+        Metrics metrics = new Metrics();
+
+        Histogram latency = metrics.createHistogram( "latency" );
+
+        latency.record( 10 );
+
+        metrics.reset();
+
+        assertEquals( "reset",
+                      0,
+                      latency.getCount() );
+
+        latency.record( 20 );
+
+        assertEquals( "recorded after reset",
+                      1,
+                      ((Histogram) metrics.getHistograms().get( "latency" )).getCount() );
+    }
+
+    public void testSample()
+        throws Exception
+    {
+        Metrics metrics = new Metrics();
+
+        Counter requests = metrics.createCounter( "requests" );
+
+        assertSame( "a counter per name",
+                    requests,
+                    metrics.createCounter( "requests" ) );
+
+        Gauge connections = metrics.createGauge( "connections" );
+
+        requests.add( 10 );
+        connections.set( 3 );
+
+        Sample sample = metrics.sample();
+
+        assertEquals( "counted since created",
+                      new Long( 10 ),
+                      sample.getCounters().get( "requests" ) );
+
+        assertEquals( "gauge",
+                      new Long( 3 ),
+                      sample.getGauges().get( "connections" ) );
+
+        requests.add( 5 );
+        connections.add( -1 );
+
+        sample = metrics.sample();
+
+        assertEquals( "counted since last sample",
+                      new Long( 5 ),
+                      sample.getCounters().get( "requests" ) );
+
+        assertEquals( "gauge moved",
+                      new Long( 2 ),
+                      sample.getGauges().get( "connections" ) );
+
+        requests.add( 4 );
+
+        metrics.reset();
+
+        requests.add( 1 );
+
+        assertEquals( "counted since reset",
+                      new Long( 1 ),
+                      metrics.sample().getCounters().get( "requests" ) );
+
+        assertEquals( "gauge kept",
+                      2,
+                      connections.get() );
+    }
+}
@@ -0,0 +1,9 @@
+package org.sysunit.metrics;
+
+import org.sysunit.SysUnitTestBase;
+
+public class MetricsTestBase
+    extends SysUnitTestBase
+{
+
+}
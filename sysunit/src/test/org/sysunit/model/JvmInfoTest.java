@@ -0,0 +1,43 @@
+package org.sysunit.model;
+
+public class JvmInfoTest
+    extends ModelTestBase
+{
+    public void testGcOption()
+        throws Exception
+    {
+        assertGcOption( "G1",
+                        "-XX:+UseG1GC" );
+
+        assertGcOption( "G1GC",
+                        "-XX:+UseG1GC" );
+
+        assertGcOption( "ZGC",
+                        "-XX:+UseZGC" );
+
+        assertGcOption( "Shenandoah",
+                        "-XX:+UseShenandoahGC" );
+
+        assertGcOption( "ParallelGC",
+                        "-XX:+UseParallelGC" );
+    }
+
+    void assertGcOption(String gc,
+                        String option)
+    {
+        JvmInfo jvmInfo = new JvmInfo( "server",
+                                       1 );
+
+        jvmInfo.setGc( gc );
+
+        String[] options = jvmInfo.getJvmOptions();
+
+        assertEquals( "one option for " + gc,
+                      1,
+                      options.length );
+
+        assertEquals( gc,
+                      option,
+                      options[ 0 ] );
+    }
+}
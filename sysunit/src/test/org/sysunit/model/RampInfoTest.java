@@ -0,0 +1,63 @@
+package org.sysunit.model;
+
+public class RampInfoTest
+    extends ModelTestBase
+{
+    public void testStepped()
+        throws Exception
+    {
+        RampInfo ramp = new RampInfo( RampInfo.STEPPED,
+                                      60000,
+                                      4 );
+
+        assertEquals( "4 waves",
+                      4,
+                      ramp.getWaves() );
+
+        assertEquals( "first at once",
+                      0,
+                      ramp.getWaveTime( 0 ) );
+
+        assertEquals( "last 3/4 through",
+                      45000,
+                      ramp.getWaveTime( 3 ) );
+    }
+
+    public void testLinear()
+        throws Exception
+    {
+        RampInfo ramp = new RampInfo( RampInfo.LINEAR,
+                                      60000,
+                                      1 );
+
+        assertEquals( "a wave a second",
+                      60,
+                      ramp.getWaves() );
+
+        assertEquals( "at least one wave",
+                      1,
+                      new RampInfo( RampInfo.LINEAR,
+                                    500,
+                                    1 ).getWaves() );
+    }
+
+    public void testReleased()
+        throws Exception
+    {
+        assertEquals( "a quarter",
+                      25,
+                      RampInfo.getReleased( 100, 0, 4 ) );
+
+        assertEquals( "every one by the last wave",
+                      100,
+                      RampInfo.getReleased( 100, 3, 4 ) );
+
+        assertEquals( "at least one in the first",
+                      1,
+                      RampInfo.getReleased( 2, 0, 4 ) );
+
+        assertEquals( "none to release",
+                      0,
+                      RampInfo.getReleased( 0, 0, 4 ) );
+    }
+}
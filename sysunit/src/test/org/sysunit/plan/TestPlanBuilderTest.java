@@ -4,9 +4,11 @@ import org.sysunit.model.DistributedSystemTestInfo;
 import org.sysunit.model.JvmInfo;
 import org.sysunit.model.ScenarioInfo;
 import org.sysunit.model.PhysicalMachineInfo;
+import org.sysunit.model.AffinityInfo;
 
 import org.sysunit.testmesh.TestMeshManager;
 import org.sysunit.testmesh.master.MasterNode;
+import org.sysunit.mesh.NodeInfo;
 import org.sysunit.testmesh.slavehost.SlaveHostNode;
 import org.sysunit.testmesh.slavehost.SlaveHostConfiguration;
 
@@ -180,6 +182,66 @@ public class TestPlanBuilderTest
         }
     }
 
+    public void testTagExpression()
+        throws Exception
+    {
+        slaveHost( "slave1",
+                   new String[] { "linux", "slow" },
+                   new String[] { "sun1.3.1", "sun1.3.1" } );
+
+        slaveHost( "slave2",
+                   new String[] { "linux" },
+                   new String[] { "sun1.3.1" } );
+
+        slaveHost( "slave3",
+                   new String[] { "solaris" },
+                   new String[] { "sun1.3.1" } );
+
+        jvm( "jvm1",
+             2,
+             "linux & !slow",
+             null );
+
+        jvm( "jvm2",
+             2,
+             "solaris | slow",
+             "sun1.3.1" );
+
+        TestPlan plan = testPlan();
+
+        assertBindings( "jvm1", "slave2", 2,
+                        plan.getJvmBindings() );
+
+        assertBindings( "jvm2", "slave1", 1,
+                        plan.getJvmBindings() );
+
+        assertBindings( "jvm2", "slave3", 1,
+                        plan.getJvmBindings() );
+    }
+
+    public void testHeapExceedsMemory_infeasible()
+        throws Exception
+    {
+        slaveHost( "slave1",
+                   4,
+                   256 * 1024 * 1024 );
+
+        jvm( "jvm1",
+             1,
+             null,
+             null ).setHeap( "512m" );
+
+        try
+        {
+            testPlan();
+            fail( "should have thrown InfeasibleTestPlanException" );
+        }
+        catch (InfeasibleTestPlanException e)
+        {
+            // expected and correct
+        }
+    }
+
     public void testRoundRobin_singleMatches()
         throws Exception
     {
@@ -266,6 +328,378 @@ public class TestPlanBuilderTest
                         plan.getJvmBindings() );
     }
 
+    public void testCapacity_fullHostPassedOver()
+        throws Exception
+    {
+        slaveHost( "slave1",
+                   new String[] { "linux" },
+                   new String[] { "sun1.3.1" },
+                   1 );
+
+        slaveHost( "slave2",
+                   new String[] { "linux" },
+                   new String[] { "sun1.3.1" } );
+
+        jvm( "jvm1",
+             4,
+             "linux",
+             "sun1.3.1" );
+
+        TestPlan plan = testPlan();
+
+        assertLength( "4 bindings",
+                      4,
+                      plan.getJvmBindings() );
+
+        assertBindings( "jvm1", "slave1", 1,
+                        plan.getJvmBindings() );
+
+        assertBindings( "jvm1", "slave2", 3,
+                        plan.getJvmBindings() );
+    }
+
+    public void testCapacity_infeasible()
+        throws Exception
+    {
+        slaveHost( "slave1",
+                   new String[] { "linux" },
+                   new String[] { "sun1.3.1" },
+                   1 );
+
+        slaveHost( "slave2",
+                   new String[] { "linux" },
+                   new String[] { "sun1.3.1" },
+                   2 );
+
+        jvm( "jvm1",
+             4,
+             "linux",
+             "sun1.3.1" );
+
+        try
+        {
+            testPlan();
+            fail( "should have thrown InfeasibleTestPlanException" );
+        }
+        catch (InfeasibleTestPlanException e)
+        {
+            // expected and correct
+        }
+    }
+
+    public void testCapacity_reservedByOtherTests()
+        throws Exception
+    {
+        slaveHost( "slave1",
+                   new String[] { "linux" },
+                   new String[] { "sun1.3.1" },
+                   2 );
+
+        slaveHost( "slave2",
+                   new String[] { "linux" },
+                   new String[] { "sun1.3.1" } );
+
+        NodeInfo slave1 = this.master.getSlaveHosts()[ 0 ];
+
+        this.master.getTestMeshManager().reserve( slave1,
+                                                  1 );
+
+        jvm( "jvm1",
+             4,
+             "linux",
+             "sun1.3.1" );
+
+        TestPlan plan = testPlan();
+
+        assertBindings( "jvm1", "slave1", 1,
+                        plan.getJvmBindings() );
+
+        assertBindings( "jvm1", "slave2", 3,
+                        plan.getJvmBindings() );
+    }
+
+    public void testBinPacking_weightedByCores()
+        throws Exception
+    {
+        slaveHost( "big",
+                   8,
+                   -1 );
+
+        slaveHost( "small",
+                   2,
+                   -1 );
+
+        jvm( "jvm1",
+             5,
+             null,
+             null );
+
+        this.scenario.setPlacement( ScenarioInfo.BIN_PACKING );
+
+        TestPlan plan = testPlan();
+
+        assertBindings( "jvm1", "big", 4,
+                        plan.getJvmBindings() );
+
+        assertBindings( "jvm1", "small", 1,
+                        plan.getJvmBindings() );
+    }
+
+    public void testBinPacking_acrossJvms()
+        throws Exception
+    {
+        slaveHost( "slave1",
+                   2,
+                   -1 );
+
+        slaveHost( "slave2",
+                   2,
+                   -1 );
+
+        jvm( "jvm2",
+             2,
+             null,
+             null );
+
+        jvm( "jvm1",
+             1,
+             null,
+             null ).setWeight( 2 );
+
+        this.scenario.setPlacement( ScenarioInfo.BIN_PACKING );
+
+        TestPlan plan = testPlan();
+
+        JvmBinding[] bindings = plan.getJvmBindings();
+
+        String jvm1Host = null;
+
+        for ( int i = 0 ; i < bindings.length ; ++i )
+        {
+            if ( bindings[ i ].getJvmInfo().getName().equals( "jvm1" ) )
+            {
+                jvm1Host = bindings[ i ].getNodeInfo().getName();
+            }
+        }
+
+        assertBindings( "jvm2", jvm1Host, 0,
+                        bindings );
+
+        assertBindings( "jvm2", ( jvm1Host.equals( "slave1" ) ? "slave2" : "slave1" ), 2,
+                        bindings );
+    }
+
+    public void testBinPacking_memory()
+        throws Exception
+    {
+        slaveHost( "slave1",
+                   16,
+                   1024 * 1024 * 1024 );
+
+        jvm( "jvm1",
+             3,
+             null,
+             null ).setHeap( "512m" );
+
+        this.scenario.setPlacement( ScenarioInfo.BIN_PACKING );
+
+        try
+        {
+            testPlan();
+            fail( "should have thrown InfeasibleTestPlanException" );
+        }
+        catch (InfeasibleTestPlanException e)
+        {
+            // expected and correct
+        }
+
+        slaveHost( "slave2",
+                   1,
+                   1024 * 1024 * 1024 );
+
+        TestPlan plan = testPlan();
+
+        assertBindings( "jvm1", "slave1", 2,
+                        plan.getJvmBindings() );
+
+        assertBindings( "jvm1", "slave2", 1,
+                        plan.getJvmBindings() );
+    }
+
+    public void testSpread()
+        throws Exception
+    {
+        slaveHost( "big",
+                   16,
+                   -1 );
+
+        JvmInfo jvm = jvm( "jvm1",
+                           2,
+                           null,
+                           null );
+
+        this.scenario.setPlacement( ScenarioInfo.BIN_PACKING );
+        this.scenario.setSpread( jvm,
+                                 true );
+
+        try
+        {
+            testPlan();
+            fail( "should have thrown InfeasibleTestPlanException" );
+        }
+        catch (InfeasibleTestPlanException e)
+        {
+            // expected and correct
+        }
+
+        slaveHost( "small",
+                   1,
+                   -1 );
+
+        TestPlan plan = testPlan();
+
+        assertBindings( "jvm1", "big", 1,
+                        plan.getJvmBindings() );
+
+        assertBindings( "jvm1", "small", 1,
+                        plan.getJvmBindings() );
+    }
+
+    public void testSpread_roundRobin()
+        throws Exception
+    {
+        slaveHost( "slave1",
+                   new String[] { "linux" },
+                   new String[] { "sun1.3.1" } );
+
+        JvmInfo jvm = jvm( "jvm1",
+                           2,
+                           null,
+                           null );
+
+        this.scenario.setSpread( jvm,
+                                 true );
+
+        try
+        {
+            testPlan();
+            fail( "should have thrown InfeasibleTestPlanException" );
+        }
+        catch (InfeasibleTestPlanException e)
+        {
+            // expected and correct
+        }
+    }
+
+    public void testAffinity_rack()
+        throws Exception
+    {
+        slaveHost( "b1",
+                   "b" );
+
+        slaveHost( "a1",
+                   "a" );
+
+        slaveHost( "b2",
+                   "b" );
+
+        jvm( "server",
+             1,
+             null,
+             null );
+
+        JvmInfo client = jvm( "client",
+                              3,
+                              null,
+                              null );
+
+        client.addAffinity( new AffinityInfo( "server",
+                                              "rack",
+                                              false ) );
+
+        TestPlan plan = testPlan();
+
+        assertBindings( "server", "a1", 0,
+                        plan.getJvmBindings() );
+
+        assertBindings( "client", "a1", 0,
+                        plan.getJvmBindings() );
+    }
+
+    public void testAntiAffinity_rack()
+        throws Exception
+    {
+        slaveHost( "a1",
+                   "a" );
+
+        slaveHost( "a2",
+                   "a" );
+
+        JvmInfo server = jvm( "server",
+                              2,
+                              null,
+                              null );
+
+        server.addAffinity( new AffinityInfo( "server",
+                                              "rack",
+                                              true ) );
+
+        try
+        {
+            testPlan();
+            fail( "should have thrown InfeasibleTestPlanException" );
+        }
+        catch (InfeasibleTestPlanException e)
+        {
+            // expected and correct
+        }
+
+        slaveHost( "b1",
+                   "b" );
+
+        TestPlan plan = testPlan();
+
+        assertBindings( "server", "a1", 1,
+                        plan.getJvmBindings() );
+
+        assertBindings( "server", "b1", 1,
+                        plan.getJvmBindings() );
+    }
+
+    public void testAntiAffinity_unlabelledHosts()
+        throws Exception
+    {
+        slaveHost( "slave1",
+                   (String) null );
+
+        slaveHost( "slave2",
+                   (String) null );
+
+        jvm( "server",
+             1,
+             null,
+             null );
+
+        JvmInfo client = jvm( "client",
+                              1,
+                              null,
+                              null );
+
+        client.addAffinity( new AffinityInfo( "server",
+                                              "rack",
+                                              true ) );
+
+        JvmBinding[] bindings = testPlan().getJvmBindings();
+
+        assertLength( "2 bindings",
+                      2,
+                      bindings );
+
+        assertNotSame( "server and client apart",
+                       bindings[ 0 ].getNodeInfo(),
+                       bindings[ 1 ].getNodeInfo() );
+    }
+
     TestPlan testPlan()
         throws InfeasibleTestPlanException
     {
@@ -279,9 +713,22 @@ public class TestPlanBuilderTest
     void slaveHost(String name,
                    String[] tags,
                    String[] jdks)
+    {
+        slaveHost( name,
+                   tags,
+                   jdks,
+                   -1 );
+    }
+
+    void slaveHost(String name,
+                   String[] tags,
+                   String[] jdks,
+                   int maxJvms)
     {
         SlaveHostConfiguration config = new SlaveHostConfiguration();
 
+        config.setMaxJvms( maxJvms );
+
         for ( int i = 0 ; i < tags.length ; ++i )
         {
             config.addTag( tags[i] );
@@ -300,10 +747,47 @@ public class TestPlanBuilderTest
                                   slaveHost.getPhysicalMachineInfo() );
     }
 
-    void jvm(String name,
-             int count,
-             String tag,
-             String jdk)
+    // a host in a rack, or in none if null
+    void slaveHost(String name,
+                   String rack)
+    {
+        SlaveHostConfiguration config = new SlaveHostConfiguration();
+
+        if ( rack != null )
+        {
+            config.setLocality( "rack",
+                                rack );
+        }
+
+        SlaveHostNode slaveHost = new SlaveHostNode( name,
+                                                     config );
+
+        this.master.addSlaveHost( slaveHost.getLocalNodeInfo(),
+                                  slaveHost.getPhysicalMachineInfo() );
+    }
+
+    // a host advertising cores and memory, -1 if unknown
+    void slaveHost(String name,
+                   int cores,
+                   long memory)
+    {
+        SlaveHostNode slaveHost = new SlaveHostNode( name,
+                                                     new SlaveHostConfiguration() );
+
+        this.master.addSlaveHost( slaveHost.getLocalNodeInfo(),
+                                  new PhysicalMachineInfo( new String[] { "linux" },
+                                                           new String[] { "sun1.3.1" },
+                                                           cores,
+                                                           memory,
+                                                           -1,
+                                                           -1,
+                                                           0 ) );
+    }
+
+    JvmInfo jvm(String name,
+                int count,
+                String tag,
+                String jdk)
     {
         JvmInfo jvm = new JvmInfo( name,
                                    count );
@@ -321,6 +805,8 @@ public class TestPlanBuilderTest
             this.scenario.setJdk( jvm,
                                   jdk );
         }
+
+        return jvm;
     }
 
     void assertBindings(String jvm,
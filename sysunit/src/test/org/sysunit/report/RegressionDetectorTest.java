@@ -0,0 +1,101 @@
+package org.sysunit.report;
+
+public class RegressionDetectorTest
+    extends ReportTestBase
+{
+    public void testSlowdownFlagged()
+    {
+        RunRecord[] records = newRecords( new double[] { 200, 204, 198, 201, 199, 250 } );
+
+        Regression[] regressions = new RegressionDetector().compare( records,
+                                                                     records.length - 1 );
+
+        assertLength( "one regression",
+                      1,
+                      regressions );
+
+        assertEquals( "metric",
+                      "phase.run",
+                      regressions[ 0 ].getMetric() );
+
+        assertEquals( "baseline",
+                      5,
+                      regressions[ 0 ].getBaselineSize() );
+    }
+
+    public void testNoiseNotFlagged()
+    {
+        // 25% slower, but within what the baseline varies by
+        RunRecord[] records = newRecords( new double[] { 200, 280, 150, 260, 110, 250 } );
+
+        assertLength( "no regressions",
+                      0,
+                      new RegressionDetector().compare( records,
+                                                        records.length - 1 ) );
+    }
+
+    public void testSmallSlowdownNotFlagged()
+    {
+        // significant, but under the 10% threshold
+        RunRecord[] records = newRecords( new double[] { 200, 200, 200, 200, 215 } );
+
+        assertLength( "no regressions",
+                      0,
+                      new RegressionDetector().compare( records,
+                                                        records.length - 1 ) );
+    }
+
+    public void testTooFewRuns()
+    {
+        RunRecord[] records = newRecords( new double[] { 200, 200, 400 } );
+
+        assertLength( "no regressions",
+                      0,
+                      new RegressionDetector().compare( records,
+                                                        records.length - 1 ) );
+    }
+
+    public void testFailedRunsNotInBaseline()
+    {
+        RunRecord[] records = newRecords( new double[] { 200, 201, 900, 199, 200, 250 } );
+
+        records[ 2 ].setPassed( false );
+
+        RegressionDetector detector = new RegressionDetector( 3,
+                                                              RegressionDetector.DEFAULT_MIN_SLOWDOWN,
+                                                              RegressionDetector.DEFAULT_MIN_DELTA );
+
+        RunRecord[] baseline = detector.getBaseline( records,
+                                                     records.length - 1 );
+
+        assertLength( "rolling baseline of passed runs",
+                      3,
+                      baseline );
+
+        assertSame( "oldest passed run in window",
+                    records[ 1 ],
+                    baseline[ 0 ] );
+
+        assertLength( "one regression",
+                      1,
+                      detector.compare( records,
+                                        records.length - 1 ) );
+    }
+
+    RunRecord[] newRecords(double[] runs)
+    {
+        RunRecord[] records = new RunRecord[ runs.length ];
+
+        for ( int i = 0 ; i < runs.length ; ++i )
+        {
+            records[ i ] = new RunRecord( i,
+                                          "r" + i,
+                                          true );
+
+            records[ i ].setMetric( "phase.run",
+                                    runs[ i ] );
+        }
+
+        return records;
+    }
+}
@@ -0,0 +1,9 @@
+package org.sysunit.report;
+
+import org.sysunit.SysUnitTestBase;
+
+public class ReportTestBase
+    extends SysUnitTestBase
+{
+
+}
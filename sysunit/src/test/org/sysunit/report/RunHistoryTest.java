@@ -0,0 +1,173 @@
+package org.sysunit.report;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+public class RunHistoryTest
+    extends ReportTestBase
+{
+    private File dir;
+    private RunHistory history;
+
+    public void setUp()
+        throws Exception
+    {
+        this.dir = File.createTempFile( "sysunit-history",
+                                        ".test" );
+        this.dir.delete();
+
+        this.history = new RunHistory( this.dir );
+    }
+
+    public void tearDown()
+    {
+        File[] files = this.dir.listFiles();
+
+        for ( int i = 0 ; files != null && i < files.length ; ++i )
+        {
+            files[ i ].delete();
+        }
+
+        this.dir.delete();
+
+        this.history = null;
+        this.dir     = null;
+    }
+
+    public void testAppend()
+        throws Exception
+    {
+        RunRecord record = new RunRecord( 1000,
+                                          "abc1234",
+                                          true );
+
+        record.setMetric( "phase.run",
+                          250 );
+
+        this.history.append( "client-server.default",
+                             record );
+
+        this.history.append( "client-server.default",
+                             new RunRecord( 2000,
+                                            "def5678",
+                                            false ) );
+
+        RunRecord[] records = this.history.getRecords( "client-server.default" );
+
+        assertLength( "2 runs",
+                      2,
+                      records );
+
+        assertEquals( "revision",
+                      "abc1234",
+                      records[ 0 ].getRevision() );
+
+        assertEquals( "metric",
+                      250,
+                      records[ 0 ].getMetric( "phase.run" ),
+                      0 );
+
+        assertFalse( "failed run",
+                     records[ 1 ].isPassed() );
+
+        assertEquals( "keys",
+                      "client-server.default",
+                      this.history.getKeys()[ 0 ] );
+    }
+
+    public void testUnfinishedLineIgnored()
+        throws Exception
+    {
+        this.history.append( "client-server.default",
+                             new RunRecord( 1000,
+                                            "abc1234",
+                                            true ) );
+
+        OutputStream out = new FileOutputStream( this.history.getFile( "client-server.default" ).getPath(),
+                                                 true );
+
+        out.write( "2000\tdef5678\ttrue\tphase.run=2".getBytes() );
+        out.close();
+
+        assertLength( "only the finished run",
+                      1,
+                      this.history.getRecords( "client-server.default" ) );
+    }
+
+    public void testAppendAfterUnfinishedLine()
+        throws Exception
+    {
+        this.dir.mkdirs();
+
+        OutputStream out = new FileOutputStream( this.history.getFile( "client-server.default" ).getPath() );
+
+        out.write( "1000\tabc".getBytes() );
+        out.close();
+
+        this.history.append( "client-server.default",
+                             new RunRecord( 2000,
+                                            "def5678",
+                                            true ) );
+
+        RunRecord[] records = this.history.getRecords( "client-server.default" );
+
+        assertLength( "only the appended run",
+                      1,
+                      records );
+
+        assertEquals( "appended run on its own line",
+                      "def5678",
+                      records[ 0 ].getRevision() );
+    }
+
+    public void testJvmMetrics()
+    {
+        RunRecord record = new RunRecord( 1000,
+                                          "abc1234",
+                                          true );
+
+        record.addJvm( newJvm( 1001,
+                               200,
+                               4,
+                               20 ) );
+
+        record.addJvm( newJvm( 1002,
+                               300,
+                               6,
+                               60 ) );
+
+        assertEquals( "slowest tbean phase",
+                      300,
+                      record.getMetric( "tbean.client.Client.run" ),
+                      0 );
+
+        assertEquals( "mean wait per sync",
+                      8,
+                      record.getMetric( "sync.client.wait" ),
+                      0 );
+
+        assertTrue( "phase not run",
+                    Double.isNaN( record.getMetric( "tbean.client.Client.assertValid" ) ) );
+    }
+
+    JvmResult newJvm(int jvmId,
+                     long run,
+                     int syncs,
+                     long syncWaitTime)
+    {
+        TBeanTimings timings = new TBeanTimings( "Client" );
+
+        timings.setTime( TBeanTimings.RUN,
+                         run );
+
+        JvmResult jvm = new JvmResult( jvmId,
+                                       "client",
+                                       new TBeanTimings[] { timings } );
+
+        jvm.setSyncStatistics( syncs,
+                               syncWaitTime );
+
+        return jvm;
+    }
+}
@@ -0,0 +1,393 @@
+package org.sysunit.report;
+
+import org.sysunit.metrics.Histogram;
+import org.sysunit.metrics.Metrics;
+
+import junit.framework.AssertionFailedError;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Collections;
+
+public class TestReportTest
+    extends ReportTestBase
+{
+    private File dir;
+    private TestReport report;
+
+    public void setUp()
+        throws Exception
+    {
+        this.dir = File.createTempFile( "sysunit-reports",
+                                        ".test" );
+        this.dir.delete();
+
+        this.report = new TestReport( this.dir,
+                                      "client-server",
+                                      "default" );
+    }
+
+    public void tearDown()
+    {
+        File[] files = this.dir.listFiles();
+
+        for ( int i = 0 ; files != null && i < files.length ; ++i )
+        {
+            files[ i ].delete();
+        }
+
+        this.dir.delete();
+
+        this.report = null;
+        this.dir    = null;
+    }
+
+    public void testJvmWrittenIncrementally()
+        throws Exception
+    {
+        this.report.start();
+
+        this.report.addJvm( newJvm( 1001,
+                                    "client",
+                                    new ReportedFailure[0] ) );
+
+        String json = read( this.report.getJsonFile() );
+
+        assertTrue( "jvm written before finish",
+                    json.indexOf( "\"name\": \"client\"" ) >= 0 );
+
+        assertTrue( "part file written before finish",
+                    read( new File( this.report.getXmlFile().getPath() + ".part" ) ).indexOf( "client-1001/Client" ) >= 0 );
+
+        assertFalse( "xml not written before finish",
+                     this.report.getXmlFile().exists() );
+    }
+
+    public void testJson()
+        throws Exception
+    {
+        this.report.start();
+
+        this.report.setPhaseTime( TBeanTimings.RUN,
+                                  250 );
+
+        this.report.addJvm( newJvm( 1001,
+                                    "client",
+                                    new ReportedFailure[] { new ReportedFailure( "Client",
+                                                                                 TBeanTimings.RUN,
+                                                                                 new Exception( "say \"hi\"" ) ) } ) );
+
+        this.report.finish( 3 );
+
+        String json = read( this.report.getJsonFile() );
+
+        assertTrue( "tbean timings",
+                    json.indexOf( "{ \"id\": \"Client\", \"setUp\": 10, \"run\": 200, \"assertValid\": -1, \"tearDown\": 5 }" ) >= 0 );
+
+        assertTrue( "sync statistics",
+                    json.indexOf( "\"syncs\": 4," ) >= 0
+                    &&
+                    json.indexOf( "\"syncWait\": 30," ) >= 0 );
+
+        assertTrue( "message escaped",
+                    json.indexOf( "\"message\": \"say \\\"hi\\\"\"" ) >= 0 );
+
+        assertTrue( "phases",
+                    json.indexOf( "\"phases\": { \"run\": 250 }," ) >= 0 );
+
+        assertTrue( "barriers",
+                    json.indexOf( "\"barriers\": 3," ) >= 0 );
+
+        assertTrue( "failed",
+                    json.indexOf( "\"passed\": false" ) >= 0 );
+
+        assertTrue( "no startup for a JVM not started for the run",
+                    json.indexOf( "\"startup\"" ) < 0 );
+
+        assertTrue( "document closed",
+                    json.trim().endsWith( "}" ) );
+    }
+
+    public void testStartup()
+        throws Exception
+    {
+        this.report.start();
+
+        JvmResult jvm = newJvm( 1001,
+                                "client",
+                                new ReportedFailure[0] );
+
+        jvm.setStartup( 420,
+                        true );
+
+        this.report.addJvm( jvm );
+
+        this.report.finish( 0 );
+
+        String json = read( this.report.getJsonFile() );
+
+        assertTrue( "startup",
+                    json.indexOf( "\"startup\": 420," ) >= 0 );
+
+        assertTrue( "class-data sharing",
+                    json.indexOf( "\"classDataSharing\": true," ) >= 0 );
+    }
+
+    public void testJUnitXml()
+        throws Exception
+    {
+        this.report.start();
+
+        this.report.addJvm( newJvm( 1001,
+                                    "client",
+                                    new ReportedFailure[] { new ReportedFailure( "Client",
+                                                                                 TBeanTimings.SET_UP,
+                                                                                 new AssertionFailedError( "a < b" ) ) } ) );
+
+        this.report.addJvm( newJvm( 1002,
+                                    "server",
+                                    new ReportedFailure[0] ) );
+
+        this.report.addFailure( new ReportedFailure( null,
+                                                     null,
+                                                     new Exception( "watchdog" ) ) );
+
+        this.report.finish( 0 );
+
+        String xml = read( this.report.getXmlFile() );
+
+        assertTrue( "counts",
+                    xml.indexOf( "tests=\"3\" failures=\"1\" errors=\"1\"" ) >= 0 );
+
+        assertTrue( "tbean testcase with time",
+                    xml.indexOf( "name=\"server-1002/Client\" time=\"0.215\"/>" ) >= 0 );
+
+        assertTrue( "failure escaped",
+                    xml.indexOf( "message=\"a &lt; b\"" ) >= 0 );
+
+        assertTrue( "master testcase",
+                    xml.indexOf( "name=\"master\"" ) >= 0 );
+
+        assertFalse( "part file removed",
+                     new File( this.report.getXmlFile().getPath() + ".part" ).exists() );
+    }
+
+    public void testWrittenAsUtf8()
+        throws Exception
+    {
+        this.report.start();
+
+        this.report.addJvm( newJvm( 1001,
+                                    "client",
+                                    new ReportedFailure[] { new ReportedFailure( "Client",
+                                                                                 TBeanTimings.RUN,
+                                                                                 new Exception( "caf\u00e9 \u65e5\u672c" ) ) } ) );
+
+        this.report.finish( 0 );
+
+        assertTrue( "json message",
+                    read( this.report.getJsonFile() ).indexOf( "caf\u00e9 \u65e5\u672c" ) >= 0 );
+
+        assertTrue( "xml message",
+                    read( this.report.getXmlFile() ).indexOf( "caf\u00e9 \u65e5\u672c" ) >= 0 );
+    }
+
+    public void testHistogramsMerged()
+        throws Exception
+    {
+        JvmResult jvm1 = newJvm( 1001,
+                                 "client",
+                                 new ReportedFailure[0] );
+
+        JvmResult jvm2 = newJvm( 1002,
+                                 "client",
+                                 new ReportedFailure[0] );
+
+        Histogram latency1 = new Histogram();
+        Histogram latency2 = new Histogram();
+
+        // 1 to 100 between them, but p99 of neither alone is 99
+        for ( int i = 1 ; i <= 100 ; ++i )
+        {
+            ( ( i % 2 == 0 )
+              ? latency1
+              : latency2 ).record( i );
+        }
+
+        jvm1.setHistograms( Collections.singletonMap( "latency",
+                                                      latency1 ) );
+        jvm2.setHistograms( Collections.singletonMap( "latency",
+                                                      latency2 ) );
+
+        this.report.start();
+        this.report.addJvm( jvm1 );
+        this.report.addJvm( jvm2 );
+        this.report.finish( 0 );
+
+        Histogram merged = (Histogram) this.report.getHistograms().get( "latency" );
+
+        assertEquals( "every value",
+                      100,
+                      merged.getCount() );
+
+        assertEquals( "p99",
+                      99,
+                      merged.getValueAtPercentile( 99 ) );
+
+        String json = read( this.report.getJsonFile() );
+
+        assertTrue( "per jvm",
+                    json.indexOf( "\"latency\": { \"count\": 50, \"mean\": 51.0, \"p50\": 50," ) >= 0 );
+
+        assertTrue( "cluster-wide",
+                    json.indexOf( "\"latency\": { \"count\": 100, \"mean\": 50.5, \"p50\": 50, \"p99\": 99, \"p99.9\": 100, \"max\": 100 }" ) >= 0 );
+    }
+
+    public void testSeriesWrittenIncrementally()
+        throws Exception
+    {
+        Metrics metrics1 = new Metrics();
+        Metrics metrics2 = new Metrics();
+
+        metrics1.createCounter( "requests" ).add( 5 );
+        metrics1.createGauge( "connections" ).set( 3 );
+        metrics2.createCounter( "requests" ).add( 7 );
+        metrics2.createGauge( "connections" ).set( 4 );
+
+        this.report.start();
+
+        this.report.addSample( 1001,
+                               metrics1.sample() );
+        this.report.addSample( 1002,
+                               metrics2.sample() );
+
+        String csv = read( this.report.getSeriesFile() );
+
+        assertTrue( "counter written before finish",
+                    csv.indexOf( ",1001,requests,counter,5" ) >= 0 );
+
+        assertTrue( "gauge written before finish",
+                    csv.indexOf( ",1002,connections,gauge,4" ) >= 0 );
+
+        metrics1.createCounter( "requests" ).add( 2 );
+        metrics1.createGauge( "connections" ).set( 1 );
+
+        this.report.addSample( 1001,
+                               metrics1.sample() );
+
+        this.report.finish( 0 );
+
+        TimeSeries requests = (TimeSeries) this.report.getSeries().get( "requests" );
+
+        assertFalse( "counter",
+                     requests.isGauge() );
+
+        assertEquals( "every request",
+                      14,
+                      requests.getTotal() );
+
+        TimeSeries connections = (TimeSeries) this.report.getSeries().get( "connections" );
+
+        assertTrue( "gauge",
+                    connections.isGauge() );
+
+        long[] seconds = connections.getSeconds();
+
+        assertEquals( "latest of each jvm",
+                      5,
+                      connections.getValue( seconds[ seconds.length - 1 ] ) );
+
+        String json = read( this.report.getJsonFile() );
+
+        assertTrue( "series",
+                    json.indexOf( "\"requests\": { \"kind\": \"counter\", \"values\": [[" ) >= 0 );
+    }
+
+    public void testSameTBeanFailuresShared()
+        throws Exception
+    {
+        TBeanTimings[] tbeans = new TBeanTimings[] { new TBeanTimings( "Client" ),
+                                                     new TBeanTimings( "Client" ) };
+
+        JvmResult jvm = new JvmResult( 1001,
+                                       "client",
+                                       tbeans );
+
+        jvm.setFailures( new ReportedFailure[] { new ReportedFailure( "Client",
+                                                                      TBeanTimings.RUN,
+                                                                      new Exception( "one" ) ),
+                                                 new ReportedFailure( "Client",
+                                                                      TBeanTimings.RUN,
+                                                                      new Exception( "two" ) ),
+                                                 new ReportedFailure( "Server",
+                                                                      TBeanTimings.RUN,
+                                                                      new Exception( "three" ) ) } );
+
+        this.report.start();
+        this.report.addJvm( jvm );
+        this.report.finish( 0 );
+
+        String xml = read( this.report.getXmlFile() );
+
+        assertTrue( "a testcase per tbean and one for the rest",
+                    xml.indexOf( "tests=\"3\" failures=\"0\" errors=\"3\"" ) >= 0 );
+
+        assertTrue( "unmatched failure on the jvm",
+                    xml.indexOf( "name=\"client-1001\"" ) >= 0 );
+    }
+
+    JvmResult newJvm(int jvmId,
+                     String name,
+                     ReportedFailure[] failures)
+    {
+        TBeanTimings timings = new TBeanTimings( "Client" );
+
+        timings.setTime( TBeanTimings.SET_UP,
+                         10 );
+        timings.setTime( TBeanTimings.RUN,
+                         200 );
+        timings.setTime( TBeanTimings.TEAR_DOWN,
+                         5 );
+
+        JvmResult jvm = new JvmResult( jvmId,
+                                       name,
+                                       new TBeanTimings[] { timings } );
+
+        jvm.setSyncStatistics( 4,
+                               30 );
+
+        jvm.setFailures( failures );
+
+        return jvm;
+    }
+
+    String read(File file)
+        throws Exception
+    {
+        StringBuffer text = new StringBuffer();
+
+        Reader in = new InputStreamReader( new FileInputStream( file ),
+                                           "UTF-8" );
+
+        try
+        {
+            char[] buf = new char[ 8192 ];
+            int read = 0;
+
+            while ( ( read = in.read( buf ) ) >= 0 )
+            {
+                text.append( buf,
+                             0,
+                             read );
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+
+        return text.toString();
+    }
+}
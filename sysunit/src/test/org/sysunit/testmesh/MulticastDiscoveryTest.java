@@ -22,7 +22,8 @@ public class MulticastDiscoveryTest
 
         master.start();
 
-        //Thread.sleep( 5000 );
+        master.waitForSlaveHosts( 3,
+                                  master.getDiscoveryTime() );
 
 
         if ( master.isMulticastEnabled() )
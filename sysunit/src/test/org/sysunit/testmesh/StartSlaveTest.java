@@ -19,7 +19,8 @@ public class StartSlaveTest
         slaveHost.start();
         master.start();
 
-        Thread.sleep( 3000 );
+        master.waitForSlaveHosts( 1,
+                                  master.getDiscoveryTime() );
 
         assertLength( "master has 1 slave",
                       1,
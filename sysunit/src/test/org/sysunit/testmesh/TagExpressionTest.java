@@ -0,0 +1,49 @@
+package org.sysunit.testmesh;
+
+public class TagExpressionTest
+    extends TestMeshTestBase
+{
+    public void testPrecedence()
+        throws Exception
+    {
+        assertEquals( "single tag",
+                      "linux",
+                      TagExpression.parse( " linux " ).toString() );
+
+        assertEquals( "& binds tighter than |",
+                      "((a & b) | c)",
+                      TagExpression.parse( "a & b | c" ).toString() );
+
+        assertEquals( "parentheses group",
+                      "(a & (b | c))",
+                      TagExpression.parse( "a&(b|c)" ).toString() );
+
+        assertEquals( "! binds tightest",
+                      "(!a & !!b)",
+                      TagExpression.parse( "!a & !!b" ).toString() );
+    }
+
+    public void testInvalid()
+        throws Exception
+    {
+        assertInvalid( "" );
+        assertInvalid( "a &" );
+        assertInvalid( "| a" );
+        assertInvalid( "(a | b" );
+        assertInvalid( "a b" );
+        assertInvalid( "a )" );
+    }
+
+    void assertInvalid(String expression)
+    {
+        try
+        {
+            TagExpression.parse( expression );
+            fail( "should have thrown IllegalArgumentException for <" + expression + ">" );
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected and correct
+        }
+    }
+}
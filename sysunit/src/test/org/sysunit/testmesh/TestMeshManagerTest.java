@@ -3,6 +3,7 @@ package org.sysunit.testmesh;
 import org.sysunit.testmesh.master.MasterNode;
 
 import org.sysunit.mesh.LocalNodeInfo;
+import org.sysunit.mesh.NodeInfo;
 import org.sysunit.mesh.MockNode;
 import org.sysunit.model.PhysicalMachineInfo;
 
@@ -151,4 +152,339 @@ public class TestMeshManagerTest
                       5,
                       manager.getSlaveHostsByTagAndJdk( "*", "*" ) );
     }
+
+    public void testSlaveHostRefresh()
+        throws Exception
+    {
+        MasterNode master = new MasterNode();
+        TestMeshManager manager = new TestMeshManager();
+
+        LocalNodeInfo slave1 = new LocalNodeInfo( master,
+                                                  new MockNode( "1" ) );
+
+        manager.addSlaveHost( slave1,
+                              new PhysicalMachineInfo( new String[] { "tag1" },
+                                                       new String[] { "jdk1" } ) );
+
+        PhysicalMachineInfo refreshed = new PhysicalMachineInfo( new String[] { "tag2" },
+                                                                 new String[] { "jdk1" },
+                                                                 4,
+                                                                 1024,
+                                                                 0.5,
+                                                                 8,
+                                                                 3 );
+
+        manager.addSlaveHost( slave1,
+                              refreshed );
+
+        assertLength( "still 1 SlaveHost",
+                      1,
+                      manager.getSlaveHosts() );
+
+        assertLength( "no SlaveHosts for old tag1",
+                      0,
+                      manager.getSlaveHostsByTag( "tag1" ) );
+
+        assertLength( "1 SlaveHost for new tag2",
+                      1,
+                      manager.getSlaveHostsByTag( "tag2" ) );
+
+        assertSame( "refreshed info recorded",
+                    refreshed,
+                    manager.getPhysicalMachineInfo( slave1 ) );
+
+        assertEquals( "5 free jvms",
+                      5,
+                      manager.getPhysicalMachineInfo( slave1 ).getFreeJvms() );
+    }
+
+    public void testReservations()
+        throws Exception
+    {
+        MasterNode master = new MasterNode();
+        TestMeshManager manager = new TestMeshManager();
+
+        LocalNodeInfo slave1 = new LocalNodeInfo( master,
+                                                  new MockNode( "1" ) );
+
+        manager.addSlaveHost( slave1,
+                              new PhysicalMachineInfo( new String[] { "tag1" },
+                                                       new String[] { "jdk1" } ) );
+
+        int first = manager.reserve( slave1,
+                                     2 );
+
+        int second = manager.reserve( slave1,
+                                      1 );
+
+        assertEquals( "2 jvms reserved",
+                      2,
+                      manager.getReservedJvms( slave1 ) );
+
+        assertEquals( "weight 3 reserved",
+                      3,
+                      manager.getReservedWeight( slave1 ) );
+
+        manager.release( slave1,
+                         2,
+                         first );
+
+        assertEquals( "1 jvm reserved after release",
+                      1,
+                      manager.getReservedJvms( slave1 ) );
+
+        manager.addSlaveHost( slave1,
+                              new PhysicalMachineInfo( new String[] { "tag1" },
+                                                       new String[] { "jdk1" } ) );
+
+        assertEquals( "advert drops reservations",
+                      0,
+                      manager.getReservedJvms( slave1 ) );
+
+        int third = manager.reserve( slave1,
+                                     1 );
+
+        manager.release( slave1,
+                         1,
+                         second );
+
+        assertEquals( "release against an old advert frees what it counted",
+                      0,
+                      manager.getReservedJvms( slave1 ) );
+
+        manager.release( slave1,
+                         1,
+                         third );
+
+        assertEquals( "advert overstates by 1",
+                      -1,
+                      manager.getReservedJvms( slave1 ) );
+    }
+
+    public void testEviction()
+        throws Exception
+    {
+        MasterNode master = new MasterNode();
+        TestMeshManager manager = new TestMeshManager();
+
+        LocalNodeInfo slave1 = new LocalNodeInfo( master,
+                                                  new MockNode( "1" ) );
+
+        LocalNodeInfo slave2 = new LocalNodeInfo( master,
+                                                  new MockNode( "2" ) );
+
+        LocalNodeInfo slave3 = new LocalNodeInfo( master,
+                                                  new MockNode( "3" ) );
+
+        manager.addSlaveHost( slave1,
+                              new PhysicalMachineInfo( new String[] { "tag1" },
+                                                       new String[] { "jdk1" } ),
+                              1000 );
+
+        manager.addSlaveHost( slave2,
+                              new PhysicalMachineInfo( new String[] { "tag1" },
+                                                       new String[] { "jdk1" } ),
+                              60000 );
+
+        manager.addSlaveHost( slave3,
+                              new PhysicalMachineInfo( new String[] { "tag1" },
+                                                       new String[] { "jdk1" } ) );
+
+        manager.reserve( slave1,
+                         1 );
+
+        assertLength( "none expired yet",
+                      0,
+                      manager.evictExpired( System.currentTimeMillis() ) );
+
+        NodeInfo[] evicted = manager.evictExpired( System.currentTimeMillis() + 2000 );
+
+        assertLength( "1 evicted",
+                      1,
+                      evicted );
+
+        assertSame( "slave1 evicted",
+                    slave1,
+                    evicted[0] );
+
+        assertLength( "2 SlaveHosts left",
+                      2,
+                      manager.getSlaveHosts() );
+
+        assertLength( "2 SlaveHosts left for tag1",
+                      2,
+                      manager.getSlaveHostsByTag( "tag1" ) );
+
+        assertNull( "no info for evicted",
+                    manager.getPhysicalMachineInfo( slave1 ) );
+
+        assertEquals( "reservations dropped",
+                      0,
+                      manager.getReservedJvms( slave1 ) );
+
+        assertLength( "never evicted without a timeout",
+                      1,
+                      manager.evictExpired( Long.MAX_VALUE ) );
+
+        assertSame( "slave3 remains",
+                    slave3,
+                    manager.getSlaveHosts()[0] );
+    }
+
+    public void testRemoveSlaveHost()
+        throws Exception
+    {
+        MasterNode master = new MasterNode();
+        TestMeshManager manager = new TestMeshManager();
+
+        LocalNodeInfo slave1 = new LocalNodeInfo( master,
+                                                  new MockNode( "1" ) );
+
+        manager.addSlaveHost( slave1,
+                              new PhysicalMachineInfo( new String[] { "tag1" },
+                                                       new String[] { "jdk1" } ),
+                              60000 );
+
+        manager.removeSlaveHost( slave1 );
+
+        assertLength( "no SlaveHosts",
+                      0,
+                      manager.getSlaveHosts() );
+
+        assertLength( "no SlaveHosts for jdk1",
+                      0,
+                      manager.getSlaveHostsByJdk( "jdk1" ) );
+
+        assertLength( "nothing left to evict",
+                      0,
+                      manager.evictExpired( Long.MAX_VALUE ) );
+    }
+
+    public void testTagExpressions()
+        throws Exception
+    {
+        MasterNode master = new MasterNode();
+        TestMeshManager manager = new TestMeshManager();
+
+        LocalNodeInfo slave1 = new LocalNodeInfo( master,
+                                                  new MockNode( "1" ) );
+
+        LocalNodeInfo slave2 = new LocalNodeInfo( master,
+                                                  new MockNode( "2" ) );
+
+        LocalNodeInfo slave3 = new LocalNodeInfo( master,
+                                                  new MockNode( "3" ) );
+
+        LocalNodeInfo slave4 = new LocalNodeInfo( master,
+                                                  new MockNode( "4" ) );
+
+        manager.addSlaveHost( slave1,
+                              new PhysicalMachineInfo( new String[] { "tag1", "tag2" },
+                                                       new String[] { "jdk1" } ) );
+
+        manager.addSlaveHost( slave2,
+                              new PhysicalMachineInfo( new String[] { "tag1" },
+                                                       new String[] { "jdk2" } ) );
+
+        manager.addSlaveHost( slave3,
+                              new PhysicalMachineInfo( new String[] { "tag3" },
+                                                       new String[] { "jdk1" } ) );
+
+        manager.addSlaveHost( slave4,
+                              new PhysicalMachineInfo( new String[] { "*" },
+                                                       new String[] { "*" } ) );
+
+        assertLength( "slave2 and * for tag1 & !tag2",
+                      2,
+                      manager.getSlaveHostsByTag( "tag1 & !tag2" ) );
+
+        assertContains( "slave2 matches tag1 & !tag2",
+                        slave2,
+                        manager.getSlaveHostsByTag( "tag1 & !tag2" ) );
+
+        assertLength( "slave1, slave3 and * for tag2 | tag3",
+                      3,
+                      manager.getSlaveHostsByTag( "tag2 | tag3" ) );
+
+        assertLength( "slave3 and * for !(tag1 | tag2)",
+                      2,
+                      manager.getSlaveHostsByTag( "!(tag1 | tag2)" ) );
+
+        assertLength( "slave1 and * for tag1 & tag2 | cheese",
+                      2,
+                      manager.getSlaveHostsByTag( "tag1 & tag2 | cheese" ) );
+
+        assertLength( "slave1 and * for tag1 jdk1",
+                      2,
+                      manager.getSlaveHostsByTagAndJdk( "tag1",
+                                                        "jdk1" ) );
+
+        HostPredicate onlyKnown = new HostPredicate()
+            {
+                public boolean accept(PhysicalMachineInfo physicalMachineInfo)
+                {
+                    return ! physicalMachineInfo.getTags()[0].equals( "*" );
+                }
+            };
+
+        assertLength( "predicate leaves slave1 and slave3 for jdk1",
+                      2,
+                      manager.getIndex().select( "*",
+                                                 "jdk1",
+                                                 onlyKnown ) );
+    }
+
+    public void testIndexSnapshots()
+        throws Exception
+    {
+        MasterNode master = new MasterNode();
+        TestMeshManager manager = new TestMeshManager();
+
+        LocalNodeInfo slave1 = new LocalNodeInfo( master,
+                                                  new MockNode( "1" ) );
+
+        LocalNodeInfo slave2 = new LocalNodeInfo( master,
+                                                  new MockNode( "2" ) );
+
+        LocalNodeInfo slave3 = new LocalNodeInfo( master,
+                                                  new MockNode( "3" ) );
+
+        manager.addSlaveHost( slave1,
+                              new PhysicalMachineInfo( new String[] { "tag1" },
+                                                       new String[] { "jdk1" } ) );
+
+        manager.addSlaveHost( slave2,
+                              new PhysicalMachineInfo( new String[] { "tag1" },
+                                                       new String[] { "jdk1" } ) );
+
+        HostIndex before = manager.getIndex();
+
+        manager.removeSlaveHost( slave1 );
+
+        manager.addSlaveHost( slave2,
+                              new PhysicalMachineInfo( new String[] { "tag2" },
+                                                       new String[] { "jdk1" } ) );
+
+        assertLength( "earlier index unchanged",
+                      2,
+                      before.select( "tag1",
+                                     null,
+                                     null ) );
+
+        assertLength( "no SlaveHosts for tag1 now",
+                      0,
+                      manager.getSlaveHostsByTag( "tag1" ) );
+
+        manager.addSlaveHost( slave3,
+                              new PhysicalMachineInfo( new String[] { "tag2" },
+                                                       new String[] { "jdk1" } ) );
+
+        assertSame( "slave3 takes slave1's free id, so comes first",
+                    slave3,
+                    manager.getSlaveHostsByTag( "tag2" )[0] );
+
+        assertEquals( "2 SlaveHosts indexed",
+                      2,
+                      manager.getIndex().size() );
+    }
 }
@@ -3,6 +3,8 @@ package org.sysunit.testmesh.master;
 import org.sysunit.mesh.LocalNodeInfo;
 import org.sysunit.mesh.MockNode;
 import org.sysunit.model.PhysicalMachineInfo;
+import org.sysunit.testmesh.slavehost.SlaveHostNode;
+import org.sysunit.testmesh.slavehost.SlaveHostConfiguration;
 
 public class MasterNodeTest
     extends MasterTestBase
@@ -15,4 +17,41 @@ public class MasterNodeTest
         node.start();
         node.stop();
     }
+
+    public void testWaitForSlaveHosts()
+        throws Exception
+    {
+        MasterNode master = new MasterNode();
+
+        master.disableMulticast();
+        master.start();
+
+        try
+        {
+            assertFalse( "no slave host yet",
+                         master.waitForSlaveHosts( 1,
+                                                   100 ) );
+
+            SlaveHostNode slaveHost = new SlaveHostNode( new SlaveHostConfiguration() );
+
+            slaveHost.disableMulticast();
+            slaveHost.start();
+
+            try
+            {
+                // answers the ping sent when nobody answered the first
+                assertTrue( "slave host joined",
+                            master.waitForSlaveHosts( 1,
+                                                      master.getDiscoveryTime() ) );
+            }
+            finally
+            {
+                slaveHost.stop();
+            }
+        }
+        finally
+        {
+            master.stop();
+        }
+    }
 }
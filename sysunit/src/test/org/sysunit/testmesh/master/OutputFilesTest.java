@@ -0,0 +1,142 @@
+package org.sysunit.testmesh.master;
+
+import org.sysunit.util.OutputListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+
+public class OutputFilesTest
+    extends MasterTestBase
+{
+    private File dir;
+    private OutputFiles files;
+
+    public void setUp()
+        throws Exception
+    {
+        this.dir = File.createTempFile( "sysunit-output",
+                                        ".test" );
+        this.dir.delete();
+
+        this.files = new OutputFiles( this.dir );
+    }
+
+    public void tearDown()
+    {
+        this.files.close();
+        this.files.clear();
+        this.dir.delete();
+
+        this.files = null;
+        this.dir   = null;
+    }
+
+    public void testInOrder()
+        throws Exception
+    {
+        write( "jvm1-1001", OutputListener.STDOUT, 0, "abc" );
+        write( "jvm1-1001", OutputListener.STDOUT, 1, "def" );
+
+        assertEquals( "chunks written in order",
+                      "abcdef",
+                      read( "jvm1-1001",
+                            OutputListener.STDOUT ) );
+    }
+
+    public void testOutOfOrder()
+        throws Exception
+    {
+        write( "jvm1-1001", OutputListener.STDOUT, 2, "ghi" );
+        write( "jvm1-1001", OutputListener.STDOUT, 1, "def" );
+
+        assertEquals( "2 chunks held",
+                      2,
+                      this.files.getHeldCount( "jvm1-1001",
+                                               OutputListener.STDOUT ) );
+
+        assertEquals( "nothing written before chunk 0",
+                      "",
+                      read( "jvm1-1001",
+                            OutputListener.STDOUT ) );
+
+        write( "jvm1-1001", OutputListener.STDOUT, 0, "abc" );
+
+        assertEquals( "no chunks held",
+                      0,
+                      this.files.getHeldCount( "jvm1-1001",
+                                               OutputListener.STDOUT ) );
+
+        assertEquals( "chunks written in sequence order",
+                      "abcdefghi",
+                      read( "jvm1-1001",
+                            OutputListener.STDOUT ) );
+    }
+
+    public void testDuplicateIgnored()
+        throws Exception
+    {
+        write( "jvm1-1001", OutputListener.STDOUT, 0, "abc" );
+        write( "jvm1-1001", OutputListener.STDOUT, 0, "abc" );
+
+        assertEquals( "duplicate chunk ignored",
+                      "abc",
+                      read( "jvm1-1001",
+                            OutputListener.STDOUT ) );
+    }
+
+    public void testStreamsAndJvmsSeparate()
+        throws Exception
+    {
+        write( "jvm1-1001", OutputListener.STDOUT, 0, "out1" );
+        write( "jvm1-1001", OutputListener.STDERR, 0, "err1" );
+        write( "jvm2-1002", OutputListener.STDOUT, 0, "out2" );
+
+        assertEquals( "jvm1 stdout",
+                      "out1",
+                      read( "jvm1-1001",
+                            OutputListener.STDOUT ) );
+
+        assertEquals( "jvm1 stderr",
+                      "err1",
+                      read( "jvm1-1001",
+                            OutputListener.STDERR ) );
+
+        assertEquals( "jvm2 stdout",
+                      "out2",
+                      read( "jvm2-1002",
+                            OutputListener.STDOUT ) );
+
+        assertTrue( "jvm1 stdout file",
+                    new File( this.dir,
+                              "jvm1-1001.stdout" ).exists() );
+    }
+
+    void write(String label,
+               int stream,
+               long sequence,
+               String data)
+        throws Exception
+    {
+        this.files.write( label,
+                          stream,
+                          sequence,
+                          data.getBytes() );
+    }
+
+    String read(String label,
+                int stream)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        PrintStream out = new PrintStream( bytes );
+
+        this.files.copy( label,
+                         stream,
+                         out );
+
+        out.flush();
+
+        return bytes.toString();
+    }
+}
@@ -0,0 +1,150 @@
+package org.sysunit.testmesh.registry;
+
+import org.sysunit.mesh.RemoteNodeInfo;
+import org.sysunit.model.PhysicalMachineInfo;
+import org.sysunit.testmesh.master.MasterNode;
+import org.sysunit.testmesh.slavehost.SlaveHostNode;
+import org.sysunit.testmesh.slavehost.SlaveHostConfiguration;
+
+import java.net.InetAddress;
+
+public class RegistryNodeTest
+    extends RegistryTestBase
+{
+    private RegistryNode registry;
+
+    public void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        this.registry = new RegistryNode( 0 );
+        this.registry.start();
+    }
+
+    public void tearDown()
+        throws Exception
+    {
+        this.registry.stop();
+        this.registry = null;
+
+        super.tearDown();
+    }
+
+    public void testLocate()
+        throws Exception
+    {
+        RemoteNodeInfo located = RegistryNode.locate( this.registry,
+                                                      "localhost:5000" );
+
+        assertEquals( "port given",
+                      5000,
+                      located.getPort() );
+
+        assertEquals( "localhost",
+                      InetAddress.getByName( "localhost" ),
+                      located.getAddress() );
+
+        assertEquals( "default port",
+                      RegistryNode.DEFAULT_PORT,
+                      RegistryNode.locate( this.registry,
+                                           "localhost" ).getPort() );
+    }
+
+    public void testEviction()
+        throws Exception
+    {
+        RemoteNodeInfo slaveHost = new RemoteNodeInfo( this.registry,
+                                                       "slave-host",
+                                                       InetAddress.getLocalHost(),
+                                                       1 );
+
+        this.registry.registerSlaveHost( slaveHost,
+                                         new PhysicalMachineInfo(),
+                                         100 );
+
+        assertLength( "1 SlaveHost registered",
+                      1,
+                      this.registry.getSlaveHosts() );
+
+        Thread.sleep( 500 );
+
+        assertLength( "evicted after missed heartbeats",
+                      0,
+                      this.registry.getSlaveHosts() );
+    }
+
+    public void testSubscribe()
+        throws Exception
+    {
+        SlaveHostConfiguration config = new SlaveHostConfiguration();
+        config.setRegistry( "localhost:" + this.registry.getPort() );
+        config.setHeartbeatInterval( 200 );
+
+        SlaveHostNode slaveHost = new SlaveHostNode( config );
+        MasterNode    master    = new MasterNode();
+
+        master.setRegistry( InetAddress.getByName( "localhost" ),
+                            this.registry.getPort() );
+
+        try
+        {
+            slaveHost.start();
+
+            assertTrue( "registered",
+                        waitForSlaveHosts( 1 ) );
+
+            master.start();
+
+            assertTrue( "master sent registered slave host",
+                        master.waitForSlaveHosts( 1,
+                                                  5000 ) );
+
+            assertLength( "1 subscriber",
+                          1,
+                          this.registry.getSubscribers() );
+
+            // heartbeats keep it registered
+            Thread.sleep( 1000 );
+
+            assertLength( "still 1 SlaveHost",
+                          1,
+                          master.getSlaveHosts() );
+
+            slaveHost.stop();
+
+            for ( int i = 0 ; i < 50 && master.getSlaveHosts().length > 0 ; ++i )
+            {
+                Thread.sleep( 100 );
+            }
+
+            assertLength( "unregistered on stop",
+                          0,
+                          master.getSlaveHosts() );
+
+            assertLength( "unregistered from registry",
+                          0,
+                          this.registry.getSlaveHosts() );
+        }
+        finally
+        {
+            master.stop();
+        }
+    }
+
+    boolean waitForSlaveHosts(int count)
+        throws InterruptedException
+    {
+        for ( int i = 0 ; i < 50 ; ++i )
+        {
+            if ( this.registry.getSlaveHosts().length >= count )
+            {
+                return true;
+            }
+
+            Thread.sleep( 100 );
+        }
+
+        return false;
+    }
+}
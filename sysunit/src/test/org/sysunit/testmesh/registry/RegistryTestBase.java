@@ -0,0 +1,9 @@
+package org.sysunit.testmesh.registry;
+
+import org.sysunit.testmesh.TestMeshTestBase;
+
+public class RegistryTestBase
+    extends TestMeshTestBase
+{
+    
+}
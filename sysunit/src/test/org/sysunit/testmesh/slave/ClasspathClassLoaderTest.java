@@ -0,0 +1,80 @@
+package org.sysunit.testmesh.slave;
+
+import org.sysunit.util.ClasspathServer;
+
+import java.io.InputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+public class ClasspathClassLoaderTest
+    extends SlaveTestBase
+{
+    private static final String RESOURCE = "org/sysunit/testmesh/master/TestRun.class";
+
+    public void testGzippedResourceInflated()
+        throws Exception
+    {
+        ClasspathServer server = new ClasspathServer( 1 );
+
+        server.start();
+
+        try
+        {
+            String[] relativeUrls = server.getRelativeUrls();
+
+            URL[] urls = new URL[ relativeUrls.length ];
+
+            for ( int i = 0 ; i < urls.length ; ++i )
+            {
+                urls[ i ] = new URL( "http://127.0.0.1:" + server.getPort() + relativeUrls[ i ] );
+            }
+
+            ClasspathClassLoader cl = new ClasspathClassLoader( urls,
+                                                                null );
+
+            InputStream in = cl.getResourceAsStream( RESOURCE );
+
+            assertTrue( "served gzipped",
+                        in instanceof GZIPInputStream );
+
+            assertTrue( "inflated to the class file",
+                        Arrays.equals( read( getClass().getClassLoader().getResourceAsStream( RESOURCE ) ),
+                                       read( in ) ) );
+
+            cl.close();
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
+    byte[] read(InputStream in)
+        throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        byte[] buf = new byte[1024];
+        int len = 0;
+
+        try
+        {
+            while ( ( len = in.read( buf,
+                                     0,
+                                     buf.length ) ) > 0 )
+            {
+                bytes.write( buf,
+                             0,
+                             len );
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+
+        return bytes.toByteArray();
+    }
+}
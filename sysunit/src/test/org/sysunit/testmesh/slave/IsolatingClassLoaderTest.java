@@ -0,0 +1,82 @@
+package org.sysunit.testmesh.slave;
+
+import org.sysunit.TBean;
+
+import java.io.File;
+import java.net.URL;
+
+public class IsolatingClassLoaderTest
+    extends SlaveTestBase
+{
+    public void testIsShared()
+        throws Exception
+    {
+        assertTrue( "java.lang.String is shared",
+                    IsolatingClassLoader.isShared( "java.lang.String" ) );
+
+        assertTrue( "org.sysunit.TBean is shared",
+                    IsolatingClassLoader.isShared( "org.sysunit.TBean" ) );
+
+        assertTrue( "org.sysunit.util.TBeanThread is shared",
+                    IsolatingClassLoader.isShared( "org.sysunit.util.TBeanThread" ) );
+
+        assertFalse( "org.sysunit.tests.NoOpTBean is not shared",
+                     IsolatingClassLoader.isShared( "org.sysunit.tests.NoOpTBean" ) );
+
+        assertFalse( "com.myco.MyTBean is not shared",
+                     IsolatingClassLoader.isShared( "com.myco.MyTBean" ) );
+    }
+
+    public void testIsolation()
+        throws Exception
+    {
+        String classpath = System.getProperty( "java.class.path" );
+
+        ClassLoader parent = getClass().getClassLoader();
+
+        ClassLoader cl1 = new IsolatingClassLoader( classpath,
+                                                    parent );
+
+        ClassLoader cl2 = new IsolatingClassLoader( classpath,
+                                                    parent );
+
+        Class tbean1 = cl1.loadClass( "org.sysunit.tests.NoOpTBean" );
+        Class tbean2 = cl2.loadClass( "org.sysunit.tests.NoOpTBean" );
+
+        assertNotSame( "tbean classes isolated from each other",
+                       tbean1,
+                       tbean2 );
+
+        assertNotSame( "tbean class isolated from parent",
+                       parent.loadClass( "org.sysunit.tests.NoOpTBean" ),
+                       tbean1 );
+
+        assertSame( "TBean interface shared",
+                    TBean.class,
+                    cl1.loadClass( "org.sysunit.TBean" ) );
+
+        assertTrue( "isolated tbean is a TBean",
+                    TBean.class.isAssignableFrom( tbean1 ) );
+    }
+
+    // spaces and # in a path are escaped rather than cutting it short
+    public void testToUrls()
+        throws Exception
+    {
+        File dir = new File( System.getProperty( "java.io.tmpdir" ),
+                             "my classes#1" ).getAbsoluteFile();
+
+        URL[] urls = IsolatingClassLoader.toUrls( dir.getPath() + File.pathSeparator + "lib.jar" );
+
+        assertEquals( "one per entry",
+                      2,
+                      urls.length );
+
+        assertTrue( "escaped: " + urls[ 0 ],
+                    urls[ 0 ].toExternalForm().indexOf( "my%20classes%231" ) >= 0 );
+
+        assertEquals( "same file",
+                      dir,
+                      new File( urls[ 0 ].toURI() ) );
+    }
+}
@@ -0,0 +1,9 @@
+package org.sysunit.testmesh.slave;
+
+import org.sysunit.testmesh.TestMeshTestBase;
+
+public class SlaveTestBase
+    extends TestMeshTestBase
+{
+    
+}
@@ -0,0 +1,117 @@
+package org.sysunit.testmesh.slavehost;
+
+import java.io.File;
+
+public class ClassDataSharingTest
+    extends SlaveHostTestBase
+{
+    private File dir;
+
+    public void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        this.dir = new File( System.getProperty( "java.io.tmpdir" ),
+                             "sysunit-cds-test-" + System.currentTimeMillis() );
+    }
+
+    public void tearDown()
+        throws Exception
+    {
+        File[] files = this.dir.listFiles();
+
+        if ( files != null )
+        {
+            for ( int i = 0 ; i < files.length ; ++i )
+            {
+                files[ i ].delete();
+            }
+        }
+
+        this.dir.delete();
+        this.dir = null;
+
+        super.tearDown();
+    }
+
+    public void testTraining()
+        throws Exception
+    {
+        File javaHome = new File( System.getProperty( "java.home" ) );
+
+        ClassDataSharing cds = new ClassDataSharing( this.dir,
+                                                     System.getProperty( "java.class.path" ) );
+
+        cds.setEnabled( true );
+
+        assertLength( "no options before training",
+                      0,
+                      cds.getJvmOptions( javaHome ) );
+
+        cds.waitForTraining( javaHome,
+                             60000 );
+
+        assertFalse( "training complete",
+                     cds.isTraining( javaHome ) );
+
+        if ( cds.isUnsupported( javaHome ) )
+        {
+            // JDK without dynamic archiving, nothing more to check
+            return;
+        }
+
+        assertTrue( "archive written",
+                    cds.getArchiveFile( javaHome ).length() > 0 );
+
+        String[] options = cds.getJvmOptions( javaHome );
+
+        assertLength( "archive options after training",
+                      2,
+                      options );
+
+        assertEquals( "uses the archive",
+                      "-XX:SharedArchiveFile=" + cds.getArchiveFile( javaHome ).getPath(),
+                      options[ 0 ] );
+    }
+
+    public void testUnsupported()
+        throws Exception
+    {
+        File javaHome = new File( this.dir,
+                                  "no-such-jdk" );
+
+        ClassDataSharing cds = new ClassDataSharing( this.dir,
+                                                     System.getProperty( "java.class.path" ) );
+
+        cds.setEnabled( true );
+
+        cds.getJvmOptions( javaHome );
+
+        cds.waitForTraining( javaHome,
+                             60000 );
+
+        assertTrue( "missing jdk is unsupported",
+                    cds.isUnsupported( javaHome ) );
+
+        assertLength( "no options for unsupported jdk",
+                      0,
+                      cds.getJvmOptions( javaHome ) );
+    }
+
+    public void testDisabled()
+        throws Exception
+    {
+        ClassDataSharing cds = new ClassDataSharing( this.dir,
+                                                     System.getProperty( "java.class.path" ) );
+
+        cds.setEnabled( false );
+
+        assertLength( "no options when disabled",
+                      0,
+                      cds.getJvmOptions( new File( System.getProperty( "java.home" ) ) ) );
+
+        assertFalse( "no training when disabled",
+                     cds.isTraining( new File( System.getProperty( "java.home" ) ) ) );
+    }
+}
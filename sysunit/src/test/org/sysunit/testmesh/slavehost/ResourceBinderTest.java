@@ -0,0 +1,167 @@
+package org.sysunit.testmesh.slavehost;
+
+import java.io.File;
+import java.io.BufferedReader;
+import java.io.FileReader;
+
+public class ResourceBinderTest
+    extends SlaveHostTestBase
+{
+    private File dir;
+
+    public void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        this.dir = new File( System.getProperty( "java.io.tmpdir" ),
+                             "sysunit-cgroup-test-" + System.currentTimeMillis() );
+
+        this.dir.mkdir();
+    }
+
+    public void tearDown()
+        throws Exception
+    {
+        delete( this.dir );
+        this.dir = null;
+
+        super.tearDown();
+    }
+
+    public void testCgroup()
+        throws Exception
+    {
+        new File( this.dir,
+                  "cgroup.controllers" ).createNewFile();
+
+        ResourceBinder binder = new ResourceBinder( this.dir,
+                                                    null );
+
+        ResourceSlot slot = new ResourceSlot( "a",
+                                              "0-1",
+                                              "512m" );
+
+        String[] prefix = binder.getCommandPrefix( slot );
+
+        File cgroup = new File( this.dir,
+                                "sysunit/a" );
+
+        assertEquals( "launched through the shell",
+                      "sh",
+                      prefix[ 0 ] );
+
+        assertEquals( "joins the slot's group",
+                      new File( cgroup,
+                                "cgroup.procs" ).getPath(),
+                      prefix[ prefix.length - 1 ] );
+
+        assertEquals( "cpus limited",
+                      "0-1",
+                      read( new File( cgroup,
+                                      "cpuset.cpus" ) ) );
+
+        assertEquals( "memory limited",
+                      "536870912",
+                      read( new File( cgroup,
+                                      "memory.max" ) ) );
+
+        assertEquals( "description",
+                      "slot a: cpus 0-1, memory 512m, via cgroup",
+                      binder.getDescription( slot ) );
+    }
+
+    public void testTaskset()
+        throws Exception
+    {
+        ResourceBinder binder = new ResourceBinder( this.dir,
+                                                    new File( "/usr/bin/taskset" ) );
+
+        ResourceSlot slot = new ResourceSlot( "b",
+                                              "2,3",
+                                              "1g" );
+
+        String[] prefix = binder.getCommandPrefix( slot );
+
+        assertLength( "taskset -c <cpus>",
+                      3,
+                      prefix );
+
+        assertEquals( "cpus",
+                      "2,3",
+                      prefix[ 2 ] );
+
+        assertEquals( "description",
+                      "slot b: cpus 2,3, memory 1g not enforced, via taskset",
+                      binder.getDescription( slot ) );
+    }
+
+    public void testUnbound()
+        throws Exception
+    {
+        ResourceBinder binder = new ResourceBinder( null,
+                                                    null );
+
+        ResourceSlot slot = new ResourceSlot( "c",
+                                              "4",
+                                              null );
+
+        assertLength( "no prefix",
+                      0,
+                      binder.getCommandPrefix( slot ) );
+
+        assertEquals( "description",
+                      "slot c: not enforced",
+                      binder.getDescription( slot ) );
+    }
+
+    public void testParseMemory()
+        throws Exception
+    {
+        assertEquals( "bytes",
+                      100,
+                      ResourceSlot.parseMemory( "100" ) );
+
+        assertEquals( "kilobytes",
+                      2048,
+                      ResourceSlot.parseMemory( "2k" ) );
+
+        assertEquals( "gigabytes",
+                      2L * 1024 * 1024 * 1024,
+                      ResourceSlot.parseMemory( "2G" ) );
+
+        assertEquals( "not a size",
+                      -1,
+                      ResourceSlot.parseMemory( "lots" ) );
+    }
+
+    String read(File file)
+        throws Exception
+    {
+        BufferedReader in = new BufferedReader( new FileReader( file ) );
+
+        try
+        {
+            return in.readLine();
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    void delete(File file)
+    {
+        File[] files = file.listFiles();
+
+        if ( files != null )
+        {
+            for ( int i = 0 ; i < files.length ; ++i )
+            {
+                delete( files[ i ] );
+            }
+        }
+
+        file.delete();
+    }
+}
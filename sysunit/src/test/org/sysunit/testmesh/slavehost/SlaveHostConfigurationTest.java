@@ -54,4 +54,319 @@ public class SlaveHostConfigurationTest
         }
 
     }
+
+    public void testPool()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "pool.conf" );
+
+        SlaveHostConfiguration config = SlaveHostConfiguration.build( in );
+
+        assertLength( "2 pooled jdks",
+                      2,
+                      config.getPooledJdks() );
+
+        assertEquals( "4 pooled sun-1.4.2",
+                      4,
+                      config.getPoolSize( "sun-1.4.2" ) );
+
+        assertEquals( "2 pooled default",
+                      2,
+                      config.getPoolSize( "*" ) );
+
+        assertEquals( "none pooled ibm-1.4.2",
+                      0,
+                      config.getPoolSize( "ibm-1.4.2" ) );
+    }
+
+    public void testInvalidPool()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "invalid-pool.conf" );
+
+        try
+        {
+            SlaveHostConfiguration.build( in );
+
+            fail( "should have thrown SlaveHostConfigurationException" );
+        }
+        catch (SlaveHostConfigurationException e)
+        {
+            // expected and correct
+        }
+    }
+
+    public void testRecycle()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "recycle.conf" );
+
+        SlaveHostConfiguration config = SlaveHostConfiguration.build( in );
+
+        assertEquals( "20 uses",
+                      20,
+                      config.getRecycleUses() );
+
+        assertEquals( "2 idle",
+                      2,
+                      config.getRecycleIdle() );
+    }
+
+    public void testDefaultRecycle()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "valid.conf" );
+
+        SlaveHostConfiguration config = SlaveHostConfiguration.build( in );
+
+        assertEquals( "jvms are not reused by default",
+                      1,
+                      config.getRecycleUses() );
+    }
+
+    public void testInvalidRecycle()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "invalid-recycle.conf" );
+
+        try
+        {
+            SlaveHostConfiguration.build( in );
+
+            fail( "should have thrown SlaveHostConfigurationException" );
+        }
+        catch (SlaveHostConfigurationException e)
+        {
+            // expected and correct
+        }
+    }
+
+    public void testSlots()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "slots.conf" );
+
+        SlaveHostConfiguration config = SlaveHostConfiguration.build( in );
+
+        ResourceSlot[] slots = config.getSlots();
+
+        assertLength( "2 slots",
+                      2,
+                      slots );
+
+        assertEquals( "first slot is a",
+                      "a",
+                      slots[ 0 ].getName() );
+
+        assertEquals( "a has cores 0-1",
+                      "0-1",
+                      slots[ 0 ].getCpus() );
+
+        assertEquals( "a has 512m",
+                      512 * 1024 * 1024,
+                      slots[ 0 ].getMemoryBytes() );
+
+        assertEquals( "b has cores 2,3",
+                      "2,3",
+                      slots[ 1 ].getCpus() );
+
+        assertNull( "b has unlimited memory",
+                    slots[ 1 ].getMemory() );
+    }
+
+    public void testInvalidSlots()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "invalid-slots.conf" );
+
+        try
+        {
+            SlaveHostConfiguration.build( in );
+
+            fail( "should have thrown SlaveHostConfigurationException" );
+        }
+        catch (SlaveHostConfigurationException e)
+        {
+            // expected and correct
+        }
+    }
+
+    public void testCapacity()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "capacity.conf" );
+
+        SlaveHostConfiguration config = SlaveHostConfiguration.build( in );
+
+        assertEquals( "8 jvms",
+                      8,
+                      config.getMaxJvms() );
+
+        assertEquals( "4 queued",
+                      4,
+                      config.getMaxQueued() );
+
+        assertEquals( "8 jvms advertised",
+                      8,
+                      config.getPhysicalMachineInfo().getMaxJvms() );
+    }
+
+    public void testDefaultCapacity()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "valid.conf" );
+
+        SlaveHostConfiguration config = SlaveHostConfiguration.build( in );
+
+        assertEquals( "jvms are unlimited by default",
+                      -1,
+                      config.getMaxJvms() );
+
+        assertEquals( "no queue by default",
+                      0,
+                      config.getMaxQueued() );
+    }
+
+    public void testInvalidCapacity()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "invalid-capacity.conf" );
+
+        try
+        {
+            SlaveHostConfiguration.build( in );
+
+            fail( "should have thrown SlaveHostConfigurationException" );
+        }
+        catch (SlaveHostConfigurationException e)
+        {
+            // expected and correct
+        }
+    }
+
+    public void testOutput()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "output.conf" );
+
+        SlaveHostConfiguration config = SlaveHostConfiguration.build( in );
+
+        assertEquals( "16k buffer",
+                      16 * 1024,
+                      config.getOutputBuffer() );
+
+        assertEquals( "1m spill",
+                      1024 * 1024,
+                      config.getOutputSpill() );
+
+        assertFalse( "no echo",
+                     config.getOutputEcho() );
+    }
+
+    public void testInvalidOutput()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "invalid-output.conf" );
+
+        try
+        {
+            SlaveHostConfiguration.build( in );
+
+            fail( "should have thrown SlaveHostConfigurationException" );
+        }
+        catch (SlaveHostConfigurationException e)
+        {
+            // expected and correct
+        }
+    }
+
+    public void testRegistry()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "registry.conf" );
+
+        SlaveHostConfiguration config = SlaveHostConfiguration.build( in );
+
+        assertEquals( "registry address",
+                      "registry.example.com:4243",
+                      config.getRegistry() );
+
+        assertEquals( "500ms heartbeat",
+                      500,
+                      config.getHeartbeatInterval() );
+    }
+
+    public void testNoRegistry()
+        throws Exception
+    {
+        SlaveHostConfiguration config = new SlaveHostConfiguration();
+
+        assertNull( "no registry",
+                    config.getRegistry() );
+
+        assertEquals( "2s heartbeat",
+                      2000,
+                      config.getHeartbeatInterval() );
+    }
+
+    public void testInvalidRegistry()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "invalid-registry.conf" );
+
+        try
+        {
+            SlaveHostConfiguration.build( in );
+
+            fail( "should have thrown SlaveHostConfigurationException" );
+        }
+        catch (SlaveHostConfigurationException e)
+        {
+            // expected and correct
+        }
+    }
+
+    public void testLocality()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "locality.conf" );
+
+        SlaveHostConfiguration config = SlaveHostConfiguration.build( in );
+
+        assertLength( "2 levels",
+                      2,
+                      config.getLocalityLevels() );
+
+        assertEquals( "rack",
+                      "r12",
+                      config.getLocality( "rack" ) );
+
+        assertEquals( "zone",
+                      "east",
+                      config.getLocality( "zone" ) );
+
+        assertEquals( "rack advertised",
+                      "r12",
+                      config.getPhysicalMachineInfo().getLocality( "rack" ) );
+
+        assertNull( "no datacenter",
+                    config.getPhysicalMachineInfo().getLocality( "datacenter" ) );
+    }
+
+    public void testInvalidLocality()
+        throws Exception
+    {
+        InputStream in = getClass().getResourceAsStream( "invalid-locality.conf" );
+
+        try
+        {
+            SlaveHostConfiguration.build( in );
+
+            fail( "should have thrown SlaveHostConfigurationException" );
+        }
+        catch (SlaveHostConfigurationException e)
+        {
+            // expected and correct
+        }
+    }
 }
@@ -1,5 +1,10 @@
 package org.sysunit.testmesh.slavehost;
 
+import org.sysunit.mesh.RemoteNodeInfo;
+import org.sysunit.util.JvmExecutor;
+
+import java.net.InetAddress;
+
 public class SlaveHostNodeTest
     extends SlaveHostTestBase
 {
@@ -11,4 +16,288 @@ public class SlaveHostNodeTest
         node.start();
         node.stop();
     }
+
+    public void testPool()
+        throws Exception
+    {
+        SlaveHostConfiguration config = new SlaveHostConfiguration();
+
+        config.setPoolSize( "*",
+                            1 );
+
+        SlaveHostNode node = new SlaveHostNode( config );
+
+        node.start();
+
+        try
+        {
+            assertEquals( "1 pooled jvm started",
+                          1,
+                          node.getJvmManager().getPoolCount( "*" ) );
+
+            long stop = System.currentTimeMillis() + 30000;
+
+            while ( node.getJvmManager().getIdleCount( "*" ) == 0
+                    &&
+                    System.currentTimeMillis() < stop )
+            {
+                Thread.sleep( 100 );
+            }
+
+            assertEquals( "1 pooled jvm ready",
+                          1,
+                          node.getJvmManager().getIdleCount( "*" ) );
+        }
+        finally
+        {
+            node.stop();
+        }
+    }
+
+    public void testRecycle()
+        throws Exception
+    {
+        SlaveHostConfiguration config = new SlaveHostConfiguration();
+
+        config.setPoolSize( "*",
+                            1 );
+
+        config.setRecycleUses( 2 );
+
+        SlaveHostNode node = new SlaveHostNode( config );
+
+        node.start();
+
+        try
+        {
+            JvmManager manager = node.getJvmManager();
+
+            waitForIdle( manager,
+                         1 );
+
+            RemoteNodeInfo slave = (RemoteNodeInfo) manager.assignPooledJvm( "*",
+                                                                              7,
+                                                                              node.getLocalNodeInfo() );
+
+            JvmExecutor executor = manager.getJvmExecutor( 7 );
+
+            assertNotNull( "jvm assigned",
+                           executor );
+
+            assertEquals( "no idle jvms",
+                          0,
+                          manager.getIdleCount( "*" ) );
+
+            node.releaseJvms( new int[] { 7 },
+                              new InetAddress[] { slave.getAddress() },
+                              new int[] { slave.getPort() } );
+
+            assertNull( "jvm released",
+                        manager.getJvmExecutor( 7 ) );
+
+            waitForIdle( manager,
+                         1 );
+
+            assertSame( "same jvm recycled",
+                        executor,
+                        ((PooledJvm)manager.getIdleJvms( "*" ).get( 0 )).getExecutor() );
+
+            assertEquals( "used once",
+                          1,
+                          manager.getUses( executor ) );
+
+            manager.assignPooledJvm( "*",
+                                     8,
+                                     node.getLocalNodeInfo() );
+
+            node.releaseJvms( new int[] { 8 },
+                              new InetAddress[] { slave.getAddress() },
+                              new int[] { slave.getPort() } );
+
+            long stop = System.currentTimeMillis() + 30000;
+
+            while ( manager.getThread( executor ) != null
+                    &&
+                    System.currentTimeMillis() < stop )
+            {
+                Thread.sleep( 100 );
+            }
+
+            assertNull( "jvm destroyed after its last use",
+                        manager.getThread( executor ) );
+        }
+        finally
+        {
+            node.stop();
+        }
+    }
+
+    public void testCapacity()
+        throws Exception
+    {
+        SlaveHostConfiguration config = new SlaveHostConfiguration();
+
+        config.setPoolSize( "*",
+                            1 );
+
+        config.setMaxJvms( 1 );
+        config.setMaxQueued( 1 );
+
+        SlaveHostNode node = new SlaveHostNode( config );
+
+        node.start();
+
+        try
+        {
+            JvmManager manager = node.getJvmManager();
+
+            waitForIdle( manager,
+                         1 );
+
+            assertEquals( "first jvm admitted",
+                          JvmManager.ADMITTED,
+                          manager.admit( 7,
+                                         "*",
+                                         JvmManager.NO_JVM_OPTIONS,
+                                         node.getLocalNodeInfo(),
+                                         config.getMaxJvms(),
+                                         config.getMaxQueued() ) );
+
+            RemoteNodeInfo slave = (RemoteNodeInfo) manager.assignPooledJvm( "*",
+                                                                              7,
+                                                                              node.getLocalNodeInfo() );
+
+            assertEquals( "1 running jvm",
+                          1,
+                          node.getPhysicalMachineInfo().getRunningJvms() );
+
+            assertEquals( "no free jvms",
+                          0,
+                          node.getPhysicalMachineInfo().getFreeJvms() );
+
+            assertEquals( "second jvm queued",
+                          JvmManager.QUEUED,
+                          manager.admit( 8,
+                                         "*",
+                                         JvmManager.NO_JVM_OPTIONS,
+                                         node.getLocalNodeInfo(),
+                                         config.getMaxJvms(),
+                                         config.getMaxQueued() ) );
+
+            assertEquals( "third jvm rejected",
+                          JvmManager.REJECTED,
+                          manager.admit( 9,
+                                         "*",
+                                         JvmManager.NO_JVM_OPTIONS,
+                                         node.getLocalNodeInfo(),
+                                         config.getMaxJvms(),
+                                         config.getMaxQueued() ) );
+
+            assertNull( "nothing started while at capacity",
+                        manager.nextQueued( config.getMaxJvms() ) );
+
+            manager.releaseJvm( manager.getJvmExecutor( 7 ),
+                                slave,
+                                config.getRecycleUses(),
+                                config.getRecycleIdle() );
+
+            QueuedStart next = manager.nextQueued( config.getMaxJvms() );
+
+            assertNotNull( "queued jvm started after release",
+                           next );
+
+            assertEquals( "queued jvm is 8",
+                          8,
+                          next.getJvmId() );
+
+            assertEquals( "queue drained",
+                          0,
+                          manager.getQueuedCount() );
+        }
+        finally
+        {
+            node.stop();
+        }
+    }
+
+    // with every slot taken a start waits rather than run unbound
+    public void testSlotsFull()
+        throws Exception
+    {
+        SlaveHostConfiguration config = new SlaveHostConfiguration();
+
+        config.addSlot( new ResourceSlot( "a",
+                                          "0",
+                                          null ) );
+
+        config.setMaxQueued( 1 );
+
+        SlaveHostNode node = new SlaveHostNode( config );
+
+        JvmManager manager = new JvmManager( node,
+                                             new ResourceBinder( null,
+                                                                 null ) );
+
+        JvmExecutor running = new JvmExecutor( 7,
+                                               null,
+                                               "NoSuchMain",
+                                               new String[0],
+                                               manager );
+
+        manager.bindSlot( running,
+                          manager.allocateSlot() );
+
+        assertFalse( "no free slot",
+                     manager.hasFreeSlot() );
+
+        assertEquals( "start queued",
+                      JvmManager.QUEUED,
+                      manager.admit( 8,
+                                     "*",
+                                     JvmManager.NO_JVM_OPTIONS,
+                                     null,
+                                     config.getMaxJvms(),
+                                     config.getMaxQueued() ) );
+
+        assertEquals( "start beyond the queue rejected",
+                      JvmManager.REJECTED,
+                      manager.admit( 9,
+                                     "*",
+                                     JvmManager.NO_JVM_OPTIONS,
+                                     null,
+                                     config.getMaxJvms(),
+                                     config.getMaxQueued() ) );
+
+        assertNull( "nothing started without a slot",
+                    manager.nextQueued( config.getMaxJvms() ) );
+
+        manager.removeJvm( running );
+
+        QueuedStart next = manager.nextQueued( config.getMaxJvms() );
+
+        assertNotNull( "queued start launched once the slot is free",
+                       next );
+
+        assertEquals( "queued start is 8",
+                      8,
+                      next.getJvmId() );
+    }
+
+    void waitForIdle(JvmManager manager,
+                     int count)
+        throws Exception
+    {
+        long stop = System.currentTimeMillis() + 30000;
+
+        while ( manager.getIdleCount( "*" ) < count
+                &&
+                System.currentTimeMillis() < stop )
+        {
+            Thread.sleep( 100 );
+        }
+
+        assertEquals( count + " idle jvms",
+                      count,
+                      manager.getIdleCount( "*" ) );
+    }
 }
@@ -0,0 +1,27 @@
+package org.sysunit.tests;
+
+import org.sysunit.AbstractTBean;
+
+// loops until told to stop, asserting it looped at all
+public class LoopingTBean
+    extends AbstractTBean
+{
+    private int loops;
+
+    public void run()
+        throws Exception
+    {
+        while ( shouldContinue() )
+        {
+            Thread.sleep( 10 );
+            ++this.loops;
+        }
+    }
+
+    public void assertValid()
+        throws Exception
+    {
+        assertTrue( "looped",
+                    this.loops > 0 );
+    }
+}
@@ -0,0 +1,50 @@
+package org.sysunit.tests;
+
+import org.sysunit.AbstractLoadTBean;
+
+// a load TBean whose first operation stalls for stall millis and whose
+// others return at once, asserting it performed expectedOperations if set
+public class StallingLoadTBean
+    extends AbstractLoadTBean
+{
+    private long stall;
+    private int operations;
+    private int expectedOperations = -1;
+
+    public void setStall(long stall)
+    {
+        this.stall = stall;
+    }
+
+    public void setExpectedOperations(int expectedOperations)
+    {
+        this.expectedOperations = expectedOperations;
+    }
+
+    public int getOperations()
+    {
+        return this.operations;
+    }
+
+    protected void operation()
+        throws Exception
+    {
+        if ( this.operations++ == 0
+             &&
+             this.stall > 0 )
+        {
+            Thread.sleep( this.stall );
+        }
+    }
+
+    public void assertValid()
+        throws Exception
+    {
+        if ( this.expectedOperations >= 0
+             &&
+             this.operations != this.expectedOperations )
+        {
+            throw new Exception( "performed " + this.operations + " operations, expected " + this.expectedOperations );
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package org.sysunit.util;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.IOException;
 import java.net.URL;
+import java.net.HttpURLConnection;
+import java.util.zip.GZIPInputStream;
 
 import java.net.URLClassLoader;
 
@@ -254,4 +257,114 @@ public class ClasspathServerTest
                          theResource,
                          theResourceHere );
     }
+
+    public void testAcceptsGzip()
+        throws Exception
+    {
+        ClasspathServer server = new ClasspathServer( 1 );
+
+        assertTrue( "gzip accepted",
+                    server.acceptsGzip( "gzip" ) );
+
+        assertTrue( "GZIP accepted in list",
+                    server.acceptsGzip( "deflate, GZIP;q=0.5" ) );
+
+        assertTrue( "wildcard accepted",
+                    server.acceptsGzip( "*" ) );
+
+        assertFalse( "gzip with q=0 refused",
+                     server.acceptsGzip( "gzip;q=0" ) );
+
+        assertFalse( "identity only refused",
+                     server.acceptsGzip( "identity" ) );
+
+        assertFalse( "no header refused",
+                     server.acceptsGzip( null ) );
+    }
+
+    public void testAccept_Compressed()
+        throws Exception
+    {
+        File dir = new File( System.getProperty( "java.io.tmpdir" ),
+                             "sysunit-gz-" + System.currentTimeMillis() );
+
+        dir.mkdirs();
+
+        File file = new File( dir,
+                              "fixture.txt" );
+
+        FileOutputStream fileOut = new FileOutputStream( file );
+
+        for ( int i = 0 ; i < 2000 ; ++i )
+        {
+            fileOut.write( ("line " + ( i % 10 ) + " of a repetitive fixture\n").getBytes() );
+        }
+
+        fileOut.close();
+
+        ClasspathServer server = new ClasspathServer( 1 );
+
+        server.init( dir.getPath() );
+
+        server.start();
+
+        try
+        {
+            URL url = new URL( "http://127.0.0.1:" + server.getPort() + "/" + dir.getName() + "/fixture.txt" );
+
+            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+
+            conn.setRequestProperty( "Accept-Encoding",
+                                     "gzip" );
+
+            assertEquals( "gzip content encoding",
+                          "gzip",
+                          conn.getContentEncoding() );
+
+            assertTrue( "compressed content length smaller than file",
+                        conn.getContentLength() < file.length() );
+
+            assertEquals( "decompressed length same as file",
+                          file.length(),
+                          count( new GZIPInputStream( conn.getInputStream() ) ) );
+
+            conn = (HttpURLConnection) url.openConnection();
+
+            conn.setRequestProperty( "Accept-Encoding",
+                                     "identity" );
+
+            assertNull( "no content encoding without gzip accepted",
+                        conn.getContentEncoding() );
+
+            assertEquals( "identity length same as file",
+                          file.length(),
+                          count( conn.getInputStream() ) );
+        }
+        finally
+        {
+            server.stop();
+            file.delete();
+            dir.delete();
+        }
+    }
+
+    long count(InputStream in)
+        throws IOException
+    {
+        byte[] buf = new byte[1024];
+        int len = 0;
+
+        long totalBytes = 0;
+
+        while ( ( len = in.read( buf,
+                                 0,
+                                 1024 ) ) > 0 )
+        {
+            totalBytes += len;
+        }
+
+        in.close();
+
+        return totalBytes;
+    }
 }
@@ -0,0 +1,296 @@
+package org.sysunit.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+public class CompressedResourceCacheTest
+    extends UtilTestBase
+{
+    private File dir;
+    private File cacheDir;
+
+    public void setUp()
+        throws Exception
+    {
+        this.dir = File.createTempFile( "sysunit-gzip",
+                                        ".test" );
+        this.dir.delete();
+        this.dir.mkdirs();
+
+        this.cacheDir = new File( this.dir,
+                                  "cache" );
+    }
+
+    public void tearDown()
+    {
+        delete( this.dir );
+
+        this.dir      = null;
+        this.cacheDir = null;
+    }
+
+    public void testCompressedOnce()
+        throws Exception
+    {
+        File file = newRepetitiveFile( "fixture.txt",
+                                       2000 );
+
+        CompressedResourceCache cache = new CompressedResourceCache( this.cacheDir,
+                                                                     1024 * 1024,
+                                                                     1024 * 1024 );
+
+        FileInputStream in = cache.openCompressed( file );
+
+        assertNotNull( "compressed",
+                       in );
+
+        assertTrue( "smaller than the file",
+                    in.getChannel().size() < file.length() );
+
+        assertEquals( "inflates to the file",
+                      file.length(),
+                      count( new GZIPInputStream( in ) ) );
+
+        in = cache.openCompressed( file );
+
+        assertNotNull( "compressed again",
+                       in );
+
+        in.close();
+
+        assertEquals( "compressed once",
+                      1,
+                      cache.getCompressions() );
+
+        assertEquals( "one gzipped file on disk",
+                      1,
+                      this.cacheDir.list().length );
+    }
+
+    public void testIncompressibleRemembered()
+        throws Exception
+    {
+        File file = new File( this.dir,
+                              "random.bin" );
+
+        byte[] bytes = new byte[ 8192 ];
+
+        new Random( 42 ).nextBytes( bytes );
+
+        FileOutputStream fileOut = new FileOutputStream( file );
+
+        fileOut.write( bytes );
+        fileOut.close();
+
+        CompressedResourceCache cache = new CompressedResourceCache( this.cacheDir,
+                                                                     1024 * 1024,
+                                                                     1024 * 1024 );
+
+        assertNull( "served as it is",
+                    cache.openCompressed( file ) );
+
+        assertNull( "still served as it is",
+                    cache.openCompressed( file ) );
+
+        assertEquals( "tried once",
+                      1,
+                      cache.getCompressions() );
+
+        assertEquals( "nothing kept on disk",
+                      0,
+                      this.cacheDir.list().length );
+    }
+
+    public void testTooLarge()
+        throws Exception
+    {
+        File file = newRepetitiveFile( "fixture.txt",
+                                       2000 );
+
+        CompressedResourceCache cache = new CompressedResourceCache( this.cacheDir,
+                                                                     1024 * 1024,
+                                                                     1024 );
+
+        assertNull( "larger than maxFileSize served as it is",
+                    cache.openCompressed( file ) );
+
+        assertEquals( "not compressed",
+                      0,
+                      cache.getCompressions() );
+    }
+
+    public void testChanged()
+        throws Exception
+    {
+        File file = newRepetitiveFile( "fixture.txt",
+                                       2000 );
+
+        CompressedResourceCache cache = new CompressedResourceCache( this.cacheDir,
+                                                                     1024 * 1024,
+                                                                     1024 * 1024 );
+
+        cache.openCompressed( file ).close();
+
+        file = newRepetitiveFile( "fixture.txt",
+                                  3000 );
+
+        FileInputStream in = cache.openCompressed( file );
+
+        assertEquals( "inflates to the changed file",
+                      file.length(),
+                      count( new GZIPInputStream( in ) ) );
+
+        assertEquals( "compressed again",
+                      2,
+                      cache.getCompressions() );
+
+        assertEquals( "stale copy removed",
+                      1,
+                      this.cacheDir.list().length );
+    }
+
+    public void testEvicted()
+        throws Exception
+    {
+        File file1 = newRepetitiveFile( "fixture1.txt",
+                                        2000 );
+
+        File file2 = newRepetitiveFile( "fixture2.txt",
+                                        2000 );
+
+        CompressedResourceCache cache = new CompressedResourceCache( this.cacheDir,
+                                                                     1,
+                                                                     1024 * 1024 );
+
+        cache.openCompressed( file1 );
+
+        cache.openCompressed( file2 );
+
+        assertEquals( "only what fits kept",
+                      0,
+                      cache.getTotalBytes() );
+
+        cache.clear();
+
+        assertEquals( "nothing left on disk",
+                      0,
+                      this.cacheDir.list().length );
+    }
+
+    public void testConcurrentCompressedOnce()
+        throws Exception
+    {
+        final File file = newRepetitiveFile( "fixture.txt",
+                                             200000 );
+
+        final CompressedResourceCache cache = new CompressedResourceCache( this.cacheDir,
+                                                                           64 * 1024 * 1024,
+                                                                           64 * 1024 * 1024 );
+
+        final long[] lengths = new long[ 4 ];
+
+        Thread[] threads = new Thread[ lengths.length ];
+
+        for ( int i = 0 ; i < threads.length ; ++i )
+        {
+            final int index = i;
+
+            threads[ i ] = new Thread()
+                {
+                    public void run()
+                    {
+                        try
+                        {
+                            lengths[ index ] = count( new GZIPInputStream( cache.openCompressed( file ) ) );
+                        }
+                        catch (Exception e)
+                        {
+                            lengths[ index ] = -1;
+                        }
+                    }
+                };
+        }
+
+        for ( int i = 0 ; i < threads.length ; ++i )
+        {
+            threads[ i ].start();
+        }
+
+        for ( int i = 0 ; i < threads.length ; ++i )
+        {
+            threads[ i ].join();
+        }
+
+        for ( int i = 0 ; i < lengths.length ; ++i )
+        {
+            assertEquals( "every caller inflates to the file",
+                          file.length(),
+                          lengths[ i ] );
+        }
+
+        assertEquals( "compressed once",
+                      1,
+                      cache.getCompressions() );
+    }
+
+    File newRepetitiveFile(String name,
+                           int lines)
+        throws IOException
+    {
+        File file = new File( this.dir,
+                              name );
+
+        FileOutputStream fileOut = new FileOutputStream( file );
+
+        for ( int i = 0 ; i < lines ; ++i )
+        {
+            fileOut.write( ("line " + ( i % 10 ) + " of a repetitive fixture\n").getBytes() );
+        }
+
+        fileOut.close();
+
+        return file;
+    }
+
+    long count(InputStream in)
+        throws IOException
+    {
+        byte[] buf = new byte[1024];
+        int len = 0;
+
+        long totalBytes = 0;
+
+        try
+        {
+            while ( ( len = in.read( buf,
+                                     0,
+                                     buf.length ) ) > 0 )
+            {
+                totalBytes += len;
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+
+        return totalBytes;
+    }
+
+    void delete(File file)
+    {
+        File[] files = file.listFiles();
+
+        for ( int i = 0 ; files != null && i < files.length ; ++i )
+        {
+            delete( files[ i ] );
+        }
+
+        file.delete();
+    }
+}
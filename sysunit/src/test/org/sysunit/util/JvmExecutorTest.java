@@ -84,6 +84,65 @@ public class JvmExecutorTest
 
     }
 
+    public void testJvmOptions()
+        throws Exception
+    {
+        JvmExecutor exec = new JvmExecutor( 0,
+                                            new File( System.getProperty( "java.home" ) ),
+                                            new String[] { "-Xmx32m", "-Dcheese=gouda" },
+                                            ExitValueMain.class.getName(),
+                                            new String[] { "40", "4" },
+                                            this );
+
+        String[] commandArray = exec.getCommandArray();
+
+        assertEquals( "-Xmx32m follows java",
+                      "-Xmx32m",
+                      commandArray[ 1 ] );
+
+        assertEquals( "-Dcheese=gouda follows -Xmx32m",
+                      "-Dcheese=gouda",
+                      commandArray[ 2 ] );
+
+        assertEquals( "-classpath follows options",
+                      "-classpath",
+                      commandArray[ 3 ] );
+
+        exec.run();
+
+        waitFor();
+
+        assertExitValue( 44 );
+    }
+
+    public void testCommandPrefix()
+        throws Exception
+    {
+        JvmExecutor exec = new JvmExecutor( 0,
+                                            new File( System.getProperty( "java.home" ) ),
+                                            ExitValueMain.class.getName(),
+                                            new String[] { "40", "4" },
+                                            this );
+
+        exec.setCommandPrefix( new String[] { "env" } );
+
+        String[] commandArray = exec.getCommandArray();
+
+        assertEquals( "prefix comes first",
+                      "env",
+                      commandArray[ 0 ] );
+
+        assertEquals( "java follows prefix",
+                      exec.getJava(),
+                      commandArray[ 1 ] );
+
+        exec.run();
+
+        waitFor();
+
+        assertExitValue( 44 );
+    }
+
     public void testInterrupt()
         throws Exception
     {
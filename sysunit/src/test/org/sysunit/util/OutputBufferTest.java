@@ -0,0 +1,315 @@
+package org.sysunit.util;
+
+import java.io.File;
+
+public class OutputBufferTest
+    extends UtilTestBase
+{
+    private File spillFile;
+
+    public void setUp()
+        throws Exception
+    {
+        this.spillFile = File.createTempFile( "sysunit-output",
+                                              ".test" );
+    }
+
+    public void tearDown()
+    {
+        this.spillFile.delete();
+        this.spillFile = null;
+    }
+
+    public void testWithinCapacity()
+    {
+        OutputBuffer buffer = new OutputBuffer( 8,
+                                                null,
+                                                0 );
+
+        write( buffer,
+               "abc" );
+
+        write( buffer,
+               "def" );
+
+        assertEquals( "all output kept",
+                      "abcdef",
+                      buffer.getOutput() );
+    }
+
+    public void testWrapDropsOldest()
+    {
+        OutputBuffer buffer = new OutputBuffer( 4,
+                                                null,
+                                                0 );
+
+        write( buffer,
+               "abc" );
+
+        write( buffer,
+               "def" );
+
+        assertEquals( "2 bytes dropped",
+                      2,
+                      buffer.getDropped() );
+
+        assertEquals( "tail kept after marker",
+                      "\n[... 2 bytes dropped ...]\ncdef",
+                      buffer.getOutput() );
+    }
+
+    public void testWriteLargerThanCapacity()
+    {
+        OutputBuffer buffer = new OutputBuffer( 4,
+                                                null,
+                                                0 );
+
+        write( buffer,
+               "abcdefghij" );
+
+        assertEquals( "6 bytes dropped",
+                      6,
+                      buffer.getDropped() );
+
+        assertEquals( "last 4 bytes kept",
+                      "\n[... 6 bytes dropped ...]\nghij",
+                      buffer.getOutput() );
+    }
+
+    public void testSpill()
+    {
+        OutputBuffer buffer = new OutputBuffer( 4,
+                                                this.spillFile,
+                                                1024 );
+
+        write( buffer,
+               "abc" );
+
+        write( buffer,
+               "defghij" );
+
+        assertEquals( "6 bytes spilled",
+                      6,
+                      buffer.getSpilled() );
+
+        assertEquals( "nothing dropped",
+                      0,
+                      buffer.getDropped() );
+
+        assertEquals( "spilled output read back",
+                      "abcdefghij",
+                      buffer.getOutput() );
+    }
+
+    public void testOutputCapped()
+    {
+        OutputBuffer buffer = new OutputBuffer( 4,
+                                                this.spillFile,
+                                                1024 );
+
+        write( buffer,
+               "abcdefghij" );
+
+        assertEquals( "only 2 spilled bytes read back",
+                      "ab\n[... 4 bytes not shown ...]\nghij",
+                      buffer.getOutput( 2 ) );
+    }
+
+    public void testSpillLimit()
+    {
+        OutputBuffer buffer = new OutputBuffer( 4,
+                                                this.spillFile,
+                                                3 );
+
+        write( buffer,
+               "abcdefghij" );
+
+        assertEquals( "3 bytes spilled",
+                      3,
+                      buffer.getSpilled() );
+
+        assertEquals( "3 bytes dropped",
+                      3,
+                      buffer.getDropped() );
+
+        assertEquals( "head and tail kept",
+                      "abc\n[... 3 bytes dropped ...]\nghij",
+                      buffer.getOutput() );
+    }
+
+    public void testClear()
+    {
+        OutputBuffer buffer = new OutputBuffer( 4,
+                                                this.spillFile,
+                                                1024 );
+
+        write( buffer,
+               "abcdefghij" );
+
+        buffer.clear();
+
+        assertEquals( "no output",
+                      "",
+                      buffer.getOutput() );
+
+        assertFalse( "spill file removed",
+                     this.spillFile.exists() );
+
+        write( buffer,
+               "klmnop" );
+
+        assertEquals( "output after clear",
+                      "klmnop",
+                      buffer.getOutput() );
+    }
+
+    public void testDispose()
+    {
+        OutputBuffer buffer = new OutputBuffer( 4,
+                                                this.spillFile,
+                                                1024 );
+
+        write( buffer,
+               "abcdefghij" );
+
+        buffer.dispose();
+
+        assertFalse( "spill file removed",
+                     this.spillFile.exists() );
+
+        assertEquals( "tail kept",
+                      "\n[... 6 bytes dropped ...]\nghij",
+                      buffer.getOutput() );
+    }
+
+    public void testReadByPosition()
+    {
+        OutputBuffer buffer = new OutputBuffer( 4,
+                                                this.spillFile,
+                                                1024 );
+
+        write( buffer,
+               "abcdefghij" );
+
+        assertEquals( "10 bytes written",
+                      10,
+                      buffer.getWritten() );
+
+        assertEquals( "spilled read back",
+                      "abc",
+                      read( buffer,
+                            0,
+                            3 ) );
+
+        assertEquals( "spill read stops at its end",
+                      "def",
+                      read( buffer,
+                            3,
+                            8 ) );
+
+        assertEquals( "buffered read across the wrap",
+                      "ghij",
+                      read( buffer,
+                            6,
+                            8 ) );
+
+        assertEquals( "nothing past the end",
+                      "",
+                      read( buffer,
+                            10,
+                            8 ) );
+    }
+
+    public void testAvailableSkipsDropped()
+    {
+        OutputBuffer buffer = new OutputBuffer( 4,
+                                                this.spillFile,
+                                                3 );
+
+        write( buffer,
+               "abcdefghij" );
+
+        assertEquals( "spilled bytes available",
+                      1,
+                      buffer.getAvailable( 1 ) );
+
+        assertEquals( "dropped bytes skipped",
+                      6,
+                      buffer.getAvailable( 3 ) );
+
+        assertEquals( "all read",
+                      10,
+                      buffer.getAvailable( 10 ) );
+    }
+
+    public void testRelease()
+    {
+        OutputBuffer buffer = new OutputBuffer( 4,
+                                                this.spillFile,
+                                                1024 );
+
+        write( buffer,
+               "abcdef" );
+
+        buffer.release( 1 );
+
+        assertEquals( "unread bytes still spilled",
+                      2,
+                      buffer.getSpilled() );
+
+        buffer.release( 6 );
+
+        assertEquals( "spill emptied once read",
+                      0,
+                      buffer.getSpilled() );
+
+        assertFalse( "spill file removed",
+                     this.spillFile.exists() );
+
+        write( buffer,
+               "ghij" );
+
+        assertEquals( "read bytes not spilled again",
+                      0,
+                      buffer.getSpilled() );
+
+        write( buffer,
+               "kl" );
+
+        assertEquals( "unread bytes spilled from where they start",
+                      6,
+                      buffer.getAvailable( 0 ) );
+
+        assertEquals( "spilled bytes read back",
+                      "gh",
+                      read( buffer,
+                            6,
+                            2 ) );
+    }
+
+    String read(OutputBuffer buffer,
+                long position,
+                int len)
+    {
+        byte[] bytes = new byte[ len ];
+
+        int read = buffer.read( position,
+                                bytes,
+                                0,
+                                len );
+
+        return new String( bytes,
+                           0,
+                           read );
+    }
+
+    void write(OutputBuffer buffer,
+               String text)
+    {
+        byte[] bytes = text.getBytes();
+
+        buffer.write( bytes,
+                      0,
+                      bytes.length );
+    }
+}
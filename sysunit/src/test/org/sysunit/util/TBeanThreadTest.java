@@ -33,6 +33,39 @@ public class TBeanThreadTest
         thr.performTearDown();
     }
 
+    // a TBean that only runs has nothing to warm up, and is run
+    // when measured
+    public void testWarmUpAndMeasure()
+        throws Exception
+    {
+        MockTBean tbean = new MockTBean();
+        TBeanThread thr = startTBean( tbean );
+
+        thr.performSetUp();
+        thr.performWarmUp();
+        thr.performMeasure();
+        thr.performAssertValid();
+        thr.performTearDown();
+    }
+
+    // on runtimes without virtual threads a platform thread stands in
+    public void testVirtual()
+        throws Exception
+    {
+        MockTBean tbean = new MockTBean();
+        TBeanThread thr = startTBean( tbean,
+                                      true );
+
+        assertEquals( "virtual when available",
+                      VirtualThreads.isAvailable(),
+                      thr.isVirtual() );
+
+        thr.performSetUp();
+        thr.performRun();
+        thr.performAssertValid();
+        thr.performTearDown();
+    }
+
     public void testSetUpException()
         throws Exception
     {
@@ -152,9 +185,18 @@ public class TBeanThreadTest
 
     TBeanThread startTBean(MockTBean tbean)
         throws InterruptedException
+    {
+        return startTBean( tbean,
+                           false );
+    }
+
+    TBeanThread startTBean(MockTBean tbean,
+                           boolean virtual)
+        throws InterruptedException
     {
         this.thr = new TBeanThread( tbean,
-                                    this );
+                                    this,
+                                    virtual );
 
         this.thr.start();
 
@@ -211,6 +253,17 @@ public class TBeanThreadTest
         assertExpectedThrowables( thread );
     }
 
+    public void notifyWarmUp(TBeanThread thread)
+    {
+        assertTrue( "has setUp()",
+                    ((MockTBean)thread.getTBean()).didSetUp() );
+
+        assertFalse( "not run()",
+                     ((MockTBean)thread.getTBean()).didRun() );
+
+        assertExpectedThrowables( thread );
+    }
+
     public void notifyRun(TBeanThread thread)
     {
         assertTrue( "has setUp()",
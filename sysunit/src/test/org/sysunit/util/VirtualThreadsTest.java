@@ -0,0 +1,79 @@
+package org.sysunit.util;
+
+public class VirtualThreadsTest
+    extends UtilTestBase
+{
+    private boolean ran;
+
+    public void testAvailable()
+        throws Exception
+    {
+        boolean hasVirtual = true;
+
+        try
+        {
+            Thread.class.getMethod( "ofVirtual",
+                                    new Class[0] );
+        }
+        catch (NoSuchMethodException e)
+        {
+            hasVirtual = false;
+        }
+
+        if ( ! hasVirtual )
+        {
+            assertFalse( "not without Thread.ofVirtual()",
+                         VirtualThreads.isAvailable() );
+        }
+    }
+
+    public void testNewThread()
+        throws Exception
+    {
+        Thread thread = VirtualThreads.newThread( newRunnable(),
+                                                  "virtual",
+                                                  true );
+
+        assertEquals( "name",
+                      "virtual",
+                      thread.getName() );
+
+        assertEquals( "virtual when available",
+                      VirtualThreads.isAvailable(),
+                      VirtualThreads.isVirtual( thread ) );
+
+        thread.start();
+        thread.join();
+
+        assertTrue( "ran",
+                    this.ran );
+    }
+
+    public void testNewPlatformThread()
+        throws Exception
+    {
+        Thread thread = VirtualThreads.newThread( newRunnable(),
+                                                  "platform",
+                                                  false );
+
+        assertFalse( "not virtual",
+                     VirtualThreads.isVirtual( thread ) );
+
+        thread.start();
+        thread.join();
+
+        assertTrue( "ran",
+                    this.ran );
+    }
+
+    Runnable newRunnable()
+    {
+        return new Runnable()
+            {
+                public void run()
+                {
+                    VirtualThreadsTest.this.ran = true;
+                }
+            };
+    }
+}